@@ -0,0 +1,60 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.dispatcher;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+import org.wildfly.clustering.group.Node;
+
+/**
+ * A {@link CommandDispatcher} capable of sending a batch of commands to a node, or to the group, in a single message.
+ * Commands of a batch are executed in order on each recipient.
+ * The failure of a command does not prevent the execution of subsequent commands of the same batch.
+ *
+ * @param <C> the command context type
+ */
+public interface BatchCommandDispatcher<C> extends CommandDispatcher<C> {
+
+    /**
+     * Submits the specified commands, in a single message, for execution on the specified node.
+     *
+     * @param <R>      the return value type
+     * @param commands the commands to execute
+     * @param node     the node to execute the commands on
+     * @return the result of each command execution, in the order of the specified commands
+     * @throws Exception if the commands could not be sent
+     */
+    <R> List<Future<R>> submitBatchOnNode(List<? extends Command<R, C>> commands, Node node) throws Exception;
+
+    /**
+     * Submits the specified commands, in a single message, for execution on all nodes in the group, excluding the specified nodes.
+     *
+     * @param <R>           the return value type
+     * @param commands      the commands to execute
+     * @param excludedNodes the set of nodes to exclude
+     * @return the result of each command execution per node, in the order of the specified commands
+     * @throws Exception if the commands could not be broadcast
+     */
+    <R> Map<Node, List<Future<R>>> submitBatchOnCluster(List<? extends Command<R, C>> commands, Node... excludedNodes) throws Exception;
+}
@@ -0,0 +1,44 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.dispatcher;
+
+import java.util.Map;
+
+import org.wildfly.clustering.group.Node;
+
+/**
+ * Receives the responses of a command submitted via a {@link NotifyingCommandDispatcher}.
+ *
+ * @param <R> the response type
+ */
+public interface CommandResponseListener<R> {
+
+    /**
+     * Invoked once all responses were received, once the requested quorum of successful responses was received, or once the request timed out.
+     * Nodes that did not respond within the timeout, or before the quorum was reached, are mapped to a response that throws an {@link java.util.concurrent.ExecutionException} caused by a {@link java.util.concurrent.TimeoutException}.
+     * Nodes that left the group are not included.
+     * This method must not block, since it is invoked by a thread of the transport.
+     *
+     * @param responses a map of command execution results per node
+     */
+    void completed(Map<Node, CommandResponse<R>> responses);
+}
@@ -0,0 +1,57 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.dispatcher;
+
+import org.wildfly.clustering.group.Node;
+
+/**
+ * A {@link CommandDispatcher} that notifies a listener of the responses to a command, instead of returning a {@link java.util.concurrent.Future} per node.
+ * This allows callers to fan out a command, and aggregate its responses, without blocking a thread per node.
+ *
+ * @param <C> the command context type
+ */
+public interface NotifyingCommandDispatcher<C> extends CommandDispatcher<C> {
+
+    /**
+     * Submits the specified command on all nodes in the group, excluding the specified nodes, notifying the specified listener once all nodes responded.
+     *
+     * @param <R>           the return value type
+     * @param command       the command to execute
+     * @param listener      the listener to notify of the responses
+     * @param excludedNodes the set of nodes to exclude
+     * @throws Exception if the command could not be broadcast
+     */
+    <R> void submitOnCluster(Command<R, C> command, CommandResponseListener<R> listener, Node... excludedNodes) throws Exception;
+
+    /**
+     * Submits the specified command on all nodes in the group, excluding the specified nodes, notifying the specified listener as soon as the specified number of nodes responded successfully.
+     *
+     * @param <R>           the return value type
+     * @param command       the command to execute
+     * @param quorum        the number of successful responses to wait for, or 0 to wait for all nodes
+     * @param listener      the listener to notify of the responses
+     * @param excludedNodes the set of nodes to exclude
+     * @throws IllegalArgumentException if the quorum is negative
+     * @throws Exception if the command could not be broadcast
+     */
+    <R> void submitOnCluster(Command<R, C> command, int quorum, CommandResponseListener<R> listener, Node... excludedNodes) throws Exception;
+}
@@ -0,0 +1,176 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.clustering.marshalling;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Growable output buffer into which values are marshalled.
+ * Buffers are reused per thread, and new buffers are sized according to the last marshalled size of the same type of
+ * value, so that marshalling a value usually neither allocates nor grows a buffer.
+ * A buffer that grew beyond 16KB is trimmed back to its minimum capacity when released.
+ */
+public final class MarshallingBuffer extends OutputStream {
+
+    private static final int MIN_CAPACITY = 256;
+    // Larger buffers are trimmed on release, so that an occasional large value does not pin memory to a pool thread
+    private static final int MAX_RETAINED_CAPACITY = 16 * 1024;
+
+    private static final ThreadLocal<MarshallingBuffer> BUFFERS = new ThreadLocal<>();
+    private static final ClassValue<AtomicInteger> LAST_SIZES = new ClassValue<AtomicInteger>() {
+        @Override
+        protected AtomicInteger computeValue(Class<?> type) {
+            return new AtomicInteger(MIN_CAPACITY);
+        }
+    };
+
+    private static final AtomicLong allocations = new AtomicLong();
+    private static final AtomicLong allocatedBytes = new AtomicLong();
+    private static final AtomicLong reuses = new AtomicLong();
+
+    /**
+     * Obtains a buffer for marshalling a value of the specified type.
+     * The buffer must be {@link #release() released} once its content was consumed.
+     * @param type the type of the value to marshal
+     * @return an empty buffer
+     */
+    public static MarshallingBuffer acquire(Class<?> type) {
+        int expectedSize = LAST_SIZES.get(type).get();
+        MarshallingBuffer buffer = BUFFERS.get();
+        if (buffer != null) {
+            // Remove the buffer from the thread while in use, so that nested marshalling gets a buffer of its own
+            BUFFERS.remove();
+            reuses.incrementAndGet();
+            buffer.ensureCapacity(expectedSize);
+        } else {
+            buffer = new MarshallingBuffer(expectedSize);
+        }
+        buffer.type = type;
+        return buffer;
+    }
+
+    /**
+     * @return the number of buffers, including grown and trimmed buffers, allocated so far
+     */
+    public static long getAllocations() {
+        return allocations.get();
+    }
+
+    /**
+     * @return the total number of bytes allocated for buffers so far
+     */
+    public static long getAllocatedBytes() {
+        return allocatedBytes.get();
+    }
+
+    /**
+     * @return the number of times a thread's buffer was reused so far
+     */
+    public static long getReuses() {
+        return reuses.get();
+    }
+
+    private byte[] bytes;
+    private int size;
+    private Class<?> type;
+
+    private MarshallingBuffer(int capacity) {
+        this.bytes = allocate(capacity);
+    }
+
+    private static byte[] allocate(int capacity) {
+        allocations.incrementAndGet();
+        allocatedBytes.addAndGet(capacity);
+        return new byte[capacity];
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > this.bytes.length) {
+            byte[] bytes = allocate(Math.max(capacity, this.bytes.length << 1));
+            System.arraycopy(this.bytes, 0, bytes, 0, this.size);
+            this.bytes = bytes;
+        }
+    }
+
+    @Override
+    public void write(int b) {
+        this.ensureCapacity(this.size + 1);
+        this.bytes[this.size++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int offset, int length) {
+        this.ensureCapacity(this.size + length);
+        System.arraycopy(b, offset, this.bytes, this.size, length);
+        this.size += length;
+    }
+
+    /**
+     * @return the number of bytes written to this buffer
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Copies the content of this buffer to the specified output.
+     * @param output a data output
+     * @throws IOException if the output could not be written
+     */
+    public void writeTo(DataOutput output) throws IOException {
+        output.write(this.bytes, 0, this.size);
+    }
+
+    /**
+     * @return a copy of the content of this buffer
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(this.bytes, this.size);
+    }
+
+    /**
+     * @return the current capacity of this buffer
+     */
+    int capacity() {
+        return this.bytes.length;
+    }
+
+    /**
+     * Records the size of the marshalled value for its type, and returns this buffer to the current thread.
+     * A buffer grown beyond the retained capacity is trimmed back to the minimum capacity.
+     */
+    public void release() {
+        LAST_SIZES.get(this.type).lazySet(Math.max(this.size, MIN_CAPACITY));
+        this.type = null;
+        this.size = 0;
+        if (this.bytes.length > MAX_RETAINED_CAPACITY) {
+            this.bytes = allocate(MIN_CAPACITY);
+        }
+        BUFFERS.set(this);
+    }
+}
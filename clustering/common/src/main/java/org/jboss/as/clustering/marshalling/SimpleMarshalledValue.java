@@ -23,11 +23,11 @@
 package org.jboss.as.clustering.marshalling;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.Externalizable;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.io.OutputStream;
 import java.util.Arrays;
 
 import org.jboss.marshalling.Marshaller;
@@ -63,23 +63,44 @@ public class SimpleMarshalledValue<T> implements MarshalledValue<T, MarshallingC
         return this.object;
     }
 
-    byte[] getBytes() throws IOException {
+    /**
+     * Returns the serialized form of this value, i.e. the content written by {@link #writeExternal(ObjectOutput)} following its length.
+     * @return a byte array, or null, if this value is null
+     * @throws IOException if the object could not be marshalled
+     */
+    public byte[] getBytes() throws IOException {
         byte[] bytes = this.bytes;
         if (bytes != null) return bytes;
-        if (this.object == null) return null;
+        T object = this.object;
+        if (object == null) return null;
+        MarshallingBuffer buffer = MarshallingBuffer.acquire(object.getClass());
+        try {
+            this.marshal(object, buffer);
+            return buffer.toByteArray();
+        } finally {
+            buffer.release();
+        }
+    }
+
+    private void marshal(T object, OutputStream output) throws IOException {
         int version = this.context.getCurrentVersion();
-        ByteArrayOutputStream output = new ByteArrayOutputStream();
-        ClassLoader loader = setThreadContextClassLoader(this.context.getClassLoader());
+        ClassLoader loader = this.context.getClassLoader();
+        ClassLoader currentLoader = WildFlySecurityManager.getCurrentContextClassLoaderPrivileged();
+        boolean switchLoader = (loader != null) && (loader != currentLoader);
+        if (switchLoader) {
+            WildFlySecurityManager.setCurrentContextClassLoaderPrivileged(loader);
+        }
         try (SimpleDataOutput data = new SimpleDataOutput(Marshalling.createByteOutput(output))) {
             data.writeInt(version);
             try (Marshaller marshaller = this.context.createMarshaller(version)) {
                 marshaller.start(data);
-                marshaller.writeObject(this.object);
+                marshaller.writeObject(object);
                 marshaller.finish();
-                return output.toByteArray();
             }
         } finally {
-            setThreadContextClassLoader(loader);
+            if (switchLoader) {
+                WildFlySecurityManager.setCurrentContextClassLoaderPrivileged(currentLoader);
+            }
         }
     }
 
@@ -93,7 +114,12 @@ public class SimpleMarshalledValue<T> implements MarshalledValue<T, MarshallingC
             this.context = context;
             if (this.bytes != null) {
                 ByteArrayInputStream input = new ByteArrayInputStream(this.bytes);
-                ClassLoader loader = setThreadContextClassLoader(this.context.getClassLoader());
+                ClassLoader loader = this.context.getClassLoader();
+                ClassLoader currentLoader = WildFlySecurityManager.getCurrentContextClassLoaderPrivileged();
+                boolean switchLoader = (loader != null) && (loader != currentLoader);
+                if (switchLoader) {
+                    WildFlySecurityManager.setCurrentContextClassLoaderPrivileged(loader);
+                }
                 try (SimpleDataInput data = new SimpleDataInput(Marshalling.createByteInput(input))) {
                     int version = data.readInt();
                     try (Unmarshaller unmarshaller = context.createUnmarshaller(version)) {
@@ -103,7 +129,9 @@ public class SimpleMarshalledValue<T> implements MarshalledValue<T, MarshallingC
                         this.bytes = null; // Free up memory
                     }
                 } finally {
-                    setThreadContextClassLoader(loader);
+                    if (switchLoader) {
+                        WildFlySecurityManager.setCurrentContextClassLoaderPrivileged(currentLoader);
+                    }
                 }
             }
         }
@@ -147,12 +175,25 @@ public class SimpleMarshalledValue<T> implements MarshalledValue<T, MarshallingC
 
     @Override
     public void writeExternal(ObjectOutput out) throws IOException {
-        byte[] bytes = this.getBytes();
+        byte[] bytes = this.bytes;
         if (bytes != null) {
             out.writeInt(bytes.length);
             out.write(bytes);
-        } else {
+            return;
+        }
+        T object = this.object;
+        if (object == null) {
             out.writeInt(0);
+            return;
+        }
+        // Marshal into a reusable buffer and copy it straight to the output, rather than via an intermediate byte[]
+        MarshallingBuffer buffer = MarshallingBuffer.acquire(object.getClass());
+        try {
+            this.marshal(object, buffer);
+            out.writeInt(buffer.size());
+            buffer.writeTo(out);
+        } finally {
+            buffer.release();
         }
     }
 
@@ -166,8 +207,4 @@ public class SimpleMarshalledValue<T> implements MarshalledValue<T, MarshallingC
         }
         this.bytes = bytes;
     }
-
-    private static ClassLoader setThreadContextClassLoader(ClassLoader loader) {
-        return (loader != null) ? WildFlySecurityManager.setCurrentContextClassLoaderPrivileged(loader) : null;
-    }
 }
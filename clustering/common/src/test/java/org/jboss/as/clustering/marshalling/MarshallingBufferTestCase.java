@@ -0,0 +1,100 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.clustering.marshalling;
+
+import static org.junit.Assert.*;
+
+import java.util.UUID;
+
+import org.junit.Test;
+
+/**
+ * Unit test for {@link MarshallingBuffer}.
+ */
+public class MarshallingBufferTestCase {
+
+    @Test
+    public void nested() throws Exception {
+        MarshallingBuffer outer = MarshallingBuffer.acquire(String.class);
+        MarshallingBuffer inner = MarshallingBuffer.acquire(String.class);
+        assertNotSame(outer, inner);
+        outer.write(new byte[] { 1, 2, 3 });
+        inner.write(4);
+        assertEquals(3, outer.size());
+        assertEquals(1, inner.size());
+        assertArrayEquals(new byte[] { 1, 2, 3 }, outer.toByteArray());
+        inner.release();
+        outer.release();
+
+        MarshallingBuffer buffer = MarshallingBuffer.acquire(String.class);
+        try {
+            assertSame(outer, buffer);
+            assertEquals(0, buffer.size());
+        } finally {
+            buffer.release();
+        }
+    }
+
+    @Test
+    public void predictSize() throws Exception {
+        MarshallingBuffer buffer = MarshallingBuffer.acquire(UUID.class);
+        buffer.write(new byte[4096]);
+        buffer.release();
+
+        // Hold on to the buffer of this thread, so that the next one is allocated according to the predicted size
+        MarshallingBuffer held = MarshallingBuffer.acquire(String.class);
+        try {
+            long allocations = MarshallingBuffer.getAllocations();
+            long allocatedBytes = MarshallingBuffer.getAllocatedBytes();
+            buffer = MarshallingBuffer.acquire(UUID.class);
+            assertEquals(4096, buffer.capacity());
+            buffer.write(new byte[4096]);
+            assertEquals(4096, buffer.capacity());
+            buffer.release();
+            assertEquals(allocations + 1, MarshallingBuffer.getAllocations());
+            assertEquals(allocatedBytes + 4096, MarshallingBuffer.getAllocatedBytes());
+        } finally {
+            held.release();
+        }
+    }
+
+    @Test
+    public void trimLargeBuffer() throws Exception {
+        MarshallingBuffer buffer = MarshallingBuffer.acquire(Object.class);
+        buffer.write(new byte[1024 * 1024]);
+        long allocations = MarshallingBuffer.getAllocations();
+        long reuses = MarshallingBuffer.getReuses();
+        buffer.release();
+        assertEquals(allocations + 1, MarshallingBuffer.getAllocations());
+
+        // The thread keeps its buffer, but not the memory of the large value
+        MarshallingBuffer reused = MarshallingBuffer.acquire(Integer.class);
+        try {
+            assertSame(buffer, reused);
+            assertEquals(reuses + 1, MarshallingBuffer.getReuses());
+            assertTrue(reused.capacity() < 1024 * 1024);
+        } finally {
+            reused.release();
+        }
+    }
+}
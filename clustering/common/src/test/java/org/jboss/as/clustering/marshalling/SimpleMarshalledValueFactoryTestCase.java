@@ -143,6 +143,35 @@ public class SimpleMarshalledValueFactoryTestCase {
         assertEquals(0, mv.hashCode());
     }
 
+    /**
+     * Verifies that repeated replication of a value marshals into the reused buffer of the current thread.
+     */
+    @Test
+    public void reuseBuffer() throws Exception {
+        UUID uuid = UUID.randomUUID();
+        // Warm up the buffer of this thread and the size prediction for the value type
+        replicate(this.factory.createMarshalledValue(uuid));
+
+        MarshallingBuffer buffer = MarshallingBuffer.acquire(UUID.class);
+        int capacity = buffer.capacity();
+        buffer.release();
+        long allocations = MarshallingBuffer.getAllocations();
+        long reuses = MarshallingBuffer.getReuses();
+        for (int i = 0; i < 100; ++i) {
+            SimpleMarshalledValue<UUID> copy = replicate(this.factory.createMarshalledValue(uuid));
+            assertEquals(uuid, copy.get(this.context));
+        }
+        assertEquals(allocations, MarshallingBuffer.getAllocations());
+        assertEquals(reuses + 100, MarshallingBuffer.getReuses());
+        MarshallingBuffer reused = MarshallingBuffer.acquire(UUID.class);
+        try {
+            assertSame(buffer, reused);
+            assertEquals(capacity, reused.capacity());
+        } finally {
+            reused.release();
+        }
+    }
+
     <T> void validateHashCode(T original, SimpleMarshalledValue<T> copy) {
         assertEquals(0, copy.hashCode());
     }
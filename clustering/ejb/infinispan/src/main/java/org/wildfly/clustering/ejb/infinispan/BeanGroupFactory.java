@@ -43,4 +43,19 @@ public interface BeanGroupFactory<G, I, T> extends Creator<G, BeanGroupEntry<I,
      * @return a bean group
      */
     BeanGroup<G, I, T> createGroup(G id, BeanGroupEntry<I, T> entry);
+
+    /**
+     * @return the number of times a bean group was replicated, or written to a cache store, on close
+     */
+    long getReplicationCount();
+
+    /**
+     * @return the total serialized size of the bean groups replicated on close
+     */
+    long getReplicatedBytes();
+
+    /**
+     * @return the number of times replication of a bean group was skipped on close, since its serialized form was unchanged
+     */
+    long getSkippedReplicationCount();
 }
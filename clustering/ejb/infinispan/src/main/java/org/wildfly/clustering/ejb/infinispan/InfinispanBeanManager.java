@@ -308,6 +308,21 @@ public class InfinispanBeanManager<G, I, T> implements BeanManager<G, I, T, Tran
         return this.passiveCount.get();
     }
 
+    @Override
+    public long getReplicationCount() {
+        return this.groupFactory.getReplicationCount();
+    }
+
+    @Override
+    public long getReplicatedBytes() {
+        return this.groupFactory.getReplicatedBytes();
+    }
+
+    @Override
+    public long getSkippedReplicationCount() {
+        return this.groupFactory.getSkippedReplicationCount();
+    }
+
     @CacheEntryPassivated
     public void passivated(CacheEntryPassivatedEvent<BeanKey<I>, BeanEntry<G>> event) {
         if (event.isPre()) {
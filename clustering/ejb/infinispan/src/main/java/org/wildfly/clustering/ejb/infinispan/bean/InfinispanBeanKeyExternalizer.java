@@ -27,14 +27,19 @@ import java.io.ObjectOutput;
 
 import org.infinispan.commons.marshall.Externalizer;
 import org.jboss.as.clustering.infinispan.io.AbstractSimpleExternalizer;
+import org.jboss.as.clustering.infinispan.io.CompactEncoding;
 import org.jboss.ejb.client.SessionID;
 import org.wildfly.clustering.ejb.infinispan.SessionIDExternalizer;
 
 /**
+ * Externalizer for an {@link InfinispanBeanKey}.
+ * Bean names are written as objects, so that repeated names within the same stream (e.g. during state transfer) are written as back-references.
+ * The legacy format, which has no version, is still read, and written if {@link CompactEncoding#LEGACY_FORMAT} is set.
  * @author Paul Ferraro
  */
 public class InfinispanBeanKeyExternalizer extends AbstractSimpleExternalizer<InfinispanBeanKey<SessionID>> {
     private static final long serialVersionUID = -7421324153578768415L;
+    private static final int VERSION = 1;
 
     private final Externalizer<SessionID> externalizer = new SessionIDExternalizer();
 
@@ -49,13 +54,20 @@ public class InfinispanBeanKeyExternalizer extends AbstractSimpleExternalizer<In
 
     @Override
     public void writeObject(ObjectOutput output, InfinispanBeanKey<SessionID> key) throws IOException {
-        output.writeUTF(key.getBeanName());
+        if (CompactEncoding.LEGACY_FORMAT) {
+            output.writeUTF(key.getBeanName());
+        } else {
+            CompactEncoding.writeVersion(output, VERSION);
+            output.writeObject(key.getBeanName());
+        }
         this.externalizer.writeObject(output, key.getId());
     }
 
     @Override
     public InfinispanBeanKey<SessionID> readObject(ObjectInput input) throws IOException, ClassNotFoundException {
-        String beanName = input.readUTF();
+        int header = CompactEncoding.readHeader(input);
+        // Canonicalize bean names, so that repeated names are marshalled as back-references
+        String beanName = (CompactEncoding.getVersion(header, VERSION) == CompactEncoding.LEGACY_VERSION) ? CompactEncoding.readLegacyUTF(input, header) : ((String) input.readObject()).intern();
         SessionID id = this.externalizer.readObject(input);
         return new InfinispanBeanKey<>(beanName, id);
     }
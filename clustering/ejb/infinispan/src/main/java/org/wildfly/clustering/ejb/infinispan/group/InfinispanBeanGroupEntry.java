@@ -42,6 +42,10 @@ public class InfinispanBeanGroupEntry<I, T> implements BeanGroupEntry<I, T> {
 
     private final MarshalledValue<Map<I, T>, MarshallingContext> beans;
     private final ConcurrentMap<I, AtomicInteger> usage = new ConcurrentHashMap<>();
+    // Serialized form of the beans pending replication, consumed by the externalizer
+    private volatile byte[] snapshot;
+    // Digest of the serialized form of the beans when last replicated
+    private volatile byte[] digest;
 
     public InfinispanBeanGroupEntry(MarshalledValue<Map<I, T>, MarshallingContext> beans) {
         this.beans = beans;
@@ -79,4 +83,20 @@ public class InfinispanBeanGroupEntry<I, T> implements BeanGroupEntry<I, T> {
         }
         return total;
     }
+
+    byte[] getSnapshot() {
+        return this.snapshot;
+    }
+
+    void setSnapshot(byte[] snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    byte[] getDigest() {
+        return this.digest;
+    }
+
+    void setDigest(byte[] digest) {
+        this.digest = digest;
+    }
 }
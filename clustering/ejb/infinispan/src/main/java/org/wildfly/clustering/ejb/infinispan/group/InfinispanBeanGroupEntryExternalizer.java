@@ -22,38 +22,85 @@
 package org.wildfly.clustering.ejb.infinispan.group;
 
 import java.io.IOException;
+import java.io.InvalidObjectException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
 import java.util.Map;
 
 import org.jboss.as.clustering.infinispan.io.AbstractSimpleExternalizer;
+import org.jboss.as.clustering.infinispan.io.CompactEncoding;
 import org.jboss.as.clustering.marshalling.MarshalledValue;
 import org.jboss.as.clustering.marshalling.MarshallingContext;
+import org.jboss.as.clustering.marshalling.SimpleMarshalledValue;
 
 /**
+ * Externalizer for a bean group entry.
+ * The beans are preceded by a format byte, which indicates whether they are written as their serialized form, or as a marshalled value.
+ * This format is not compatible with that of previous releases, which wrote the marshalled value only, and which cannot be distinguished from it.
+ * During a rolling upgrade from a previous release, the previous format is read and written instead
+ * if {@link CompactEncoding#LEGACY_FORMAT} is set, until all members of the cluster are upgraded.
  * @author Paul Ferraro
  */
 public class InfinispanBeanGroupEntryExternalizer<I, T> extends AbstractSimpleExternalizer<InfinispanBeanGroupEntry<I, T>> {
     private static final long serialVersionUID = 783357750795915336L;
 
+    static final byte MARSHALLED_VALUE_FORMAT = 0;
+    static final byte SERIALIZED_FORM_FORMAT = 1;
+
+    private final boolean legacy;
+
     public InfinispanBeanGroupEntryExternalizer() {
-        this(InfinispanBeanGroupEntry.class);
+        this(CompactEncoding.LEGACY_FORMAT);
+    }
+
+    InfinispanBeanGroupEntryExternalizer(boolean legacy) {
+        this(InfinispanBeanGroupEntry.class, legacy);
     }
 
     @SuppressWarnings({ "rawtypes", "unchecked" })
-    private InfinispanBeanGroupEntryExternalizer(Class targetClass) {
+    private InfinispanBeanGroupEntryExternalizer(Class targetClass, boolean legacy) {
         super(targetClass);
+        this.legacy = legacy;
     }
 
     @Override
     public void writeObject(ObjectOutput output, InfinispanBeanGroupEntry<I, T> entry) throws IOException {
-        output.writeObject(entry.getBeans());
+        // If this entry is being replicated, reuse the serialized form already computed to detect changes
+        byte[] snapshot = entry.getSnapshot();
+        if (this.legacy) {
+            if (snapshot != null) {
+                entry.setSnapshot(null);
+            }
+            output.writeObject(entry.getBeans());
+            return;
+        }
+        output.writeByte((snapshot != null) ? SERIALIZED_FORM_FORMAT : MARSHALLED_VALUE_FORMAT);
+        if (snapshot != null) {
+            entry.setSnapshot(null);
+            output.writeInt(snapshot.length);
+            output.write(snapshot);
+        } else {
+            output.writeObject(entry.getBeans());
+        }
     }
 
     @Override
     public InfinispanBeanGroupEntry<I, T> readObject(ObjectInput input) throws IOException, ClassNotFoundException {
-        @SuppressWarnings("unchecked")
-        MarshalledValue<Map<I, T>, MarshallingContext> value = (MarshalledValue<Map<I, T>, MarshallingContext>) input.readObject();
-        return new InfinispanBeanGroupEntry<>(value);
+        byte format = this.legacy ? MARSHALLED_VALUE_FORMAT : input.readByte();
+        switch (format) {
+            case SERIALIZED_FORM_FORMAT: {
+                SimpleMarshalledValue<Map<I, T>> value = new SimpleMarshalledValue<>();
+                value.readExternal(input);
+                return new InfinispanBeanGroupEntry<I, T>(value);
+            }
+            case MARSHALLED_VALUE_FORMAT: {
+                @SuppressWarnings("unchecked")
+                MarshalledValue<Map<I, T>, MarshallingContext> value = (MarshalledValue<Map<I, T>, MarshallingContext>) input.readObject();
+                return new InfinispanBeanGroupEntry<>(value);
+            }
+            default: {
+                throw new InvalidObjectException(String.valueOf(format));
+            }
+        }
     }
 }
@@ -21,13 +21,28 @@
  */
 package org.wildfly.clustering.ejb.infinispan.group;
 
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.transaction.RollbackException;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.SystemException;
+import javax.transaction.Transaction;
+import javax.transaction.TransactionManager;
 
 import org.infinispan.Cache;
+import org.infinispan.commons.CacheException;
 import org.infinispan.context.Flag;
 import org.jboss.as.clustering.marshalling.MarshalledValueFactory;
+import org.jboss.as.clustering.marshalling.MarshalledValue;
 import org.jboss.as.clustering.marshalling.MarshallingContext;
+import org.jboss.as.clustering.marshalling.SimpleMarshalledValue;
 import org.wildfly.clustering.ee.infinispan.Mutator;
 import org.wildfly.clustering.ejb.infinispan.BeanGroup;
 import org.wildfly.clustering.ejb.infinispan.BeanGroupEntry;
@@ -48,11 +63,32 @@ public class InfinispanBeanGroupFactory<G, I, T> implements BeanGroupFactory<G,
     private final Cache<G, BeanGroupEntry<I, T>> cache;
     private final MarshalledValueFactory<MarshallingContext> factory;
     private final MarshallingContext context;
+    private final boolean persistent;
+    private final AtomicLong replications = new AtomicLong();
+    private final AtomicLong replicatedBytes = new AtomicLong();
+    private final AtomicLong skippedReplications = new AtomicLong();
 
     public InfinispanBeanGroupFactory(Cache<G, BeanGroupEntry<I, T>> cache, MarshalledValueFactory<MarshallingContext> factory, MarshallingContext context) {
         this.cache = cache;
         this.factory = factory;
         this.context = context;
+        org.infinispan.configuration.cache.Configuration config = cache.getCacheConfiguration();
+        this.persistent = config.clustering().cacheMode().isClustered() || config.persistence().usingStores();
+    }
+
+    @Override
+    public long getReplicationCount() {
+        return this.replications.get();
+    }
+
+    @Override
+    public long getReplicatedBytes() {
+        return this.replicatedBytes.get();
+    }
+
+    @Override
+    public long getSkippedReplicationCount() {
+        return this.skippedReplications.get();
     }
 
     @Override
@@ -84,7 +120,7 @@ public class InfinispanBeanGroupFactory<G, I, T> implements BeanGroupFactory<G,
 
     @Override
     public BeanGroup<G, I, T> createGroup(final G id, final BeanGroupEntry<I, T> entry) {
-        Mutator mutator = new BeanGroupMutator<>(this.cache, id, entry);
+        Mutator mutator = (this.persistent && (entry instanceof InfinispanBeanGroupEntry)) ? new ChangeDetectingBeanGroupMutator(id, (InfinispanBeanGroupEntry<I, T>) entry) : new BeanGroupMutator<>(this.cache, id, entry);
         return new InfinispanBeanGroup<>(id, entry, this.context, mutator, this);
     }
 
@@ -104,4 +140,86 @@ public class InfinispanBeanGroupFactory<G, I, T> implements BeanGroupFactory<G,
             this.cache.getAdvancedCache().withFlags(Flag.IGNORE_RETURN_VALUES).replace(this.id, this.entry);
         }
     }
+
+    /**
+     * Mutator that only replicates a bean group if its serialized form changed since it was last replicated.
+     * Beans of a group share references, so the group is always serialized as a whole.
+     * The serialized form computed to detect changes is reused to replicate the group.
+     */
+    private class ChangeDetectingBeanGroupMutator implements Mutator {
+        private final G id;
+        private final InfinispanBeanGroupEntry<I, T> entry;
+
+        ChangeDetectingBeanGroupMutator(G id, InfinispanBeanGroupEntry<I, T> entry) {
+            this.id = id;
+            this.entry = entry;
+        }
+
+        @Override
+        public void mutate() {
+            // Discard any snapshot not yet consumed by a previous replication
+            this.entry.setSnapshot(null);
+            MarshalledValue<Map<I, T>, MarshallingContext> value = this.entry.getBeans();
+            byte[] snapshot = null;
+            if (value instanceof SimpleMarshalledValue) {
+                try {
+                    snapshot = ((SimpleMarshalledValue<Map<I, T>>) value).getBytes();
+                } catch (IOException e) {
+                    // Let the cache report the failure
+                }
+            }
+            if (snapshot == null) {
+                InfinispanBeanGroupFactory.this.cache.getAdvancedCache().withFlags(Flag.IGNORE_RETURN_VALUES).replace(this.id, this.entry);
+                return;
+            }
+            byte[] digest = digest(snapshot);
+            if (Arrays.equals(digest, this.entry.getDigest())) {
+                InfinispanBeanGroupFactory.this.skippedReplications.incrementAndGet();
+                return;
+            }
+            // Consumed by the externalizer, which may only run once the enclosing batch commits
+            this.entry.setSnapshot(snapshot);
+            InfinispanBeanGroupFactory.this.cache.getAdvancedCache().withFlags(Flag.IGNORE_RETURN_VALUES).replace(this.id, this.entry);
+            this.updateDigest(digest);
+            InfinispanBeanGroupFactory.this.replications.incrementAndGet();
+            InfinispanBeanGroupFactory.this.replicatedBytes.addAndGet(snapshot.length);
+        }
+
+        /**
+         * Records the digest of the replicated group, once the enclosing batch, if any, commits.
+         * Otherwise, a rolled back replication would cause the next replication of the same content to be skipped.
+         */
+        private void updateDigest(final byte[] digest) {
+            TransactionManager tm = InfinispanBeanGroupFactory.this.cache.getAdvancedCache().getTransactionManager();
+            try {
+                Transaction tx = (tm != null) ? tm.getTransaction() : null;
+                if (tx == null) {
+                    this.entry.setDigest(digest);
+                    return;
+                }
+                tx.registerSynchronization(new Synchronization() {
+                    @Override
+                    public void beforeCompletion() {
+                    }
+
+                    @Override
+                    public void afterCompletion(int status) {
+                        if (status == Status.STATUS_COMMITTED) {
+                            ChangeDetectingBeanGroupMutator.this.entry.setDigest(digest);
+                        }
+                    }
+                });
+            } catch (SystemException | RollbackException e) {
+                throw new CacheException(e);
+            }
+        }
+    }
+
+    static byte[] digest(byte[] bytes) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
@@ -0,0 +1,109 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.ejb.infinispan.group;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.jboss.as.clustering.marshalling.SimpleMarshalledValue;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class InfinispanBeanGroupEntryExternalizerTestCase {
+    private final InfinispanBeanGroupEntryExternalizer<String, Object> externalizer = new InfinispanBeanGroupEntryExternalizer<>();
+
+    @Test
+    public void snapshot() throws ClassNotFoundException, IOException {
+        byte[] snapshot = new byte[] { 1, 2, 3 };
+        InfinispanBeanGroupEntry<String, Object> entry = new InfinispanBeanGroupEntry<>(new SimpleMarshalledValue<Map<String, Object>>());
+        entry.setSnapshot(snapshot);
+
+        InfinispanBeanGroupEntry<String, Object> result = this.readObject(this.writeObject(entry));
+
+        // Snapshot is only written once
+        Assert.assertNull(entry.getSnapshot());
+        Assert.assertArrayEquals(snapshot, ((SimpleMarshalledValue<Map<String, Object>>) result.getBeans()).getBytes());
+    }
+
+    @Test
+    public void noSnapshot() throws ClassNotFoundException, IOException {
+        InfinispanBeanGroupEntry<String, Object> entry = new InfinispanBeanGroupEntry<>(new SimpleMarshalledValue<Map<String, Object>>());
+
+        InfinispanBeanGroupEntry<String, Object> result = this.readObject(this.writeObject(entry));
+
+        Assert.assertNull(((SimpleMarshalledValue<Map<String, Object>>) result.getBeans()).getBytes());
+    }
+
+    @Test
+    public void legacy() throws ClassNotFoundException, IOException {
+        InfinispanBeanGroupEntryExternalizer<String, Object> externalizer = new InfinispanBeanGroupEntryExternalizer<>(true);
+        SimpleMarshalledValue<Map<String, Object>> value = new SimpleMarshalledValue<>();
+        InfinispanBeanGroupEntry<String, Object> entry = new InfinispanBeanGroupEntry<>(value);
+        entry.setSnapshot(new byte[] { 1, 2, 3 });
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            externalizer.writeObject(output, entry);
+        }
+
+        // The legacy format consists of the marshalled value only, without a format byte
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(expected)) {
+            output.writeObject(value);
+        }
+        Assert.assertArrayEquals(expected.toByteArray(), bytes.toByteArray());
+        // The unused snapshot is discarded
+        Assert.assertNull(entry.getSnapshot());
+
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            InfinispanBeanGroupEntry<String, Object> result = externalizer.readObject(input);
+            Assert.assertNull(((SimpleMarshalledValue<Map<String, Object>>) result.getBeans()).getBytes());
+        }
+    }
+
+    @Test
+    public void digest() {
+        byte[] digest = InfinispanBeanGroupFactory.digest(new byte[] { 1, 2, 3 });
+
+        Assert.assertArrayEquals(digest, InfinispanBeanGroupFactory.digest(new byte[] { 1, 2, 3 }));
+        Assert.assertFalse(Arrays.equals(digest, InfinispanBeanGroupFactory.digest(new byte[] { 1, 2, 4 })));
+    }
+
+    private byte[] writeObject(InfinispanBeanGroupEntry<String, Object> entry) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            this.externalizer.writeObject(output, entry);
+        }
+        return bytes.toByteArray();
+    }
+
+    private InfinispanBeanGroupEntry<String, Object> readObject(byte[] bytes) throws ClassNotFoundException, IOException {
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return this.externalizer.readObject(input);
+        }
+    }
+}
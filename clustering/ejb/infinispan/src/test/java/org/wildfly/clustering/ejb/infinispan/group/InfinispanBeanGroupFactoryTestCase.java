@@ -0,0 +1,99 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.ejb.infinispan.group;
+
+import static org.mockito.Mockito.*;
+
+import java.util.Collections;
+import java.util.Map;
+
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.Transaction;
+import javax.transaction.TransactionManager;
+
+import org.infinispan.AdvancedCache;
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.context.Flag;
+import org.jboss.as.clustering.marshalling.MarshalledValueFactory;
+import org.jboss.as.clustering.marshalling.MarshallingContext;
+import org.jboss.as.clustering.marshalling.SimpleMarshalledValue;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.wildfly.clustering.ejb.infinispan.BeanGroup;
+import org.wildfly.clustering.ejb.infinispan.BeanGroupEntry;
+
+public class InfinispanBeanGroupFactoryTestCase {
+
+    @Test
+    public void digestRecordedOnCommit() throws Exception {
+        Cache<String, BeanGroupEntry<String, Object>> cache = mock(Cache.class);
+        AdvancedCache<String, BeanGroupEntry<String, Object>> advancedCache = mock(AdvancedCache.class);
+        TransactionManager tm = mock(TransactionManager.class);
+        Transaction tx = mock(Transaction.class);
+        MarshalledValueFactory<MarshallingContext> factory = mock(MarshalledValueFactory.class);
+        MarshallingContext context = mock(MarshallingContext.class);
+        SimpleMarshalledValue<Map<String, Object>> value = mock(SimpleMarshalledValue.class);
+        Map<String, Object> beans = Collections.<String, Object>singletonMap("bean", "state");
+        String id = "group";
+
+        when(cache.getCacheConfiguration()).thenReturn(new ConfigurationBuilder().clustering().cacheMode(CacheMode.DIST_SYNC).build());
+        when(cache.getAdvancedCache()).thenReturn(advancedCache);
+        when(advancedCache.withFlags(Flag.IGNORE_RETURN_VALUES)).thenReturn(advancedCache);
+        when(advancedCache.getTransactionManager()).thenReturn(tm);
+        when(tm.getTransaction()).thenReturn(tx);
+        when(value.get(context)).thenReturn(beans);
+        when(value.getBytes()).thenReturn(new byte[] { 1, 2, 3 });
+
+        InfinispanBeanGroupFactory<String, String, Object> subject = new InfinispanBeanGroupFactory<>(cache, factory, context);
+        InfinispanBeanGroupEntry<String, Object> entry = new InfinispanBeanGroupEntry<>(value);
+
+        BeanGroup<String, String, Object> group = subject.createGroup(id, entry);
+        group.close();
+
+        ArgumentCaptor<Synchronization> capturedSynchronization = ArgumentCaptor.forClass(Synchronization.class);
+        verify(tx).registerSynchronization(capturedSynchronization.capture());
+        verify(advancedCache).replace(id, entry);
+        // Not recorded before the batch completes
+        Assert.assertNull(entry.getDigest());
+
+        capturedSynchronization.getValue().afterCompletion(Status.STATUS_ROLLEDBACK);
+        Assert.assertNull(entry.getDigest());
+
+        // The rolled back replication is not mistaken for a replicated state
+        group = subject.createGroup(id, entry);
+        group.close();
+        verify(advancedCache, times(2)).replace(id, entry);
+        verify(tx, times(2)).registerSynchronization(capturedSynchronization.capture());
+
+        capturedSynchronization.getValue().afterCompletion(Status.STATUS_COMMITTED);
+        Assert.assertNotNull(entry.getDigest());
+
+        group = subject.createGroup(id, entry);
+        group.close();
+        verify(advancedCache, times(2)).replace(id, entry);
+        Assert.assertEquals(1, subject.getSkippedReplicationCount());
+    }
+}
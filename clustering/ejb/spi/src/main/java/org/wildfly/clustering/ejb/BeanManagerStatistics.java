@@ -25,4 +25,19 @@ public interface BeanManagerStatistics {
     int getActiveCount();
 
     int getPassiveCount();
+
+    /**
+     * @return the number of times a bean group was replicated, or written to a cache store
+     */
+    long getReplicationCount();
+
+    /**
+     * @return the total serialized size of the replicated bean groups
+     */
+    long getReplicatedBytes();
+
+    /**
+     * @return the number of times replication of a bean group was skipped, since it was unchanged
+     */
+    long getSkippedReplicationCount();
 }
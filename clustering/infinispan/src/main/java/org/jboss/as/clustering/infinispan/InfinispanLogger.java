@@ -26,6 +26,7 @@ import static org.jboss.logging.Logger.Level.DEBUG;
 import static org.jboss.logging.Logger.Level.INFO;
 import static org.jboss.logging.Logger.Level.WARN;
 
+import java.io.InvalidObjectException;
 import java.net.URL;
 import java.net.UnknownHostException;
 import java.util.Properties;
@@ -283,4 +284,14 @@ public interface InfinispanLogger extends BasicLogger {
 
     @Message(id = 26, value = "Attribute 'virtual nodes' is an expression and therefore cannot be translated to attribute 'segments'.")
     String segmentsDoesNotSupportExpressions();
+
+    /**
+     * Creates an exception indicating that a marshalled object was written using an unsupported format version.
+     *
+     * @param version the version of the marshalled object
+     *
+     * @return an {@link InvalidObjectException} for the error.
+     */
+    @Message(id = 27, value = "Unsupported marshalling format version: %d")
+    InvalidObjectException unsupportedVersion(int version);
 }
@@ -0,0 +1,244 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.clustering.infinispan.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Arrays;
+
+import org.jboss.as.clustering.infinispan.InfinispanLogger;
+import org.wildfly.security.manager.WildFlySecurityManager;
+
+/**
+ * Compact encodings of frequently marshalled values, e.g. cache keys.
+ * <p>
+ * Formats written by previous releases have no version, and begin with a UTF string, i.e. with the high byte of its length.
+ * Versions are written with their high bit set, so that a reader can distinguish them from the legacy formats,
+ * given that the strings of these formats are shorter than 32768 bytes.
+ * During a rolling upgrade from a previous release, the legacy formats can be written instead
+ * by setting the {@value #LEGACY_FORMAT_PROPERTY} system property to true, until all members of the cluster are upgraded.
+ */
+public final class CompactEncoding {
+
+    public static final String LEGACY_FORMAT_PROPERTY = "jboss.clustering.legacy-key-format";
+
+    /**
+     * Indicates whether the legacy formats should be written, for compatibility with members running a previous release.
+     */
+    public static final boolean LEGACY_FORMAT = Boolean.parseBoolean(WildFlySecurityManager.getPropertyPrivileged(LEGACY_FORMAT_PROPERTY, Boolean.FALSE.toString()));
+
+    /**
+     * The version of the legacy formats, as returned by {@link #getVersion(int, int)}.
+     */
+    public static final int LEGACY_VERSION = 0;
+
+    private static final int VERSION_FLAG = 0x80;
+
+    // Identifiers consisting only of these characters (e.g. generated session identifiers) are packed into 6 bits per character
+    private static final char[] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".toCharArray();
+    private static final byte[] INDEXES = new byte[128];
+    static {
+        Arrays.fill(INDEXES, (byte) -1);
+        for (int i = 0; i < ALPHABET.length; ++i) {
+            INDEXES[ALPHABET[i]] = (byte) i;
+        }
+    }
+
+    private static final int UTF = 0;
+    private static final int PACKED = 1;
+
+    private CompactEncoding() {
+        // Hide
+    }
+
+    /**
+     * Writes the specified format version.
+     * @param output an output stream
+     * @param version a format version, between 1 and 127
+     * @throws IOException if the version could not be written
+     */
+    public static void writeVersion(ObjectOutput output, int version) throws IOException {
+        output.writeByte(VERSION_FLAG | version);
+    }
+
+    /**
+     * Reads the header of a marshalled object, i.e. either its format version, or the first byte of a legacy format.
+     * The header is interpreted using {@link #getVersion(int)}, and if legacy, the rest of the leading string is read via {@link #readLegacyUTF(ObjectInput, int)}.
+     * @param input an input stream
+     * @return the header byte
+     * @throws IOException if the header could not be read
+     */
+    public static int readHeader(ObjectInput input) throws IOException {
+        return input.readUnsignedByte();
+    }
+
+    /**
+     * Returns the format version of the specified header, and verifies that it is supported.
+     * @param header a header read via {@link #readHeader(ObjectInput)}
+     * @param version the current format version
+     * @return the specified format version, or {@link #LEGACY_VERSION} if the header is the first byte of a legacy format
+     * @throws IOException if the format version is not supported
+     */
+    public static int getVersion(int header, int version) throws IOException {
+        if ((header & VERSION_FLAG) == 0) {
+            return LEGACY_VERSION;
+        }
+        int actual = header & ~VERSION_FLAG;
+        if (actual != version) {
+            throw InfinispanLogger.ROOT_LOGGER.unsupportedVersion(actual);
+        }
+        return actual;
+    }
+
+    /**
+     * Reads the rest of the UTF string which begins a legacy format, whose first byte was read as the header.
+     * @param input an input stream
+     * @param header a header read via {@link #readHeader(ObjectInput)}
+     * @return a string
+     * @throws IOException if the string could not be read
+     */
+    public static String readLegacyUTF(ObjectInput input, int header) throws IOException {
+        int length = (header << 8) | input.readUnsignedByte();
+        byte[] bytes = new byte[length + 2];
+        bytes[0] = (byte) header;
+        bytes[1] = (byte) length;
+        input.readFully(bytes, 2, length);
+        return new DataInputStream(new ByteArrayInputStream(bytes)).readUTF();
+    }
+
+    /**
+     * Writes the specified non-negative integer using a variable length encoding, i.e. 7 bits per byte.
+     * @param output an output stream
+     * @param value a non-negative integer
+     * @throws IOException if the value could not be written
+     */
+    public static void writeUnsignedInt(ObjectOutput output, int value) throws IOException {
+        int remaining = value;
+        while ((remaining & ~0x7F) != 0) {
+            output.writeByte((remaining & 0x7F) | 0x80);
+            remaining >>>= 7;
+        }
+        output.writeByte(remaining);
+    }
+
+    /**
+     * Reads a non-negative integer written via {@link #writeUnsignedInt(ObjectOutput, int)}.
+     * @param input an input stream
+     * @return a non-negative integer
+     * @throws IOException if the value could not be read
+     */
+    public static int readUnsignedInt(ObjectInput input) throws IOException {
+        int value = 0;
+        int shift = 0;
+        int b = input.readUnsignedByte();
+        while ((b & 0x80) != 0) {
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+            b = input.readUnsignedByte();
+        }
+        return value | (b << shift);
+    }
+
+    /**
+     * Writes the specified identifier.
+     * Identifiers composed of URL-safe base64 characters are packed into 6 bits per character, all others are written as UTF.
+     * @param output an output stream
+     * @param id an identifier
+     * @throws IOException if the identifier could not be written
+     */
+    public static void writeIdentifier(ObjectOutput output, String id) throws IOException {
+        int length = id.length();
+        if (!isPackable(id)) {
+            output.writeByte(UTF);
+            output.writeUTF(id);
+            return;
+        }
+        byte[] packed = new byte[((length * 6) + 7) / 8];
+        int buffer = 0;
+        int bits = 0;
+        int position = 0;
+        for (int i = 0; i < length; ++i) {
+            buffer = (buffer << 6) | INDEXES[id.charAt(i)];
+            bits += 6;
+            if (bits >= 8) {
+                bits -= 8;
+                packed[position++] = (byte) (buffer >> bits);
+                buffer &= (1 << bits) - 1;
+            }
+        }
+        if (bits > 0) {
+            packed[position] = (byte) (buffer << (8 - bits));
+        }
+        output.writeByte(PACKED);
+        writeUnsignedInt(output, length);
+        output.write(packed);
+    }
+
+    /**
+     * Reads an identifier written via {@link #writeIdentifier(ObjectOutput, String)}.
+     * @param input an input stream
+     * @return an identifier
+     * @throws IOException if the identifier could not be read
+     */
+    public static String readIdentifier(ObjectInput input) throws IOException {
+        int format = input.readUnsignedByte();
+        switch (format) {
+            case UTF: {
+                return input.readUTF();
+            }
+            case PACKED: {
+                char[] chars = new char[readUnsignedInt(input)];
+                byte[] packed = new byte[((chars.length * 6) + 7) / 8];
+                input.readFully(packed);
+                int buffer = 0;
+                int bits = 0;
+                int position = 0;
+                for (int i = 0; i < chars.length; ++i) {
+                    if (bits < 6) {
+                        buffer = (buffer << 8) | (packed[position++] & 0xFF);
+                        bits += 8;
+                    }
+                    bits -= 6;
+                    chars[i] = ALPHABET[(buffer >> bits) & 0x3F];
+                    buffer &= (1 << bits) - 1;
+                }
+                return new String(chars);
+            }
+            default: {
+                throw InfinispanLogger.ROOT_LOGGER.unsupportedVersion(format);
+            }
+        }
+    }
+
+    private static boolean isPackable(String id) {
+        for (int i = 0; i < id.length(); ++i) {
+            char c = id.charAt(i);
+            if ((c >= INDEXES.length) || (INDEXES[c] < 0)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
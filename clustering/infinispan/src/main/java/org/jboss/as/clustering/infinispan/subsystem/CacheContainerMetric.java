@@ -27,6 +27,7 @@ import java.util.Map;
 import org.infinispan.manager.EmbeddedCacheManager;
 import org.infinispan.remoting.transport.Address;
 import org.jboss.as.clustering.controller.Metric;
+import org.jboss.as.clustering.marshalling.MarshallingBuffer;
 import org.jboss.as.controller.AttributeDefinition;
 import org.jboss.as.controller.SimpleAttributeDefinitionBuilder;
 import org.jboss.dmr.ModelNode;
@@ -71,6 +72,24 @@ public enum CacheContainerMetric implements Metric<EmbeddedCacheManager> {
             return (address != null) ? new ModelNode(address.toString()) : null;
         }
     },
+    MARSHALLING_BUFFER_ALLOCATIONS(MetricKeys.MARSHALLING_BUFFER_ALLOCATIONS, ModelType.LONG) {
+        @Override
+        public ModelNode getValue(EmbeddedCacheManager manager) {
+            return new ModelNode(MarshallingBuffer.getAllocations());
+        }
+    },
+    MARSHALLING_BUFFER_ALLOCATED_BYTES(MetricKeys.MARSHALLING_BUFFER_ALLOCATED_BYTES, ModelType.LONG) {
+        @Override
+        public ModelNode getValue(EmbeddedCacheManager manager) {
+            return new ModelNode(MarshallingBuffer.getAllocatedBytes());
+        }
+    },
+    MARSHALLING_BUFFER_REUSES(MetricKeys.MARSHALLING_BUFFER_REUSES, ModelType.LONG) {
+        @Override
+        public ModelNode getValue(EmbeddedCacheManager manager) {
+            return new ModelNode(MarshallingBuffer.getReuses());
+        }
+    },
     ;
     private final AttributeDefinition definition;
 
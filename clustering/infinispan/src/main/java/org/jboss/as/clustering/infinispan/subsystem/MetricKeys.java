@@ -33,6 +33,9 @@ public class MetricKeys {
     public static final String COORDINATOR_ADDRESS = "coordinator-address";
     public static final String LOCAL_ADDRESS = "local-address";
     public static final String CLUSTER_NAME = "cluster-name";
+    public static final String MARSHALLING_BUFFER_ALLOCATIONS = "marshalling-buffer-allocations";
+    public static final String MARSHALLING_BUFFER_ALLOCATED_BYTES = "marshalling-buffer-allocated-bytes";
+    public static final String MARSHALLING_BUFFER_REUSES = "marshalling-buffer-reuses";
     // cache
     public static final String BYTES_READ = "bytes-read";
     public static final String BYTES_WRITTEN = "bytes-written";
@@ -0,0 +1,117 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.clustering.infinispan.io;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.Test;
+
+/**
+ * Unit test for {@link CompactEncoding}.
+ */
+public class CompactEncodingTestCase {
+
+    @Test
+    public void unsignedInt() throws IOException {
+        for (int value : new int[] { 0, 1, 0x7F, 0x80, 0x3FFF, 0x4000, Integer.MAX_VALUE }) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+                CompactEncoding.writeUnsignedInt(output, value);
+            }
+            try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+                assertEquals(value, CompactEncoding.readUnsignedInt(input));
+            }
+        }
+    }
+
+    @Test
+    public void identifier() throws IOException {
+        for (String id : new String[] { "", "a", "ab", "abc", "abcd", "Az09-_", "3bBHQ-JWjHVsC1aMfVuIcmKXtaFQjqJ6rjZIBT_I", "id.route", "d\u00e9j\u00e0 vu" }) {
+            assertEquals(id, roundTrip(id));
+        }
+    }
+
+    @Test
+    public void packed() throws IOException {
+        String id = "3bBHQ-JWjHVsC1aMfVuIcmKXtaFQjqJ6rjZIBT_I";
+        ByteArrayOutputStream packed = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(packed)) {
+            CompactEncoding.writeIdentifier(output, id);
+        }
+        ByteArrayOutputStream utf = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(utf)) {
+            output.writeUTF(id);
+        }
+        // 30 packed bytes + format + length vs 40 characters + length
+        assertEquals(utf.size() - 10, packed.size());
+    }
+
+    @Test
+    public void version() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            CompactEncoding.writeVersion(output, 1);
+            CompactEncoding.writeVersion(output, 2);
+        }
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertEquals(1, CompactEncoding.getVersion(CompactEncoding.readHeader(input), 1));
+            CompactEncoding.getVersion(CompactEncoding.readHeader(input), 1);
+            fail();
+        } catch (InvalidObjectException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void legacy() throws IOException {
+        for (String value : new String[] { "", "3bBHQ-JWjHVsC1aMfVuIcmKXtaFQjqJ6rjZIBT_I", "d\u00e9j\u00e0 vu", new String(new char[300]).replace('\0', 'x') }) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+                output.writeUTF(value);
+                output.writeInt(1);
+            }
+            try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+                int header = CompactEncoding.readHeader(input);
+                assertEquals(CompactEncoding.LEGACY_VERSION, CompactEncoding.getVersion(header, 1));
+                assertEquals(value, CompactEncoding.readLegacyUTF(input, header));
+                assertEquals(1, input.readInt());
+            }
+        }
+    }
+
+    private static String roundTrip(String id) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            CompactEncoding.writeIdentifier(output, id);
+        }
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return CompactEncoding.readIdentifier(input);
+        }
+    }
+}
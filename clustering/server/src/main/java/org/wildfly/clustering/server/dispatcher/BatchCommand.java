@@ -0,0 +1,87 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.server.dispatcher;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import org.wildfly.clustering.dispatcher.Command;
+
+/**
+ * Command that executes a batch of commands, in order, against the same context.
+ * Returns the result of each command, or a {@link Failure} if the command threw an exception.
+ * @param <R> the return type of the batched commands
+ * @param <C> the command context type
+ */
+public class BatchCommand<R, C> implements Command<List<Object>, C> {
+    private static final long serialVersionUID = -2986427271429539564L;
+
+    private final List<? extends Command<R, C>> commands;
+
+    public BatchCommand(List<? extends Command<R, C>> commands) {
+        this.commands = commands;
+    }
+
+    @Override
+    public List<Object> execute(C context) {
+        List<Object> results = new ArrayList<>(this.commands.size());
+        for (Command<R, C> command: this.commands) {
+            try {
+                results.add(command.execute(context));
+            } catch (Throwable e) {
+                results.add(new Failure(e));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Extracts the result of a single command from the results of a batch.
+     * @param results the results of a batch command
+     * @param index the index of a command within the batch
+     * @return the result of the command
+     * @throws ExecutionException if the command threw an exception
+     */
+    @SuppressWarnings("unchecked")
+    static <R> R getResult(List<Object> results, int index) throws ExecutionException {
+        Object result = results.get(index);
+        if (result instanceof Failure) {
+            throw new ExecutionException(((Failure) result).cause);
+        }
+        return (R) result;
+    }
+
+    /**
+     * The result of a command that threw an exception.
+     */
+    public static class Failure implements Serializable {
+        private static final long serialVersionUID = 5616532716101596040L;
+
+        final Throwable cause;
+
+        Failure(Throwable cause) {
+            this.cause = cause;
+        }
+    }
+}
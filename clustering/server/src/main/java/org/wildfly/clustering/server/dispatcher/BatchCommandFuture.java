@@ -0,0 +1,83 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.server.dispatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The result of a single command within the result of a {@link BatchCommand}.
+ * @param <R> the return type of the command
+ */
+public class BatchCommandFuture<R> implements Future<R> {
+
+    private final Future<List<Object>> future;
+    private final int index;
+
+    public BatchCommandFuture(Future<List<Object>> future, int index) {
+        this.future = future;
+        this.index = index;
+    }
+
+    /**
+     * Creates a future for each command of a batch.
+     * @param future the future result of a {@link BatchCommand}
+     * @param size the number of commands in the batch
+     * @return a list of futures, in the order of the commands of the batch
+     */
+    public static <R> List<Future<R>> createFutures(Future<List<Object>> future, int size) {
+        List<Future<R>> futures = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+            futures.add(new BatchCommandFuture<R>(future, i));
+        }
+        return futures;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        return this.future.cancel(mayInterruptIfRunning);
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return this.future.isCancelled();
+    }
+
+    @Override
+    public boolean isDone() {
+        return this.future.isDone();
+    }
+
+    @Override
+    public R get() throws InterruptedException, ExecutionException {
+        return BatchCommand.getResult(this.future.get(), this.index);
+    }
+
+    @Override
+    public R get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        return BatchCommand.getResult(this.future.get(timeout, unit), this.index);
+    }
+}
@@ -26,6 +26,8 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
@@ -40,10 +42,15 @@ import org.jgroups.blocks.MessageDispatcher;
 import org.jgroups.blocks.RequestOptions;
 import org.jgroups.blocks.ResponseMode;
 import org.jgroups.blocks.RspFilter;
+import org.jgroups.util.NotifyingFuture;
 import org.jgroups.util.Rsp;
+import org.jgroups.util.RspList;
+import org.wildfly.clustering.dispatcher.BatchCommandDispatcher;
 import org.wildfly.clustering.dispatcher.Command;
 import org.wildfly.clustering.dispatcher.CommandDispatcher;
 import org.wildfly.clustering.dispatcher.CommandResponse;
+import org.wildfly.clustering.dispatcher.CommandResponseListener;
+import org.wildfly.clustering.dispatcher.NotifyingCommandDispatcher;
 import org.wildfly.clustering.group.Node;
 import org.wildfly.clustering.group.NodeFactory;
 
@@ -53,7 +60,7 @@ import org.wildfly.clustering.group.NodeFactory;
  *
  * @param <C> command execution context
  */
-public abstract class ChannelCommandDispatcher<C> implements CommandDispatcher<C> {
+public abstract class ChannelCommandDispatcher<C> implements BatchCommandDispatcher<C>, NotifyingCommandDispatcher<C> {
 
     private static final RspFilter FILTER = new RspFilter() {
         @Override
@@ -100,45 +107,61 @@ public abstract class ChannelCommandDispatcher<C> implements CommandDispatcher<C
 
     @Override
     public <R> Map<Node, Future<R>> submitOnCluster(Command<R, C> command, Node... excludedNodes) throws Exception {
-        final Future<? extends Map<Address, Rsp<R>>> responses = this.dispatcher.castMessageWithFuture(null, this.createMessage(command), this.createRequestOptions(excludedNodes));
+        Map<Address, Node> targets = this.getTargets(excludedNodes);
+        final Future<? extends Map<Address, Rsp<R>>> responses = this.dispatcher.castMessageWithFuture(targets.keySet(), this.createMessage(command), this.createRequestOptions());
 
         Map<Node, Future<R>> results = new HashMap<>();
-        Set<Node> excluded = (excludedNodes != null) ? new HashSet<>(Arrays.asList(excludedNodes)) : Collections.<Node>emptySet();
-        for (Address address: this.dispatcher.getChannel().getView().getMembers()) {
-            final Node node = this.factory.createNode(address);
-            if (!excluded.contains(node)) {
-                Future<R> future = new Future<R>() {
-                    @Override
-                    public boolean cancel(boolean mayInterruptIfRunning) {
-                        return responses.cancel(mayInterruptIfRunning);
-                    }
-
-                    @Override
-                    public R get() throws InterruptedException, ExecutionException {
-                        return createCommandResponse(responses.get().get(node)).get();
-                    }
-
-                    @Override
-                    public R get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
-                        return createCommandResponse(responses.get(timeout, unit).get(node)).get();
-                    }
-
-                    @Override
-                    public boolean isCancelled() {
-                        return responses.isCancelled();
-                    }
-
-                    @Override
-                    public boolean isDone() {
-                        return responses.isDone();
-                    }
-                };
-                results.put(node, future);
-            }
+        for (Map.Entry<Address, Node> target: targets.entrySet()) {
+            final Address address = target.getKey();
+            Node node = target.getValue();
+            Future<R> future = new Future<R>() {
+                @Override
+                public boolean cancel(boolean mayInterruptIfRunning) {
+                    return responses.cancel(mayInterruptIfRunning);
+                }
+
+                @Override
+                public R get() throws InterruptedException, ExecutionException {
+                    return createCommandResponse(responses.get().get(address)).get();
+                }
+
+                @Override
+                public R get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+                    return createCommandResponse(responses.get(timeout, unit).get(address)).get();
+                }
+
+                @Override
+                public boolean isCancelled() {
+                    return responses.isCancelled();
+                }
+
+                @Override
+                public boolean isDone() {
+                    return responses.isDone();
+                }
+            };
+            results.put(node, future);
         }
         return results;
     }
 
+    @Override
+    public <R> void submitOnCluster(Command<R, C> command, CommandResponseListener<R> listener, Node... excludedNodes) throws Exception {
+        this.submitOnCluster(command, 0, listener, excludedNodes);
+    }
+
+    @Override
+    public <R> void submitOnCluster(Command<R, C> command, int quorum, CommandResponseListener<R> listener, Node... excludedNodes) throws Exception {
+        Map<Address, Node> targets = this.getTargets(excludedNodes);
+        QuorumResponseCollector<R> collector = new QuorumResponseCollector<>(targets, quorum, listener);
+        if (targets.isEmpty()) {
+            listener.completed(Collections.<Node, CommandResponse<R>>emptyMap());
+            return;
+        }
+        NotifyingFuture<RspList<R>> future = this.dispatcher.castMessageWithFuture(targets.keySet(), this.createMessage(command), this.createRequestOptions(collector));
+        collector.start(future, this.dispatcher.getChannel().getProtocolStack().getTransport().getTimer(), this.timeout);
+    }
+
     @Override
     public <R> CommandResponse<R> executeOnNode(Command<R, C> command, Node node) throws Exception {
         // Bypass MessageDispatcher if target node is local
@@ -165,6 +188,38 @@ public abstract class ChannelCommandDispatcher<C> implements CommandDispatcher<C
         return this.dispatcher.sendMessageWithFuture(this.createMessage(command, node), this.createRequestOptions());
     }
 
+    @Override
+    public <R> List<Future<R>> submitBatchOnNode(List<? extends Command<R, C>> commands, Node node) throws Exception {
+        Future<List<Object>> future = this.submitOnNode(new BatchCommand<>(commands), node);
+        return BatchCommandFuture.createFutures(future, commands.size());
+    }
+
+    @Override
+    public <R> Map<Node, List<Future<R>>> submitBatchOnCluster(List<? extends Command<R, C>> commands, Node... excludedNodes) throws Exception {
+        Map<Node, Future<List<Object>>> futures = this.submitOnCluster(new BatchCommand<>(commands), excludedNodes);
+        Map<Node, List<Future<R>>> results = new HashMap<>();
+        for (Map.Entry<Node, Future<List<Object>>> entry: futures.entrySet()) {
+            results.put(entry.getKey(), BatchCommandFuture.<R>createFutures(entry.getValue(), commands.size()));
+        }
+        return results;
+    }
+
+    /**
+     * Returns the members of the current view, excluding the specified nodes, keyed by address.
+     * The message is sent to exactly these members, so that responses correspond to the view from which the targets were taken.
+     */
+    private Map<Address, Node> getTargets(Node... excludedNodes) {
+        Set<Node> excluded = (excludedNodes != null) ? new HashSet<>(Arrays.asList(excludedNodes)) : Collections.<Node>emptySet();
+        Map<Address, Node> targets = new LinkedHashMap<>();
+        for (Address address: this.dispatcher.getChannel().getView().getMembers()) {
+            Node node = this.factory.createNode(address);
+            if (!excluded.contains(node)) {
+                targets.put(address, node);
+            }
+        }
+        return targets;
+    }
+
     private <R> Message createMessage(Command<R, C> command) {
         return this.createMessage(command, null);
     }
@@ -198,7 +253,11 @@ public abstract class ChannelCommandDispatcher<C> implements CommandDispatcher<C
     }
 
     private RequestOptions createRequestOptions() {
-        return new RequestOptions(ResponseMode.GET_ALL, this.timeout, false, FILTER, Message.Flag.DONT_BUNDLE, Message.Flag.OOB);
+        return this.createRequestOptions(FILTER);
+    }
+
+    private RequestOptions createRequestOptions(RspFilter filter) {
+        return new RequestOptions(ResponseMode.GET_ALL, this.timeout, false, filter, Message.Flag.DONT_BUNDLE, Message.Flag.OOB);
     }
 
     static <R> CommandResponse<R> createCommandResponse(Rsp<R> response) {
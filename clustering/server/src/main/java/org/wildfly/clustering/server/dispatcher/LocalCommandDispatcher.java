@@ -24,6 +24,7 @@ package org.wildfly.clustering.server.dispatcher;
 import java.security.AccessController;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
@@ -34,9 +35,12 @@ import java.util.concurrent.ThreadFactory;
 import org.jboss.threads.JBossThreadFactory;
 import org.jgroups.Address;
 import org.jgroups.UnreachableException;
+import org.wildfly.clustering.dispatcher.BatchCommandDispatcher;
 import org.wildfly.clustering.dispatcher.Command;
 import org.wildfly.clustering.dispatcher.CommandDispatcher;
 import org.wildfly.clustering.dispatcher.CommandResponse;
+import org.wildfly.clustering.dispatcher.CommandResponseListener;
+import org.wildfly.clustering.dispatcher.NotifyingCommandDispatcher;
 import org.wildfly.clustering.group.Node;
 import org.wildfly.security.manager.action.GetAccessControlContextAction;
 
@@ -45,7 +49,7 @@ import org.wildfly.security.manager.action.GetAccessControlContextAction;
  * @author Paul Ferraro
  * @param <C> command context
  */
-public class LocalCommandDispatcher<C> implements CommandDispatcher<C> {
+public class LocalCommandDispatcher<C> implements BatchCommandDispatcher<C>, NotifyingCommandDispatcher<C> {
 
     final C context;
     private final Node node;
@@ -101,6 +105,43 @@ public class LocalCommandDispatcher<C> implements CommandDispatcher<C> {
         return Collections.singletonMap(this.node, this.submitOnNode(command, this.node));
     }
 
+    @Override
+    public <R> void submitOnCluster(Command<R, C> command, CommandResponseListener<R> listener, Node... excludedNodes) {
+        this.submitOnCluster(command, 0, listener, excludedNodes);
+    }
+
+    @Override
+    public <R> void submitOnCluster(final Command<R, C> command, int quorum, final CommandResponseListener<R> listener, Node... excludedNodes) {
+        if (quorum < 0) {
+            throw new IllegalArgumentException(String.valueOf(quorum));
+        }
+        // The local node is the only target, so any quorum is reached by its response alone
+        if ((excludedNodes != null) && (excludedNodes.length > 0) && Arrays.asList(excludedNodes).contains(this.node)) {
+            listener.completed(Collections.<Node, CommandResponse<R>>emptyMap());
+            return;
+        }
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                listener.completed(LocalCommandDispatcher.this.executeOnCluster(command));
+            }
+        };
+        this.executor.execute(task);
+    }
+
+    @Override
+    public <R> List<Future<R>> submitBatchOnNode(List<? extends Command<R, C>> commands, Node node) {
+        return BatchCommandFuture.createFutures(this.submitOnNode(new BatchCommand<>(commands), node), commands.size());
+    }
+
+    @Override
+    public <R> Map<Node, List<Future<R>>> submitBatchOnCluster(List<? extends Command<R, C>> commands, Node... excludedNodes) {
+        if ((excludedNodes != null) && (excludedNodes.length > 0) && Arrays.asList(excludedNodes).contains(this.node)) {
+            return Collections.emptyMap();
+        }
+        return Collections.singletonMap(this.node, this.<R>submitBatchOnNode(commands, this.node));
+    }
+
     @Override
     public void close() {
         this.executor.shutdown();
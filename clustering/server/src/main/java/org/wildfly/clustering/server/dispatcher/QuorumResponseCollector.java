@@ -0,0 +1,173 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.server.dispatcher;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jgroups.Address;
+import org.jgroups.blocks.RspFilter;
+import org.jgroups.util.FutureListener;
+import org.jgroups.util.NotifyingFuture;
+import org.jgroups.util.Rsp;
+import org.jgroups.util.RspList;
+import org.jgroups.util.TimeScheduler;
+import org.wildfly.clustering.dispatcher.CommandResponse;
+import org.wildfly.clustering.dispatcher.CommandResponseListener;
+import org.wildfly.clustering.group.Node;
+
+/**
+ * Collects the responses of a command sent to a set of nodes, and notifies a {@link CommandResponseListener} exactly once:
+ * when all nodes responded, when a quorum of successful responses was received, or when the timeout elapsed, whichever comes first.
+ * Responses are recorded as they arrive, so that a timeout can report, per node, which nodes responded and which did not.
+ * @param <R> the response type
+ */
+public class QuorumResponseCollector<R> implements RspFilter, FutureListener<RspList<R>>, Runnable {
+
+    private final Map<Address, Node> targets;
+    private final int quorum;
+    private final CommandResponseListener<R> listener;
+    private final Map<Address, CommandResponse<R>> responses = new ConcurrentHashMap<>();
+    private final Set<Address> ignored = Collections.newSetFromMap(new ConcurrentHashMap<Address, Boolean>());
+    private final AtomicInteger successes = new AtomicInteger();
+    private final AtomicBoolean completed = new AtomicBoolean();
+    private volatile Future<RspList<R>> request;
+    private volatile Future<?> timeoutTask;
+
+    /**
+     * Creates a new response collector.
+     * @param targets the nodes to which the command is sent, keyed by address
+     * @param quorum the number of successful responses after which to complete, or 0 to await all targets
+     * @param listener the listener to notify
+     * @throws IllegalArgumentException if the quorum is negative
+     */
+    public QuorumResponseCollector(Map<Address, Node> targets, int quorum, CommandResponseListener<R> listener) {
+        if (quorum < 0) {
+            throw new IllegalArgumentException(String.valueOf(quorum));
+        }
+        this.targets = targets;
+        this.quorum = ((quorum > 0) && (quorum < targets.size())) ? quorum : targets.size();
+        this.listener = listener;
+    }
+
+    /**
+     * Starts collecting the responses of the specified request.
+     * @param request the pending request
+     * @param timer a timer used to schedule the timeout
+     * @param timeout the timeout, in milliseconds, after which nodes that did not yet respond are considered to have timed out
+     */
+    public void start(NotifyingFuture<RspList<R>> request, TimeScheduler timer, long timeout) {
+        this.request = request;
+        this.timeoutTask = timer.schedule(this, timeout, TimeUnit.MILLISECONDS);
+        // Notifies immediately if the request already completed
+        request.setListener(this);
+    }
+
+    @Override
+    public boolean isAcceptable(Object response, Address sender) {
+        if (response instanceof NoSuchService) {
+            this.ignored.add(sender);
+            return false;
+        }
+        if (response instanceof Throwable) {
+            this.responses.put(sender, new SimpleCommandResponse<R>((Throwable) response));
+        } else {
+            @SuppressWarnings("unchecked")
+            R value = (R) response;
+            this.responses.put(sender, new SimpleCommandResponse<>(value));
+            this.successes.incrementAndGet();
+        }
+        return true;
+    }
+
+    @Override
+    public boolean needMoreResponses() {
+        return this.successes.get() < this.quorum;
+    }
+
+    @Override
+    public void futureDone(Future<RspList<R>> future) {
+        if (this.completed.compareAndSet(false, true)) {
+            Future<?> task = this.timeoutTask;
+            if (task != null) {
+                task.cancel(false);
+            }
+            Map<Node, CommandResponse<R>> results = new HashMap<>();
+            try {
+                RspList<R> responses = future.get();
+                for (Map.Entry<Address, Node> entry: this.targets.entrySet()) {
+                    Address address = entry.getKey();
+                    Rsp<R> response = responses.get(address);
+                    // Nodes that left the group, or that do not provide the service, are not included
+                    if (((response != null) && response.wasSuspected()) || this.ignored.contains(address)) continue;
+                    // Nodes that did not respond before a quorum was reached, or before the request timed out, are reported as timed out
+                    results.put(entry.getValue(), ((response != null) && response.wasReceived()) ? ChannelCommandDispatcher.createCommandResponse(response) : new SimpleCommandResponse<R>(new TimeoutException()));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                this.collect(results, false);
+            } catch (ExecutionException | CancellationException e) {
+                this.collect(results, false);
+            }
+            this.listener.completed(results);
+        }
+    }
+
+    /**
+     * Completes the request with the responses received so far.
+     * Nodes that have not yet responded are reported as timed out.
+     */
+    @Override
+    public void run() {
+        if (this.completed.compareAndSet(false, true)) {
+            Future<RspList<R>> request = this.request;
+            if (request != null) {
+                request.cancel(false);
+            }
+            Map<Node, CommandResponse<R>> results = new HashMap<>();
+            this.collect(results, true);
+            this.listener.completed(results);
+        }
+    }
+
+    private void collect(Map<Node, CommandResponse<R>> results, boolean timedOut) {
+        for (Map.Entry<Address, Node> entry: this.targets.entrySet()) {
+            Address address = entry.getKey();
+            CommandResponse<R> response = this.responses.get(address);
+            if (response != null) {
+                results.put(entry.getValue(), response);
+            } else if (timedOut && !this.ignored.contains(address)) {
+                results.put(entry.getValue(), new SimpleCommandResponse<R>(new TimeoutException()));
+            }
+        }
+    }
+}
@@ -22,18 +22,28 @@
 package org.wildfly.clustering.server.provider;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.infinispan.Cache;
 import org.infinispan.context.Flag;
 import org.infinispan.notifications.cachelistener.annotation.CacheEntryModified;
 import org.infinispan.notifications.cachelistener.event.CacheEntryModifiedEvent;
 import org.jboss.msc.service.ServiceName;
+import org.wildfly.clustering.dispatcher.Command;
 import org.wildfly.clustering.dispatcher.CommandDispatcher;
+import org.wildfly.clustering.dispatcher.CommandResponse;
+import org.wildfly.clustering.dispatcher.CommandResponseListener;
+import org.wildfly.clustering.dispatcher.NotifyingCommandDispatcher;
 import org.wildfly.clustering.ee.Batch;
 import org.wildfly.clustering.ee.Batcher;
 import org.wildfly.clustering.group.Group;
@@ -145,10 +155,11 @@ public class CacheServiceProviderRegistrationFactory implements ServiceProviderR
                     }
                 }
                 if (merged) {
-                    for (Node node: newNodes) {
-                        // Re-assert services for new members following merge since these may have been lost following split
-                        List<Object> services = CacheServiceProviderRegistrationFactory.this.getServices(node);
-                        for (Object service: services) {
+                    // Re-assert services for new members following merge since these may have been lost following split
+                    Map<Node, List<Object>> newServices = CacheServiceProviderRegistrationFactory.this.getServices(newNodes, members);
+                    for (Map.Entry<Node, List<Object>> entry: newServices.entrySet()) {
+                        Node node = entry.getKey();
+                        for (Object service: entry.getValue()) {
                             Set<Node> nodes = new HashSet<>(Collections.singleton(node));
                             Set<Node> existing = this.cache.getAdvancedCache().withFlags(Flag.FORCE_SYNCHRONOUS).putIfAbsent(service, nodes);
                             if (existing != null) {
@@ -172,11 +183,58 @@ public class CacheServiceProviderRegistrationFactory implements ServiceProviderR
         }
     }
 
-    List<Object> getServices(Node node) {
+    /**
+     * Queries the services provided by the specified nodes, using a single message, rather than one round trip per node.
+     * Nodes that do not respond within the dispatcher timeout, or within the replication timeout of the cache, or that no longer run this factory, are treated as providing no services.
+     */
+    Map<Node, List<Object>> getServices(Set<Node> nodes, List<Node> members) {
+        Set<Node> excluded = new HashSet<>(members);
+        excluded.removeAll(nodes);
+        Map<Node, CommandResponse<List<Object>>> responses;
         try {
-            return this.dispatcher.executeOnNode(new ServiceRegistryCommand(), node).get();
+            responses = this.submitOnCluster(new ServiceRegistryCommand(), excluded.toArray(new Node[excluded.size()]));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Collections.emptyMap();
         } catch (Exception e) {
-            return Collections.emptyList();
+            return Collections.emptyMap();
         }
+        Map<Node, List<Object>> results = new HashMap<>();
+        for (Node node: nodes) {
+            CommandResponse<List<Object>> response = responses.get(node);
+            List<Object> services = null;
+            if (response != null) {
+                try {
+                    services = response.get();
+                } catch (ExecutionException e) {
+                    // Treat as if the node provides no services
+                }
+            }
+            results.put(node, (services != null) ? services : Collections.emptyList());
+        }
+        return results;
+    }
+
+    private <R> Map<Node, CommandResponse<R>> submitOnCluster(Command<R, ServiceRegistry> command, Node... excludedNodes) throws Exception {
+        if (this.dispatcher instanceof NotifyingCommandDispatcher) {
+            // Responses are collected as they arrive, and nodes that do not respond are reported once the timeout elapses
+            final CountDownLatch latch = new CountDownLatch(1);
+            final AtomicReference<Map<Node, CommandResponse<R>>> result = new AtomicReference<>();
+            CommandResponseListener<R> listener = new CommandResponseListener<R>() {
+                @Override
+                public void completed(Map<Node, CommandResponse<R>> responses) {
+                    result.set(responses);
+                    latch.countDown();
+                }
+            };
+            ((NotifyingCommandDispatcher<ServiceRegistry>) this.dispatcher).submitOnCluster(command, listener, excludedNodes);
+            // The listener should be notified within the dispatcher timeout, but don't block the caller for longer than a cache operation would
+            long timeout = this.cache.getCacheConfiguration().clustering().sync().replTimeout();
+            if (!latch.await(timeout, TimeUnit.MILLISECONDS)) {
+                return Collections.emptyMap();
+            }
+            return result.get();
+        }
+        return this.dispatcher.executeOnCluster(command, excludedNodes);
     }
 }
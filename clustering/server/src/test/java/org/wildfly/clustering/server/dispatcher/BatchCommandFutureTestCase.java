@@ -0,0 +1,173 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.server.dispatcher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Test;
+import org.wildfly.clustering.dispatcher.Command;
+
+/**
+ * Unit test for {@link BatchCommandFuture}.
+ */
+public class BatchCommandFutureTestCase {
+
+    @SuppressWarnings("unchecked")
+    private final Future<List<Object>> future = mock(Future.class);
+
+    @Test
+    public void get() throws Exception {
+        when(this.future.get()).thenReturn(Arrays.<Object>asList("1", "2", null));
+        when(this.future.get(1, TimeUnit.SECONDS)).thenReturn(Arrays.<Object>asList("1", "2", null));
+
+        List<Future<String>> futures = BatchCommandFuture.createFutures(this.future, 3);
+
+        assertEquals(3, futures.size());
+        assertEquals("1", futures.get(0).get());
+        assertEquals("2", futures.get(1).get());
+        assertNull(futures.get(2).get());
+        assertEquals("1", futures.get(0).get(1, TimeUnit.SECONDS));
+        assertEquals("2", futures.get(1).get(1, TimeUnit.SECONDS));
+        assertNull(futures.get(2).get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void partialFailure() throws Exception {
+        Exception exception = new Exception();
+        // Obtain a failure, as returned by a batch command
+        List<Object> results = new BatchCommand<>(Arrays.<Command<String, Object>>asList(new ReturnCommand("1"), new ThrowCommand(exception), new ReturnCommand("3"))).execute(null);
+        when(this.future.get()).thenReturn(results);
+
+        List<Future<String>> futures = BatchCommandFuture.createFutures(this.future, 3);
+
+        assertEquals("1", futures.get(0).get());
+        try {
+            futures.get(1).get();
+            fail();
+        } catch (ExecutionException e) {
+            assertSame(exception, e.getCause());
+        }
+        assertEquals("3", futures.get(2).get());
+    }
+
+    @Test
+    public void batchFailure() throws Exception {
+        // The batch itself could not be executed, e.g. because the recipient left the group
+        ExecutionException exception = new ExecutionException(new Exception());
+        when(this.future.get()).thenThrow(exception);
+        when(this.future.get(1, TimeUnit.SECONDS)).thenThrow(new TimeoutException());
+
+        List<Future<String>> futures = BatchCommandFuture.createFutures(this.future, 2);
+
+        for (Future<String> future : futures) {
+            try {
+                future.get();
+                fail();
+            } catch (ExecutionException e) {
+                assertSame(exception, e);
+            }
+            try {
+                future.get(1, TimeUnit.SECONDS);
+                fail();
+            } catch (TimeoutException e) {
+                // Expected
+            }
+        }
+    }
+
+    @Test
+    public void cancel() throws Exception {
+        when(this.future.cancel(true)).thenReturn(true);
+        when(this.future.isCancelled()).thenReturn(true);
+        when(this.future.isDone()).thenReturn(true);
+        when(this.future.get()).thenThrow(new CancellationException());
+
+        List<Future<String>> futures = BatchCommandFuture.createFutures(this.future, 2);
+
+        assertTrue(futures.get(0).cancel(true));
+        verify(this.future).cancel(true);
+
+        // Cancelling the result of one command cancels the whole batch
+        for (Future<String> future : futures) {
+            assertTrue(future.isCancelled());
+            assertTrue(future.isDone());
+            try {
+                future.get();
+                fail();
+            } catch (CancellationException e) {
+                // Expected
+            }
+        }
+    }
+
+    @Test
+    public void notDone() {
+        List<Future<String>> futures = BatchCommandFuture.createFutures(this.future, 1);
+
+        assertFalse(futures.get(0).isDone());
+        assertFalse(futures.get(0).isCancelled());
+    }
+
+    private static class ReturnCommand implements Command<String, Object> {
+        private static final long serialVersionUID = 1L;
+        private final String result;
+
+        ReturnCommand(String result) {
+            this.result = result;
+        }
+
+        @Override
+        public String execute(Object context) {
+            return this.result;
+        }
+    }
+
+    private static class ThrowCommand implements Command<String, Object> {
+        private static final long serialVersionUID = 1L;
+        private final Exception exception;
+
+        ThrowCommand(Exception exception) {
+            this.exception = exception;
+        }
+
+        @Override
+        public String execute(Object context) throws Exception {
+            throw this.exception;
+        }
+    }
+}
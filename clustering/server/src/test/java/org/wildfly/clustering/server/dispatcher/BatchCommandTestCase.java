@@ -0,0 +1,82 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.server.dispatcher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.wildfly.clustering.dispatcher.Command;
+
+/**
+ * Unit test for {@link BatchCommand}.
+ */
+public class BatchCommandTestCase {
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void execute() throws Exception {
+        Command<String, Object> command1 = mock(Command.class);
+        Command<String, Object> command2 = mock(Command.class);
+        Command<String, Object> command3 = mock(Command.class);
+        Object context = new Object();
+        Exception exception = new Exception();
+
+        when(command1.execute(context)).thenReturn("1");
+        when(command2.execute(context)).thenThrow(exception);
+        when(command3.execute(context)).thenReturn(null);
+
+        List<Object> results = new BatchCommand<>(Arrays.asList(command1, command2, command3)).execute(context);
+
+        // The failure of a command does not prevent the execution of subsequent commands
+        InOrder order = inOrder(command1, command2, command3);
+        order.verify(command1).execute(context);
+        order.verify(command2).execute(context);
+        order.verify(command3).execute(context);
+
+        assertEquals(3, results.size());
+        assertEquals("1", BatchCommand.<String>getResult(results, 0));
+        try {
+            BatchCommand.<String>getResult(results, 1);
+            fail();
+        } catch (ExecutionException e) {
+            assertSame(exception, e.getCause());
+        }
+        assertNull(BatchCommand.<String>getResult(results, 2));
+    }
+
+    @Test
+    public void executeEmpty() throws Exception {
+        assertTrue(new BatchCommand<>(Arrays.<Command<Object, Object>>asList()).execute(new Object()).isEmpty());
+    }
+}
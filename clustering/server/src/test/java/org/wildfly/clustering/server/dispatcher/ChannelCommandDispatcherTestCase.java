@@ -0,0 +1,214 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.server.dispatcher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.same;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.jboss.as.clustering.jgroups.Addressable;
+import org.jgroups.Address;
+import org.jgroups.Channel;
+import org.jgroups.Message;
+import org.jgroups.View;
+import org.jgroups.blocks.MessageDispatcher;
+import org.jgroups.blocks.RequestOptions;
+import org.jgroups.util.NotifyingFuture;
+import org.jgroups.util.Rsp;
+import org.jgroups.util.RspList;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.wildfly.clustering.dispatcher.Command;
+import org.wildfly.clustering.dispatcher.CommandDispatcher;
+import org.wildfly.clustering.group.Node;
+import org.wildfly.clustering.group.NodeFactory;
+
+/**
+ * Unit test for the batch operations of {@link ChannelCommandDispatcher}.
+ */
+public class ChannelCommandDispatcherTestCase {
+
+    private final MessageDispatcher messageDispatcher = mock(MessageDispatcher.class);
+    @SuppressWarnings("unchecked")
+    private final CommandMarshaller<Object> marshaller = mock(CommandMarshaller.class);
+    @SuppressWarnings("unchecked")
+    private final NodeFactory<Address> factory = mock(NodeFactory.class);
+    @SuppressWarnings("unchecked")
+    private final CommandDispatcher<Object> localDispatcher = mock(CommandDispatcher.class);
+    private final Channel channel = mock(Channel.class);
+    private final View view = mock(View.class);
+    private final Address localAddress = mock(Address.class);
+    private final Address remoteAddress = mock(Address.class);
+    private final AddressableNode localNode = mock(AddressableNode.class);
+    private final AddressableNode remoteNode = mock(AddressableNode.class);
+
+    private final ChannelCommandDispatcher<Object> dispatcher = new ChannelCommandDispatcher<Object>(this.messageDispatcher, this.marshaller, this.factory, 1000L, this.localDispatcher) {
+        @Override
+        public void close() {
+        }
+    };
+
+    @Before
+    public void init() throws Exception {
+        when(this.messageDispatcher.getChannel()).thenReturn(this.channel);
+        when(this.channel.getAddress()).thenReturn(this.localAddress);
+        when(this.channel.getView()).thenReturn(this.view);
+        when(this.view.getMembers()).thenReturn(Arrays.asList(this.localAddress, this.remoteAddress));
+        when(this.localNode.getAddress()).thenReturn(this.localAddress);
+        when(this.remoteNode.getAddress()).thenReturn(this.remoteAddress);
+        when(this.factory.createNode(this.localAddress)).thenReturn(this.localNode);
+        when(this.factory.createNode(this.remoteAddress)).thenReturn(this.remoteNode);
+        when(this.marshaller.marshal(any(Command.class))).thenReturn(new byte[0]);
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    @Test
+    public void submitBatchOnLocalNode() throws Exception {
+        Command<String, Object> command1 = mock(Command.class);
+        Command<String, Object> command2 = mock(Command.class);
+        Future<List<Object>> future = mock(Future.class);
+        ArgumentCaptor<Command> capturedCommand = ArgumentCaptor.forClass(Command.class);
+
+        when(this.localDispatcher.submitOnNode(any(Command.class), any(Node.class))).thenReturn((Future) future);
+        when(future.get()).thenReturn(Arrays.<Object>asList("1", "2"));
+
+        List<Future<String>> results = this.dispatcher.submitBatchOnNode(Arrays.asList(command1, command2), this.localNode);
+
+        // Bypasses the channel
+        verify(this.localDispatcher).submitOnNode(capturedCommand.capture(), same(this.localNode));
+        assertTrue(capturedCommand.getValue() instanceof BatchCommand);
+        assertEquals(2, results.size());
+        assertEquals("1", results.get(0).get());
+        assertEquals("2", results.get(1).get());
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    @Test
+    public void submitBatchOnRemoteNode() throws Exception {
+        Command<String, Object> command1 = mock(Command.class);
+        Command<String, Object> command2 = mock(Command.class);
+        NotifyingFuture<List<Object>> future = mock(NotifyingFuture.class);
+        Exception exception = new Exception();
+        ArgumentCaptor<Message> capturedMessage = ArgumentCaptor.forClass(Message.class);
+
+        when(this.messageDispatcher.sendMessageWithFuture(any(Message.class), any(RequestOptions.class))).thenReturn((NotifyingFuture) future);
+        when(future.get()).thenReturn(Arrays.<Object>asList(new BatchCommand.Failure(exception), "2"));
+
+        List<Future<String>> results = this.dispatcher.submitBatchOnNode(Arrays.asList(command1, command2), this.remoteNode);
+
+        // The whole batch is sent as a single message
+        verify(this.messageDispatcher).sendMessageWithFuture(capturedMessage.capture(), any(RequestOptions.class));
+        assertSame(this.remoteAddress, capturedMessage.getValue().getDest());
+        verify(this.marshaller).marshal(any(BatchCommand.class));
+        assertEquals(2, results.size());
+        try {
+            results.get(0).get();
+            fail();
+        } catch (ExecutionException e) {
+            assertSame(exception, e.getCause());
+        }
+        assertEquals("2", results.get(1).get());
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    @Test
+    public void submitBatchOnCluster() throws Exception {
+        Command<String, Object> command1 = mock(Command.class);
+        Command<String, Object> command2 = mock(Command.class);
+        NotifyingFuture<RspList<List<Object>>> future = mock(NotifyingFuture.class);
+        Exception exception = new Exception();
+        RspList<List<Object>> responses = new RspList<>();
+        responses.put(this.localAddress, new Rsp<List<Object>>(this.localAddress, Arrays.<Object>asList("1", "2")));
+        responses.put(this.remoteAddress, new Rsp<List<Object>>(this.remoteAddress, Arrays.<Object>asList("1", new BatchCommand.Failure(exception))));
+
+        when(this.messageDispatcher.castMessageWithFuture(anyCollectionOf(Address.class), any(Message.class), any(RequestOptions.class))).thenReturn((NotifyingFuture) future);
+        when(future.get()).thenReturn(responses);
+
+        Map<Node, List<Future<String>>> results = this.dispatcher.submitBatchOnCluster(Arrays.asList(command1, command2));
+
+        assertEquals(2, results.size());
+        List<Future<String>> localResults = results.get(this.localNode);
+        assertEquals("1", localResults.get(0).get());
+        assertEquals("2", localResults.get(1).get());
+        List<Future<String>> remoteResults = results.get(this.remoteNode);
+        assertEquals("1", remoteResults.get(0).get());
+        try {
+            remoteResults.get(1).get();
+            fail();
+        } catch (ExecutionException e) {
+            assertSame(exception, e.getCause());
+        }
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    @Test
+    public void submitBatchOnClusterExcluding() throws Exception {
+        Command<String, Object> command = mock(Command.class);
+        NotifyingFuture<RspList<List<Object>>> future = mock(NotifyingFuture.class);
+        RspList<List<Object>> responses = new RspList<>();
+        responses.put(this.remoteAddress, new Rsp<List<Object>>(this.remoteAddress, Arrays.<Object>asList("1")));
+
+        when(this.messageDispatcher.castMessageWithFuture(anyCollectionOf(Address.class), any(Message.class), any(RequestOptions.class))).thenReturn((NotifyingFuture) future);
+        when(future.get()).thenReturn(responses);
+
+        Map<Node, List<Future<String>>> results = this.dispatcher.submitBatchOnCluster(Arrays.asList(command), this.localNode);
+
+        assertEquals(1, results.size());
+        assertEquals("1", results.get(this.remoteNode).get(0).get());
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    @Test
+    public void cancelBatchOnCluster() throws Exception {
+        Command<String, Object> command1 = mock(Command.class);
+        Command<String, Object> command2 = mock(Command.class);
+        NotifyingFuture<RspList<List<Object>>> future = mock(NotifyingFuture.class);
+
+        when(this.messageDispatcher.castMessageWithFuture(anyCollectionOf(Address.class), any(Message.class), any(RequestOptions.class))).thenReturn((NotifyingFuture) future);
+        when(future.cancel(true)).thenReturn(true);
+        when(future.isCancelled()).thenReturn(true);
+
+        Map<Node, List<Future<String>>> results = this.dispatcher.submitBatchOnCluster(Arrays.asList(command1, command2));
+
+        // All recipients share a single message, so cancelling any result cancels the message
+        assertTrue(results.get(this.remoteNode).get(1).cancel(true));
+        verify(future).cancel(true);
+        assertTrue(results.get(this.localNode).get(0).isCancelled());
+    }
+
+    interface AddressableNode extends Node, Addressable {
+    }
+}
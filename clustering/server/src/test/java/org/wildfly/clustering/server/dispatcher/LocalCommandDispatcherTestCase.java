@@ -0,0 +1,152 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.server.dispatcher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.wildfly.clustering.dispatcher.Command;
+import org.wildfly.clustering.dispatcher.CommandResponse;
+import org.wildfly.clustering.dispatcher.CommandResponseListener;
+import org.wildfly.clustering.group.Node;
+
+/**
+ * Unit test for {@link LocalCommandDispatcher}.
+ */
+public class LocalCommandDispatcherTestCase {
+
+    private final Node node = mock(Node.class);
+    private final Object context = new Object();
+    private final LocalCommandDispatcher<Object> dispatcher = new LocalCommandDispatcher<>(this.node, this.context, Executors.newSingleThreadExecutor());
+
+    @After
+    public void destroy() {
+        this.dispatcher.close();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void submitBatchOnNode() throws Exception {
+        Command<String, Object> command1 = mock(Command.class);
+        Command<String, Object> command2 = mock(Command.class);
+        Command<String, Object> command3 = mock(Command.class);
+        Exception exception = new Exception();
+
+        when(command1.execute(this.context)).thenReturn("1");
+        when(command2.execute(this.context)).thenThrow(exception);
+        when(command3.execute(this.context)).thenReturn("3");
+
+        List<Future<String>> results = this.dispatcher.submitBatchOnNode(Arrays.asList(command1, command2, command3), this.node);
+
+        assertEquals(3, results.size());
+        assertEquals("1", results.get(0).get());
+        try {
+            results.get(1).get();
+            fail();
+        } catch (ExecutionException e) {
+            assertSame(exception, e.getCause());
+        }
+        assertEquals("3", results.get(2).get());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void submitBatchOnCluster() throws Exception {
+        Command<String, Object> command1 = mock(Command.class);
+        Command<String, Object> command2 = mock(Command.class);
+
+        when(command1.execute(this.context)).thenReturn("1");
+        when(command2.execute(this.context)).thenReturn("2");
+
+        Map<Node, List<Future<String>>> results = this.dispatcher.submitBatchOnCluster(Arrays.asList(command1, command2));
+
+        assertEquals(1, results.size());
+        List<Future<String>> futures = results.get(this.node);
+        assertEquals(2, futures.size());
+        assertEquals("1", futures.get(0).get());
+        assertEquals("2", futures.get(1).get());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void submitBatchOnClusterExcludingLocal() throws Exception {
+        Command<String, Object> command = mock(Command.class);
+
+        Map<Node, List<Future<String>>> results = this.dispatcher.submitBatchOnCluster(Arrays.asList(command), this.node);
+
+        assertTrue(results.isEmpty());
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    @Test
+    public void submitOnClusterWithQuorum() throws Exception {
+        Command<String, Object> command = mock(Command.class);
+        CommandResponseListener<String> listener = mock(CommandResponseListener.class);
+        ArgumentCaptor<Map> captor = ArgumentCaptor.forClass(Map.class);
+
+        when(command.execute(this.context)).thenReturn("1");
+
+        this.dispatcher.submitOnCluster(command, 1, listener);
+
+        // The response of the only node reaches the quorum
+        verify(listener, timeout(5000)).completed(captor.capture());
+        Map<Node, CommandResponse<String>> responses = captor.getValue();
+        assertEquals(1, responses.size());
+        assertEquals("1", responses.get(this.node).get());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void submitOnClusterExcludingLocal() throws Exception {
+        Command<String, Object> command = mock(Command.class);
+        CommandResponseListener<String> listener = mock(CommandResponseListener.class);
+
+        this.dispatcher.submitOnCluster(command, 1, listener, this.node);
+
+        verify(listener).completed(Collections.<Node, CommandResponse<String>>emptyMap());
+        verifyZeroInteractions(command);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test(expected = IllegalArgumentException.class)
+    public void submitOnClusterWithNegativeQuorum() throws Exception {
+        this.dispatcher.submitOnCluster(mock(Command.class), -1, mock(CommandResponseListener.class));
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.server.dispatcher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.jgroups.Address;
+import org.jgroups.util.NotifyingFuture;
+import org.jgroups.util.Rsp;
+import org.jgroups.util.RspList;
+import org.jgroups.util.TimeScheduler;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.wildfly.clustering.dispatcher.CommandResponse;
+import org.wildfly.clustering.dispatcher.CommandResponseListener;
+import org.wildfly.clustering.group.Node;
+
+/**
+ * Unit test for {@link QuorumResponseCollector}.
+ */
+public class QuorumResponseCollectorTestCase {
+
+    private static final long TIMEOUT = 1000L;
+
+    private final Address address1 = mock(Address.class);
+    private final Address address2 = mock(Address.class);
+    private final Address address3 = mock(Address.class);
+    private final Node node1 = mock(Node.class);
+    private final Node node2 = mock(Node.class);
+    private final Node node3 = mock(Node.class);
+    private final Map<Address, Node> targets = new LinkedHashMap<>();
+    @SuppressWarnings("unchecked")
+    private final CommandResponseListener<String> listener = mock(CommandResponseListener.class);
+    @SuppressWarnings("unchecked")
+    private final NotifyingFuture<RspList<String>> request = mock(NotifyingFuture.class);
+    private final TimeScheduler timer = mock(TimeScheduler.class);
+    private final Future<?> timeoutTask = mock(Future.class);
+
+    @Before
+    public void init() {
+        this.targets.put(this.address1, this.node1);
+        this.targets.put(this.address2, this.node2);
+        this.targets.put(this.address3, this.node3);
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private QuorumResponseCollector<String> start(int quorum) {
+        QuorumResponseCollector<String> collector = new QuorumResponseCollector<>(this.targets, quorum, this.listener);
+        when(this.timer.schedule(collector, TIMEOUT, TimeUnit.MILLISECONDS)).thenReturn((Future) this.timeoutTask);
+        collector.start(this.request, this.timer, TIMEOUT);
+        verify(this.timer).schedule(collector, TIMEOUT, TimeUnit.MILLISECONDS);
+        verify(this.request).setListener(collector);
+        return collector;
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private Map<Node, CommandResponse<String>> completed() {
+        ArgumentCaptor<Map> captor = ArgumentCaptor.forClass(Map.class);
+        verify(this.listener).completed(captor.capture());
+        return captor.getValue();
+    }
+
+    @Test
+    public void completeOnQuorum() throws Exception {
+        QuorumResponseCollector<String> collector = this.start(2);
+
+        assertTrue(collector.needMoreResponses());
+        assertTrue(collector.isAcceptable("1", this.address1));
+        assertTrue(collector.needMoreResponses());
+        assertTrue(collector.isAcceptable("2", this.address2));
+        // No need to wait for the third node
+        assertFalse(collector.needMoreResponses());
+
+        RspList<String> responses = new RspList<>();
+        responses.put(this.address1, new Rsp<>(this.address1, "1"));
+        responses.put(this.address2, new Rsp<>(this.address2, "2"));
+        responses.put(this.address3, new Rsp<String>(this.address3));
+        when(this.request.get()).thenReturn(responses);
+
+        collector.futureDone(this.request);
+
+        verify(this.timeoutTask).cancel(false);
+        Map<Node, CommandResponse<String>> results = this.completed();
+        assertEquals(3, results.size());
+        assertEquals("1", results.get(this.node1).get());
+        assertEquals("2", results.get(this.node2).get());
+        // The node whose response was not awaited is reported as timed out
+        try {
+            results.get(this.node3).get();
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+    }
+
+    @Test
+    public void requestTimeout() throws Exception {
+        QuorumResponseCollector<String> collector = this.start(0);
+
+        assertFalse(collector.isAcceptable(new NoSuchService(), this.address3));
+
+        // The request timed out within the transport, before the collector did
+        RspList<String> responses = new RspList<>();
+        responses.put(this.address1, new Rsp<>(this.address1, "1"));
+        responses.put(this.address2, new Rsp<String>(this.address2));
+        responses.put(this.address3, new Rsp<String>(this.address3));
+        when(this.request.get()).thenReturn(responses);
+
+        collector.futureDone(this.request);
+
+        verify(this.timeoutTask).cancel(false);
+        Map<Node, CommandResponse<String>> results = this.completed();
+        assertEquals(2, results.size());
+        assertEquals("1", results.get(this.node1).get());
+        // Nodes that did not respond are reported as timed out, rather than omitted
+        try {
+            results.get(this.node2).get();
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        // Nodes without the service are still ignored
+        assertFalse(results.containsKey(this.node3));
+    }
+
+    @Test
+    public void awaitAll() {
+        QuorumResponseCollector<String> collector = this.start(0);
+
+        assertTrue(collector.isAcceptable("1", this.address1));
+        assertTrue(collector.isAcceptable("2", this.address2));
+        assertTrue(collector.needMoreResponses());
+        assertTrue(collector.isAcceptable("3", this.address3));
+        assertFalse(collector.needMoreResponses());
+    }
+
+    @Test
+    public void quorumExceedsTargets() {
+        QuorumResponseCollector<String> collector = this.start(5);
+
+        assertTrue(collector.isAcceptable("1", this.address1));
+        assertTrue(collector.isAcceptable("2", this.address2));
+        assertTrue(collector.needMoreResponses());
+        assertTrue(collector.isAcceptable("3", this.address3));
+        assertFalse(collector.needMoreResponses());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeQuorum() {
+        new QuorumResponseCollector<>(this.targets, -1, this.listener);
+    }
+
+    @Test
+    public void failuresDoNotCountTowardsQuorum() {
+        QuorumResponseCollector<String> collector = this.start(1);
+
+        assertTrue(collector.isAcceptable(new Exception(), this.address1));
+        assertTrue(collector.needMoreResponses());
+        assertTrue(collector.isAcceptable("2", this.address2));
+        assertFalse(collector.needMoreResponses());
+    }
+
+    @Test
+    public void timeout() throws Exception {
+        QuorumResponseCollector<String> collector = this.start(0);
+        Exception exception = new Exception();
+
+        assertTrue(collector.isAcceptable("1", this.address1));
+        assertTrue(collector.isAcceptable(exception, this.address2));
+
+        collector.run();
+
+        verify(this.request).cancel(false);
+        Map<Node, CommandResponse<String>> results = this.completed();
+        assertEquals(3, results.size());
+        // Responses received before the timeout are still delivered
+        assertEquals("1", results.get(this.node1).get());
+        try {
+            results.get(this.node2).get();
+            fail();
+        } catch (ExecutionException e) {
+            assertSame(exception, e.getCause());
+        }
+        // Nodes that did not respond are reported individually
+        try {
+            results.get(this.node3).get();
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+    }
+
+    @Test
+    public void noSuchService() throws Exception {
+        QuorumResponseCollector<String> collector = this.start(2);
+
+        // Nodes without the service are ignored, and do not count towards the quorum
+        assertFalse(collector.isAcceptable(new NoSuchService(), this.address1));
+        assertTrue(collector.isAcceptable("2", this.address2));
+        assertTrue(collector.needMoreResponses());
+
+        collector.run();
+
+        Map<Node, CommandResponse<String>> results = this.completed();
+        assertEquals(2, results.size());
+        assertFalse(results.containsKey(this.node1));
+        assertEquals("2", results.get(this.node2).get());
+        try {
+            results.get(this.node3).get();
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+    }
+
+    @Test
+    public void suspected() throws Exception {
+        QuorumResponseCollector<String> collector = this.start(0);
+
+        RspList<String> responses = new RspList<>();
+        responses.put(this.address1, new Rsp<>(this.address1, "1"));
+        Rsp<String> suspected = new Rsp<>(this.address2);
+        suspected.setSuspected();
+        responses.put(this.address2, suspected);
+        responses.put(this.address3, new Rsp<>(this.address3, "3"));
+        when(this.request.get()).thenReturn(responses);
+
+        collector.futureDone(this.request);
+
+        // Nodes that left the group are not included
+        Map<Node, CommandResponse<String>> results = this.completed();
+        assertEquals(2, results.size());
+        assertEquals("1", results.get(this.node1).get());
+        assertFalse(results.containsKey(this.node2));
+        assertEquals("3", results.get(this.node3).get());
+    }
+
+    @Test
+    public void failedRequest() throws Exception {
+        QuorumResponseCollector<String> collector = this.start(0);
+
+        assertTrue(collector.isAcceptable("1", this.address1));
+        when(this.request.get()).thenThrow(new ExecutionException(new Exception()));
+
+        collector.futureDone(this.request);
+
+        // Only the responses received so far are reported, since the other nodes did not time out
+        Map<Node, CommandResponse<String>> results = this.completed();
+        assertEquals(1, results.size());
+        assertEquals("1", results.get(this.node1).get());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void notifyOnce() throws Exception {
+        QuorumResponseCollector<String> collector = this.start(0);
+
+        collector.run();
+        collector.futureDone(this.request);
+        collector.run();
+
+        verify(this.listener, times(1)).completed(any(Map.class));
+        verify(this.request, never()).get();
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.annotation;
+
+import java.util.Collection;
+
+/**
+ * Supplies additional types whose instances are either explicitly or effectively immutable, typically types that
+ * cannot be annotated with {@link Immutable}, e.g. third party value types or unmodifiable collection wrappers.
+ * Session attributes of these types, or of their subtypes, are not replicated unless they are set.
+ * Implementations are loaded from the deployment via {@link java.util.ServiceLoader}.
+ */
+public interface ImmutableTypeProvider {
+    /**
+     * Returns the immutable types provided by this deployment.
+     * @return a collection of types
+     */
+    Collection<Class<?>> getImmutableTypes();
+}
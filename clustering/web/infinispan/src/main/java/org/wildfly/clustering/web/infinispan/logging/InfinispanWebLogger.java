@@ -65,4 +65,16 @@ public interface InfinispanWebLogger extends BasicLogger {
     @LogMessage(level = WARN)
     @Message(id = 6, value = "Failed to schedule expiration/passivation of session %s on primary owner.")
     void failedToScheduleSession(@Cause Throwable cause, String sessionId);
+
+    @LogMessage(level = WARN)
+    @Message(id = 8, value = "Failed to reschedule expiration/passivation of session %s.")
+    void failedToRescheduleSession(@Cause Throwable cause, String sessionId);
+
+    @LogMessage(level = WARN)
+    @Message(id = 9, value = "Timed out after %d ms waiting to reschedule expiration/passivation of sessions; %d of %d sessions were rescheduled.")
+    void sessionWarmupTimeout(long timeout, long completed, long total);
+
+    @LogMessage(level = WARN)
+    @Message(id = 10, value = "Failed to invalidate near cached values of %s on other nodes.")
+    void failedToInvalidateNearCache(@Cause Throwable cause, Object keys);
 }
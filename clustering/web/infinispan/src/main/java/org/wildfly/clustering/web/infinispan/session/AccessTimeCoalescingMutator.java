@@ -0,0 +1,62 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.infinispan.session;
+
+import java.util.concurrent.TimeUnit;
+
+import org.wildfly.clustering.ee.infinispan.Mutator;
+
+/**
+ * Mutator for a session cache entry that skips writes that would only advance the persisted last accessed time of the session
+ * by less than a given granularity.
+ * Writes are never skipped if the max inactive interval of the session changed, or if the mutator was {@link #force() forced}.
+ */
+public class AccessTimeCoalescingMutator implements Mutator {
+
+    private final Mutator mutator;
+    private final SimpleSessionMetaData metaData;
+    private final long granularity;
+    private final long maxInactiveInterval;
+    private volatile boolean forced = false;
+
+    public AccessTimeCoalescingMutator(Mutator mutator, SimpleSessionMetaData metaData, long granularity) {
+        this.mutator = mutator;
+        this.metaData = metaData;
+        this.granularity = granularity;
+        this.maxInactiveInterval = metaData.getMaxInactiveInterval(TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Indicates that content of the cache entry other than the last accessed time changed, and must be written.
+     */
+    public void force() {
+        this.forced = true;
+    }
+
+    @Override
+    public void mutate() {
+        if (this.forced || (this.metaData.getMaxInactiveInterval(TimeUnit.MILLISECONDS) != this.maxInactiveInterval) || (this.metaData.getLastAccessedTime().getTime() - this.metaData.getPersistedLastAccessedTime() >= this.granularity)) {
+            this.mutator.mutate();
+            this.metaData.persisted();
+        }
+    }
+}
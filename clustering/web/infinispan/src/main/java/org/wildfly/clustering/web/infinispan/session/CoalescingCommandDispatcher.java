@@ -0,0 +1,409 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.infinispan.session;
+
+import java.security.AccessController;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jboss.as.clustering.concurrent.Invoker;
+import org.jboss.threads.JBossThreadFactory;
+import org.wildfly.clustering.dispatcher.BatchCommandDispatcher;
+import org.wildfly.clustering.dispatcher.Command;
+import org.wildfly.clustering.dispatcher.CommandDispatcher;
+import org.wildfly.clustering.group.Group;
+import org.wildfly.clustering.group.Node;
+import org.wildfly.clustering.server.dispatcher.BatchCommand;
+import org.wildfly.clustering.server.dispatcher.BatchCommandFuture;
+import org.wildfly.security.manager.action.GetAccessControlContextAction;
+
+/**
+ * Dispatches commands to the primary owner of their key.
+ * Commands whose primary owner is the local node are executed inline, unless commands for the same key are still pending.
+ * All other commands are queued, in order, and sent from a background thread, where commands pending for the same node are coalesced into a single message.
+ * If the underlying dispatcher is a {@link BatchCommandDispatcher}, the commands are sent as a batch; otherwise, they are wrapped in a {@link BatchCommand}.
+ * Either way, the failure of one command does not prevent the execution of the remainder of its batch.
+ * Each batch completes, including any retries, before the next one is sent, so that the commands for a given key are executed in the order they were dispatched.
+ * The primary owner of each command is resolved again on every attempt, so that a retry follows a change of ownership.
+ * The number of queued commands is bounded; if the queue is full, the caller waits for room.
+ * Callers need not wait for the returned future; a {@link FailureListener} is notified if a command ultimately fails.
+ * @param <C> the command context type
+ * @param <K> the key type
+ */
+public class CoalescingCommandDispatcher<C, K> implements AutoCloseable {
+
+    /**
+     * Locates the primary owner of a key.
+     * @param <K> the key type
+     */
+    public interface PrimaryOwnerLocator<K> {
+        Node locatePrimaryOwner(K key);
+    }
+
+    /**
+     * Notified of a dispatched command that could not be executed.
+     * @param <K> the key type
+     */
+    public interface FailureListener<K> {
+        void failed(K key, Throwable exception);
+    }
+
+    private final CommandDispatcher<C> dispatcher;
+    private final Group group;
+    private final PrimaryOwnerLocator<K> locator;
+    private final Invoker invoker;
+    private final ExecutorService executor;
+    private final int maxBatchSize;
+    private final BlockingQueue<Entry<K, C>> queue;
+    // The number of commands per key that were queued, but have not yet completed
+    private final ConcurrentMap<K, AtomicInteger> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    final AtomicLong batches = new AtomicLong();
+    final AtomicLong dispatched = new AtomicLong();
+    final AtomicLong overflows = new AtomicLong();
+
+    public CoalescingCommandDispatcher(CommandDispatcher<C> dispatcher, Group group, PrimaryOwnerLocator<K> locator, Invoker invoker, int maxQueueSize, int maxBatchSize) {
+        this(dispatcher, group, locator, invoker, Executors.newSingleThreadExecutor(createThreadFactory()), maxQueueSize, maxBatchSize);
+    }
+
+    private static ThreadFactory createThreadFactory() {
+        return new JBossThreadFactory(new ThreadGroup(CoalescingCommandDispatcher.class.getSimpleName()), Boolean.FALSE, null, "%G - %t", null, null, AccessController.doPrivileged(GetAccessControlContextAction.getInstance()));
+    }
+
+    public CoalescingCommandDispatcher(CommandDispatcher<C> dispatcher, Group group, PrimaryOwnerLocator<K> locator, Invoker invoker, ExecutorService executor, int maxQueueSize, int maxBatchSize) {
+        this.dispatcher = dispatcher;
+        this.group = group;
+        this.locator = locator;
+        this.invoker = invoker;
+        this.executor = executor;
+        this.queue = new LinkedBlockingQueue<>(maxQueueSize);
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Dispatches the specified command to the primary owner of the specified key.
+     * @param key the key whose primary owner should execute the command
+     * @param command a command
+     * @return the result of the command execution, which is already complete if the command was executed inline
+     * @throws InterruptedException if interrupted while waiting for room in the queue
+     */
+    public Future<Void> dispatch(K key, Command<Void, C> command) throws InterruptedException {
+        return this.dispatch(key, command, null);
+    }
+
+    /**
+     * Dispatches the specified command to the primary owner of the specified key, without waiting for queued commands to complete.
+     * @param key the key whose primary owner should execute the command
+     * @param command a command
+     * @param listener notified if the command fails, or null
+     * @return the result of the command execution, which is already complete if the command was executed inline
+     * @throws InterruptedException if interrupted while waiting for room in the queue
+     */
+    public Future<Void> dispatch(final K key, final Command<Void, C> command, FailureListener<K> listener) throws InterruptedException {
+        Entry<K, C> entry = new Entry<>(key, command, listener);
+        if (!this.pending.containsKey(key) && this.locator.locatePrimaryOwner(key).equals(this.group.getLocalNode())) {
+            Callable<Void> task = new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    // This should only go remote following a failover
+                    Node node = CoalescingCommandDispatcher.this.locator.locatePrimaryOwner(key);
+                    return CoalescingCommandDispatcher.this.dispatcher.executeOnNode(command, node).get();
+                }
+            };
+            try {
+                entry.succeeded(this.invoker.invoke(task));
+            } catch (Exception e) {
+                entry.failed(e);
+            }
+            return entry;
+        }
+        this.increment(key);
+        try {
+            if (!this.queue.offer(entry)) {
+                this.overflows.incrementAndGet();
+                this.queue.put(entry);
+            }
+        } catch (InterruptedException e) {
+            this.decrement(key);
+            throw e;
+        }
+        this.schedule();
+        return entry;
+    }
+
+    private void schedule() {
+        if (this.scheduled.compareAndSet(false, true)) {
+            try {
+                this.executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        CoalescingCommandDispatcher.this.drain();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                this.scheduled.set(false);
+                // Closed
+                this.fail(e);
+            }
+        }
+    }
+
+    void drain() {
+        try {
+            List<Entry<K, C>> batch = new ArrayList<>(this.maxBatchSize);
+            this.queue.drainTo(batch, this.maxBatchSize);
+            while (!batch.isEmpty()) {
+                this.send(batch);
+                batch.clear();
+                this.queue.drainTo(batch, this.maxBatchSize);
+            }
+        } finally {
+            this.scheduled.set(false);
+            // Commands may have been queued after the last drain, but before we were unscheduled
+            if (!this.queue.isEmpty()) {
+                this.schedule();
+            }
+        }
+    }
+
+    private void send(final List<Entry<K, C>> batch) {
+        final List<Entry<K, C>> remaining = new ArrayList<>(batch);
+        try {
+            this.invoker.invoke(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    CoalescingCommandDispatcher.this.attempt(remaining);
+                    return null;
+                }
+            });
+        } catch (Exception e) {
+            for (Entry<K, C> entry: remaining) {
+                this.complete(entry, e);
+            }
+        }
+    }
+
+    /**
+     * Makes a single attempt to execute the specified commands, removing those that completed.
+     * @throws Exception if any command could not be executed
+     */
+    void attempt(List<Entry<K, C>> remaining) throws Exception {
+        // Group the commands by primary owner, preserving their order
+        Map<Node, List<Entry<K, C>>> targets = new LinkedHashMap<>();
+        for (Entry<K, C> entry: remaining) {
+            Node node = this.locator.locatePrimaryOwner(entry.key);
+            List<Entry<K, C>> entries = targets.get(node);
+            if (entries == null) {
+                entries = new ArrayList<>();
+                targets.put(node, entries);
+            }
+            entries.add(entry);
+        }
+        Map<Node, List<Future<Void>>> responses = new LinkedHashMap<>();
+        Exception exception = null;
+        for (Map.Entry<Node, List<Entry<K, C>>> target: targets.entrySet()) {
+            try {
+                responses.put(target.getKey(), this.submit(target.getValue(), target.getKey()));
+            } catch (Exception e) {
+                exception = e;
+            }
+        }
+        remaining.clear();
+        for (Map.Entry<Node, List<Entry<K, C>>> target: targets.entrySet()) {
+            List<Entry<K, C>> entries = target.getValue();
+            List<Future<Void>> futures = responses.get(target.getKey());
+            // Once a command for a given key fails, subsequent commands for the same key are executed again after it, to preserve their order
+            Set<K> failedKeys = new HashSet<>();
+            for (int i = 0; i < entries.size(); ++i) {
+                Entry<K, C> entry = entries.get(i);
+                try {
+                    if (futures == null) {
+                        throw exception;
+                    }
+                    futures.get(i).get();
+                    if (failedKeys.contains(entry.key)) {
+                        remaining.add(entry);
+                    } else {
+                        this.complete(entry, null);
+                    }
+                } catch (Exception e) {
+                    exception = e;
+                    failedKeys.add(entry.key);
+                    remaining.add(entry);
+                }
+            }
+        }
+        if (!remaining.isEmpty()) {
+            throw exception;
+        }
+    }
+
+    private List<Future<Void>> submit(List<Entry<K, C>> entries, Node node) throws Exception {
+        this.batches.incrementAndGet();
+        this.dispatched.addAndGet(entries.size());
+        List<Command<Void, C>> commands = new ArrayList<>(entries.size());
+        for (Entry<K, C> entry: entries) {
+            commands.add(entry.command);
+        }
+        if (commands.size() == 1) {
+            return Collections.singletonList(this.dispatcher.submitOnNode(commands.get(0), node));
+        }
+        if (this.dispatcher instanceof BatchCommandDispatcher) {
+            return ((BatchCommandDispatcher<C>) this.dispatcher).submitBatchOnNode(commands, node);
+        }
+        return BatchCommandFuture.createFutures(this.dispatcher.submitOnNode(new BatchCommand<>(commands), node), commands.size());
+    }
+
+    private void complete(Entry<K, C> entry, Exception exception) {
+        if (exception != null) {
+            entry.failed(exception);
+        } else {
+            entry.succeeded(null);
+        }
+        this.decrement(entry.key);
+    }
+
+    private void fail(Exception exception) {
+        Entry<K, C> entry = this.queue.poll();
+        while (entry != null) {
+            this.complete(entry, exception);
+            entry = this.queue.poll();
+        }
+    }
+
+    private void increment(K key) {
+        while (true) {
+            AtomicInteger count = this.pending.get(key);
+            if (count == null) {
+                count = this.pending.putIfAbsent(key, new AtomicInteger(1));
+                if (count == null) return;
+            }
+            int current = count.get();
+            // A count of 0 is about to be removed
+            if ((current > 0) && count.compareAndSet(current, current + 1)) return;
+        }
+    }
+
+    private void decrement(K key) {
+        AtomicInteger count = this.pending.get(key);
+        if ((count != null) && (count.decrementAndGet() == 0)) {
+            this.pending.remove(key, count);
+        }
+    }
+
+    /**
+     * @return the number of commands waiting to be sent
+     */
+    public int getPendingCount() {
+        return this.queue.size();
+    }
+
+    /**
+     * @return the number of commands sent so far, including retries
+     */
+    public long getDispatchedCount() {
+        return this.dispatched.get();
+    }
+
+    /**
+     * @return the number of messages sent so far
+     */
+    public long getBatchCount() {
+        return this.batches.get();
+    }
+
+    /**
+     * @return the number of commands whose dispatcher had to wait, because the queue was full
+     */
+    public long getOverflowCount() {
+        return this.overflows.get();
+    }
+
+    @Override
+    public void close() {
+        this.executor.shutdown();
+    }
+
+    /**
+     * A queued command, and the future result of its execution.
+     */
+    private static class Entry<K, C> extends FutureTask<Void> {
+        private static final Runnable NOOP = new Runnable() {
+            @Override
+            public void run() {
+            }
+        };
+        final K key;
+        final Command<Void, C> command;
+        private final FailureListener<K> listener;
+
+        Entry(K key, Command<Void, C> command, FailureListener<K> listener) {
+            super(NOOP, null);
+            this.key = key;
+            this.command = command;
+            this.listener = listener;
+        }
+
+        @Override
+        protected void done() {
+            if ((this.listener != null) && !this.isCancelled()) {
+                try {
+                    this.get();
+                } catch (ExecutionException e) {
+                    this.listener.failed(this.key, e.getCause());
+                } catch (InterruptedException e) {
+                    // Already complete, so we never wait
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        void succeeded(Void result) {
+            this.set(result);
+        }
+
+        void failed(Throwable exception) {
+            this.setException(exception);
+        }
+    }
+}
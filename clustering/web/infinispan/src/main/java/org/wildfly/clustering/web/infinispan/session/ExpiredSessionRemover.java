@@ -32,9 +32,15 @@ import org.wildfly.clustering.web.session.Session;
 public class ExpiredSessionRemover<V, L> implements Remover<String> {
 
     private final SessionFactory<V, L> factory;
+    private final long skew;
 
     public ExpiredSessionRemover(SessionFactory<V, L> factory) {
+        this(factory, 0L);
+    }
+
+    public ExpiredSessionRemover(SessionFactory<V, L> factory, long skew) {
         this.factory = factory;
+        this.skew = skew;
     }
 
     @Override
@@ -42,7 +48,7 @@ public class ExpiredSessionRemover<V, L> implements Remover<String> {
         V value = this.factory.findValue(id);
         if (value != null) {
             Session<L> session = this.factory.createSession(id, value);
-            if (session.isValid() && session.getMetaData().isExpired()) {
+            if (session.isValid() && InfinispanSessionManager.isExpired(session.getMetaData(), this.skew)) {
                 InfinispanWebLogger.ROOT_LOGGER.tracef("Session %s has expired.", id);
                 session.invalidate();
             }
@@ -22,10 +22,10 @@
 package org.wildfly.clustering.web.infinispan.session;
 
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 
 import javax.servlet.http.HttpSession;
@@ -37,7 +37,6 @@ import javax.servlet.http.HttpSessionListener;
 
 import org.infinispan.Cache;
 import org.infinispan.configuration.cache.Configuration;
-import org.infinispan.context.Flag;
 import org.infinispan.distribution.DistributionManager;
 import org.infinispan.notifications.KeyFilter;
 import org.infinispan.notifications.Listener;
@@ -88,12 +87,26 @@ public class InfinispanSessionManager<V, L> implements SessionManager<L, Transac
     private final CommandDispatcherFactory dispatcherFactory;
     private final NodeFactory<Address> nodeFactory;
     private final int maxActiveSessions;
+    private final long accessTimeGranularity;
+    private final long warmupTimeout;
     private volatile Time defaultMaxInactiveInterval = new Time(30, TimeUnit.MINUTES);
     private final boolean persistent;
     private final Invoker invoker = new RetryingInvoker(0, 10, 100);
+    private final SessionIndex index;
+    private final NearCache<?, ?> nearCache;
+
+    // Bounds of the queue of scheduler commands destined for remote primary owners
+    private static final int MAX_PENDING_SCHEDULER_COMMANDS = 10000;
+    private static final int MAX_SCHEDULER_COMMAND_BATCH_SIZE = 1000;
+    // Number of sessions rescheduled per task, when this node becomes the primary owner of existing sessions
+    private static final int RESCHEDULE_BATCH_SIZE = 100;
 
     volatile CommandDispatcher<Scheduler> dispatcher;
+    private volatile CoalescingCommandDispatcher<Scheduler, String> remoteDispatcher;
     private volatile Scheduler scheduler;
+    private volatile SessionRescheduler rescheduler;
+    // Sessions whose rescheduling was cancelled by a topology change in progress
+    private volatile Set<String> unfinishedSessionIds = Collections.emptySet();
 
     public InfinispanSessionManager(SessionFactory<V, L> factory, InfinispanSessionManagerConfiguration configuration) {
         this.factory = factory;
@@ -104,18 +117,22 @@ public class InfinispanSessionManager<V, L> implements SessionManager<L, Transac
         this.dispatcherFactory = configuration.getCommandDispatcherFactory();
         this.nodeFactory = configuration.getNodeFactory();
         this.maxActiveSessions = configuration.getMaxActiveSessions();
+        this.accessTimeGranularity = configuration.getAccessTimeGranularity();
+        this.warmupTimeout = configuration.getWarmupTimeout();
+        this.nearCache = configuration.getNearCache();
         Configuration config = this.cache.getCacheConfiguration();
         // If cache is clustered or configured with a write-through cache store
         // then we need to trigger any HttpSessionActivationListeners per request
         // See SRV.7.7.2 Distributed Environments
         this.persistent = config.clustering().cacheMode().isClustered() || (config.persistence().usingStores() && !config.persistence().passivation());
+        this.index = new SessionIndex(this.cache);
     }
 
     @Override
     public void start() {
         this.identifierFactory.start();
         final List<Scheduler> schedulers = new ArrayList<>(2);
-        schedulers.add(new SessionExpirationScheduler(this.batcher, new ExpiredSessionRemover<>(this.factory)));
+        schedulers.add(new SessionExpirationScheduler(this.batcher, new ExpiredSessionRemover<>(this.factory, this.accessTimeGranularity), this.accessTimeGranularity));
         if (this.maxActiveSessions >= 0) {
             schedulers.add(new SessionEvictionScheduler(this.cache.getName() + ".eviction", this.batcher, this.factory, this.dispatcherFactory, this.maxActiveSessions));
         }
@@ -149,13 +166,43 @@ public class InfinispanSessionManager<V, L> implements SessionManager<L, Transac
             }
         };
         this.dispatcher = this.dispatcherFactory.createCommandDispatcher(this.cache.getName() + ".schedulers", this.scheduler);
+        CoalescingCommandDispatcher.PrimaryOwnerLocator<String> locator = new CoalescingCommandDispatcher.PrimaryOwnerLocator<String>() {
+            @Override
+            public Node locatePrimaryOwner(String sessionId) {
+                return InfinispanSessionManager.this.locatePrimaryOwner(sessionId);
+            }
+        };
+        this.remoteDispatcher = new CoalescingCommandDispatcher<>(this.dispatcher, this.dispatcherFactory.getGroup(), locator, this.invoker, MAX_PENDING_SCHEDULER_COMMANDS, MAX_SCHEDULER_COMMAND_BATCH_SIZE);
+        // Use at most half of the available processors, to leave room for requests
+        this.rescheduler = new SessionRescheduler(Math.max(Runtime.getRuntime().availableProcessors() / 2, 1), RESCHEDULE_BATCH_SIZE);
         this.cache.addListener(this, this);
-        this.schedule(this.cache, new SimpleLocality(false), new ConsistentHashLocality(this.cache));
+        this.index.start();
+        if (this.nearCache != null) {
+            this.nearCache.start();
+        }
+        this.schedule(new SimpleLocality(false), new ConsistentHashLocality(this.cache), Collections.<String>emptySet());
+        if (this.warmupTimeout > 0) {
+            // Delay completion of start, and thus availability of this deployment, until existing sessions were rescheduled
+            try {
+                // A warmup cancelled by a rehash is replaced by another, so only report a timeout if the current warmup is incomplete
+                if (!this.rescheduler.await(this.warmupTimeout, TimeUnit.MILLISECONDS) && !this.rescheduler.isComplete()) {
+                    InfinispanWebLogger.ROOT_LOGGER.sessionWarmupTimeout(this.warmupTimeout, this.rescheduler.getRescheduledCount(), this.rescheduler.getSubmittedCount());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
     }
 
     @Override
     public void stop() {
+        if (this.nearCache != null) {
+            this.nearCache.stop();
+        }
+        this.index.stop();
         this.cache.removeListener(this);
+        this.rescheduler.close();
+        this.remoteDispatcher.close();
         this.dispatcher.close();
         this.scheduler.close();
         this.identifierFactory.stop();
@@ -166,39 +213,86 @@ public class InfinispanSessionManager<V, L> implements SessionManager<L, Transac
     }
 
     private void cancel(ImmutableSession session) {
-        try {
-            this.executeOnPrimaryOwner(session, new CancelSchedulerCommand(session.getId()));
-        } catch (Exception e) {
-            InfinispanWebLogger.ROOT_LOGGER.failedToCancelSession(e, session.getId());
-        }
+        this.executeOnPrimaryOwner(session, new CancelSchedulerCommand(session.getId()), new CoalescingCommandDispatcher.FailureListener<String>() {
+            @Override
+            public void failed(String id, Throwable exception) {
+                InfinispanWebLogger.ROOT_LOGGER.failedToCancelSession(exception, id);
+            }
+        });
     }
 
     void schedule(ImmutableSession session) {
-        try {
-            this.executeOnPrimaryOwner(session, new ScheduleSchedulerCommand(session));
-        } catch (Exception e) {
-            InfinispanWebLogger.ROOT_LOGGER.failedToScheduleSession(e, session.getId());
-        }
-    }
-
-    private void executeOnPrimaryOwner(final ImmutableSession session, final Command<Void, Scheduler> command) throws Exception {
-        Callable<Void> task = new Callable<Void>() {
+        this.executeOnPrimaryOwner(session, new ScheduleSchedulerCommand(session), new CoalescingCommandDispatcher.FailureListener<String>() {
             @Override
-            public Void call() throws Exception {
-                // This should only go remote following a failover
-                Node node = InfinispanSessionManager.this.locatePrimaryOwner(session);
-                return InfinispanSessionManager.this.dispatcher.executeOnNode(command, node).get();
+            public void failed(String id, Throwable exception) {
+                InfinispanWebLogger.ROOT_LOGGER.failedToScheduleSession(exception, id);
             }
-        };
-        this.invoker.invoke(task);
+        });
+    }
+
+    private void executeOnPrimaryOwner(final ImmutableSession session, final Command<Void, Scheduler> command, CoalescingCommandDispatcher.FailureListener<String> listener) {
+        // Remote scheduling is only needed following a failover, where it applies to many sessions at once,
+        // so commands destined for remote primary owners are coalesced per node, instead of being sent one at a time.
+        // The calling thread does not wait for queued commands; failures are logged by the listener.
+        try {
+            this.remoteDispatcher.dispatch(session.getId(), command, listener);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            listener.failed(session.getId(), e);
+        }
     }
 
-    Node locatePrimaryOwner(ImmutableSession session) {
+    Node locatePrimaryOwner(String sessionId) {
         DistributionManager dist = this.cache.getAdvancedCache().getDistributionManager();
-        Address address = (dist != null) ? dist.getPrimaryLocation(session.getId()) : null;
+        Address address = (dist != null) ? dist.getPrimaryLocation(sessionId) : null;
         return (address != null) ? this.nodeFactory.createNode(address) : this.dispatcherFactory.getGroup().getLocalNode();
     }
 
+    @Override
+    public int getPendingSchedulerCommands() {
+        return this.remoteDispatcher.getPendingCount();
+    }
+
+    @Override
+    public long getDispatchedSchedulerCommands() {
+        return this.remoteDispatcher.getDispatchedCount();
+    }
+
+    @Override
+    public long getSchedulerCommandBatches() {
+        return this.remoteDispatcher.getBatchCount();
+    }
+
+    @Override
+    public long getSchedulerCommandOverflows() {
+        return this.remoteDispatcher.getOverflowCount();
+    }
+
+    @Override
+    public long getWarmupSessionCount() {
+        return this.rescheduler.getSubmittedCount();
+    }
+
+    @Override
+    public long getWarmedUpSessionCount() {
+        return this.rescheduler.getRescheduledCount();
+    }
+
+    @Override
+    public boolean isWarmupComplete() {
+        return this.rescheduler.isComplete();
+    }
+
+    @Override
+    public long getNearCacheHitCount() {
+        return (this.nearCache != null) ? this.nearCache.getHitCount() : 0;
+    }
+
+    @Override
+    public long getNearCacheMissCount() {
+        return (this.nearCache != null) ? this.nearCache.getMissCount() : 0;
+    }
+
     @Override
     public boolean accept(Object key) {
         return key instanceof String;
@@ -237,7 +331,7 @@ public class InfinispanSessionManager<V, L> implements SessionManager<L, Transac
             return null;
         }
         Session<L> session = this.factory.createSession(id, value);
-        if (session.getMetaData().isExpired()) {
+        if (isExpired(session.getMetaData(), this.accessTimeGranularity)) {
             InfinispanWebLogger.ROOT_LOGGER.tracef("Session %s was found, but has expired", id);
             session.invalidate();
             return null;
@@ -266,23 +360,27 @@ public class InfinispanSessionManager<V, L> implements SessionManager<L, Transac
     @Override
     public Set<String> getActiveSessions() {
         // Omit remote sessions (i.e. when using DIST mode) as well as passivated sessions
-        return this.getSessions(Flag.CACHE_MODE_LOCAL, Flag.SKIP_CACHE_LOAD);
+        return this.index.getActiveSessions();
     }
 
     @Override
     public Set<String> getLocalSessions() {
         // Omit remote sessions (i.e. when using DIST mode)
-        return this.getSessions(Flag.CACHE_MODE_LOCAL);
+        return this.index.getLocalSessions();
     }
 
-    private Set<String> getSessions(Flag... flags) {
-        Set<String> result = new HashSet<>();
-        for (Object key: this.cache.getAdvancedCache().withFlags(flags).keySet()) {
-            if (key instanceof String) {
-                result.add((String) key);
-            }
-        }
-        return result;
+    /**
+     * @return the number of sessions in memory on this node
+     */
+    public int getActiveSessionCount() {
+        return this.index.getActiveSessionCount();
+    }
+
+    /**
+     * @return the number of sessions on this node, including passivated sessions
+     */
+    public int getLocalSessionCount() {
+        return this.index.getLocalSessionCount();
     }
 
     @CacheEntryActivated
@@ -336,37 +434,66 @@ public class InfinispanSessionManager<V, L> implements SessionManager<L, Transac
         Locality oldLocality = new ConsistentHashLocality(localAddress, event.getConsistentHashAtStart());
         Locality newLocality = new ConsistentHashLocality(localAddress, event.getConsistentHashAtEnd());
         if (event.isPre()) {
+            this.unfinishedSessionIds = this.rescheduler.cancel();
             this.scheduler.cancel(newLocality);
         } else {
-            this.schedule(cache, oldLocality, newLocality);
+            Set<String> unfinishedSessionIds = this.unfinishedSessionIds;
+            this.unfinishedSessionIds = Collections.emptySet();
+            // Resynchronize the index before using it to find the sessions we now own
+            this.index.rebuild();
+            this.schedule(oldLocality, newLocality, unfinishedSessionIds);
         }
     }
 
-    private void schedule(Cache<String, ?> cache, Locality oldLocality, Locality newLocality) {
-        // Iterate over sessions in memory
-        for (Object key: cache.getAdvancedCache().withFlags(Flag.CACHE_MODE_LOCAL, Flag.SKIP_CACHE_LOAD).keySet()) {
-            // Cache may contain non-string keys, so ignore any others
-            if (this.accept(key)) {
-                String sessionId = (String) key;
-                // If we are the new primary owner of this session
-                // then schedule expiration of this session locally
-                if (!oldLocality.isLocal(sessionId) && newLocality.isLocal(sessionId)) {
-                    Batch batch = this.batcher.createBatch();
-                    try {
-                        // We need to lookup the session to obtain its meta data
-                        V value = this.factory.findValue(sessionId);
-                        if (value != null) {
-                            ImmutableSession session = this.factory.createImmutableSession(sessionId, value);
-                            this.scheduler.schedule(session);
-                        }
-                    } finally {
-                        batch.discard();
-                    }
-                }
+    private void schedule(Locality oldLocality, Locality newLocality, Set<String> unfinishedSessionIds) {
+        Set<String> sessionIds = new LinkedHashSet<>();
+        // Sessions whose rescheduling was cancelled, and that we still own, would otherwise never expire
+        for (String sessionId: unfinishedSessionIds) {
+            if (newLocality.isLocal(sessionId)) {
+                sessionIds.add(sessionId);
+            }
+        }
+        // Iterate over sessions in memory, via the index, rather than over every key of the cache
+        for (String sessionId: this.index.getActiveSessions()) {
+            // If we are the new primary owner of this session
+            // then schedule expiration of this session locally
+            if (!oldLocality.isLocal(sessionId) && newLocality.isLocal(sessionId)) {
+                sessionIds.add(sessionId);
+            }
+        }
+        // Looking up each session is expensive, so reschedule them in the background
+        SessionRescheduler.Task task = new SessionRescheduler.Task() {
+            @Override
+            public void reschedule(String sessionId) {
+                InfinispanSessionManager.this.reschedule(sessionId);
+            }
+        };
+        this.rescheduler.reschedule(sessionIds, task);
+    }
+
+    void reschedule(String sessionId) {
+        Batch batch = this.batcher.createBatch();
+        try {
+            // We need to lookup the session to obtain its meta data
+            V value = this.factory.findValue(sessionId);
+            if (value != null) {
+                ImmutableSession session = this.factory.createImmutableSession(sessionId, value);
+                this.scheduler.schedule(session);
             }
+        } finally {
+            batch.discard();
         }
     }
 
+    /**
+     * Indicates whether the specified session has expired, allowing for a persisted last accessed time that lags behind by up to the specified skew.
+     */
+    static boolean isExpired(SessionMetaData metaData, long skew) {
+        if (skew <= 0) return metaData.isExpired();
+        long maxInactiveInterval = metaData.getMaxInactiveInterval(TimeUnit.MILLISECONDS);
+        return (maxInactiveInterval > 0) ? (System.currentTimeMillis() - metaData.getLastAccessedTime().getTime()) >= (maxInactiveInterval + skew) : false;
+    }
+
     static void triggerPrePassivationEvents(ImmutableSession session) {
         List<HttpSessionActivationListener> listeners = findListeners(session);
         if (!listeners.isEmpty()) {
@@ -42,4 +42,7 @@ public interface InfinispanSessionManagerConfiguration {
     CommandDispatcherFactory getCommandDispatcherFactory();
     NodeFactory<Address> getNodeFactory();
     int getMaxActiveSessions();
+    long getAccessTimeGranularity();
+    long getWarmupTimeout();
+    NearCache<?, ?> getNearCache();
 }
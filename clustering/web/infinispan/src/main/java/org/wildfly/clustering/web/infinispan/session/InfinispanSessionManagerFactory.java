@@ -21,7 +21,10 @@
  */
 package org.wildfly.clustering.web.infinispan.session;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.ServiceLoader;
 
 import org.infinispan.Cache;
 import org.infinispan.remoting.transport.Address;
@@ -48,6 +51,7 @@ import org.wildfly.clustering.spi.CacheServiceNames;
 import org.wildfly.clustering.spi.ChannelServiceNames;
 import org.wildfly.clustering.web.IdentifierFactory;
 import org.wildfly.clustering.web.LocalContextFactory;
+import org.wildfly.clustering.web.annotation.ImmutableTypeProvider;
 import org.wildfly.clustering.web.infinispan.AffinityIdentifierFactory;
 import org.wildfly.clustering.web.infinispan.session.coarse.CoarseSessionCacheEntry;
 import org.wildfly.clustering.web.infinispan.session.coarse.CoarseSessionFactory;
@@ -100,6 +104,9 @@ public class InfinispanSessionManagerFactory extends AbstractService<SessionMana
         final CommandDispatcherFactory dispatcherFactory = this.dispatcherFactory.getValue();
         final NodeFactory<Address> nodeFactory = this.nodeFactory.getValue();
         final int maxActiveSessions = this.config.getMaxActiveSessions();
+        final long accessTimeGranularity = this.config.getAccessTimeGranularity();
+        final long warmupTimeout = this.config.getWarmupTimeout();
+        final NearCache<SessionAttributeCacheKey, MarshalledValue<Object, MarshallingContext>> nearCache = this.createNearCache(dispatcherFactory, nodeFactory);
         InfinispanSessionManagerConfiguration config = new InfinispanSessionManagerConfiguration() {
             @Override
             public SessionContext getSessionContext() {
@@ -135,27 +142,58 @@ public class InfinispanSessionManagerFactory extends AbstractService<SessionMana
             public int getMaxActiveSessions() {
                 return maxActiveSessions;
             }
+
+            @Override
+            public long getAccessTimeGranularity() {
+                return accessTimeGranularity;
+            }
+
+            @Override
+            public long getWarmupTimeout() {
+                return warmupTimeout;
+            }
+
+            @Override
+            public NearCache<?, ?> getNearCache() {
+                return nearCache;
+            }
         };
-        return new InfinispanSessionManager<>(this.getSessionFactory(context, localContextFactory), config);
+        return new InfinispanSessionManager<>(this.getSessionFactory(context, localContextFactory, nearCache), config);
     }
 
-    private <L> SessionFactory<?, L> getSessionFactory(SessionContext context, LocalContextFactory<L> localContextFactory) {
+    /**
+     * Creates a near cache for the attributes of fine granularity sessions, if enabled and if the cache is distributed.
+     */
+    private NearCache<SessionAttributeCacheKey, MarshalledValue<Object, MarshallingContext>> createNearCache(CommandDispatcherFactory dispatcherFactory, NodeFactory<Address> nodeFactory) {
+        int size = this.config.getNearCacheSize();
+        if ((size <= 0) || (this.config.getAttributePersistenceStrategy() != SessionManagerConfiguration.SessionAttributePersistenceStrategy.FINE)) return null;
+        Cache<SessionAttributeCacheKey, MarshalledValue<Object, MarshallingContext>> cache = this.cache.getValue();
+        if (!cache.getCacheConfiguration().clustering().cacheMode().isDistributed()) return null;
+        return new NearCache<>(cache, SessionAttributeCacheKey.class, size, dispatcherFactory, nodeFactory);
+    }
+
+    private <L> SessionFactory<?, L> getSessionFactory(SessionContext context, LocalContextFactory<L> localContextFactory, NearCache<SessionAttributeCacheKey, MarshalledValue<Object, MarshallingContext>> nearCache) {
         Module module = this.config.getModule();
         MarshallingContext marshallingContext = new SimpleMarshallingContextFactory().createMarshallingContext(new SessionAttributeMarshallingContext(module), module.getClassLoader());
         MarshalledValueFactory<MarshallingContext> factory = new SimpleMarshalledValueFactory(marshallingContext);
+        List<Class<?>> immutableTypes = new ArrayList<>();
+        for (ImmutableTypeProvider provider: ServiceLoader.load(ImmutableTypeProvider.class, module.getClassLoader())) {
+            immutableTypes.addAll(provider.getImmutableTypes());
+        }
+        MutableDetector detector = immutableTypes.isEmpty() ? MutableDetector.DEFAULT : new MutableDetector(immutableTypes);
 
         switch (this.config.getAttributePersistenceStrategy()) {
             case FINE: {
                 Cache<String, FineSessionCacheEntry<L>> sessionCache = this.cache.getValue();
                 Cache<SessionAttributeCacheKey, MarshalledValue<Object, MarshallingContext>> attributeCache = this.cache.getValue();
                 SessionAttributeMarshaller<Object, MarshalledValue<Object, MarshallingContext>> marshaller = new MarshalledValueSessionAttributeMarshaller<>(factory, marshallingContext);
-                return new FineSessionFactory<>(sessionCache, attributeCache, context, marshaller, localContextFactory);
+                return new FineSessionFactory<>(sessionCache, attributeCache, context, marshaller, localContextFactory, detector, this.config.getAccessTimeGranularity(), nearCache);
             }
             case COARSE: {
                 Cache<String, CoarseSessionCacheEntry<L>> sessionCache = this.cache.getValue();
                 Cache<SessionAttributesCacheKey, MarshalledValue<Map<String, Object>, MarshallingContext>> attributesCache = this.cache.getValue();
                 SessionAttributeMarshaller<Map<String, Object>, MarshalledValue<Map<String, Object>, MarshallingContext>> marshaller = new MarshalledValueSessionAttributeMarshaller<>(factory, marshallingContext);
-                return new CoarseSessionFactory<>(sessionCache, attributesCache, context, marshaller, localContextFactory);
+                return new CoarseSessionFactory<>(sessionCache, attributesCache, context, marshaller, localContextFactory, detector, this.config.getAccessTimeGranularity());
             }
             default: {
                 // Impossible
@@ -31,7 +31,9 @@ import java.net.URI;
 import java.net.URL;
 import java.nio.file.Path;
 import java.security.Permission;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Currency;
 import java.util.List;
@@ -43,23 +45,20 @@ import org.wildfly.clustering.web.annotation.Immutable;
 
 /**
  * Determines whether a given object is mutable.
+ * The verdict depends only on the class of an object, and is computed once per class.
  * @author Paul Ferraro
  */
 public class MutableDetector {
 
-    private static List<Object> IMMUTABLE_VALUES = Arrays.asList(
-            null,
-            Collections.EMPTY_LIST,
-            Collections.EMPTY_MAP,
-            Collections.EMPTY_SET
-    );
-
-    private static List<Class<?>> IMMUTABLE_TYPES = Arrays.<Class<?>>asList(
+    private static final List<Class<?>> IMMUTABLE_TYPES = new ArrayList<>(Arrays.<Class<?>>asList(
             BigDecimal.class,
             BigInteger.class,
             Boolean.class,
             Byte.class,
             Character.class,
+            Collections.EMPTY_LIST.getClass(),
+            Collections.EMPTY_MAP.getClass(),
+            Collections.EMPTY_SET.getClass(),
             Currency.class,
             Double.class,
             Enum.class, // Strictly speaking, one could implement a mutable enum, but that would just be weird.
@@ -80,19 +79,63 @@ public class MutableDetector {
             URI.class,
             URL.class,
             UUID.class
-    );
+    ));
+
+    // JSR-310 value types, referenced by name since they are only available on Java 8 or later
+    private static final String[] IMMUTABLE_TYPE_NAMES = {
+            "java.time.Duration",
+            "java.time.Instant",
+            "java.time.LocalDate",
+            "java.time.LocalDateTime",
+            "java.time.LocalTime",
+            "java.time.MonthDay",
+            "java.time.OffsetDateTime",
+            "java.time.OffsetTime",
+            "java.time.Period",
+            "java.time.Year",
+            "java.time.YearMonth",
+            "java.time.ZoneId",
+            "java.time.ZonedDateTime",
+    };
 
-    public static boolean isMutable(Object object) {
-        for (Object value: IMMUTABLE_VALUES) {
-            if (object == value) return false;
+    static {
+        for (String name: IMMUTABLE_TYPE_NAMES) {
+            try {
+                IMMUTABLE_TYPES.add(Class.forName(name, false, MutableDetector.class.getClassLoader()));
+            } catch (ClassNotFoundException e) {
+                // Not available on this runtime
+            }
         }
-        for (Class<?> immutableClass: IMMUTABLE_TYPES) {
-            if (immutableClass.isInstance(object)) return false;
+    }
+
+    /**
+     * Detects only the built-in immutable types and types annotated with {@link Immutable}.
+     */
+    public static final MutableDetector DEFAULT = new MutableDetector(Collections.<Class<?>>emptyList());
+
+    private final List<Class<?>> immutableTypes;
+    private final ClassValue<Boolean> mutable = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> targetClass) {
+            for (Class<?> immutableClass: MutableDetector.this.immutableTypes) {
+                if (immutableClass.isAssignableFrom(targetClass)) return Boolean.FALSE;
+            }
+            return !targetClass.isAnnotationPresent(Immutable.class);
         }
-        return !object.getClass().isAnnotationPresent(Immutable.class);
+    };
+
+    /**
+     * Creates a detector that additionally treats instances of the specified types, and of their subtypes, as immutable.
+     * @param immutableTypes a collection of immutable types
+     */
+    public MutableDetector(Collection<Class<?>> immutableTypes) {
+        List<Class<?>> types = new ArrayList<>(IMMUTABLE_TYPES.size() + immutableTypes.size());
+        types.addAll(IMMUTABLE_TYPES);
+        types.addAll(immutableTypes);
+        this.immutableTypes = types;
     }
 
-    private MutableDetector() {
-        // Hide
+    public boolean isMutable(Object object) {
+        return (object != null) && this.mutable.get(object.getClass());
     }
-}
\ No newline at end of file
+}
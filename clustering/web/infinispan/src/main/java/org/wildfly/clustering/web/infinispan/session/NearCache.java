@@ -0,0 +1,367 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.infinispan.session;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.transaction.Synchronization;
+import javax.transaction.Transaction;
+import javax.transaction.TransactionManager;
+
+import org.infinispan.Cache;
+import org.infinispan.distribution.DistributionManager;
+import org.infinispan.notifications.KeyFilter;
+import org.infinispan.notifications.Listener;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryInvalidated;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryModified;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryRemoved;
+import org.infinispan.notifications.cachelistener.annotation.TopologyChanged;
+import org.infinispan.notifications.cachelistener.event.CacheEntryEvent;
+import org.infinispan.notifications.cachelistener.event.TopologyChangedEvent;
+import org.infinispan.remoting.transport.Address;
+import org.wildfly.clustering.dispatcher.CommandDispatcher;
+import org.wildfly.clustering.dispatcher.CommandDispatcherFactory;
+import org.wildfly.clustering.group.Node;
+import org.wildfly.clustering.group.NodeFactory;
+import org.wildfly.clustering.web.infinispan.logging.InfinispanWebLogger;
+
+/**
+ * Bounded, per-node cache of values whose keys are owned by other nodes, used to avoid remote reads in a distributed cache.
+ * A non-owner does not observe modifications made via other nodes, so values written or removed via this node are invalidated on the other nodes,
+ * once the enclosing transaction, if any, completes.
+ * The keys invalidated within a transaction are sent in a single command, and only to nodes that do not own all of them,
+ * since owners never near cache their keys.
+ * Values are also invalidated when this node observes a modification, removal, or invalidation of the corresponding cache entry,
+ * and whenever the cache topology changes.
+ * Entries are partitioned into segments, each guarded by its own lock, and evicted in least recently used order per segment.
+ * Each segment counts its invalidations, so that a value read before an invalidation is not near cached after it.
+ * Keys must be serializable, since invalidations are sent to other nodes.
+ * @param <K> the cache key type
+ * @param <V> the cache value type
+ */
+@Listener
+public class NearCache<K, V> implements KeyFilter {
+
+    // Segments are not split below this size, to keep eviction close to least recently used order
+    private static final int MIN_SEGMENT_SIZE = 64;
+    private static final int MAX_SEGMENTS = 16;
+
+    private final Cache<K, V> cache;
+    private final Class<K> keyClass;
+    private final CommandDispatcherFactory dispatcherFactory;
+    private final NodeFactory<Address> nodeFactory;
+    private final Segment<K, V>[] segments;
+    // Keys invalidated by each active transaction
+    private final ConcurrentMap<Transaction, Set<K>> transactionKeys = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private volatile CommandDispatcher<NearCache<K, V>> dispatcher;
+
+    public NearCache(Cache<K, V> cache, Class<K> keyClass, int maxSize, CommandDispatcherFactory dispatcherFactory, NodeFactory<Address> nodeFactory) {
+        this.cache = cache;
+        this.keyClass = keyClass;
+        this.dispatcherFactory = dispatcherFactory;
+        this.nodeFactory = nodeFactory;
+        int count = 1;
+        while ((count < MAX_SEGMENTS) && (maxSize / (count * 2) >= MIN_SEGMENT_SIZE)) {
+            count *= 2;
+        }
+        @SuppressWarnings("unchecked")
+        Segment<K, V>[] segments = new Segment[count];
+        for (int i = 0; i < count; ++i) {
+            // Distribute the remainder, so that the sizes of all segments add up to the maximum size
+            segments[i] = new Segment<>((maxSize / count) + ((i < (maxSize % count)) ? 1 : 0));
+        }
+        this.segments = segments;
+    }
+
+    public void start() {
+        this.dispatcher = this.dispatcherFactory.createCommandDispatcher(this.cache.getName() + ".near-cache", this);
+        this.cache.addListener(this, this);
+    }
+
+    public void stop() {
+        this.cache.removeListener(this);
+        this.dispatcher.close();
+        this.clear();
+    }
+
+    /**
+     * Returns the near cached value of the specified key.
+     * Keys owned by the local node are never near cached, since they can be read locally.
+     * @param key a cache key
+     * @return the near cached value, or null, if the value was not cached or if the key is owned by the local node
+     */
+    public V get(K key) {
+        if (this.isLocal(key)) return null;
+        Segment<K, V> segment = this.segment(key);
+        V value;
+        synchronized (segment) {
+            value = segment.get(key);
+        }
+        if (value != null) {
+            this.hits.incrementAndGet();
+        } else {
+            this.misses.incrementAndGet();
+        }
+        return value;
+    }
+
+    /**
+     * Returns the version of the near cached value of the specified key, which changes whenever the key might have been invalidated.
+     * The version must be obtained before the value to {@link #put(Object, Object, long) put} is read from the cache.
+     * @param key a cache key
+     * @return a version
+     */
+    public long getVersion(K key) {
+        Segment<K, V> segment = this.segment(key);
+        synchronized (segment) {
+            return segment.version;
+        }
+    }
+
+    /**
+     * Near caches the specified value, unless its key is owned by the local node,
+     * or unless its key might have been invalidated since the specified version was obtained.
+     * @param key a cache key
+     * @param value the current value of this key
+     * @param version the version of this key, obtained before the value was read
+     */
+    public void put(K key, V value, long version) {
+        if (this.isLocal(key)) return;
+        Segment<K, V> segment = this.segment(key);
+        synchronized (segment) {
+            if (segment.version == version) {
+                segment.put(key, value);
+            }
+        }
+    }
+
+    /**
+     * Invalidates the near cached value of the specified key on every node that might near cache it, since it is about to be written or removed via this node.
+     * If a transaction is in progress, the key is invalidated again once it completes,
+     * so that no node retains a value it read before the transaction committed.
+     * All keys invalidated by the same transaction are then sent to the other nodes together.
+     * @param key a cache key
+     */
+    public void invalidate(K key) {
+        this.evict(key);
+        final Transaction transaction = this.getTransaction();
+        if (transaction != null) {
+            Set<K> keys = this.transactionKeys.get(transaction);
+            if (keys != null) {
+                keys.add(key);
+                return;
+            }
+            final Set<K> invalidatedKeys = Collections.newSetFromMap(new ConcurrentHashMap<K, Boolean>());
+            invalidatedKeys.add(key);
+            Synchronization synchronization = new Synchronization() {
+                @Override
+                public void beforeCompletion() {
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    NearCache.this.transactionKeys.remove(transaction);
+                    for (K invalidatedKey: invalidatedKeys) {
+                        NearCache.this.evict(invalidatedKey);
+                    }
+                    NearCache.this.broadcast(invalidatedKeys);
+                }
+            };
+            try {
+                transaction.registerSynchronization(synchronization);
+                this.transactionKeys.put(transaction, invalidatedKeys);
+                return;
+            } catch (Exception e) {
+                // Transaction is no longer active, so the write will not wait for it
+            }
+        }
+        this.broadcast(Collections.singleton(key));
+    }
+
+    private Transaction getTransaction() {
+        TransactionManager tm = this.cache.getAdvancedCache().getTransactionManager();
+        if (tm == null) return null;
+        try {
+            return tm.getTransaction();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private void broadcast(Collection<K> keys) {
+        CommandDispatcher<NearCache<K, V>> dispatcher = this.dispatcher;
+        if (dispatcher == null) return;
+        try {
+            Node[] excludedNodes = this.getExcludedNodes(keys);
+            // Skip the command if every member owns all of the keys
+            if (this.dispatcherFactory.getGroup().getNodes().size() <= excludedNodes.length) return;
+            // Other nodes invalidate asynchronously, so do not wait for their responses
+            dispatcher.submitOnCluster(new NearCacheInvalidationCommand<K, V>(keys), excludedNodes);
+        } catch (Exception e) {
+            InfinispanWebLogger.ROOT_LOGGER.failedToInvalidateNearCache(e, keys);
+        }
+    }
+
+    /**
+     * Returns the local node, along with the nodes that own all of the specified keys, none of which near caches any of them.
+     */
+    private Node[] getExcludedNodes(Collection<K> keys) {
+        Node localNode = this.dispatcherFactory.getGroup().getLocalNode();
+        DistributionManager dist = this.cache.getAdvancedCache().getDistributionManager();
+        if (dist == null) return new Node[] { localNode };
+        Set<Address> owners = null;
+        for (K key: keys) {
+            List<Address> addresses = dist.locate(key);
+            if (owners == null) {
+                owners = new HashSet<>(addresses);
+            } else {
+                owners.retainAll(addresses);
+            }
+        }
+        List<Node> nodes = new ArrayList<>(owners.size() + 1);
+        nodes.add(localNode);
+        for (Address owner: owners) {
+            Node node = this.nodeFactory.createNode(owner);
+            if (!node.equals(localNode)) {
+                nodes.add(node);
+            }
+        }
+        return nodes.toArray(new Node[nodes.size()]);
+    }
+
+    /**
+     * Evicts the near cached value of the specified key from this node only.
+     * @param key a cache key
+     */
+    void evict(Object key) {
+        Segment<K, V> segment = this.segment(key);
+        synchronized (segment) {
+            segment.remove(key);
+            segment.version += 1;
+        }
+    }
+
+    public void clear() {
+        for (Segment<K, V> segment: this.segments) {
+            synchronized (segment) {
+                segment.clear();
+                segment.version += 1;
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment: this.segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return the number of reads of non-local keys served by this near cache
+     */
+    public long getHitCount() {
+        return this.hits.get();
+    }
+
+    /**
+     * @return the number of reads of non-local keys not served by this near cache
+     */
+    public long getMissCount() {
+        return this.misses.get();
+    }
+
+    private Segment<K, V> segment(Object key) {
+        int hash = key.hashCode();
+        // Spread the higher bits, since segments are selected by the lower bits
+        hash ^= (hash >>> 16);
+        return this.segments[hash & (this.segments.length - 1)];
+    }
+
+    private boolean isLocal(K key) {
+        DistributionManager dist = this.cache.getAdvancedCache().getDistributionManager();
+        return (dist == null) || dist.getLocality(key).isLocal();
+    }
+
+    @Override
+    public boolean accept(Object key) {
+        return this.keyClass.isInstance(key);
+    }
+
+    @CacheEntryModified
+    public void modified(CacheEntryEvent<K, V> event) {
+        this.evict(event.getKey());
+    }
+
+    @CacheEntryRemoved
+    public void removed(CacheEntryEvent<K, V> event) {
+        this.evict(event.getKey());
+    }
+
+    @CacheEntryInvalidated
+    public void invalidated(CacheEntryEvent<K, V> event) {
+        this.evict(event.getKey());
+    }
+
+    @TopologyChanged
+    public void topologyChanged(TopologyChangedEvent<K, V> event) {
+        if (!event.isPre()) {
+            this.clear();
+        }
+    }
+
+    /**
+     * Least recently used segment of a near cache, guarded by itself.
+     */
+    private static class Segment<K, V> extends LinkedHashMap<K, V> {
+        private static final long serialVersionUID = 3404357462069768011L;
+
+        private final int maxSize;
+        // Incremented whenever a key of this segment might have been invalidated
+        long version = 0;
+
+        Segment(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return this.size() > this.maxSize;
+        }
+    }
+}
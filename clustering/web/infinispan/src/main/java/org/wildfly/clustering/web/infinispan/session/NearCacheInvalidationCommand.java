@@ -0,0 +1,50 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.infinispan.session;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import org.wildfly.clustering.dispatcher.Command;
+
+/**
+ * Command that evicts keys from the near cache of a node, since they were written or removed via another node.
+ * @param <K> the cache key type
+ * @param <V> the cache value type
+ */
+public class NearCacheInvalidationCommand<K, V> implements Command<Void, NearCache<K, V>> {
+    private static final long serialVersionUID = -3384372436011435453L;
+
+    private final Collection<K> keys;
+
+    public NearCacheInvalidationCommand(Collection<K> keys) {
+        this.keys = new ArrayList<>(keys);
+    }
+
+    @Override
+    public Void execute(NearCache<K, V> nearCache) {
+        for (K key: this.keys) {
+            nearCache.evict(key);
+        }
+        return null;
+    }
+}
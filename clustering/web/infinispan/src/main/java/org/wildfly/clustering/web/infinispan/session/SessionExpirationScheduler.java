@@ -52,9 +52,17 @@ public class SessionExpirationScheduler implements Scheduler {
     final Batcher<TransactionBatch> batcher;
     final Remover<String> remover;
     private final ScheduledExecutorService executor;
+    private final long skew;
 
     public SessionExpirationScheduler(Batcher<TransactionBatch> batcher, Remover<String> remover) {
-        this(batcher, remover, createScheduledExecutor(createThreadFactory()));
+        this(batcher, remover, 0L);
+    }
+
+    /**
+     * @param skew the maximum amount, in milliseconds, by which the persisted last accessed time of a session may lag behind its actual last accessed time
+     */
+    public SessionExpirationScheduler(Batcher<TransactionBatch> batcher, Remover<String> remover, long skew) {
+        this(batcher, remover, createScheduledExecutor(createThreadFactory()), skew);
     }
 
     private static ThreadFactory createThreadFactory() {
@@ -69,9 +77,14 @@ public class SessionExpirationScheduler implements Scheduler {
     }
 
     public SessionExpirationScheduler(Batcher<TransactionBatch> batcher, Remover<String> remover, ScheduledExecutorService executor) {
+        this(batcher, remover, executor, 0L);
+    }
+
+    public SessionExpirationScheduler(Batcher<TransactionBatch> batcher, Remover<String> remover, ScheduledExecutorService executor, long skew) {
         this.batcher = batcher;
         this.remover = remover;
         this.executor = executor;
+        this.skew = skew;
     }
 
     @Override
@@ -87,7 +100,8 @@ public class SessionExpirationScheduler implements Scheduler {
         long timeout = session.getMetaData().getMaxInactiveInterval(TimeUnit.MILLISECONDS);
         if (timeout > 0) {
             long lastAccessed = session.getMetaData().getLastAccessedTime().getTime();
-            long delay = Math.max(lastAccessed + timeout - System.currentTimeMillis(), 0);
+            // Allow for a last accessed time that lags behind, so that sessions never expire early
+            long delay = Math.max(lastAccessed + timeout + this.skew - System.currentTimeMillis(), 0);
             String id = session.getId();
             Runnable task = new ExpirationTask(id);
             InfinispanWebLogger.ROOT_LOGGER.tracef("Session %s will expire in %d ms", id, timeout);
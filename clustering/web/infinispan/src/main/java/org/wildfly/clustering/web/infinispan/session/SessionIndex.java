@@ -0,0 +1,260 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.infinispan.session;
+
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.infinispan.Cache;
+import org.infinispan.context.Flag;
+import org.infinispan.notifications.KeyFilter;
+import org.infinispan.notifications.Listener;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntriesEvicted;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryActivated;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryCreated;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryInvalidated;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryLoaded;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryPassivated;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryRemoved;
+import org.infinispan.notifications.cachelistener.event.CacheEntriesEvictedEvent;
+import org.infinispan.notifications.cachelistener.event.CacheEntryActivatedEvent;
+import org.infinispan.notifications.cachelistener.event.CacheEntryCreatedEvent;
+import org.infinispan.notifications.cachelistener.event.CacheEntryInvalidatedEvent;
+import org.infinispan.notifications.cachelistener.event.CacheEntryLoadedEvent;
+import org.infinispan.notifications.cachelistener.event.CacheEntryPassivatedEvent;
+import org.infinispan.notifications.cachelistener.event.CacheEntryRemovedEvent;
+
+/**
+ * Concurrent index of the identifiers of the sessions stored on this node, maintained via cache events.
+ * This avoids iterating over the key set of the cache, which also contains the keys of session attributes.
+ * Sessions are indexed as active, if they are in memory, or as passive, if they are only present in a cache store.
+ */
+@Listener
+public class SessionIndex implements KeyFilter {
+
+    private final Cache<String, ?> cache;
+    private final boolean persistent;
+    private final Set<String> active = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private final Set<String> passive = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private final Set<String> activeView = Collections.unmodifiableSet(this.active);
+    private final Set<String> localView = new AbstractSet<String>() {
+        @Override
+        public Iterator<String> iterator() {
+            return new CompositeIterator<>(SessionIndex.this.active.iterator(), SessionIndex.this.passive.iterator());
+        }
+
+        @Override
+        public int size() {
+            return SessionIndex.this.active.size() + SessionIndex.this.passive.size();
+        }
+
+        @Override
+        public boolean contains(Object id) {
+            return SessionIndex.this.active.contains(id) || SessionIndex.this.passive.contains(id);
+        }
+    };
+
+    public SessionIndex(Cache<String, ?> cache) {
+        this.cache = cache;
+        this.persistent = cache.getCacheConfiguration().persistence().usingStores();
+    }
+
+    /**
+     * Starts indexing sessions, beginning with those already in the cache.
+     */
+    public void start() {
+        this.cache.addListener(this, this);
+        this.rebuild();
+    }
+
+    /**
+     * Stops indexing sessions.
+     */
+    public void stop() {
+        this.cache.removeListener(this);
+        this.active.clear();
+        this.passive.clear();
+    }
+
+    /**
+     * Returns a live, read-only view of the identifiers of the sessions in memory on this node.
+     * Iteration is weakly consistent, and does not copy the index.
+     * @return a set of session identifiers
+     */
+    public Set<String> getActiveSessions() {
+        return this.activeView;
+    }
+
+    /**
+     * Returns a live, read-only view of the identifiers of all sessions on this node, whether active or passive.
+     * Iteration is weakly consistent, and does not copy the index.
+     * @return a set of session identifiers
+     */
+    public Set<String> getLocalSessions() {
+        return this.localView;
+    }
+
+    /**
+     * @return the number of sessions in memory on this node
+     */
+    public int getActiveSessionCount() {
+        return this.active.size();
+    }
+
+    /**
+     * @return the number of sessions on this node, whether active or passive
+     */
+    public int getLocalSessionCount() {
+        return this.active.size() + this.passive.size();
+    }
+
+    /**
+     * Resynchronizes this index with the contents of the cache.
+     * Must be invoked following a rehash, since state transfer may add or discard entries without notification.
+     */
+    void rebuild() {
+        Flag[] activeFlags = new Flag[] { Flag.CACHE_MODE_LOCAL, Flag.SKIP_CACHE_LOAD };
+        Set<String> active = this.findSessions(activeFlags);
+        this.active.addAll(active);
+        this.prune(this.active, active, activeFlags);
+        if (this.persistent) {
+            Flag[] localFlags = new Flag[] { Flag.CACHE_MODE_LOCAL };
+            Set<String> passive = this.findSessions(localFlags);
+            passive.removeAll(active);
+            this.passive.addAll(passive);
+            this.prune(this.passive, passive, localFlags);
+        }
+    }
+
+    // Removes the sessions missing from the specified snapshot, unless they were added since the snapshot was taken
+    private void prune(Set<String> index, Set<String> snapshot, Flag... flags) {
+        for (String id: index) {
+            if (!snapshot.contains(id) && !this.cache.getAdvancedCache().withFlags(flags).containsKey(id)) {
+                index.remove(id);
+            }
+        }
+    }
+
+    private Set<String> findSessions(Flag... flags) {
+        Set<String> result = new HashSet<>();
+        for (Object key: this.cache.getAdvancedCache().withFlags(flags).keySet()) {
+            if (this.accept(key)) {
+                result.add((String) key);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean accept(Object key) {
+        return key instanceof String;
+    }
+
+    @CacheEntryCreated
+    public void created(CacheEntryCreatedEvent<String, ?> event) {
+        if (!event.isPre()) {
+            this.active.add(event.getKey());
+        }
+    }
+
+    @CacheEntryLoaded
+    public void loaded(CacheEntryLoadedEvent<String, ?> event) {
+        if (!event.isPre()) {
+            this.active.add(event.getKey());
+            this.passive.remove(event.getKey());
+        }
+    }
+
+    @CacheEntryActivated
+    public void activated(CacheEntryActivatedEvent<String, ?> event) {
+        if (!event.isPre()) {
+            this.active.add(event.getKey());
+            this.passive.remove(event.getKey());
+        }
+    }
+
+    @CacheEntryPassivated
+    public void passivated(CacheEntryPassivatedEvent<String, ?> event) {
+        if (!event.isPre()) {
+            this.passive.add(event.getKey());
+            this.active.remove(event.getKey());
+        }
+    }
+
+    @CacheEntriesEvicted
+    public void evicted(CacheEntriesEvictedEvent<Object, ?> event) {
+        for (Object key: event.getEntries().keySet()) {
+            if (this.accept(key)) {
+                String id = (String) key;
+                // Evicted sessions remain in the cache store, if one exists
+                if (this.persistent) {
+                    this.passive.add(id);
+                }
+                this.active.remove(id);
+            }
+        }
+    }
+
+    @CacheEntryInvalidated
+    public void invalidated(CacheEntryInvalidatedEvent<String, ?> event) {
+        if (!event.isPre()) {
+            this.active.remove(event.getKey());
+        }
+    }
+
+    @CacheEntryRemoved
+    public void removed(CacheEntryRemovedEvent<String, ?> event) {
+        if (!event.isPre()) {
+            this.active.remove(event.getKey());
+            this.passive.remove(event.getKey());
+        }
+    }
+
+    private static class CompositeIterator<E> implements Iterator<E> {
+        private final Iterator<E> first;
+        private final Iterator<E> second;
+
+        CompositeIterator(Iterator<E> first, Iterator<E> second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.first.hasNext() || this.second.hasNext();
+        }
+
+        @Override
+        public E next() {
+            return this.first.hasNext() ? this.first.next() : this.second.next();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
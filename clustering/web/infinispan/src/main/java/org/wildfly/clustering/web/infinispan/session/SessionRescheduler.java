@@ -0,0 +1,222 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.infinispan.session;
+
+import java.security.AccessController;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jboss.threads.JBossThreadFactory;
+import org.wildfly.clustering.web.infinispan.logging.InfinispanWebLogger;
+import org.wildfly.security.manager.action.GetAccessControlContextAction;
+
+/**
+ * Reschedules the expiration/passivation of sessions incrementally, in batches, using a bounded number of threads.
+ * Threads are only created while a warmup is in progress, and terminate once idle.
+ * Only one warmup is in progress at a time; starting a new warmup cancels any warmup in progress.
+ */
+public class SessionRescheduler implements AutoCloseable {
+
+    /**
+     * Reschedules a single session.
+     */
+    public interface Task {
+        void reschedule(String sessionId) throws Exception;
+    }
+
+    // How long an idle thread waits for another batch before terminating
+    private static final long KEEP_ALIVE_SECONDS = 10;
+
+    private final ExecutorService executor;
+    private final int batchSize;
+    private volatile Warmup warmup = null;
+
+    public SessionRescheduler(int threads, int batchSize) {
+        this(createExecutor(threads), batchSize);
+    }
+
+    private static ExecutorService createExecutor(int threads) {
+        ThreadFactory factory = new JBossThreadFactory(new ThreadGroup(SessionRescheduler.class.getSimpleName()), Boolean.FALSE, null, "%G - %t", null, null, AccessController.doPrivileged(GetAccessControlContextAction.getInstance()));
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), factory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    public SessionRescheduler(ExecutorService executor, int batchSize) {
+        this.executor = executor;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Reschedules the specified sessions, cancelling any warmup in progress.
+     * Batches of the specified sessions are rescheduled in the background.
+     * @param sessionIds the identifiers of the sessions to reschedule
+     * @param task the task that reschedules a single session
+     */
+    public void reschedule(Collection<String> sessionIds, Task task) {
+        Warmup warmup = new Warmup(task, sessionIds);
+        Warmup previous = this.warmup;
+        this.warmup = warmup;
+        if (previous != null) {
+            previous.cancel();
+        }
+        try {
+            List<String> batch = new ArrayList<>(this.batchSize);
+            for (String sessionId: sessionIds) {
+                if (warmup.cancelled) return;
+                batch.add(sessionId);
+                if (batch.size() == this.batchSize) {
+                    warmup.submit(batch);
+                    batch = new ArrayList<>(this.batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                warmup.submit(batch);
+            }
+        } finally {
+            warmup.complete();
+        }
+    }
+
+    /**
+     * Cancels the warmup in progress, if any.
+     * Sessions already rescheduled remain scheduled.
+     * @return the identifiers of the sessions of the cancelled warmup that were not yet rescheduled
+     */
+    public Set<String> cancel() {
+        Warmup warmup = this.warmup;
+        if (warmup == null) {
+            return Collections.emptySet();
+        }
+        warmup.cancel();
+        return new HashSet<>(warmup.unfinished);
+    }
+
+    /**
+     * Waits for the warmup in progress, if any, to complete.
+     * @param timeout the maximum time to wait
+     * @param unit the unit of the timeout
+     * @return true, if the warmup completed, false if it was cancelled, or if the timeout elapsed first
+     * @throws InterruptedException if the calling thread was interrupted while waiting
+     */
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        Warmup warmup = this.warmup;
+        return (warmup == null) || (warmup.latch.await(timeout, unit) && !warmup.cancelled);
+    }
+
+    /**
+     * @return true, if the most recent warmup, if any, completed without being cancelled
+     */
+    public boolean isComplete() {
+        Warmup warmup = this.warmup;
+        return (warmup == null) || ((warmup.latch.getCount() == 0) && !warmup.cancelled);
+    }
+
+    /**
+     * @return the number of sessions submitted for rescheduling by the most recent warmup
+     */
+    public long getSubmittedCount() {
+        Warmup warmup = this.warmup;
+        return (warmup != null) ? warmup.submitted.get() : 0;
+    }
+
+    /**
+     * @return the number of sessions rescheduled by the most recent warmup
+     */
+    public long getRescheduledCount() {
+        Warmup warmup = this.warmup;
+        return (warmup != null) ? warmup.rescheduled.get() : 0;
+    }
+
+    @Override
+    public void close() {
+        this.cancel();
+        this.executor.shutdownNow();
+    }
+
+    private class Warmup {
+        private final Task task;
+        // The sessions not yet rescheduled
+        final Set<String> unfinished = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        // Includes the submitting thread, which completes once all batches were submitted
+        private final AtomicInteger pending = new AtomicInteger(1);
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicLong submitted = new AtomicLong();
+        final AtomicLong rescheduled = new AtomicLong();
+        volatile boolean cancelled = false;
+
+        Warmup(Task task, Collection<String> sessionIds) {
+            this.task = task;
+            this.unfinished.addAll(sessionIds);
+        }
+
+        void submit(final List<String> batch) {
+            this.pending.incrementAndGet();
+            this.submitted.addAndGet(batch.size());
+            Runnable runnable = new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (String sessionId: batch) {
+                            if (Warmup.this.cancelled) return;
+                            try {
+                                Warmup.this.task.reschedule(sessionId);
+                            } catch (Exception e) {
+                                InfinispanWebLogger.ROOT_LOGGER.failedToRescheduleSession(e, sessionId);
+                            }
+                            Warmup.this.unfinished.remove(sessionId);
+                            Warmup.this.rescheduled.incrementAndGet();
+                        }
+                    } finally {
+                        Warmup.this.complete();
+                    }
+                }
+            };
+            SessionRescheduler.this.executor.execute(runnable);
+        }
+
+        void complete() {
+            if (this.pending.decrementAndGet() == 0) {
+                this.latch.countDown();
+            }
+        }
+
+        void cancel() {
+            // Set before releasing any waiting threads, so that they see the warmup as cancelled, rather than completed
+            this.cancelled = true;
+            this.latch.countDown();
+        }
+    }
+}
@@ -35,18 +35,37 @@ public class SimpleSessionMetaData implements SessionMetaData {
     private final Date creationTime;
     private volatile Date lastAccessedTime;
     private volatile Time maxInactiveInterval;
+    // The last accessed time as of the last time this meta data was persisted - not itself persisted
+    private volatile long persistedLastAccessedTime;
 
     public SimpleSessionMetaData() {
         Date now = new Date();
         this.creationTime = now;
         this.lastAccessedTime = now;
         this.maxInactiveInterval = new Time(0, TimeUnit.MILLISECONDS);
+        this.persistedLastAccessedTime = now.getTime();
     }
 
     public SimpleSessionMetaData(Date creationTime, Date lastAccessedTime, Time maxInactiveInterval) {
         this.creationTime = creationTime;
         this.lastAccessedTime = lastAccessedTime;
         this.maxInactiveInterval = maxInactiveInterval;
+        this.persistedLastAccessedTime = lastAccessedTime.getTime();
+    }
+
+    /**
+     * Returns the last accessed time of this session, as of the last time this meta data was persisted.
+     * @return a time in milliseconds
+     */
+    long getPersistedLastAccessedTime() {
+        return this.persistedLastAccessedTime;
+    }
+
+    /**
+     * Indicates that the current state of this meta data was persisted.
+     */
+    void persisted() {
+        this.persistedLastAccessedTime = this.lastAccessedTime.getTime();
     }
 
     @Override
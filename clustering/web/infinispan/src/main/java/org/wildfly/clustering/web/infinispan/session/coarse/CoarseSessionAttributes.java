@@ -36,10 +36,16 @@ import org.wildfly.clustering.web.session.SessionAttributes;
  */
 public class CoarseSessionAttributes extends CoarseImmutableSessionAttributes implements SessionAttributes {
     private final Mutator mutator;
+    private final MutableDetector detector;
 
     public CoarseSessionAttributes(MarshalledValue<Map<String, Object>, MarshallingContext> attributes, SessionAttributeMarshaller<Map<String, Object>, MarshalledValue<Map<String, Object>, MarshallingContext>> marshaller, Mutator mutator) {
+        this(attributes, marshaller, mutator, MutableDetector.DEFAULT);
+    }
+
+    public CoarseSessionAttributes(MarshalledValue<Map<String, Object>, MarshallingContext> attributes, SessionAttributeMarshaller<Map<String, Object>, MarshalledValue<Map<String, Object>, MarshallingContext>> marshaller, Mutator mutator, MutableDetector detector) {
         super(attributes, marshaller);
         this.mutator = mutator;
+        this.detector = detector;
     }
 
     @Override
@@ -53,14 +59,17 @@ public class CoarseSessionAttributes extends CoarseImmutableSessionAttributes im
     public Object setAttribute(String name, Object value) {
         Map<String, Object> attributes = this.getAttributes();
         Object old = (value != null) ? attributes.put(name, value) : attributes.remove(name);
-        this.mutator.mutate();
+        // Replacing an immutable value with an equal one does not change the session
+        if ((value == null) ? (old != null) : (this.detector.isMutable(value) || !value.equals(old))) {
+            this.mutator.mutate();
+        }
         return old;
     }
 
     @Override
     public Object getAttribute(String name) {
         Object value = super.getAttribute(name);
-        if (MutableDetector.isMutable(value)) {
+        if (this.detector.isMutable(value)) {
             this.mutator.mutate();
         }
         return value;
@@ -26,7 +26,9 @@ import java.util.Set;
 import org.infinispan.Cache;
 import org.infinispan.context.Flag;
 import org.wildfly.clustering.ee.infinispan.CacheEntryMutator;
+import org.wildfly.clustering.ee.infinispan.Mutator;
 import org.wildfly.clustering.web.infinispan.session.MutableDetector;
+import org.wildfly.clustering.web.infinispan.session.NearCache;
 import org.wildfly.clustering.web.infinispan.session.SessionAttributeMarshaller;
 import org.wildfly.clustering.web.session.SessionAttributes;
 
@@ -38,17 +40,53 @@ public class FineSessionAttributes<V> extends FineImmutableSessionAttributes<V>
     private final Set<String> attributes;
     private final Cache<SessionAttributeCacheKey, V> cache;
     private final SessionAttributeMarshaller<Object, V> marshaller;
+    private final MutableDetector detector;
+    private final Mutator namesMutator;
+    private final NearCache<SessionAttributeCacheKey, V> nearCache;
 
     public FineSessionAttributes(String id, Set<String> attributes, Cache<SessionAttributeCacheKey, V> attributeCache, SessionAttributeMarshaller<Object, V> marshaller) {
+        this(id, attributes, attributeCache, marshaller, MutableDetector.DEFAULT);
+    }
+
+    public FineSessionAttributes(String id, Set<String> attributes, Cache<SessionAttributeCacheKey, V> attributeCache, SessionAttributeMarshaller<Object, V> marshaller, MutableDetector detector) {
+        this(id, attributes, attributeCache, marshaller, detector, Mutator.PASSIVE);
+    }
+
+    /**
+     * @param namesMutator mutator notified when the set of attribute names, stored with the session, changes
+     */
+    public FineSessionAttributes(String id, Set<String> attributes, Cache<SessionAttributeCacheKey, V> attributeCache, SessionAttributeMarshaller<Object, V> marshaller, MutableDetector detector, Mutator namesMutator) {
+        this(id, attributes, attributeCache, marshaller, detector, namesMutator, null);
+    }
+
+    /**
+     * @param namesMutator mutator notified when the set of attribute names, stored with the session, changes
+     * @param nearCache near cache of immutable attributes owned by other nodes, or null, if near caching is disabled
+     */
+    public FineSessionAttributes(String id, Set<String> attributes, Cache<SessionAttributeCacheKey, V> attributeCache, SessionAttributeMarshaller<Object, V> marshaller, MutableDetector detector, Mutator namesMutator, NearCache<SessionAttributeCacheKey, V> nearCache) {
         super(id, attributes, attributeCache, marshaller);
         this.attributes = attributes;
         this.cache = attributeCache;
         this.marshaller = marshaller;
+        this.detector = detector;
+        this.namesMutator = namesMutator;
+        this.nearCache = nearCache;
     }
 
     @Override
     public Object removeAttribute(String name) {
-        return this.attributes.remove(name) ? this.marshaller.read(this.cache.getAdvancedCache().withFlags(Flag.FORCE_SYNCHRONOUS).remove(this.createKey(name))) : null;
+        if (!this.attributes.remove(name)) return null;
+        this.namesMutator.mutate();
+        SessionAttributeCacheKey key = this.createKey(name);
+        // Read the previous value, rather than forcing the remove to return it synchronously
+        // This read is local on owners of this key, or if near cached, but is a remote get on other nodes
+        // A local-only read is not an option, since listeners rely on the previous value
+        Object old = this.read(key);
+        if (this.nearCache != null) {
+            this.nearCache.invalidate(key);
+        }
+        this.cache.getAdvancedCache().withFlags(Flag.IGNORE_RETURN_VALUES).remove(key);
+        return old;
     }
 
     @Override
@@ -57,19 +95,65 @@ public class FineSessionAttributes<V> extends FineImmutableSessionAttributes<V>
             return this.removeAttribute(name);
         }
         SessionAttributeCacheKey key = this.createKey(name);
+        boolean added = this.attributes.add(name);
+        if (added) {
+            this.namesMutator.mutate();
+        }
+        // A new attribute has no previous value
+        Object old = added ? null : this.read(key);
+        // Skip replication if an immutable value is replaced with an equal one
+        if ((old != null) && !this.detector.isMutable(attribute) && attribute.equals(old)) {
+            return old;
+        }
         V value = this.marshaller.write(attribute);
-        return this.marshaller.read(this.cache.getAdvancedCache().withFlags(this.attributes.add(name) ? Flag.IGNORE_RETURN_VALUES : Flag.FORCE_SYNCHRONOUS).put(key, value));
+        long version = 0;
+        if (this.nearCache != null) {
+            this.nearCache.invalidate(key);
+            version = this.nearCache.getVersion(key);
+        }
+        this.cache.getAdvancedCache().withFlags(Flag.IGNORE_RETURN_VALUES).put(key, value);
+        if ((this.nearCache != null) && !this.detector.isMutable(attribute)) {
+            this.nearCache.put(key, value, version);
+        }
+        return old;
+    }
+
+    private Object read(SessionAttributeCacheKey key) {
+        V value = this.getAttributeValue(key);
+        return (value != null) ? this.marshaller.read(value) : null;
+    }
+
+    @Override
+    protected V getAttributeValue(SessionAttributeCacheKey key) {
+        if (this.nearCache != null) {
+            V value = this.nearCache.get(key);
+            if (value != null) return value;
+        }
+        return super.getAttributeValue(key);
     }
 
     @Override
     public Object getAttribute(String name) {
         SessionAttributeCacheKey key = this.createKey(name);
-        V value = this.getAttributeValue(key);
+        V value = null;
+        long version = 0;
+        if (this.nearCache != null) {
+            // Obtain the version before reading from the cache, so that a value invalidated meanwhile is not near cached
+            version = this.nearCache.getVersion(key);
+            value = this.nearCache.get(key);
+        }
+        boolean nearCached = (value != null);
+        if (!nearCached) {
+            value = super.getAttributeValue(key);
+        }
         if (value == null) return null;
         Object attribute = this.marshaller.read(value);
         // If the object is mutable, we need to indicate that the attribute should be replicated
-        if (MutableDetector.isMutable(attribute)) {
+        if (this.detector.isMutable(attribute)) {
             new CacheEntryMutator<>(this.cache, key, value).mutate();
+        } else if ((this.nearCache != null) && !nearCached) {
+            // Immutable attributes can be safely shared by subsequent requests on this node
+            this.nearCache.put(key, value, version);
         }
         return attribute;
     }
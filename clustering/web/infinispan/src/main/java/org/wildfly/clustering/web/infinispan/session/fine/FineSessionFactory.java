@@ -31,8 +31,11 @@ import org.wildfly.clustering.ee.infinispan.CacheEntryMutator;
 import org.wildfly.clustering.ee.infinispan.Mutator;
 import org.wildfly.clustering.web.LocalContextFactory;
 import org.wildfly.clustering.web.infinispan.logging.InfinispanWebLogger;
+import org.wildfly.clustering.web.infinispan.session.AccessTimeCoalescingMutator;
 import org.wildfly.clustering.web.infinispan.session.InfinispanImmutableSession;
 import org.wildfly.clustering.web.infinispan.session.InfinispanSession;
+import org.wildfly.clustering.web.infinispan.session.MutableDetector;
+import org.wildfly.clustering.web.infinispan.session.NearCache;
 import org.wildfly.clustering.web.infinispan.session.SessionAttributeMarshaller;
 import org.wildfly.clustering.web.infinispan.session.SessionFactory;
 import org.wildfly.clustering.web.infinispan.session.SimpleSessionMetaData;
@@ -57,20 +60,50 @@ public class FineSessionFactory<L> implements SessionFactory<FineSessionCacheEnt
     private final SessionContext context;
     private final SessionAttributeMarshaller<Object, MarshalledValue<Object, MarshallingContext>> marshaller;
     private final LocalContextFactory<L> localContextFactory;
+    private final MutableDetector detector;
+    private final long accessTimeGranularity;
+    private final NearCache<SessionAttributeCacheKey, MarshalledValue<Object, MarshallingContext>> nearCache;
 
     public FineSessionFactory(Cache<String, FineSessionCacheEntry<L>> sessionCache, Cache<SessionAttributeCacheKey, MarshalledValue<Object, MarshallingContext>> attributeCache, SessionContext context, SessionAttributeMarshaller<Object, MarshalledValue<Object, MarshallingContext>> marshaller, LocalContextFactory<L> localContextFactory) {
+        this(sessionCache, attributeCache, context, marshaller, localContextFactory, MutableDetector.DEFAULT);
+    }
+
+    public FineSessionFactory(Cache<String, FineSessionCacheEntry<L>> sessionCache, Cache<SessionAttributeCacheKey, MarshalledValue<Object, MarshallingContext>> attributeCache, SessionContext context, SessionAttributeMarshaller<Object, MarshalledValue<Object, MarshallingContext>> marshaller, LocalContextFactory<L> localContextFactory, MutableDetector detector) {
+        this(sessionCache, attributeCache, context, marshaller, localContextFactory, detector, 0L);
+    }
+
+    public FineSessionFactory(Cache<String, FineSessionCacheEntry<L>> sessionCache, Cache<SessionAttributeCacheKey, MarshalledValue<Object, MarshallingContext>> attributeCache, SessionContext context, SessionAttributeMarshaller<Object, MarshalledValue<Object, MarshallingContext>> marshaller, LocalContextFactory<L> localContextFactory, MutableDetector detector, long accessTimeGranularity) {
+        this(sessionCache, attributeCache, context, marshaller, localContextFactory, detector, accessTimeGranularity, null);
+    }
+
+    public FineSessionFactory(Cache<String, FineSessionCacheEntry<L>> sessionCache, Cache<SessionAttributeCacheKey, MarshalledValue<Object, MarshallingContext>> attributeCache, SessionContext context, SessionAttributeMarshaller<Object, MarshalledValue<Object, MarshallingContext>> marshaller, LocalContextFactory<L> localContextFactory, MutableDetector detector, long accessTimeGranularity, NearCache<SessionAttributeCacheKey, MarshalledValue<Object, MarshallingContext>> nearCache) {
         this.sessionCache = sessionCache;
         this.attributeCache = attributeCache;
         this.context = context;
         this.marshaller = marshaller;
         this.localContextFactory = localContextFactory;
+        this.detector = detector;
+        this.accessTimeGranularity = accessTimeGranularity;
+        this.nearCache = nearCache;
     }
 
     @Override
     public Session<L> createSession(String id, FineSessionCacheEntry<L> entry) {
         SessionMetaData metaData = entry.getMetaData();
         Mutator mutator = metaData.isNew() ? Mutator.PASSIVE : new CacheEntryMutator<>(this.sessionCache, id, entry);
-        SessionAttributes attributes = new FineSessionAttributes<>(id, entry.getAttributes(), this.attributeCache, this.marshaller);
+        // The session cache entry must be written if the set of attribute names changes
+        Mutator namesMutator = Mutator.PASSIVE;
+        if ((this.accessTimeGranularity > 0) && !metaData.isNew() && (metaData instanceof SimpleSessionMetaData)) {
+            final AccessTimeCoalescingMutator coalescingMutator = new AccessTimeCoalescingMutator(mutator, (SimpleSessionMetaData) metaData, this.accessTimeGranularity);
+            mutator = coalescingMutator;
+            namesMutator = new Mutator() {
+                @Override
+                public void mutate() {
+                    coalescingMutator.force();
+                }
+            };
+        }
+        SessionAttributes attributes = new FineSessionAttributes<>(id, entry.getAttributes(), this.attributeCache, this.marshaller, this.detector, namesMutator, this.nearCache);
         return new InfinispanSession<>(id, entry.getMetaData(), attributes, entry.getLocalContext(), this.localContextFactory, this.context, mutator, this);
     }
 
@@ -100,7 +133,11 @@ public class FineSessionFactory<L> implements SessionFactory<FineSessionCacheEnt
         FineSessionCacheEntry<L> entry = this.sessionCache.getAdvancedCache().withFlags(Flag.FORCE_SYNCHRONOUS).remove(id);
         Cache<SessionAttributeCacheKey, MarshalledValue<Object, MarshallingContext>> cache = this.attributeCache.getAdvancedCache().withFlags(Flag.IGNORE_RETURN_VALUES);
         for (String attribute : entry.getAttributes()) {
-            cache.remove(new SessionAttributeCacheKey(id, attribute));
+            SessionAttributeCacheKey key = new SessionAttributeCacheKey(id, attribute);
+            if (this.nearCache != null) {
+                this.nearCache.invalidate(key);
+            }
+            cache.remove(key);
         }
     }
 
@@ -109,8 +146,12 @@ public class FineSessionFactory<L> implements SessionFactory<FineSessionCacheEnt
         final FineSessionCacheEntry<L> entry = this.findValue(id);
         if (entry != null) {
             for (String attribute: entry.getAttributes()) {
+                SessionAttributeCacheKey key = new SessionAttributeCacheKey(id, attribute);
+                if (this.nearCache != null) {
+                    this.nearCache.invalidate(key);
+                }
                 try {
-                    this.attributeCache.evict(new SessionAttributeCacheKey(id, attribute));
+                    this.attributeCache.evict(key);
                 } catch (Throwable e) {
                     InfinispanWebLogger.ROOT_LOGGER.failedToPassivateSessionAttribute(e, id, attribute);
                 }
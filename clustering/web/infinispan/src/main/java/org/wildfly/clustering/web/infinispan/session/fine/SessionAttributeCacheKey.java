@@ -21,13 +21,17 @@
  */
 package org.wildfly.clustering.web.infinispan.session.fine;
 
+import java.io.Serializable;
+
 import org.infinispan.distribution.group.Group;
 
 /**
  * Cache key for session attributes.
+ * Serializable, so that it can be sent to other nodes to invalidate their near cache.
  * @author Paul Ferraro
  */
-public class SessionAttributeCacheKey {
+public class SessionAttributeCacheKey implements Serializable {
+    private static final long serialVersionUID = 7593397958470452497L;
 
     private final String id;
     private final String attribute;
@@ -26,13 +26,18 @@ import java.io.ObjectInput;
 import java.io.ObjectOutput;
 
 import org.jboss.as.clustering.infinispan.io.AbstractSimpleExternalizer;
+import org.jboss.as.clustering.infinispan.io.CompactEncoding;
 
 /**
- * Externalizer for a {@link SessoinAttributeCacheKey}.
+ * Externalizer for a {@link SessionAttributeCacheKey}.
+ * The session identifier is written in its compact form.
+ * Attribute names are written as objects, so that repeated names within the same stream (e.g. during state transfer) are written as back-references.
+ * The legacy format, which has no version, is still read, and written if {@link CompactEncoding#LEGACY_FORMAT} is set.
  * @author Paul Ferraro
  */
 public class SessionAttributeCacheKeyExternalizer extends AbstractSimpleExternalizer<SessionAttributeCacheKey> {
     private static final long serialVersionUID = -5736586807203312571L;
+    private static final int VERSION = 1;
 
     public SessionAttributeCacheKeyExternalizer() {
         super(SessionAttributeCacheKey.class);
@@ -40,12 +45,25 @@ public class SessionAttributeCacheKeyExternalizer extends AbstractSimpleExternal
 
     @Override
     public void writeObject(ObjectOutput output, SessionAttributeCacheKey key) throws IOException {
-        output.writeUTF(key.getId());
-        output.writeUTF(key.getAttribute());
+        if (CompactEncoding.LEGACY_FORMAT) {
+            output.writeUTF(key.getId());
+            output.writeUTF(key.getAttribute());
+            return;
+        }
+        CompactEncoding.writeVersion(output, VERSION);
+        CompactEncoding.writeIdentifier(output, key.getId());
+        output.writeObject(key.getAttribute());
     }
 
     @Override
-    public SessionAttributeCacheKey readObject(ObjectInput input) throws IOException {
-        return new SessionAttributeCacheKey(input.readUTF(), input.readUTF());
+    public SessionAttributeCacheKey readObject(ObjectInput input) throws IOException, ClassNotFoundException {
+        int header = CompactEncoding.readHeader(input);
+        if (CompactEncoding.getVersion(header, VERSION) == CompactEncoding.LEGACY_VERSION) {
+            return new SessionAttributeCacheKey(CompactEncoding.readLegacyUTF(input, header), input.readUTF());
+        }
+        String id = CompactEncoding.readIdentifier(input);
+        // Canonicalize attribute names, so that repeated names are marshalled as back-references
+        String attribute = ((String) input.readObject()).intern();
+        return new SessionAttributeCacheKey(id, attribute);
     }
 }
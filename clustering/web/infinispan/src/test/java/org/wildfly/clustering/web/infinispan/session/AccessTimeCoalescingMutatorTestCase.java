@@ -0,0 +1,95 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.infinispan.session;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.wildfly.clustering.ee.infinispan.Mutator;
+
+public class AccessTimeCoalescingMutatorTestCase {
+    private final Mutator mutator = mock(Mutator.class);
+    private final Date lastAccessedTime = new Date(System.currentTimeMillis() - 10000);
+    private final SimpleSessionMetaData metaData = new SimpleSessionMetaData(new Date(this.lastAccessedTime.getTime() - 10000), this.lastAccessedTime, new Time(30, TimeUnit.MINUTES));
+
+    @Test
+    public void withinGranularity() {
+        this.metaData.setLastAccessedTime(new Date(this.lastAccessedTime.getTime() + 999));
+
+        new AccessTimeCoalescingMutator(this.mutator, this.metaData, 1000).mutate();
+
+        verify(this.mutator, never()).mutate();
+    }
+
+    @Test
+    public void beyondGranularity() {
+        this.metaData.setLastAccessedTime(new Date(this.lastAccessedTime.getTime() + 1000));
+
+        new AccessTimeCoalescingMutator(this.mutator, this.metaData, 1000).mutate();
+
+        verify(this.mutator).mutate();
+
+        // Granularity is relative to the last persisted access time
+        reset(this.mutator);
+        this.metaData.setLastAccessedTime(new Date(this.lastAccessedTime.getTime() + 1500));
+
+        new AccessTimeCoalescingMutator(this.mutator, this.metaData, 1000).mutate();
+
+        verify(this.mutator, never()).mutate();
+    }
+
+    @Test
+    public void maxInactiveIntervalChanged() {
+        AccessTimeCoalescingMutator subject = new AccessTimeCoalescingMutator(this.mutator, this.metaData, 1000);
+
+        this.metaData.setLastAccessedTime(new Date(this.lastAccessedTime.getTime() + 1));
+        this.metaData.setMaxInactiveInterval(10, TimeUnit.MINUTES);
+
+        subject.mutate();
+
+        verify(this.mutator).mutate();
+    }
+
+    @Test
+    public void force() {
+        AccessTimeCoalescingMutator subject = new AccessTimeCoalescingMutator(this.mutator, this.metaData, 1000);
+
+        this.metaData.setLastAccessedTime(new Date(this.lastAccessedTime.getTime() + 1));
+        subject.force();
+        subject.mutate();
+
+        verify(this.mutator).mutate();
+    }
+
+    @Test
+    public void isExpired() {
+        SimpleSessionMetaData metaData = new SimpleSessionMetaData(new Date(0), new Date(System.currentTimeMillis() - 60500), new Time(1, TimeUnit.MINUTES));
+
+        assertTrue(InfinispanSessionManager.isExpired(metaData, 0));
+        // Session must not expire early, if its last accessed time may lag behind
+        assertFalse(InfinispanSessionManager.isExpired(metaData, 1000));
+    }
+}
@@ -0,0 +1,445 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.infinispan.session;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.same;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import org.jboss.as.clustering.concurrent.Invoker;
+import org.jboss.as.clustering.concurrent.RetryingInvoker;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.wildfly.clustering.dispatcher.BatchCommandDispatcher;
+import org.wildfly.clustering.dispatcher.Command;
+import org.wildfly.clustering.dispatcher.CommandDispatcher;
+import org.wildfly.clustering.dispatcher.CommandResponse;
+import org.wildfly.clustering.group.Group;
+import org.wildfly.clustering.group.Node;
+
+public class CoalescingCommandDispatcherTestCase {
+    private final Group group = mock(Group.class);
+    private final Node localNode = mock(Node.class);
+    private final Node remoteNode = mock(Node.class);
+    private final ExecutorService executor = mock(ExecutorService.class);
+    private final Invoker invoker = new RetryingInvoker(0, 0);
+    @SuppressWarnings("unchecked")
+    private final CoalescingCommandDispatcher.PrimaryOwnerLocator<String> locator = mock(CoalescingCommandDispatcher.PrimaryOwnerLocator.class);
+
+    @Before
+    public void init() {
+        when(this.group.getLocalNode()).thenReturn(this.localNode);
+        when(this.locator.locatePrimaryOwner(any(String.class))).thenReturn(this.remoteNode);
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    @Test
+    public void dispatch() throws Exception {
+        CommandDispatcher<Object> dispatcher = mock(CommandDispatcher.class);
+        Command<Void, Object> command1 = mock(Command.class);
+        Command<Void, Object> command2 = mock(Command.class);
+        Command<Void, Object> command3 = mock(Command.class);
+        Future<List<Object>> future = mock(Future.class);
+        Object context = new Object();
+        ArgumentCaptor<Runnable> capturedTask = ArgumentCaptor.forClass(Runnable.class);
+        ArgumentCaptor<Command> capturedCommand = ArgumentCaptor.forClass(Command.class);
+
+        when(future.get()).thenReturn(Arrays.<Object>asList(null, null, null));
+        when(dispatcher.submitOnNode(any(Command.class), same(this.remoteNode))).thenReturn((Future) future);
+
+        try (CoalescingCommandDispatcher<Object, String> subject = this.createSubject(dispatcher, 10)) {
+            Future<Void> result1 = subject.dispatch("a", command1);
+            Future<Void> result2 = subject.dispatch("b", command2);
+            Future<Void> result3 = subject.dispatch("a", command3);
+
+            // Drain task is only scheduled once
+            verify(this.executor).execute(capturedTask.capture());
+            verifyZeroInteractions(dispatcher);
+            assertEquals(3, subject.getPendingCount());
+            assertFalse(result1.isDone());
+
+            capturedTask.getValue().run();
+
+            verify(dispatcher).submitOnNode(capturedCommand.capture(), same(this.remoteNode));
+            assertEquals(0, subject.getPendingCount());
+            assertEquals(3L, subject.getDispatchedCount());
+            assertEquals(1L, subject.getBatchCount());
+            assertEquals(0L, subject.getOverflowCount());
+            assertTrue(result1.isDone());
+            assertTrue(result2.isDone());
+            assertTrue(result3.isDone());
+
+            capturedCommand.getValue().execute(context);
+
+            InOrder order = inOrder(command1, command2, command3);
+            order.verify(command1).execute(context);
+            order.verify(command2).execute(context);
+            order.verify(command3).execute(context);
+        }
+        verify(this.executor).shutdown();
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    @Test
+    public void dispatchSingle() throws Exception {
+        CommandDispatcher<Object> dispatcher = mock(CommandDispatcher.class);
+        Command<Void, Object> command = mock(Command.class);
+        Future<Void> future = mock(Future.class);
+        ArgumentCaptor<Runnable> capturedTask = ArgumentCaptor.forClass(Runnable.class);
+
+        when(dispatcher.submitOnNode(same(command), same(this.remoteNode))).thenReturn((Future) future);
+
+        try (CoalescingCommandDispatcher<Object, String> subject = this.createSubject(dispatcher, 10)) {
+            Future<Void> result = subject.dispatch("a", command);
+
+            verify(this.executor).execute(capturedTask.capture());
+
+            capturedTask.getValue().run();
+
+            // A lone command is sent as is
+            verify(dispatcher).submitOnNode(same(command), same(this.remoteNode));
+            assertTrue(result.isDone());
+        }
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    @Test
+    public void dispatchLocal() throws Exception {
+        CommandDispatcher<Object> dispatcher = mock(CommandDispatcher.class);
+        Command<Void, Object> command = mock(Command.class);
+        CommandResponse<Void> response = mock(CommandResponse.class);
+
+        when(this.locator.locatePrimaryOwner("a")).thenReturn(this.localNode);
+        when(dispatcher.executeOnNode(same(command), same(this.localNode))).thenReturn((CommandResponse) response);
+
+        try (CoalescingCommandDispatcher<Object, String> subject = this.createSubject(dispatcher, 10)) {
+            Future<Void> result = subject.dispatch("a", command);
+
+            // Executed inline
+            assertTrue(result.isDone());
+            verify(response).get();
+            verifyZeroInteractions(this.executor);
+        }
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    @Test
+    public void dispatchLocalAfterQueued() throws Exception {
+        CommandDispatcher<Object> dispatcher = mock(CommandDispatcher.class);
+        Command<Void, Object> command1 = mock(Command.class);
+        Command<Void, Object> command2 = mock(Command.class);
+        Future<Void> future = mock(Future.class);
+        ArgumentCaptor<Runnable> capturedTask = ArgumentCaptor.forClass(Runnable.class);
+        ArgumentCaptor<Command> capturedCommand = ArgumentCaptor.forClass(Command.class);
+
+        when(dispatcher.submitOnNode(any(Command.class), same(this.localNode))).thenReturn((Future) future);
+
+        try (CoalescingCommandDispatcher<Object, String> subject = this.createSubject(dispatcher, 10)) {
+            subject.dispatch("a", command1);
+
+            // Ownership changes to the local node
+            when(this.locator.locatePrimaryOwner("a")).thenReturn(this.localNode);
+
+            Future<Void> result = subject.dispatch("a", command2);
+
+            // Not executed inline, ahead of the command already queued for the same key
+            assertFalse(result.isDone());
+            verify(dispatcher, never()).executeOnNode(any(Command.class), any(Node.class));
+            assertEquals(2, subject.getPendingCount());
+
+            verify(this.executor).execute(capturedTask.capture());
+            capturedTask.getValue().run();
+
+            // Both commands are sent to the new primary owner, in order
+            verify(dispatcher).submitOnNode(capturedCommand.capture(), same(this.localNode));
+            Object context = new Object();
+            capturedCommand.getValue().execute(context);
+            InOrder order = inOrder(command1, command2);
+            order.verify(command1).execute(context);
+            order.verify(command2).execute(context);
+            assertTrue(result.isDone());
+        }
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    @Test
+    public void overflow() throws Exception {
+        CommandDispatcher<Object> dispatcher = mock(CommandDispatcher.class);
+        Command<Void, Object> command1 = mock(Command.class);
+        final Command<Void, Object> command2 = mock(Command.class);
+        Future<Void> future = mock(Future.class);
+        ArgumentCaptor<Runnable> capturedTask = ArgumentCaptor.forClass(Runnable.class);
+
+        when(dispatcher.submitOnNode(any(Command.class), same(this.remoteNode))).thenReturn((Future) future);
+
+        try (final CoalescingCommandDispatcher<Object, String> subject = this.createSubject(dispatcher, 1)) {
+            Future<Void> result1 = subject.dispatch("a", command1);
+            verify(this.executor).execute(capturedTask.capture());
+
+            // The queue is full, so the next dispatch waits for room, rather than overtaking the queued command
+            Thread thread = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        subject.dispatch("a", command2);
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            };
+            thread.start();
+            while (subject.getOverflowCount() == 0) {
+                Thread.sleep(10);
+            }
+            verifyZeroInteractions(dispatcher);
+
+            capturedTask.getValue().run();
+            thread.join();
+            // The waiting command may have been queued after the drain completed
+            capturedTask.getValue().run();
+
+            assertTrue(result1.isDone());
+            assertEquals(1L, subject.getOverflowCount());
+            InOrder order = inOrder(dispatcher);
+            order.verify(dispatcher).submitOnNode(same(command1), same(this.remoteNode));
+            order.verify(dispatcher).submitOnNode(same(command2), same(this.remoteNode));
+        }
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    @Test
+    public void retry() throws Exception {
+        CommandDispatcher<Object> dispatcher = mock(CommandDispatcher.class);
+        Node newNode = mock(Node.class);
+        Command<Void, Object> command = mock(Command.class);
+        Future<Void> future = mock(Future.class);
+        ArgumentCaptor<Runnable> capturedTask = ArgumentCaptor.forClass(Runnable.class);
+
+        when(this.locator.locatePrimaryOwner("a")).thenReturn(this.remoteNode, newNode);
+        when(dispatcher.submitOnNode(same(command), same(this.remoteNode))).thenThrow(new IllegalStateException());
+        when(dispatcher.submitOnNode(same(command), same(newNode))).thenReturn((Future) future);
+
+        try (CoalescingCommandDispatcher<Object, String> subject = this.createSubject(dispatcher, 10)) {
+            Future<Void> result = subject.dispatch("a", command);
+            verify(this.executor).execute(capturedTask.capture());
+
+            capturedTask.getValue().run();
+
+            // The primary owner is located again on retry
+            verify(dispatcher).submitOnNode(same(command), same(newNode));
+            assertTrue(result.isDone());
+            result.get();
+        }
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    @Test
+    public void failure() throws Exception {
+        CommandDispatcher<Object> dispatcher = mock(CommandDispatcher.class);
+        Command<Void, Object> command = mock(Command.class);
+        Future<Void> future = mock(Future.class);
+        Exception exception = new Exception();
+        ArgumentCaptor<Runnable> capturedTask = ArgumentCaptor.forClass(Runnable.class);
+
+        when(dispatcher.submitOnNode(same(command), same(this.remoteNode))).thenReturn((Future) future);
+        when(future.get()).thenThrow(new ExecutionException(exception));
+
+        try (CoalescingCommandDispatcher<Object, String> subject = this.createSubject(dispatcher, 10)) {
+            Future<Void> result = subject.dispatch("a", command);
+            verify(this.executor).execute(capturedTask.capture());
+
+            capturedTask.getValue().run();
+
+            try {
+                result.get();
+                fail();
+            } catch (ExecutionException e) {
+                // Propagated to the dispatcher of the command
+                assertTrue(e.getCause() instanceof ExecutionException);
+                assertSame(exception, e.getCause().getCause());
+            }
+            assertEquals(0, subject.getPendingCount());
+        }
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    @Test
+    public void failureListener() throws Exception {
+        CommandDispatcher<Object> dispatcher = mock(CommandDispatcher.class);
+        Command<Void, Object> command = mock(Command.class);
+        Future<Void> future = mock(Future.class);
+        CoalescingCommandDispatcher.FailureListener<String> listener = mock(CoalescingCommandDispatcher.FailureListener.class);
+        Exception exception = new Exception();
+        ArgumentCaptor<Runnable> capturedTask = ArgumentCaptor.forClass(Runnable.class);
+        ArgumentCaptor<Throwable> capturedException = ArgumentCaptor.forClass(Throwable.class);
+
+        when(dispatcher.submitOnNode(same(command), same(this.remoteNode))).thenReturn((Future) future);
+        when(future.get()).thenThrow(new ExecutionException(exception));
+
+        try (CoalescingCommandDispatcher<Object, String> subject = this.createSubject(dispatcher, 10)) {
+            subject.dispatch("a", command, listener);
+            verify(this.executor).execute(capturedTask.capture());
+
+            // Not notified until the queued command completes
+            verifyZeroInteractions(listener);
+
+            capturedTask.getValue().run();
+
+            verify(listener).failed(eq("a"), capturedException.capture());
+            assertSame(exception, capturedException.getValue().getCause());
+        }
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    @Test
+    public void failureListenerLocal() throws Exception {
+        CommandDispatcher<Object> dispatcher = mock(CommandDispatcher.class);
+        Command<Void, Object> command = mock(Command.class);
+        CommandResponse<Void> response = mock(CommandResponse.class);
+        CoalescingCommandDispatcher.FailureListener<String> listener = mock(CoalescingCommandDispatcher.FailureListener.class);
+        Exception exception = new Exception();
+
+        when(this.locator.locatePrimaryOwner("a")).thenReturn(this.localNode);
+        when(dispatcher.executeOnNode(same(command), same(this.localNode))).thenReturn((CommandResponse) response);
+        when(response.get()).thenThrow(new ExecutionException(exception));
+
+        try (CoalescingCommandDispatcher<Object, String> subject = this.createSubject(dispatcher, 10)) {
+            // An inline failure is reported to the listener, rather than thrown
+            Future<Void> result = subject.dispatch("a", command, listener);
+
+            assertTrue(result.isDone());
+            verify(listener).failed(eq("a"), any(ExecutionException.class));
+        }
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    @Test
+    public void partialFailure() throws Exception {
+        BatchCommandDispatcher<Object> dispatcher = mock(BatchCommandDispatcher.class);
+        Command<Void, Object> command1 = mock(Command.class);
+        Command<Void, Object> command2 = mock(Command.class);
+        Command<Void, Object> command3 = mock(Command.class);
+        Future<Void> success = mock(Future.class);
+        Future<Void> failure = mock(Future.class);
+        ArgumentCaptor<Runnable> capturedTask = ArgumentCaptor.forClass(Runnable.class);
+
+        when(failure.get()).thenThrow(new ExecutionException(new Exception()));
+        List<Future<Void>> firstAttempt = Arrays.asList(failure, success, success);
+        List<Future<Void>> secondAttempt = Arrays.asList(success, success);
+        when(dispatcher.submitBatchOnNode(any(List.class), same(this.remoteNode))).thenReturn((List) firstAttempt, (List) secondAttempt);
+
+        try (CoalescingCommandDispatcher<Object, String> subject = this.createSubject(dispatcher, 10)) {
+            Future<Void> result1 = subject.dispatch("a", command1);
+            Future<Void> result2 = subject.dispatch("b", command2);
+            Future<Void> result3 = subject.dispatch("a", command3);
+            verify(this.executor).execute(capturedTask.capture());
+
+            capturedTask.getValue().run();
+
+            // Only the failed command and the subsequent command for the same key are sent again, in order
+            ArgumentCaptor<List> capturedCommands = ArgumentCaptor.forClass(List.class);
+            verify(dispatcher, times(2)).submitBatchOnNode(capturedCommands.capture(), same(this.remoteNode));
+            assertEquals(Arrays.asList(command1, command2, command3), capturedCommands.getAllValues().get(0));
+            assertEquals(Arrays.asList(command1, command3), capturedCommands.getAllValues().get(1));
+            result1.get();
+            result2.get();
+            result3.get();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void partialFailureWithoutBatchDispatcher() throws Exception {
+        CommandDispatcher<Object> dispatcher = mock(CommandDispatcher.class);
+        Command<Void, Object> command1 = mock(Command.class);
+        Command<Void, Object> command2 = mock(Command.class);
+        Command<Void, Object> command3 = mock(Command.class);
+        final Object context = new Object();
+        ArgumentCaptor<Runnable> capturedTask = ArgumentCaptor.forClass(Runnable.class);
+
+        when(command1.execute(context)).thenThrow(new Exception()).thenReturn(null);
+        // Executes the submitted command immediately
+        when(dispatcher.submitOnNode(any(Command.class), same(this.remoteNode))).thenAnswer(new Answer<Future<Object>>() {
+            @Override
+            public Future<Object> answer(InvocationOnMock invocation) {
+                final Command<Object, Object> command = (Command<Object, Object>) invocation.getArguments()[0];
+                FutureTask<Object> task = new FutureTask<>(new Callable<Object>() {
+                    @Override
+                    public Object call() throws Exception {
+                        return command.execute(context);
+                    }
+                });
+                task.run();
+                return task;
+            }
+        });
+
+        try (CoalescingCommandDispatcher<Object, String> subject = this.createSubject(dispatcher, 10)) {
+            Future<Void> result1 = subject.dispatch("a", command1);
+            Future<Void> result2 = subject.dispatch("b", command2);
+            Future<Void> result3 = subject.dispatch("a", command3);
+            verify(this.executor).execute(capturedTask.capture());
+
+            capturedTask.getValue().run();
+
+            // Commands are wrapped in a single batch command; only the failed command and the subsequent command for the same key are sent again, in order
+            verify(dispatcher, times(2)).submitOnNode(any(Command.class), same(this.remoteNode));
+            InOrder order = inOrder(command1, command3);
+            order.verify(command1).execute(context);
+            order.verify(command3).execute(context);
+            order.verify(command1).execute(context);
+            order.verify(command3).execute(context);
+            verify(command2).execute(context);
+            result1.get();
+            result2.get();
+            result3.get();
+        }
+    }
+
+    private <C> CoalescingCommandDispatcher<C, String> createSubject(CommandDispatcher<C> dispatcher, int maxQueueSize) {
+        return new CoalescingCommandDispatcher<>(dispatcher, this.group, this.locator, this.invoker, this.executor, maxQueueSize, 10);
+    }
+}
@@ -35,9 +35,12 @@ import java.net.MalformedURLException;
 import java.net.UnknownHostException;
 import java.nio.file.FileSystems;
 import java.security.AllPermission;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Currency;
 import java.util.Date;
+import java.util.List;
 import java.util.Locale;
 import java.util.TimeZone;
 import java.util.UUID;
@@ -56,43 +59,64 @@ public class MutableDetectorTestCase {
 
     @Test
     public void isMutable() throws MalformedURLException, UnknownHostException {
-        assertTrue(MutableDetector.isMutable(new Object()));
-        assertTrue(MutableDetector.isMutable(new Date()));
-        assertTrue(MutableDetector.isMutable(new AtomicInteger()));
-        assertTrue(MutableDetector.isMutable(new AtomicLong()));
-        assertFalse(MutableDetector.isMutable(null));
-        assertFalse(MutableDetector.isMutable(Collections.EMPTY_LIST));
-        assertFalse(MutableDetector.isMutable(Collections.EMPTY_MAP));
-        assertFalse(MutableDetector.isMutable(Collections.EMPTY_SET));
-        assertFalse(MutableDetector.isMutable(Boolean.TRUE));
-        assertFalse(MutableDetector.isMutable(Character.valueOf('a')));
-        assertFalse(MutableDetector.isMutable(Currency.getInstance(Locale.US)));
-        assertFalse(MutableDetector.isMutable(TimeUnit.DAYS));
-        assertFalse(MutableDetector.isMutable(Locale.getDefault()));
-        assertFalse(MutableDetector.isMutable(Byte.valueOf(Integer.valueOf(1).byteValue())));
-        assertFalse(MutableDetector.isMutable(Short.valueOf(Integer.valueOf(1).shortValue())));
-        assertFalse(MutableDetector.isMutable(Integer.valueOf(1)));
-        assertFalse(MutableDetector.isMutable(Long.valueOf(1)));
-        assertFalse(MutableDetector.isMutable(Float.valueOf(1)));
-        assertFalse(MutableDetector.isMutable(Double.valueOf(1)));
-        assertFalse(MutableDetector.isMutable(BigInteger.valueOf(1)));
-        assertFalse(MutableDetector.isMutable(BigDecimal.valueOf(1)));
-        assertFalse(MutableDetector.isMutable(InetAddress.getLocalHost()));
-        assertFalse(MutableDetector.isMutable(new InetSocketAddress(InetAddress.getLocalHost(), 80)));
-        assertFalse(MutableDetector.isMutable(MathContext.UNLIMITED));
-        assertFalse(MutableDetector.isMutable("test"));
-        assertFalse(MutableDetector.isMutable(TimeZone.getDefault()));
-        assertFalse(MutableDetector.isMutable(UUID.randomUUID()));
+        assertTrue(MutableDetector.DEFAULT.isMutable(new Object()));
+        assertTrue(MutableDetector.DEFAULT.isMutable(new Date()));
+        assertTrue(MutableDetector.DEFAULT.isMutable(new AtomicInteger()));
+        assertTrue(MutableDetector.DEFAULT.isMutable(new AtomicLong()));
+        assertFalse(MutableDetector.DEFAULT.isMutable(null));
+        assertFalse(MutableDetector.DEFAULT.isMutable(Collections.EMPTY_LIST));
+        assertFalse(MutableDetector.DEFAULT.isMutable(Collections.EMPTY_MAP));
+        assertFalse(MutableDetector.DEFAULT.isMutable(Collections.EMPTY_SET));
+        assertFalse(MutableDetector.DEFAULT.isMutable(Boolean.TRUE));
+        assertFalse(MutableDetector.DEFAULT.isMutable(Character.valueOf('a')));
+        assertFalse(MutableDetector.DEFAULT.isMutable(Currency.getInstance(Locale.US)));
+        assertFalse(MutableDetector.DEFAULT.isMutable(TimeUnit.DAYS));
+        assertFalse(MutableDetector.DEFAULT.isMutable(Locale.getDefault()));
+        assertFalse(MutableDetector.DEFAULT.isMutable(Byte.valueOf(Integer.valueOf(1).byteValue())));
+        assertFalse(MutableDetector.DEFAULT.isMutable(Short.valueOf(Integer.valueOf(1).shortValue())));
+        assertFalse(MutableDetector.DEFAULT.isMutable(Integer.valueOf(1)));
+        assertFalse(MutableDetector.DEFAULT.isMutable(Long.valueOf(1)));
+        assertFalse(MutableDetector.DEFAULT.isMutable(Float.valueOf(1)));
+        assertFalse(MutableDetector.DEFAULT.isMutable(Double.valueOf(1)));
+        assertFalse(MutableDetector.DEFAULT.isMutable(BigInteger.valueOf(1)));
+        assertFalse(MutableDetector.DEFAULT.isMutable(BigDecimal.valueOf(1)));
+        assertFalse(MutableDetector.DEFAULT.isMutable(InetAddress.getLocalHost()));
+        assertFalse(MutableDetector.DEFAULT.isMutable(new InetSocketAddress(InetAddress.getLocalHost(), 80)));
+        assertFalse(MutableDetector.DEFAULT.isMutable(MathContext.UNLIMITED));
+        assertFalse(MutableDetector.DEFAULT.isMutable("test"));
+        assertFalse(MutableDetector.DEFAULT.isMutable(TimeZone.getDefault()));
+        assertFalse(MutableDetector.DEFAULT.isMutable(UUID.randomUUID()));
         File file = new File(System.getProperty("user.home"));
-        assertFalse(MutableDetector.isMutable(file));
-        assertFalse(MutableDetector.isMutable(file.toURI()));
-        assertFalse(MutableDetector.isMutable(file.toURI().toURL()));
-        assertFalse(MutableDetector.isMutable(FileSystems.getDefault().getRootDirectories().iterator().next()));
-        assertFalse(MutableDetector.isMutable(new AllPermission()));
-        assertFalse(MutableDetector.isMutable(new ImmutableObject()));
+        assertFalse(MutableDetector.DEFAULT.isMutable(file));
+        assertFalse(MutableDetector.DEFAULT.isMutable(file.toURI()));
+        assertFalse(MutableDetector.DEFAULT.isMutable(file.toURI().toURL()));
+        assertFalse(MutableDetector.DEFAULT.isMutable(FileSystems.getDefault().getRootDirectories().iterator().next()));
+        assertFalse(MutableDetector.DEFAULT.isMutable(new AllPermission()));
+        assertFalse(MutableDetector.DEFAULT.isMutable(new ImmutableObject()));
+    }
+
+    @Test
+    public void isMutableWithImmutableTypes() {
+        List<String> list = Collections.unmodifiableList(new ArrayList<String>());
+        Object subclass = new ImmutableType() { };
+        assertTrue(MutableDetector.DEFAULT.isMutable(list));
+        assertTrue(MutableDetector.DEFAULT.isMutable(new ImmutableType()));
+        assertTrue(MutableDetector.DEFAULT.isMutable(subclass));
+
+        MutableDetector detector = new MutableDetector(Arrays.<Class<?>>asList(list.getClass(), ImmutableType.class));
+        assertFalse(detector.isMutable(list));
+        assertFalse(detector.isMutable(new ImmutableType()));
+        assertFalse(detector.isMutable(subclass));
+        assertFalse(detector.isMutable("test"));
+        assertTrue(detector.isMutable(new Date()));
+        // Verdicts are cached per detector
+        assertTrue(MutableDetector.DEFAULT.isMutable(list));
     }
 
     @Immutable
     static class ImmutableObject {
     }
+
+    static class ImmutableType {
+    }
 }
@@ -0,0 +1,310 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.infinispan.session;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import javax.transaction.Synchronization;
+import javax.transaction.Transaction;
+import javax.transaction.TransactionManager;
+
+import org.infinispan.AdvancedCache;
+import org.infinispan.Cache;
+import org.infinispan.distribution.DataLocality;
+import org.infinispan.distribution.DistributionManager;
+import org.infinispan.notifications.cachelistener.event.CacheEntryEvent;
+import org.infinispan.notifications.cachelistener.event.TopologyChangedEvent;
+import org.infinispan.remoting.transport.Address;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.wildfly.clustering.dispatcher.CommandDispatcher;
+import org.wildfly.clustering.dispatcher.CommandDispatcherFactory;
+import org.wildfly.clustering.group.Group;
+import org.wildfly.clustering.group.Node;
+import org.wildfly.clustering.group.NodeFactory;
+
+public class NearCacheTestCase {
+    private final Cache<String, Object> cache = mock(Cache.class);
+    private final AdvancedCache<String, Object> advancedCache = mock(AdvancedCache.class);
+    private final DistributionManager dist = mock(DistributionManager.class);
+    private final CommandDispatcherFactory dispatcherFactory = mock(CommandDispatcherFactory.class);
+    private final CommandDispatcher<NearCache<String, Object>> dispatcher = mock(CommandDispatcher.class);
+    private final Group group = mock(Group.class);
+    private final Node localNode = mock(Node.class);
+    private final Node ownerNode = mock(Node.class);
+    private final Node otherNode = mock(Node.class);
+    private final Address ownerAddress = mock(Address.class);
+    private final NodeFactory<Address> nodeFactory = mock(NodeFactory.class);
+
+    @Before
+    public void init() {
+        when(this.cache.getAdvancedCache()).thenReturn(this.advancedCache);
+        when(this.cache.getName()).thenReturn("cache");
+        when(this.advancedCache.getDistributionManager()).thenReturn(this.dist);
+        when(this.dist.getLocality(any())).thenReturn(DataLocality.NOT_LOCAL);
+        when(this.dispatcherFactory.getGroup()).thenReturn(this.group);
+        when(this.group.getLocalNode()).thenReturn(this.localNode);
+        when(this.group.getNodes()).thenReturn(Arrays.asList(this.localNode, this.ownerNode, this.otherNode));
+        when(this.dist.locate(any())).thenReturn(Collections.singletonList(this.ownerAddress));
+        when(this.nodeFactory.createNode(this.ownerAddress)).thenReturn(this.ownerNode);
+        when(this.dispatcherFactory.<NearCache<String, Object>>createCommandDispatcher(eq("cache.near-cache"), any(NearCache.class))).thenReturn(this.dispatcher);
+    }
+
+    private NearCache<String, Object> createNearCache(int maxSize) {
+        return new NearCache<>(this.cache, String.class, maxSize, this.dispatcherFactory, this.nodeFactory);
+    }
+
+    @Test
+    public void lifecycle() {
+        NearCache<String, Object> subject = this.createNearCache(10);
+
+        subject.start();
+
+        verify(this.dispatcherFactory).createCommandDispatcher("cache.near-cache", subject);
+        verify(this.cache).addListener(subject, subject);
+
+        subject.put("key", "value", subject.getVersion("key"));
+        subject.stop();
+
+        verify(this.cache).removeListener(subject);
+        verify(this.dispatcher).close();
+        assertEquals(0, subject.size());
+    }
+
+    @Test
+    public void getAndPut() {
+        NearCache<String, Object> subject = this.createNearCache(10);
+        Object value = new Object();
+
+        assertNull(subject.get("key"));
+        assertEquals(0L, subject.getHitCount());
+        assertEquals(1L, subject.getMissCount());
+
+        subject.put("key", value, subject.getVersion("key"));
+
+        assertSame(value, subject.get("key"));
+        assertEquals(1L, subject.getHitCount());
+        assertEquals(1L, subject.getMissCount());
+    }
+
+    @Test
+    public void localKeys() {
+        NearCache<String, Object> subject = this.createNearCache(10);
+
+        when(this.dist.getLocality("local")).thenReturn(DataLocality.LOCAL);
+
+        subject.put("local", new Object(), subject.getVersion("local"));
+
+        assertEquals(0, subject.size());
+        assertNull(subject.get("local"));
+        // Reads of local keys are not counted
+        assertEquals(0L, subject.getMissCount());
+    }
+
+    @Test
+    public void bounded() {
+        NearCache<String, Object> subject = this.createNearCache(2);
+
+        subject.put("a", "a", subject.getVersion("a"));
+        subject.put("b", "b", subject.getVersion("b"));
+        // Access a, so that b becomes the least recently used entry
+        assertNotNull(subject.get("a"));
+        subject.put("c", "c", subject.getVersion("c"));
+
+        assertEquals(2, subject.size());
+        assertNotNull(subject.get("a"));
+        assertNull(subject.get("b"));
+        assertNotNull(subject.get("c"));
+    }
+
+    @Test
+    public void boundedSegments() {
+        NearCache<String, Object> subject = this.createNearCache(1000);
+
+        for (int i = 0; i < 10000; ++i) {
+            subject.put(String.valueOf(i), "value", subject.getVersion(String.valueOf(i)));
+        }
+
+        assertTrue(subject.size() <= 1000);
+        // The most recently put entry is never evicted
+        assertNotNull(subject.get("9999"));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void invalidateOnCluster() throws Exception {
+        NearCache<String, Object> subject = this.createNearCache(10);
+        ArgumentCaptor<NearCacheInvalidationCommand<String, Object>> capturedCommand = (ArgumentCaptor<NearCacheInvalidationCommand<String, Object>>) (ArgumentCaptor<?>) ArgumentCaptor.forClass(NearCacheInvalidationCommand.class);
+
+        subject.start();
+        subject.put("key", "value", subject.getVersion("key"));
+        subject.invalidate("key");
+
+        assertEquals(0, subject.size());
+        verify(this.dispatcher).submitOnCluster(capturedCommand.capture(), same(this.localNode), same(this.ownerNode));
+
+        // Another node executes the command
+        subject.put("key", "value", subject.getVersion("key"));
+        capturedCommand.getValue().execute(subject);
+        assertEquals(0, subject.size());
+    }
+
+    @Test
+    public void invalidateAfterTransaction() throws Exception {
+        NearCache<String, Object> subject = this.createNearCache(10);
+        TransactionManager tm = mock(TransactionManager.class);
+        Transaction tx = mock(Transaction.class);
+        ArgumentCaptor<Synchronization> capturedSynchronization = ArgumentCaptor.forClass(Synchronization.class);
+
+        when(this.advancedCache.getTransactionManager()).thenReturn(tm);
+        when(tm.getTransaction()).thenReturn(tx);
+
+        subject.start();
+        subject.put("key", "value", subject.getVersion("key"));
+        subject.invalidate("key");
+
+        assertEquals(0, subject.size());
+        verify(tx).registerSynchronization(capturedSynchronization.capture());
+        verifyZeroInteractions(this.dispatcher);
+
+        // The previous value was read again before the transaction committed
+        subject.put("key", "value", subject.getVersion("key"));
+        capturedSynchronization.getValue().afterCompletion(0);
+
+        assertEquals(0, subject.size());
+        verify(this.dispatcher).submitOnCluster(any(NearCacheInvalidationCommand.class), same(this.localNode), same(this.ownerNode));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void invalidateTransactionKeysTogether() throws Exception {
+        NearCache<String, Object> subject = this.createNearCache(10);
+        TransactionManager tm = mock(TransactionManager.class);
+        Transaction tx = mock(Transaction.class);
+        ArgumentCaptor<Synchronization> capturedSynchronization = ArgumentCaptor.forClass(Synchronization.class);
+        ArgumentCaptor<NearCacheInvalidationCommand<String, Object>> capturedCommand = (ArgumentCaptor<NearCacheInvalidationCommand<String, Object>>) (ArgumentCaptor<?>) ArgumentCaptor.forClass(NearCacheInvalidationCommand.class);
+
+        when(this.advancedCache.getTransactionManager()).thenReturn(tm);
+        when(tm.getTransaction()).thenReturn(tx);
+
+        subject.start();
+        subject.invalidate("a");
+        subject.invalidate("b");
+
+        // A single synchronization per transaction
+        verify(tx).registerSynchronization(capturedSynchronization.capture());
+        capturedSynchronization.getValue().afterCompletion(0);
+
+        verify(this.dispatcher).submitOnCluster(capturedCommand.capture(), same(this.localNode), same(this.ownerNode));
+
+        // Another node executes the command
+        subject.put("a", "a", subject.getVersion("a"));
+        subject.put("b", "b", subject.getVersion("b"));
+        capturedCommand.getValue().execute(subject);
+        assertEquals(0, subject.size());
+    }
+
+    @Test
+    public void skipInvalidationOfOwners() throws Exception {
+        NearCache<String, Object> subject = this.createNearCache(10);
+
+        when(this.group.getNodes()).thenReturn(Arrays.asList(this.localNode, this.ownerNode));
+
+        subject.start();
+        subject.invalidate("key");
+
+        // The only other node owns the key, so it never near caches it
+        verifyZeroInteractions(this.dispatcher);
+    }
+
+    @Test
+    public void stalePut() {
+        NearCache<String, Object> subject = this.createNearCache(10);
+
+        // A value read before an invalidation is not near cached after it
+        long version = subject.getVersion("key");
+        subject.invalidate("key");
+        subject.put("key", "stale", version);
+
+        assertEquals(0, subject.size());
+        assertNull(subject.get("key"));
+
+        subject.put("key", "value", subject.getVersion("key"));
+        assertEquals("value", subject.get("key"));
+    }
+
+    @Test
+    public void invalidate() {
+        NearCache<String, Object> subject = this.createNearCache(10);
+        CacheEntryEvent<String, Object> event = mock(CacheEntryEvent.class);
+        when(event.getKey()).thenReturn("key");
+
+        subject.put("key", "value", subject.getVersion("key"));
+        subject.modified(event);
+        assertEquals(0, subject.size());
+
+        subject.put("key", "value", subject.getVersion("key"));
+        subject.removed(event);
+        assertEquals(0, subject.size());
+
+        subject.put("key", "value", subject.getVersion("key"));
+        subject.invalidated(event);
+        assertEquals(0, subject.size());
+
+        subject.put("key", "value", subject.getVersion("key"));
+        subject.invalidate("key");
+        assertEquals(0, subject.size());
+        // Not yet started, so there are no other nodes to notify
+        verifyZeroInteractions(this.dispatcher);
+    }
+
+    @Test
+    public void topologyChanged() {
+        NearCache<String, Object> subject = this.createNearCache(10);
+        TopologyChangedEvent<String, Object> event = mock(TopologyChangedEvent.class);
+
+        subject.put("key", "value", subject.getVersion("key"));
+
+        when(event.isPre()).thenReturn(true);
+        subject.topologyChanged(event);
+
+        assertEquals(1, subject.size());
+
+        when(event.isPre()).thenReturn(false);
+        subject.topologyChanged(event);
+
+        assertEquals(0, subject.size());
+    }
+
+    @Test
+    public void accept() {
+        NearCache<String, Object> subject = this.createNearCache(10);
+
+        assertTrue(subject.accept("key"));
+        assertFalse(subject.accept(Integer.valueOf(1)));
+    }
+}
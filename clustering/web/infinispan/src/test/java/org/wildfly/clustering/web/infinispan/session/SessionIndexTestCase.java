@@ -0,0 +1,101 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.infinispan.session;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.infinispan.AdvancedCache;
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.context.Flag;
+import org.infinispan.notifications.cachelistener.event.CacheEntryCreatedEvent;
+import org.infinispan.notifications.cachelistener.event.CacheEntryRemovedEvent;
+import org.junit.Test;
+
+public class SessionIndexTestCase {
+    @SuppressWarnings("unchecked")
+    @Test
+    public void test() {
+        Cache<String, Object> cache = mock(Cache.class);
+        AdvancedCache<String, Object> advancedCache = mock(AdvancedCache.class);
+        CacheEntryCreatedEvent<String, Object> createdEvent = mock(CacheEntryCreatedEvent.class);
+        CacheEntryRemovedEvent<String, Object> removedEvent = mock(CacheEntryRemovedEvent.class);
+
+        when(cache.getCacheConfiguration()).thenReturn(new ConfigurationBuilder().build());
+        when(cache.getAdvancedCache()).thenReturn(advancedCache);
+        when(advancedCache.withFlags(Flag.CACHE_MODE_LOCAL, Flag.SKIP_CACHE_LOAD)).thenReturn(advancedCache);
+        when(advancedCache.keySet()).thenReturn(new HashSet<String>(Arrays.asList("existing")));
+
+        SessionIndex index = new SessionIndex(cache);
+        index.start();
+
+        verify(cache).addListener(index, index);
+        assertEquals(1, index.getActiveSessionCount());
+        assertTrue(index.getActiveSessions().contains("existing"));
+        assertEquals(index.getActiveSessions(), index.getLocalSessions());
+
+        when(createdEvent.isPre()).thenReturn(false);
+        when(createdEvent.getKey()).thenReturn("created");
+
+        index.created(createdEvent);
+
+        assertEquals(2, index.getActiveSessionCount());
+        assertEquals(2, index.getLocalSessionCount());
+        assertEquals(new HashSet<>(Arrays.asList("existing", "created")), index.getActiveSessions());
+
+        when(removedEvent.isPre()).thenReturn(true);
+        when(removedEvent.getKey()).thenReturn("existing");
+
+        index.removed(removedEvent);
+
+        // Pre events are ignored
+        assertEquals(2, index.getActiveSessionCount());
+
+        when(removedEvent.isPre()).thenReturn(false);
+
+        index.removed(removedEvent);
+
+        assertEquals(1, index.getActiveSessionCount());
+        assertFalse(index.getLocalSessions().contains("existing"));
+
+        index.stop();
+
+        verify(cache).removeListener(index);
+        assertEquals(0, index.getLocalSessionCount());
+    }
+
+    @Test
+    public void accept() {
+        @SuppressWarnings("unchecked")
+        Cache<String, Object> cache = mock(Cache.class);
+        when(cache.getCacheConfiguration()).thenReturn(new ConfigurationBuilder().build());
+
+        SessionIndex index = new SessionIndex(cache);
+
+        assertTrue(index.accept("session"));
+        assertFalse(index.accept(new Object()));
+    }
+}
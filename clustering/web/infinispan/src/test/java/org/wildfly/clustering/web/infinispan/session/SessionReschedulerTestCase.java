@@ -0,0 +1,148 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.infinispan.session;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class SessionReschedulerTestCase {
+
+    @Test
+    public void reschedule() throws Exception {
+        ExecutorService executor = mock(ExecutorService.class);
+        SessionRescheduler.Task task = mock(SessionRescheduler.Task.class);
+        ArgumentCaptor<Runnable> capturedBatch = ArgumentCaptor.forClass(Runnable.class);
+
+        try (SessionRescheduler subject = new SessionRescheduler(executor, 2)) {
+            assertTrue(subject.isComplete());
+
+            subject.reschedule(Arrays.asList("a", "b", "c", "d", "e"), task);
+
+            verify(executor, times(3)).execute(capturedBatch.capture());
+            verifyZeroInteractions(task);
+            assertFalse(subject.isComplete());
+            assertFalse(subject.await(0, TimeUnit.MILLISECONDS));
+            assertEquals(5L, subject.getSubmittedCount());
+            assertEquals(0L, subject.getRescheduledCount());
+
+            List<Runnable> batches = capturedBatch.getAllValues();
+            batches.get(0).run();
+
+            verify(task).reschedule("a");
+            verify(task).reschedule("b");
+            assertEquals(2L, subject.getRescheduledCount());
+            assertFalse(subject.isComplete());
+
+            batches.get(1).run();
+            batches.get(2).run();
+
+            verify(task).reschedule("c");
+            verify(task).reschedule("d");
+            verify(task).reschedule("e");
+            assertEquals(5L, subject.getRescheduledCount());
+            assertTrue(subject.isComplete());
+            assertTrue(subject.await(0, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    @Test
+    public void cancel() throws Exception {
+        ExecutorService executor = mock(ExecutorService.class);
+        SessionRescheduler.Task task = mock(SessionRescheduler.Task.class);
+        ArgumentCaptor<Runnable> capturedBatch = ArgumentCaptor.forClass(Runnable.class);
+
+        try (SessionRescheduler subject = new SessionRescheduler(executor, 2)) {
+            subject.reschedule(Arrays.asList("a", "b", "c"), task);
+
+            verify(executor, times(2)).execute(capturedBatch.capture());
+
+            assertEquals(new HashSet<>(Arrays.asList("a", "b", "c")), subject.cancel());
+
+            // A cancelled warmup no longer blocks waiting threads, but is not reported as complete
+            assertFalse(subject.isComplete());
+            assertFalse(subject.await(0, TimeUnit.MILLISECONDS));
+
+            for (Runnable batch: capturedBatch.getAllValues()) {
+                batch.run();
+            }
+
+            verifyZeroInteractions(task);
+        }
+
+        verify(executor).shutdownNow();
+    }
+
+    @Test
+    public void cancelPartial() throws Exception {
+        ExecutorService executor = mock(ExecutorService.class);
+        SessionRescheduler.Task task = mock(SessionRescheduler.Task.class);
+        ArgumentCaptor<Runnable> capturedBatch = ArgumentCaptor.forClass(Runnable.class);
+
+        try (SessionRescheduler subject = new SessionRescheduler(executor, 2)) {
+            assertEquals(Collections.emptySet(), subject.cancel());
+
+            subject.reschedule(Arrays.asList("a", "b", "c"), task);
+
+            verify(executor, times(2)).execute(capturedBatch.capture());
+
+            capturedBatch.getAllValues().get(0).run();
+
+            // Only sessions not yet rescheduled are returned
+            assertEquals(Collections.singleton("c"), subject.cancel());
+
+            capturedBatch.getAllValues().get(1).run();
+
+            verify(task, never()).reschedule("c");
+        }
+    }
+
+    @Test
+    public void failure() throws Exception {
+        ExecutorService executor = mock(ExecutorService.class);
+        SessionRescheduler.Task task = mock(SessionRescheduler.Task.class);
+        ArgumentCaptor<Runnable> capturedBatch = ArgumentCaptor.forClass(Runnable.class);
+
+        doThrow(new Exception()).when(task).reschedule("a");
+
+        try (SessionRescheduler subject = new SessionRescheduler(executor, 10)) {
+            subject.reschedule(Arrays.asList("a", "b"), task);
+
+            verify(executor).execute(capturedBatch.capture());
+
+            capturedBatch.getValue().run();
+
+            verify(task).reschedule("b");
+            assertEquals(2L, subject.getRescheduledCount());
+            assertTrue(subject.isComplete());
+        }
+    }
+}
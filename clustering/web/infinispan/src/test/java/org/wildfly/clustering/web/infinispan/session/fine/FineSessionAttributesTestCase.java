@@ -0,0 +1,142 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.infinispan.session.fine;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.infinispan.AdvancedCache;
+import org.infinispan.Cache;
+import org.infinispan.context.Flag;
+import org.junit.Test;
+import org.wildfly.clustering.web.infinispan.session.SessionAttributeMarshaller;
+
+public class FineSessionAttributesTestCase {
+    private final String id = "session";
+    private final Set<String> attributes = new HashSet<>();
+    private final Cache<SessionAttributeCacheKey, Object> cache = mock(Cache.class);
+    private final AdvancedCache<SessionAttributeCacheKey, Object> advancedCache = mock(AdvancedCache.class);
+    private final SessionAttributeMarshaller<Object, Object> marshaller = mock(SessionAttributeMarshaller.class);
+    private final FineSessionAttributes<Object> subject = new FineSessionAttributes<>(this.id, this.attributes, this.cache, this.marshaller);
+
+    @Test
+    public void setNewAttribute() {
+        Object value = new Object();
+        Object marshalledValue = new Object();
+        SessionAttributeCacheKey key = new SessionAttributeCacheKey(this.id, "name");
+
+        when(this.cache.getAdvancedCache()).thenReturn(this.advancedCache);
+        when(this.advancedCache.withFlags(Flag.IGNORE_RETURN_VALUES)).thenReturn(this.advancedCache);
+        when(this.marshaller.write(value)).thenReturn(marshalledValue);
+
+        assertNull(this.subject.setAttribute("name", value));
+
+        verify(this.advancedCache).put(key, marshalledValue);
+        verify(this.cache, never()).get(key);
+        assertTrue(this.attributes.contains("name"));
+    }
+
+    @Test
+    public void replaceAttribute() {
+        Object oldValue = new Object();
+        Object oldMarshalledValue = new Object();
+        Object value = new Object();
+        Object marshalledValue = new Object();
+        SessionAttributeCacheKey key = new SessionAttributeCacheKey(this.id, "name");
+        this.attributes.add("name");
+
+        when(this.cache.getAdvancedCache()).thenReturn(this.advancedCache);
+        when(this.advancedCache.withFlags(Flag.IGNORE_RETURN_VALUES)).thenReturn(this.advancedCache);
+        when(this.cache.get(key)).thenReturn(oldMarshalledValue);
+        when(this.marshaller.read(oldMarshalledValue)).thenReturn(oldValue);
+        when(this.marshaller.write(value)).thenReturn(marshalledValue);
+
+        assertSame(oldValue, this.subject.setAttribute("name", value));
+
+        verify(this.advancedCache).put(key, marshalledValue);
+        verify(this.advancedCache, never()).withFlags(Flag.FORCE_SYNCHRONOUS);
+    }
+
+    @Test
+    public void replaceImmutableAttribute() {
+        String value = "value";
+        Object marshalledValue = new Object();
+        SessionAttributeCacheKey key = new SessionAttributeCacheKey(this.id, "name");
+        this.attributes.add("name");
+
+        when(this.cache.get(key)).thenReturn(marshalledValue);
+        when(this.marshaller.read(marshalledValue)).thenReturn(new String(value));
+
+        assertEquals(value, this.subject.setAttribute("name", value));
+
+        verify(this.cache, never()).getAdvancedCache();
+    }
+
+    @Test
+    public void removeAttribute() {
+        Object value = new Object();
+        Object marshalledValue = new Object();
+        SessionAttributeCacheKey key = new SessionAttributeCacheKey(this.id, "name");
+
+        assertNull(this.subject.removeAttribute("name"));
+
+        verifyZeroInteractions(this.cache);
+
+        this.attributes.add("name");
+
+        when(this.cache.getAdvancedCache()).thenReturn(this.advancedCache);
+        when(this.advancedCache.withFlags(Flag.IGNORE_RETURN_VALUES)).thenReturn(this.advancedCache);
+        when(this.cache.get(key)).thenReturn(marshalledValue);
+        when(this.marshaller.read(marshalledValue)).thenReturn(value);
+
+        assertSame(value, this.subject.removeAttribute("name"));
+
+        verify(this.advancedCache).remove(key);
+        verify(this.advancedCache, never()).withFlags(Flag.FORCE_SYNCHRONOUS);
+        assertFalse(this.attributes.contains("name"));
+    }
+
+    /**
+     * Simulates requests overwriting 1, 10 and 50 attributes, none of which may require a synchronous round trip.
+     */
+    @Test
+    public void overwriteAttributes() {
+        when(this.cache.getAdvancedCache()).thenReturn(this.advancedCache);
+        when(this.advancedCache.withFlags(Flag.IGNORE_RETURN_VALUES)).thenReturn(this.advancedCache);
+
+        for (int count: new int[] { 1, 10, 50 }) {
+            for (int i = 0; i < count; ++i) {
+                this.attributes.add("attribute" + i);
+            }
+            for (int i = 0; i < count; ++i) {
+                this.subject.setAttribute("attribute" + i, new Object());
+            }
+            verify(this.advancedCache, times(count)).put(any(SessionAttributeCacheKey.class), any());
+            verify(this.advancedCache, never()).withFlags(Flag.FORCE_SYNCHRONOUS);
+            reset(this.advancedCache);
+            when(this.advancedCache.withFlags(Flag.IGNORE_RETURN_VALUES)).thenReturn(this.advancedCache);
+        }
+    }
+}
@@ -77,12 +77,14 @@ public interface SessionManager<L, B extends Batch> extends IdentifierFactory<St
 
     /**
      * Returns the identifiers of those sessions that are active on this node.
+     * The returned set may be a live, read-only view.
      * @return a set of session identifiers.
      */
     Set<String> getActiveSessions();
 
     /**
      * Returns the identifiers of all sessions on this node, including both active and passive sessions.
+     * The returned set may be a live, read-only view.
      * @return a set of session identifiers.
      */
     Set<String> getLocalSessions();
@@ -94,4 +96,49 @@ public interface SessionManager<L, B extends Batch> extends IdentifierFactory<St
      * @return a read-only session or null if none exists
      */
     ImmutableSession viewSession(String id);
+
+    /**
+     * @return the number of reads of session attributes owned by other nodes that were served by the near cache, or 0 if there is no near cache
+     */
+    long getNearCacheHitCount();
+
+    /**
+     * @return the number of reads of session attributes owned by other nodes that were not served by the near cache, or 0 if there is no near cache
+     */
+    long getNearCacheMissCount();
+
+    /**
+     * @return the number of expiration/passivation commands waiting to be sent to remote primary owners
+     */
+    int getPendingSchedulerCommands();
+
+    /**
+     * @return the number of expiration/passivation commands sent to remote primary owners
+     */
+    long getDispatchedSchedulerCommands();
+
+    /**
+     * @return the number of messages used to send expiration/passivation commands to remote primary owners
+     */
+    long getSchedulerCommandBatches();
+
+    /**
+     * @return the number of expiration/passivation commands that had to wait to be queued, because too many commands were pending
+     */
+    long getSchedulerCommandOverflows();
+
+    /**
+     * @return the number of existing sessions submitted for rescheduling, since this node last became the primary owner of existing sessions
+     */
+    long getWarmupSessionCount();
+
+    /**
+     * @return the number of existing sessions rescheduled, since this node last became the primary owner of existing sessions
+     */
+    long getWarmedUpSessionCount();
+
+    /**
+     * @return true, if all existing sessions of which this node is the primary owner were rescheduled
+     */
+    boolean isWarmupComplete();
 }
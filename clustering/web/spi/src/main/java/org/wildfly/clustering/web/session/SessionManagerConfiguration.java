@@ -32,6 +32,26 @@ public interface SessionManagerConfiguration {
 
     int getMaxActiveSessions();
 
+    /**
+     * Returns the granularity, in milliseconds, with which the last accessed time of a session is persisted.
+     * Requests that would only advance the persisted last accessed time of a session by less than this amount do not persist it.
+     * @return a time interval in milliseconds, or 0, if the last accessed time is persisted on every request
+     */
+    long getAccessTimeGranularity();
+
+    /**
+     * Returns the maximum time, in milliseconds, to delay the start of a session manager
+     * while the expiration/passivation of existing sessions owned by the local node is rescheduled.
+     * @return a time interval in milliseconds, or 0, if existing sessions are rescheduled in the background
+     */
+    long getWarmupTimeout();
+
+    /**
+     * Returns the maximum number of immutable session attributes, owned by other nodes, to cache locally.
+     * @return a number of session attributes, or 0, if near caching is disabled
+     */
+    int getNearCacheSize();
+
     SessionAttributePersistenceStrategy getAttributePersistenceStrategy();
 
     String getDeploymentName();
@@ -35,12 +35,13 @@ import org.wildfly.clustering.ee.Batch;
 import org.wildfly.clustering.web.session.ImmutableSession;
 import org.wildfly.clustering.web.session.Session;
 import org.wildfly.clustering.web.session.SessionManager;
+import org.wildfly.extension.undertow.session.DistributableSessionManagerStatistics;
 
 /**
  * Adapts a distributable {@link SessionManager} to an Undertow {@link io.undertow.server.session.SessionManager}.
  * @author Paul Ferraro
  */
-public class DistributableSessionManager implements UndertowSessionManager {
+public class DistributableSessionManager implements UndertowSessionManager, DistributableSessionManagerStatistics {
 
     private static final int MAX_SESSION_ID_GENERATION_ATTEMPTS = 10;
 
@@ -63,6 +64,51 @@ public class DistributableSessionManager implements UndertowSessionManager {
         return this.manager;
     }
 
+    @Override
+    public long getNearCacheHitCount() {
+        return this.manager.getNearCacheHitCount();
+    }
+
+    @Override
+    public long getNearCacheMissCount() {
+        return this.manager.getNearCacheMissCount();
+    }
+
+    @Override
+    public int getPendingSchedulerCommands() {
+        return this.manager.getPendingSchedulerCommands();
+    }
+
+    @Override
+    public long getDispatchedSchedulerCommands() {
+        return this.manager.getDispatchedSchedulerCommands();
+    }
+
+    @Override
+    public long getSchedulerCommandBatches() {
+        return this.manager.getSchedulerCommandBatches();
+    }
+
+    @Override
+    public long getSchedulerCommandOverflows() {
+        return this.manager.getSchedulerCommandOverflows();
+    }
+
+    @Override
+    public long getWarmupSessionCount() {
+        return this.manager.getWarmupSessionCount();
+    }
+
+    @Override
+    public long getWarmedUpSessionCount() {
+        return this.manager.getWarmedUpSessionCount();
+    }
+
+    @Override
+    public boolean isWarmupComplete() {
+        return this.manager.isWarmupComplete();
+    }
+
     @Override
     public void start() {
         this.manager.start();
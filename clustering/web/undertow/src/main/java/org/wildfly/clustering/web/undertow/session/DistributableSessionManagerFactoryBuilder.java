@@ -69,6 +69,21 @@ public class DistributableSessionManagerFactoryBuilder implements org.wildfly.ex
                 return config.getMaxActiveSessions();
             }
 
+            @Override
+            public long getAccessTimeGranularity() {
+                return config.getAccessTimeGranularity();
+            }
+
+            @Override
+            public long getWarmupTimeout() {
+                return config.getWarmupTimeout();
+            }
+
+            @Override
+            public int getNearCacheSize() {
+                return config.getNearCacheSize();
+            }
+
             @Override
             public SessionAttributePersistenceStrategy getAttributePersistenceStrategy() {
                 return strategies.get(config.getGranularity());
@@ -22,6 +22,8 @@
 
 package org.jboss.as.ee.concurrent;
 
+import org.jboss.as.ee.concurrent.handle.InvariantContextHandleFactory;
+import org.jboss.as.ee.concurrent.handle.NullContextHandle;
 import org.jboss.as.ee.concurrent.handle.ResetContextHandle;
 import org.jboss.as.ee.concurrent.handle.SetupContextHandle;
 import org.jboss.as.ee.logging.EeLogger;
@@ -41,9 +43,9 @@ import java.io.ObjectOutputStream;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.SortedSet;
@@ -96,7 +98,7 @@ public class ConcurrentContext {
     }
 
     private final Map<String, ContextHandleFactory> factoryMap = new HashMap<>();
-    private List<ContextHandleFactory> factoryOrderedList;
+    private volatile Chain chain = new Chain(Collections.<ContextHandleFactory>emptyList());
 
     private volatile ServiceName serviceName;
 
@@ -126,7 +128,7 @@ public class ConcurrentContext {
         };
         SortedSet<ContextHandleFactory> sortedSet = new TreeSet<>(comparator);
         sortedSet.addAll(factoryMap.values());
-        factoryOrderedList = new ArrayList<>(sortedSet);
+        chain = new Chain(new ArrayList<ContextHandleFactory>(sortedSet));
     }
 
     /**
@@ -136,34 +138,70 @@ public class ConcurrentContext {
      * @return
      */
     public SetupContextHandle saveContext(ContextService contextService, Map<String, String> contextObjectProperties) {
-        final List<SetupContextHandle> handles = new ArrayList<>(factoryOrderedList.size());
-        for (ContextHandleFactory factory : factoryOrderedList) {
-            handles.add(factory.saveContext(contextService, contextObjectProperties));
+        final Chain chain = this.chain;
+        // start from the handles of the invariant factories, and only ask the others to capture the invocation context
+        final SetupContextHandle[] handles = chain.invariantHandles.clone();
+        for (int index : chain.capturingIndexes) {
+            final SetupContextHandle handle = chain.factories[index].saveContext(contextService, contextObjectProperties);
+            // a factory with nothing to capture is skipped
+            handles[index] = handle != NullContextHandle.INSTANCE ? handle : null;
         }
         return new ChainedSetupContextHandle(this, handles);
     }
 
     /**
-     * A setup context handle that is a chain of other setup context handles
+     * The factories, ordered by chain priority, compiled so that saving a context only involves the factories that capture
+     * the invocation context. The handles of {@link InvariantContextHandleFactory}s are saved once, here.
+     */
+    private static class Chain {
+
+        private final ContextHandleFactory[] factories;
+        private final SetupContextHandle[] invariantHandles;
+        private final int[] capturingIndexes;
+
+        private Chain(List<ContextHandleFactory> factories) {
+            this.factories = factories.toArray(new ContextHandleFactory[factories.size()]);
+            this.invariantHandles = new SetupContextHandle[this.factories.length];
+            final List<Integer> capturingIndexes = new ArrayList<>();
+            for (int i = 0; i < this.factories.length; i++) {
+                final ContextHandleFactory factory = this.factories[i];
+                if (factory instanceof InvariantContextHandleFactory) {
+                    invariantHandles[i] = factory.saveContext(null, null);
+                } else {
+                    capturingIndexes.add(i);
+                }
+            }
+            this.capturingIndexes = new int[capturingIndexes.size()];
+            for (int i = 0; i < this.capturingIndexes.length; i++) {
+                this.capturingIndexes[i] = capturingIndexes.get(i);
+            }
+        }
+    }
+
+    /**
+     * A setup context handle that is a chain of other setup context handles. Skipped handles are null.
      */
     private static class ChainedSetupContextHandle implements SetupContextHandle {
 
         private transient ConcurrentContext concurrentContext;
-        private transient List<SetupContextHandle> setupHandles;
+        private transient SetupContextHandle[] setupHandles;
 
-        private ChainedSetupContextHandle(ConcurrentContext concurrentContext, List<SetupContextHandle> setupHandles) {
+        private ChainedSetupContextHandle(ConcurrentContext concurrentContext, SetupContextHandle[] setupHandles) {
             this.concurrentContext = concurrentContext;
             this.setupHandles = setupHandles;
         }
 
         @Override
         public ResetContextHandle setup() throws IllegalStateException {
-            final LinkedList<ResetContextHandle> resetHandles = new LinkedList<>();
+            final ResetContextHandle[] resetHandles = new ResetContextHandle[setupHandles.length];
             final ResetContextHandle resetContextHandle = new ChainedResetContextHandle(resetHandles);
             try {
                 ConcurrentContext.pushCurrent(concurrentContext);
-                for (SetupContextHandle handle : setupHandles) {
-                    resetHandles.addFirst(handle.setup());
+                for (int i = 0; i < setupHandles.length; i++) {
+                    final SetupContextHandle handle = setupHandles[i];
+                    if (handle != null) {
+                        resetHandles[i] = handle.setup();
+                    }
                 }
             } catch (Error | RuntimeException e) {
                 resetContextHandle.reset();
@@ -181,12 +219,21 @@ public class ConcurrentContext {
             out.defaultWriteObject();
             // write the concurrent context service name
             out.writeObject(concurrentContext.serviceName);
-            // write the number of setup handles
-            out.write(setupHandles.size());
+            // write the number of setup handles, excluding skipped ones
+            int size = 0;
+            for(SetupContextHandle handle : setupHandles) {
+                if(handle != null) {
+                    size++;
+                }
+            }
+            out.write(size);
             // write each handle
             ContextHandleFactory factory = null;
             String factoryName = null;
             for(SetupContextHandle handle : setupHandles) {
+                if(handle == null) {
+                    continue;
+                }
                 factoryName = handle.getFactoryName();
                 factory = concurrentContext.factoryMap.get(factoryName);
                 if(factory == null) {
@@ -238,16 +285,16 @@ public class ConcurrentContext {
                 }
                 concurrentContext = (ConcurrentContext) serviceController.getValue();
                 // read setup handles
-                setupHandles = new ArrayList<>();
+                setupHandles = new SetupContextHandle[in.read()];
                 ContextHandleFactory factory = null;
                 String factoryName = null;
-                for(int i = in.read(); i > 0; i--) {
+                for(int i = 0; i < setupHandles.length; i++) {
                     factoryName = in.readUTF();
                     factory = concurrentContext.factoryMap.get(factoryName);
                     if(factory == null) {
                         throw EeLogger.ROOT_LOGGER.factoryNotFound(concurrentContext, factoryName);
                     }
-                    setupHandles.add(factory.readSetupContextHandle(in));
+                    setupHandles[i] = factory.readSetupContextHandle(in);
                 }
             } finally {
                 if (sm == null) {
@@ -266,20 +313,24 @@ public class ConcurrentContext {
     }
 
     /**
-     * A reset context handle that is a chain of other reset context handles
+     * A reset context handle that is a chain of other reset context handles, which are reset in reverse order. Handles not set up are null.
      */
     private static class ChainedResetContextHandle implements ResetContextHandle {
 
-        private transient List<ResetContextHandle> resetHandles;
+        private transient ResetContextHandle[] resetHandles;
 
-        private ChainedResetContextHandle(List<ResetContextHandle> resetHandles) {
+        private ChainedResetContextHandle(ResetContextHandle[] resetHandles) {
             this.resetHandles = resetHandles;
         }
 
         @Override
         public void reset() {
             if(resetHandles != null) {
-                for (ResetContextHandle handle : resetHandles) {
+                for (int i = resetHandles.length - 1; i >= 0; i--) {
+                    final ResetContextHandle handle = resetHandles[i];
+                    if (handle == null) {
+                        continue;
+                    }
                     try {
                         handle.reset();
                     } catch (Throwable e) {
@@ -0,0 +1,53 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ee.concurrent;
+
+/**
+ * The task metrics of a managed executor service, exposed as runtime attributes of its resource.
+ */
+public interface ManagedExecutorMetrics {
+
+    /**
+     * @return the number of tasks currently running
+     */
+    int getActiveTaskCount();
+
+    /**
+     * @return the number of tasks submitted, but not yet started
+     */
+    int getQueuedTaskCount();
+
+    /**
+     * @return the number of tasks which completed their execution, whether successfully or not
+     */
+    long getCompletedTaskCount();
+
+    /**
+     * @return the average time, in milliseconds, between the submission of a task and the start of its execution, or -1 if not recorded
+     */
+    long getAverageTaskLatency();
+
+    /**
+     * @return the number of running tasks whose runtime exceeds the hung task threshold, or -1 if not recorded
+     */
+    int getHungTaskCount();
+}
@@ -0,0 +1,154 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ee.concurrent;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statistics of the tasks submitted to a managed executor service, independent of the type of executor running them.
+ * Each submitted task is followed by a {@link Tracker}, which records when the task is started and completed.
+ */
+public class ManagedExecutorStatistics implements ManagedExecutorMetrics {
+
+    private final long hungTaskThreshold;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong latency = new AtomicLong();
+    // Start time, in milliseconds, of each running task
+    private final ConcurrentMap<Tracker, Long> running = new ConcurrentHashMap<>();
+
+    /**
+     * @param hungTaskThreshold the runtime, in milliseconds, for tasks to be considered hung. If 0 tasks are never considered hung.
+     */
+    public ManagedExecutorStatistics(long hungTaskThreshold) {
+        this.hungTaskThreshold = hungTaskThreshold;
+    }
+
+    /**
+     * Records the submission of a task.
+     * @return a tracker for the submitted task
+     */
+    public Tracker submitted() {
+        this.queued.incrementAndGet();
+        return new Tracker();
+    }
+
+    /**
+     * @return the number of tasks currently running
+     */
+    @Override
+    public int getActiveTaskCount() {
+        return this.running.size();
+    }
+
+    /**
+     * @return the number of tasks submitted, but not yet started
+     */
+    @Override
+    public int getQueuedTaskCount() {
+        return this.queued.get();
+    }
+
+    /**
+     * @return the number of tasks which completed their execution, whether successfully or not
+     */
+    @Override
+    public long getCompletedTaskCount() {
+        return this.completed.get();
+    }
+
+    /**
+     * @return the average time, in milliseconds, between the submission of a task and the start of its execution
+     */
+    @Override
+    public long getAverageTaskLatency() {
+        long count = this.started.get();
+        return (count > 0) ? TimeUnit.NANOSECONDS.toMillis(this.latency.get() / count) : 0L;
+    }
+
+    /**
+     * @return the number of running tasks whose runtime exceeds the hung task threshold
+     */
+    @Override
+    public int getHungTaskCount() {
+        if (this.hungTaskThreshold <= 0) {
+            return 0;
+        }
+        long now = System.currentTimeMillis();
+        int count = 0;
+        for (Long start : this.running.values()) {
+            if (now - start > this.hungTaskThreshold) {
+                count += 1;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Follows the lifecycle of a single submitted task.
+     */
+    public class Tracker {
+        private final long submitted = System.nanoTime();
+        private final AtomicBoolean pending = new AtomicBoolean(true);
+
+        Tracker() {
+        }
+
+        /**
+         * Records the start of the task.
+         * @return false, if the task was already discarded, and should not run
+         */
+        public boolean started() {
+            if (!this.pending.compareAndSet(true, false)) {
+                return false;
+            }
+            ManagedExecutorStatistics.this.queued.decrementAndGet();
+            ManagedExecutorStatistics.this.latency.addAndGet(System.nanoTime() - this.submitted);
+            ManagedExecutorStatistics.this.started.incrementAndGet();
+            ManagedExecutorStatistics.this.running.put(this, System.currentTimeMillis());
+            return true;
+        }
+
+        /**
+         * Records the completion of a started task.
+         */
+        public void completed() {
+            ManagedExecutorStatistics.this.running.remove(this);
+            ManagedExecutorStatistics.this.completed.incrementAndGet();
+        }
+
+        /**
+         * Records that the task will not run, e.g. because it was rejected or cancelled. Does nothing if the task already started.
+         */
+        public void discarded() {
+            if (this.pending.compareAndSet(true, false)) {
+                ManagedExecutorStatistics.this.queued.decrementAndGet();
+            }
+        }
+    }
+}
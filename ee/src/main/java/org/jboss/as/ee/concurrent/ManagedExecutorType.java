@@ -0,0 +1,40 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ee.concurrent;
+
+/**
+ * The types of executor backing a managed executor service.
+ */
+public enum ManagedExecutorType {
+    /**
+     * A thread pool with a task queue, provided by the EE Concurrency Utilities implementation.
+     */
+    THREAD_POOL,
+    /**
+     * A work-stealing fork/join pool, suited for CPU bound tasks which fan out into many subtasks.
+     */
+    WORK_STEALING,
+    /**
+     * A thread per running task, with a limit on the number of concurrently running tasks, suited for tasks blocking on I/O.
+     */
+    THREAD_PER_TASK,
+}
@@ -0,0 +1,218 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ee.concurrent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An executor which starts a new thread for each task, instead of keeping idle threads around, suited for tasks blocking on I/O.
+ * The number of concurrently running threads is limited; tasks submitted while the limit is reached wait in a queue,
+ * and are run by the threads of completing tasks, before these terminate.
+ * Tasks are rejected once the queue is full.
+ */
+public class ThreadPerTaskExecutor extends AbstractExecutorService {
+
+    private final ThreadFactory threadFactory;
+    private final int maxThreads;
+    private final BlockingQueue<Runnable> queue;
+    private final AtomicInteger threadCount = new AtomicInteger();
+    private final Set<Thread> threads = Collections.newSetFromMap(new ConcurrentHashMap<Thread, Boolean>());
+    private volatile boolean shutdown = false;
+
+    /**
+     * @param threadFactory the factory of the task threads
+     * @param maxThreads the maximum number of concurrently running threads
+     * @param queueCapacity the capacity of the queue of tasks waiting for a thread.
+     * If 0, tasks are rejected as soon as the thread limit is reached, if Integer.MAX_VALUE the queue is unbounded.
+     */
+    public ThreadPerTaskExecutor(ThreadFactory threadFactory, int maxThreads, int queueCapacity) {
+        if (maxThreads <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.threadFactory = threadFactory;
+        this.maxThreads = maxThreads;
+        this.queue = (queueCapacity == 0) ? new SynchronousQueue<Runnable>() : new LinkedBlockingQueue<Runnable>(queueCapacity);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (task == null) {
+            throw new NullPointerException();
+        }
+        if (this.shutdown) {
+            throw new RejectedExecutionException();
+        }
+        int count = this.threadCount.get();
+        while (count < this.maxThreads) {
+            if (this.threadCount.compareAndSet(count, count + 1)) {
+                this.start(task);
+                return;
+            }
+            count = this.threadCount.get();
+        }
+        if (!this.queue.offer(task)) {
+            throw new RejectedExecutionException();
+        }
+        // All threads may have terminated since we checked the limit
+        this.startQueued();
+    }
+
+    /**
+     * Starts a thread for a queued task, if the thread limit permits it.
+     */
+    private void startQueued() {
+        while (!this.queue.isEmpty()) {
+            int count = this.threadCount.get();
+            if (count >= this.maxThreads) {
+                // One of the running threads will poll the queue before terminating
+                return;
+            }
+            if (this.threadCount.compareAndSet(count, count + 1)) {
+                Runnable task = this.queue.poll();
+                if (task != null) {
+                    this.start(task);
+                    return;
+                }
+                this.threadCount.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Starts a new thread for the specified task. The caller must have already accounted for the thread in the thread count.
+     */
+    private void start(Runnable task) {
+        Thread thread = null;
+        try {
+            thread = this.threadFactory.newThread(new Worker(task));
+        } finally {
+            if (thread == null) {
+                this.threadCount.decrementAndGet();
+                this.terminateIfDone();
+            }
+        }
+        if (thread == null) {
+            throw new RejectedExecutionException();
+        }
+        thread.start();
+    }
+
+    private void terminateIfDone() {
+        if (this.isTerminated()) {
+            synchronized (this) {
+                this.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * @return the number of currently running threads
+     */
+    public int getThreadCount() {
+        return this.threadCount.get();
+    }
+
+    @Override
+    public void shutdown() {
+        this.shutdown = true;
+        this.terminateIfDone();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        this.shutdown = true;
+        List<Runnable> tasks = new ArrayList<>();
+        this.queue.drainTo(tasks);
+        for (Thread thread : this.threads) {
+            thread.interrupt();
+        }
+        this.terminateIfDone();
+        return tasks;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return this.shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return this.shutdown && (this.threadCount.get() == 0) && this.queue.isEmpty();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (this) {
+            while (!this.isTerminated()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+        }
+        return true;
+    }
+
+    private class Worker implements Runnable {
+        private final Runnable task;
+
+        Worker(Runnable task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            Thread thread = Thread.currentThread();
+            ThreadPerTaskExecutor.this.threads.add(thread);
+            try {
+                Runnable task = this.task;
+                while (task != null) {
+                    task.run();
+                    if (!ThreadPerTaskExecutor.this.shutdown) {
+                        // Do not leak the interrupted status of a task to the next one
+                        Thread.interrupted();
+                    }
+                    task = ThreadPerTaskExecutor.this.queue.poll();
+                }
+            } finally {
+                ThreadPerTaskExecutor.this.threads.remove(thread);
+                ThreadPerTaskExecutor.this.threadCount.decrementAndGet();
+                ThreadPerTaskExecutor.this.startQueued();
+                ThreadPerTaskExecutor.this.terminateIfDone();
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ee.concurrent;
+
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.glassfish.enterprise.concurrent.ContextServiceImpl;
+import org.glassfish.enterprise.concurrent.ManagedExecutorServiceImpl;
+import org.glassfish.enterprise.concurrent.ManagedThreadFactoryImpl;
+
+/**
+ * A ManagedExecutorServiceImpl which exposes the {@link ManagedExecutorMetrics} of its thread pool.
+ * Tasks are submitted to the thread pool as is, thus the latency and hung tasks of the pool are not recorded.
+ */
+public class ThreadPoolManagedExecutorService extends ManagedExecutorServiceImpl implements ManagedExecutorMetrics {
+
+    public ThreadPoolManagedExecutorService(String name, ManagedThreadFactoryImpl managedThreadFactory, long hungTaskThreshold, boolean longRunningTasks, int corePoolSize, int maxPoolSize, long keepAliveTime, TimeUnit keepAliveTimeUnit, long threadLifeTime, int queueCapacity, ContextServiceImpl contextService, RejectPolicy rejectPolicy) {
+        super(name, managedThreadFactory, hungTaskThreshold, longRunningTasks, corePoolSize, maxPoolSize, keepAliveTime, keepAliveTimeUnit, threadLifeTime, queueCapacity, contextService, rejectPolicy);
+    }
+
+    private ThreadPoolExecutor getThreadPool() {
+        return (ThreadPoolExecutor) this.getThreadPoolExecutor();
+    }
+
+    @Override
+    public int getActiveTaskCount() {
+        return this.getThreadPool().getActiveCount();
+    }
+
+    @Override
+    public int getQueuedTaskCount() {
+        return this.getThreadPool().getQueue().size();
+    }
+
+    @Override
+    public long getCompletedTaskCount() {
+        return this.getThreadPool().getCompletedTaskCount();
+    }
+
+    @Override
+    public long getAverageTaskLatency() {
+        return -1L;
+    }
+
+    @Override
+    public int getHungTaskCount() {
+        return -1;
+    }
+}
@@ -0,0 +1,447 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ee.concurrent;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.enterprise.concurrent.ContextService;
+import javax.enterprise.concurrent.ManagedExecutorService;
+import javax.enterprise.concurrent.ManagedTask;
+import javax.enterprise.concurrent.ManagedTaskListener;
+
+import org.jboss.as.ee.logging.EeLogger;
+
+/**
+ * A {@link ManagedExecutorService} which records the {@link ManagedExecutorStatistics} of the tasks it submits to an underlying executor.
+ * <p/>
+ * If a context service is provided, tasks are made contextual on submission, through {@link ContextService#createContextualProxy(Object, Map, Class)},
+ * otherwise the underlying executor is expected to propagate the submitter's context itself.
+ * <p/>
+ * The {@link ManagedTaskListener} of a {@link ManagedTask} is notified when the task is submitted, starting, aborted and done,
+ * with the future of the task, as for the thread pool based managed executor service.
+ * <p/>
+ * As required for container managed executors, lifecycle related invocations are not allowed.
+ */
+public class TrackingManagedExecutorService implements ManagedExecutorService {
+
+    private final ExecutorService executor;
+    private final ContextService contextService;
+    private final ManagedExecutorStatistics statistics;
+    private final ExecutorService submitter = new TaskSubmitter();
+
+    /**
+     * @param executor the underlying executor
+     * @param contextService the context service used to make tasks contextual, or null if the executor does so itself
+     * @param statistics the statistics to record
+     */
+    public TrackingManagedExecutorService(ExecutorService executor, ContextService contextService, ManagedExecutorStatistics statistics) {
+        this.executor = executor;
+        this.contextService = contextService;
+        this.statistics = statistics;
+    }
+
+    public ManagedExecutorStatistics getStatistics() {
+        return this.statistics;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        ManagedExecutorStatistics.Tracker tracker = this.statistics.submitted();
+        try {
+            Runnable task = this.track(command, tracker);
+            if (getManagedTaskListener(task) != null) {
+                // The listener is notified with the future of the task
+                this.submitter.submit(task);
+            } else {
+                this.executor.execute(task);
+            }
+        } catch (RuntimeException e) {
+            tracker.discarded();
+            throw e;
+        }
+    }
+
+    @Override
+    public <T> Future<T> submit(Callable<T> task) {
+        ManagedExecutorStatistics.Tracker tracker = this.statistics.submitted();
+        try {
+            return this.submitter.submit(this.track(task, tracker));
+        } catch (RuntimeException e) {
+            tracker.discarded();
+            throw e;
+        }
+    }
+
+    @Override
+    public <T> Future<T> submit(Runnable task, T result) {
+        ManagedExecutorStatistics.Tracker tracker = this.statistics.submitted();
+        try {
+            return this.submitter.submit(this.track(task, tracker), result);
+        } catch (RuntimeException e) {
+            tracker.discarded();
+            throw e;
+        }
+    }
+
+    @Override
+    public Future<?> submit(Runnable task) {
+        return this.submit(task, null);
+    }
+
+    @Override
+    public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks) throws InterruptedException {
+        List<ManagedExecutorStatistics.Tracker> trackers = new ArrayList<>(tasks.size());
+        try {
+            return this.submitter.invokeAll(this.track(tasks, trackers));
+        } finally {
+            discard(trackers);
+        }
+    }
+
+    @Override
+    public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit) throws InterruptedException {
+        List<ManagedExecutorStatistics.Tracker> trackers = new ArrayList<>(tasks.size());
+        try {
+            return this.submitter.invokeAll(this.track(tasks, trackers), timeout, unit);
+        } finally {
+            discard(trackers);
+        }
+    }
+
+    @Override
+    public <T> T invokeAny(Collection<? extends Callable<T>> tasks) throws InterruptedException, ExecutionException {
+        List<ManagedExecutorStatistics.Tracker> trackers = new ArrayList<>(tasks.size());
+        try {
+            return this.submitter.invokeAny(this.track(tasks, trackers));
+        } finally {
+            discard(trackers);
+        }
+    }
+
+    @Override
+    public <T> T invokeAny(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        List<ManagedExecutorStatistics.Tracker> trackers = new ArrayList<>(tasks.size());
+        try {
+            return this.submitter.invokeAny(this.track(tasks, trackers), timeout, unit);
+        } finally {
+            discard(trackers);
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        throw EeLogger.ROOT_LOGGER.managedExecutorServiceLifecycleOperationNotAllowed();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        throw EeLogger.ROOT_LOGGER.managedExecutorServiceLifecycleOperationNotAllowed();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        throw EeLogger.ROOT_LOGGER.managedExecutorServiceLifecycleOperationNotAllowed();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        throw EeLogger.ROOT_LOGGER.managedExecutorServiceLifecycleOperationNotAllowed();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        throw EeLogger.ROOT_LOGGER.managedExecutorServiceLifecycleOperationNotAllowed();
+    }
+
+    private static ManagedTaskListener getManagedTaskListener(Object task) {
+        return (task instanceof ManagedTask) ? ((ManagedTask) task).getManagedTaskListener() : null;
+    }
+
+    private static void discard(List<ManagedExecutorStatistics.Tracker> trackers) {
+        // Tasks which did not start by now were cancelled, or never submitted
+        for (ManagedExecutorStatistics.Tracker tracker : trackers) {
+            tracker.discarded();
+        }
+    }
+
+    private <T> List<Callable<T>> track(Collection<? extends Callable<T>> tasks, List<ManagedExecutorStatistics.Tracker> trackers) {
+        List<Callable<T>> result = new ArrayList<>(tasks.size());
+        for (Callable<T> task : tasks) {
+            ManagedExecutorStatistics.Tracker tracker = this.statistics.submitted();
+            trackers.add(tracker);
+            result.add(this.track(task, tracker));
+        }
+        return result;
+    }
+
+    private Runnable track(Runnable task, ManagedExecutorStatistics.Tracker tracker) {
+        if (task == null) {
+            throw new NullPointerException();
+        }
+        Runnable contextualTask = (this.contextService != null) ? this.contextualize(task, Runnable.class) : task;
+        // Keep exposing the managed task listener and execution properties to the underlying executor
+        return (task instanceof ManagedTask) ? new TrackedManagedRunnable(contextualTask, tracker, (ManagedTask) task) : new TrackedRunnable(contextualTask, tracker);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Callable<T> track(Callable<T> task, ManagedExecutorStatistics.Tracker tracker) {
+        if (task == null) {
+            throw new NullPointerException();
+        }
+        Callable<T> contextualTask = (this.contextService != null) ? this.contextualize(task, Callable.class) : task;
+        return (task instanceof ManagedTask) ? new TrackedManagedCallable<>(contextualTask, tracker, (ManagedTask) task) : new TrackedCallable<>(contextualTask, tracker);
+    }
+
+    private <T> T contextualize(Object task, Class<T> taskClass) {
+        Map<String, String> executionProperties = (task instanceof ManagedTask) ? ((ManagedTask) task).getExecutionProperties() : null;
+        return this.contextService.createContextualProxy(task, executionProperties, taskClass);
+    }
+
+    private static class TrackedRunnable implements Runnable {
+        private final Runnable task;
+        private final ManagedExecutorStatistics.Tracker tracker;
+
+        TrackedRunnable(Runnable task, ManagedExecutorStatistics.Tracker tracker) {
+            this.task = task;
+            this.tracker = tracker;
+        }
+
+        @Override
+        public void run() {
+            if (this.tracker.started()) {
+                try {
+                    this.task.run();
+                } finally {
+                    this.tracker.completed();
+                }
+            }
+        }
+    }
+
+    private static class TrackedManagedRunnable extends TrackedRunnable implements ManagedTask {
+        private final ManagedTask managedTask;
+
+        TrackedManagedRunnable(Runnable task, ManagedExecutorStatistics.Tracker tracker, ManagedTask managedTask) {
+            super(task, tracker);
+            this.managedTask = managedTask;
+        }
+
+        @Override
+        public ManagedTaskListener getManagedTaskListener() {
+            return this.managedTask.getManagedTaskListener();
+        }
+
+        @Override
+        public Map<String, String> getExecutionProperties() {
+            return this.managedTask.getExecutionProperties();
+        }
+    }
+
+    private static class TrackedCallable<T> implements Callable<T> {
+        private final Callable<T> task;
+        private final ManagedExecutorStatistics.Tracker tracker;
+
+        TrackedCallable(Callable<T> task, ManagedExecutorStatistics.Tracker tracker) {
+            this.task = task;
+            this.tracker = tracker;
+        }
+
+        @Override
+        public T call() throws Exception {
+            if (!this.tracker.started()) {
+                return null;
+            }
+            try {
+                return this.task.call();
+            } finally {
+                this.tracker.completed();
+            }
+        }
+    }
+
+    private static class TrackedManagedCallable<T> extends TrackedCallable<T> implements ManagedTask {
+        private final ManagedTask managedTask;
+
+        TrackedManagedCallable(Callable<T> task, ManagedExecutorStatistics.Tracker tracker, ManagedTask managedTask) {
+            super(task, tracker);
+            this.managedTask = managedTask;
+        }
+
+        @Override
+        public ManagedTaskListener getManagedTaskListener() {
+            return this.managedTask.getManagedTaskListener();
+        }
+
+        @Override
+        public Map<String, String> getExecutionProperties() {
+            return this.managedTask.getExecutionProperties();
+        }
+    }
+
+    /**
+     * Submits tasks to the underlying executor, creating futures which record the cancellation of their task,
+     * and which notify the managed task listener of their task, if any.
+     */
+    private class TaskSubmitter extends AbstractExecutorService {
+
+        @Override
+        protected <T> RunnableFuture<T> newTaskFor(Runnable runnable, T value) {
+            if (!(runnable instanceof TrackedRunnable)) {
+                return super.newTaskFor(runnable, value);
+            }
+            ManagedExecutorStatistics.Tracker tracker = ((TrackedRunnable) runnable).tracker;
+            if (getManagedTaskListener(runnable) != null) {
+                return this.submitted(new ListenedFutureTask<>(Executors.callable(runnable, value), tracker, ((TrackedManagedRunnable) runnable).managedTask));
+            }
+            return new TrackedFutureTask<>(Executors.callable(runnable, value), tracker);
+        }
+
+        @Override
+        protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
+            if (!(callable instanceof TrackedCallable)) {
+                return super.newTaskFor(callable);
+            }
+            ManagedExecutorStatistics.Tracker tracker = ((TrackedCallable<T>) callable).tracker;
+            if (getManagedTaskListener(callable) != null) {
+                return this.submitted(new ListenedFutureTask<>(callable, tracker, ((TrackedManagedCallable<T>) callable).managedTask));
+            }
+            return new TrackedFutureTask<>(callable, tracker);
+        }
+
+        private <T> ListenedFutureTask<T> submitted(ListenedFutureTask<T> future) {
+            future.listener.taskSubmitted(future, TrackingManagedExecutorService.this, future.task);
+            return future;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            try {
+                TrackingManagedExecutorService.this.executor.execute(command);
+            } catch (RejectedExecutionException e) {
+                if (command instanceof ListenedFutureTask) {
+                    ((ListenedFutureTask<?>) command).aborted(e);
+                }
+                throw e;
+            }
+        }
+
+        @Override
+        public void shutdown() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static class TrackedFutureTask<T> extends FutureTask<T> {
+        private final ManagedExecutorStatistics.Tracker tracker;
+
+        TrackedFutureTask(Callable<T> callable, ManagedExecutorStatistics.Tracker tracker) {
+            super(callable);
+            this.tracker = tracker;
+        }
+
+        @Override
+        protected void done() {
+            if (this.isCancelled()) {
+                this.tracker.discarded();
+            }
+        }
+    }
+
+    /**
+     * Future of a managed task, which notifies the task's listener when the task is starting, aborted and done.
+     */
+    private class ListenedFutureTask<T> extends TrackedFutureTask<T> {
+        final ManagedTask task;
+        final ManagedTaskListener listener;
+        private volatile Throwable exception;
+
+        ListenedFutureTask(Callable<T> callable, ManagedExecutorStatistics.Tracker tracker, ManagedTask task) {
+            super(callable, tracker);
+            this.task = task;
+            this.listener = task.getManagedTaskListener();
+        }
+
+        @Override
+        public void run() {
+            if (!this.isDone()) {
+                this.listener.taskStarting(this, TrackingManagedExecutorService.this, this.task);
+            }
+            super.run();
+        }
+
+        @Override
+        protected void setException(Throwable exception) {
+            this.exception = exception;
+            super.setException(exception);
+        }
+
+        @Override
+        protected void done() {
+            super.done();
+            if (this.isCancelled()) {
+                this.aborted(new CancellationException());
+            } else {
+                this.listener.taskDone(this, TrackingManagedExecutorService.this, this.task, this.exception);
+            }
+        }
+
+        void aborted(Throwable exception) {
+            this.listener.taskAborted(this, TrackingManagedExecutorService.this, this.task, exception);
+            this.listener.taskDone(this, TrackingManagedExecutorService.this, this.task, exception);
+        }
+    }
+}
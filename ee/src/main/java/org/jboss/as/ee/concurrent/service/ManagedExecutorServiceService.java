@@ -24,9 +24,14 @@ package org.jboss.as.ee.concurrent.service;
 
 import org.glassfish.enterprise.concurrent.AbstractManagedExecutorService;
 import org.glassfish.enterprise.concurrent.ContextServiceImpl;
-import org.glassfish.enterprise.concurrent.ManagedExecutorServiceAdapter;
 import org.glassfish.enterprise.concurrent.ManagedExecutorServiceImpl;
 import org.glassfish.enterprise.concurrent.ManagedThreadFactoryImpl;
+import org.jboss.as.ee.concurrent.ManagedExecutorMetrics;
+import org.jboss.as.ee.concurrent.ManagedExecutorStatistics;
+import org.jboss.as.ee.concurrent.ManagedExecutorType;
+import org.jboss.as.ee.concurrent.ThreadPerTaskExecutor;
+import org.jboss.as.ee.concurrent.ThreadPoolManagedExecutorService;
+import org.jboss.as.ee.concurrent.TrackingManagedExecutorService;
 import org.jboss.as.ee.logging.EeLogger;
 import org.jboss.msc.inject.Injector;
 import org.jboss.msc.service.StartContext;
@@ -34,18 +39,34 @@ import org.jboss.msc.service.StartException;
 import org.jboss.msc.service.StopContext;
 import org.jboss.msc.value.InjectedValue;
 
+import javax.enterprise.concurrent.ManagedExecutorService;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Service responsible for creating, starting and stopping a ManagedExecutorServiceImpl.
+ * Service responsible for creating, starting and stopping a managed executor service, backed by an executor of the configured {@link ManagedExecutorType}:
+ * <ul>
+ * <li>{@link ManagedExecutorType#THREAD_POOL}: a {@link ThreadPoolManagedExecutorService}</li>
+ * <li>{@link ManagedExecutorType#WORK_STEALING}: a {@link ForkJoinPool}, whose parallelism is the core pool size, or the number of available processors if 0</li>
+ * <li>{@link ManagedExecutorType#THREAD_PER_TASK}: a {@link ThreadPerTaskExecutor}, limited to the max pool size</li>
+ * </ul>
  * <p/>
- * Note that the service's value is the executor's adapter, which does not allows lifecyle related invocations.
+ * Note that the service's value does not allows lifecyle related invocations. For the other types, it is a {@link TrackingManagedExecutorService}, which records the executor's statistics,
+ * and makes tasks contextual through the context service.
  *
  * @author Eduardo Martins
  */
-public class ManagedExecutorServiceService extends EEConcurrentAbstractService<ManagedExecutorServiceAdapter> {
+public class ManagedExecutorServiceService extends EEConcurrentAbstractService<ManagedExecutorService> {
 
-    private volatile ManagedExecutorServiceImpl executorService;
+    private volatile ExecutorService executorService;
+    private volatile ManagedThreadFactoryImpl createdThreadFactory;
+    private volatile ManagedExecutorService value;
+    private volatile ManagedExecutorMetrics metrics;
 
     private final String name;
     private final InjectedValue<ManagedThreadFactoryImpl> managedThreadFactoryInjectedValue;
@@ -59,6 +80,7 @@ public class ManagedExecutorServiceService extends EEConcurrentAbstractService<M
     private final int queueCapacity;
     private final InjectedValue<ContextServiceImpl> contextService = new InjectedValue<>();
     private final AbstractManagedExecutorService.RejectPolicy rejectPolicy;
+    private final ManagedExecutorType executorType;
 
     /**
      * @param name
@@ -72,9 +94,10 @@ public class ManagedExecutorServiceService extends EEConcurrentAbstractService<M
      * @param threadLifeTime
      * @param queueCapacity
      * @param rejectPolicy
+     * @param executorType
      * @see ManagedExecutorServiceImpl#ManagedExecutorServiceImpl(String, org.glassfish.enterprise.concurrent.ManagedThreadFactoryImpl, long, boolean, int, int, long, java.util.concurrent.TimeUnit, long, int, org.glassfish.enterprise.concurrent.ContextServiceImpl, org.glassfish.enterprise.concurrent.AbstractManagedExecutorService.RejectPolicy)
      */
-    public ManagedExecutorServiceService(String name, String jndiName, long hungTaskThreshold, boolean longRunningTasks, int corePoolSize, int maxPoolSize, long keepAliveTime, TimeUnit keepAliveTimeUnit, long threadLifeTime, int queueCapacity, AbstractManagedExecutorService.RejectPolicy rejectPolicy) {
+    public ManagedExecutorServiceService(String name, String jndiName, long hungTaskThreshold, boolean longRunningTasks, int corePoolSize, int maxPoolSize, long keepAliveTime, TimeUnit keepAliveTimeUnit, long threadLifeTime, int queueCapacity, AbstractManagedExecutorService.RejectPolicy rejectPolicy, ManagedExecutorType executorType) {
         super(jndiName);
         this.name = name;
         this.managedThreadFactoryInjectedValue = new InjectedValue<>();
@@ -87,36 +110,84 @@ public class ManagedExecutorServiceService extends EEConcurrentAbstractService<M
         this.threadLifeTime = threadLifeTime;
         this.queueCapacity = queueCapacity;
         this.rejectPolicy = rejectPolicy;
+        this.executorType = executorType;
     }
 
     @Override
     void startValue(StartContext context) throws StartException {
+        switch (executorType) {
+            case WORK_STEALING: {
+                final int parallelism = (corePoolSize > 0) ? Math.min(corePoolSize, MAX_PARALLELISM) : Runtime.getRuntime().availableProcessors();
+                // tasks are never joined, thus use FIFO scheduling of local tasks
+                executorService = new ForkJoinPool(parallelism, new WorkerThreadFactory("EE-ManagedExecutorService-" + name), null, true);
+                startTrackingValue();
+                break;
+            }
+            case THREAD_PER_TASK: {
+                executorService = new ThreadPerTaskExecutor(getManagedThreadFactory(), maxPoolSize, queueCapacity);
+                startTrackingValue();
+                break;
+            }
+            default: {
+                final ThreadPoolManagedExecutorService executorService = new ThreadPoolManagedExecutorService(name, getManagedThreadFactory(), hungTaskThreshold, longRunningTasks, corePoolSize, maxPoolSize, keepAliveTime, keepAliveTimeUnit, threadLifeTime, queueCapacity, contextService.getOptionalValue(), rejectPolicy);
+                this.executorService = executorService;
+                // the executor propagates the context, and notifies the managed task listeners, itself
+                metrics = executorService;
+                value = executorService.getAdapter();
+            }
+        }
+    }
+
+    private void startTrackingValue() {
+        final ManagedExecutorStatistics statistics = new ManagedExecutorStatistics(hungTaskThreshold);
+        // the context service is a mandatory dependency for these executor types
+        value = new TrackingManagedExecutorService(executorService, contextService.getValue(), statistics);
+        metrics = statistics;
+    }
+
+    private ManagedThreadFactoryImpl getManagedThreadFactory() {
         ManagedThreadFactoryImpl managedThreadFactory = managedThreadFactoryInjectedValue.getOptionalValue();
         if(managedThreadFactory == null) {
             // if not injected create one using normal thread priority
             final String threadFactoryName = "EE-ManagedExecutorService-"+name;
             managedThreadFactory = new ManagedThreadFactoryImpl(threadFactoryName, null, Thread.NORM_PRIORITY);
+            createdThreadFactory = managedThreadFactory;
         }
-        executorService = new ManagedExecutorServiceImpl(name, managedThreadFactory, hungTaskThreshold, longRunningTasks, corePoolSize, maxPoolSize, keepAliveTime, keepAliveTimeUnit, threadLifeTime, queueCapacity, contextService.getOptionalValue(), rejectPolicy);
+        return managedThreadFactory;
     }
 
     @Override
     void stopValue(StopContext context) {
         if (executorService != null) {
             executorService.shutdownNow();
-            if(managedThreadFactoryInjectedValue.getOptionalValue() == null) {
+            if(createdThreadFactory != null) {
                 // if not injected the thread factory was created on start, and now needs to stop
-                executorService.getManagedThreadFactory().stop();
+                createdThreadFactory.stop();
+                this.createdThreadFactory = null;
             }
             this.executorService = null;
+            this.value = null;
+            this.metrics = null;
         }
     }
 
-    public ManagedExecutorServiceAdapter getValue() throws IllegalStateException {
-        if (executorService == null) {
+    public ManagedExecutorService getValue() throws IllegalStateException {
+        final ManagedExecutorService value = this.value;
+        if (value == null) {
             throw EeLogger.ROOT_LOGGER.concurrentServiceValueUninitialized();
         }
-        return executorService.getAdapter();
+        return value;
+    }
+
+    /**
+     * @return the metrics of the executor's tasks
+     */
+    public ManagedExecutorMetrics getMetrics() throws IllegalStateException {
+        final ManagedExecutorMetrics metrics = this.metrics;
+        if (metrics == null) {
+            throw EeLogger.ROOT_LOGGER.concurrentServiceValueUninitialized();
+        }
+        return metrics;
     }
 
     public Injector<ManagedThreadFactoryImpl> getManagedThreadFactoryInjector() {
@@ -127,4 +198,39 @@ public class ManagedExecutorServiceService extends EEConcurrentAbstractService<M
         return contextService;
     }
 
+    // the maximum parallelism supported by a ForkJoinPool
+    private static final int MAX_PARALLELISM = 0x7fff;
+
+    /**
+     * Creates the worker threads of a work-stealing executor.
+     * Workers may be created by the threads of deployments submitting tasks, thus are created in a privileged block,
+     * without inheriting the context class loader of the submitter.
+     */
+    private static class WorkerThreadFactory implements ForkJoinPool.ForkJoinWorkerThreadFactory {
+        private final String namePrefix;
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        WorkerThreadFactory(String namePrefix) {
+            this.namePrefix = namePrefix;
+        }
+
+        @Override
+        public ForkJoinWorkerThread newThread(final ForkJoinPool pool) {
+            return AccessController.doPrivileged(new PrivilegedAction<ForkJoinWorkerThread>() {
+                @Override
+                public ForkJoinWorkerThread run() {
+                    final ForkJoinWorkerThread thread = new WorkerThread(pool);
+                    thread.setName(namePrefix + "-worker-" + threadCount.incrementAndGet());
+                    thread.setContextClassLoader(WorkerThreadFactory.class.getClassLoader());
+                    return thread;
+                }
+            });
+        }
+    }
+
+    private static class WorkerThread extends ForkJoinWorkerThread {
+        WorkerThread(ForkJoinPool pool) {
+            super(pool);
+        }
+    }
 }
@@ -33,6 +33,7 @@ import java.util.Set;
 import javax.xml.namespace.QName;
 import javax.xml.stream.Location;
 import javax.xml.stream.XMLStreamException;
+import org.jboss.as.controller.OperationFailedException;
 import org.jboss.as.ee.component.BindingConfiguration;
 import org.jboss.as.ee.component.ComponentConfiguration;
 import org.jboss.as.ee.component.ComponentInstance;
@@ -1078,4 +1079,16 @@ public interface EeLogger extends BasicLogger {
      */
     @Message(id = 109, value = "A class must not declare more than one AroundInvoke method. %s has %s methods annotated.")
     DeploymentUnitProcessingException aroundInvokeAnnotationUsedTooManyTimes(DotName className, int numberOfAnnotatedMethods);
+
+    @Message(id = 110, value = "Lifecycle operations are not allowed on a managed executor service.")
+    IllegalStateException managedExecutorServiceLifecycleOperationNotAllowed();
+
+    @Message(id = 111, value = "Attribute '%s' of a managed executor service of type %s must be greater than 0")
+    OperationFailedException managedExecutorServiceAttributeNotPositive(String attribute, String executorType);
+
+    @Message(id = 112, value = "A managed executor service of type %s requires attribute '%s'")
+    OperationFailedException managedExecutorServiceAttributeRequired(String executorType, String attribute);
+
+    @Message(id = 113, value = "Attribute '%s' is not supported by managed scheduled executor services, which always use a thread pool")
+    XMLStreamException managedScheduledExecutorServiceAttributeNotSupported(String attribute, @Param Location location);
 }
@@ -446,6 +446,9 @@ class EESubsystemParser20 implements XMLStreamConstants, XMLElementReader<List<M
                 case REJECT_POLICY:
                     ManagedExecutorServiceResourceDefinition.REJECT_POLICY_AD.parseAndSetParameter(value, addOperation, reader);
                     break;
+                case EXECUTOR_TYPE:
+                    ManagedExecutorServiceResourceDefinition.EXECUTOR_TYPE_AD.parseAndSetParameter(value, addOperation, reader);
+                    break;
                 default:
                     throw unexpectedAttribute(reader, i);
             }
@@ -517,6 +520,8 @@ class EESubsystemParser20 implements XMLStreamConstants, XMLElementReader<List<M
                 case REJECT_POLICY:
                     ManagedScheduledExecutorServiceResourceDefinition.REJECT_POLICY_AD.parseAndSetParameter(value, addOperation, reader);
                     break;
+                case EXECUTOR_TYPE:
+                    throw EeLogger.ROOT_LOGGER.managedScheduledExecutorServiceAttributeNotSupported(attribute.getLocalName(), reader.getLocation());
                 default:
                     throw unexpectedAttribute(reader, i);
             }
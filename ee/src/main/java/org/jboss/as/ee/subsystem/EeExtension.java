@@ -91,7 +91,7 @@ public class EeExtension implements Extension {
         // register submodels
         rootResource.registerSubModel(ContextServiceResourceDefinition.INSTANCE);
         rootResource.registerSubModel(ManagedThreadFactoryResourceDefinition.INSTANCE);
-        rootResource.registerSubModel(ManagedExecutorServiceResourceDefinition.INSTANCE);
+        rootResource.registerSubModel(new ManagedExecutorServiceResourceDefinition(context.isRuntimeOnlyRegistrationValid()));
         rootResource.registerSubModel(ManagedScheduledExecutorServiceResourceDefinition.INSTANCE);
         rootResource.registerSubModel(new DefaultBindingsResourceDefinition(new DefaultBindingsConfigurationProcessor()));
 
@@ -30,8 +30,10 @@ import org.jboss.as.controller.OperationFailedException;
 import org.jboss.as.controller.PathAddress;
 import org.jboss.as.controller.ServiceVerificationHandler;
 import org.jboss.as.controller.descriptions.ModelDescriptionConstants;
+import org.jboss.as.ee.concurrent.ManagedExecutorType;
 import org.jboss.as.ee.concurrent.service.ConcurrentServiceNames;
 import org.jboss.as.ee.concurrent.service.ManagedExecutorServiceService;
+import org.jboss.as.ee.logging.EeLogger;
 import org.jboss.dmr.ModelNode;
 import org.jboss.msc.service.ServiceBuilder;
 import org.jboss.msc.service.ServiceController;
@@ -58,20 +60,36 @@ public class ManagedExecutorServiceAdd extends AbstractAddStepHandler {
         final long hungTaskThreshold = ManagedExecutorServiceResourceDefinition.HUNG_TASK_THRESHOLD_AD.resolveModelAttribute(context, model).asLong();
         final boolean longRunningTasks = ManagedExecutorServiceResourceDefinition.LONG_RUNNING_TASKS_AD.resolveModelAttribute(context, model).asBoolean();
         final int coreThreads = ManagedExecutorServiceResourceDefinition.CORE_THREADS_AD.resolveModelAttribute(context, model).asInt();
-        final int maxThreads = ManagedExecutorServiceResourceDefinition.MAX_THREADS_AD.resolveModelAttribute(context, model).asInt();
         final long keepAliveTime = ManagedExecutorServiceResourceDefinition.KEEPALIVE_TIME_AD.resolveModelAttribute(context, model).asLong();
         final TimeUnit keepAliveTimeUnit = TimeUnit.MILLISECONDS;
         final long threadLifeTime = 0L;
         final int queueLength = ManagedExecutorServiceResourceDefinition.QUEUE_LENGTH_AD.resolveModelAttribute(context, model).asInt();
         final AbstractManagedExecutorService.RejectPolicy rejectPolicy = AbstractManagedExecutorService.RejectPolicy.valueOf(ManagedExecutorServiceResourceDefinition.REJECT_POLICY_AD.resolveModelAttribute(context, model).asString());
 
-        final ManagedExecutorServiceService service = new ManagedExecutorServiceService(name, jndiName, hungTaskThreshold, longRunningTasks, coreThreads, maxThreads, keepAliveTime, keepAliveTimeUnit, threadLifeTime, queueLength, rejectPolicy);
+        final ManagedExecutorType executorType = ManagedExecutorType.valueOf(ManagedExecutorServiceResourceDefinition.EXECUTOR_TYPE_AD.resolveModelAttribute(context, model).asString());
+
+        final int maxThreads;
+        if (executorType == ManagedExecutorType.THREAD_PER_TASK) {
+            // the thread pool's unbounded default would not limit the number of threads
+            maxThreads = model.hasDefined(ManagedExecutorServiceResourceDefinition.MAX_THREADS) ? ManagedExecutorServiceResourceDefinition.MAX_THREADS_AD.resolveModelAttribute(context, model).asInt() : ManagedExecutorServiceResourceDefinition.THREAD_PER_TASK_DEFAULT_MAX_THREADS;
+            if (maxThreads <= 0) {
+                throw EeLogger.ROOT_LOGGER.managedExecutorServiceAttributeNotPositive(ManagedExecutorServiceResourceDefinition.MAX_THREADS, executorType.toString());
+            }
+        } else {
+            maxThreads = ManagedExecutorServiceResourceDefinition.MAX_THREADS_AD.resolveModelAttribute(context, model).asInt();
+        }
+
+        final ManagedExecutorServiceService service = new ManagedExecutorServiceService(name, jndiName, hungTaskThreshold, longRunningTasks, coreThreads, maxThreads, keepAliveTime, keepAliveTimeUnit, threadLifeTime, queueLength, rejectPolicy, executorType);
         final ServiceBuilder serviceBuilder = context.getServiceTarget().addService(ConcurrentServiceNames.getManagedExecutorServiceServiceName(name), service);
 
         String contextService = null;
         if(model.hasDefined(ManagedExecutorServiceResourceDefinition.CONTEXT_SERVICE)) {
             contextService = ManagedExecutorServiceResourceDefinition.CONTEXT_SERVICE_AD.resolveModelAttribute(context, model).asString();
         }
+        if (contextService == null && executorType != ManagedExecutorType.THREAD_POOL) {
+            // unlike the thread pool, these executor types rely on the context service to propagate the submitter's context
+            throw EeLogger.ROOT_LOGGER.managedExecutorServiceAttributeRequired(executorType.toString(), ManagedExecutorServiceResourceDefinition.CONTEXT_SERVICE);
+        }
         if (contextService != null) {
             serviceBuilder.addDependency(ConcurrentServiceNames.getContextServiceServiceName(contextService), ContextServiceImpl.class, service.getContextServiceInjector());
         }
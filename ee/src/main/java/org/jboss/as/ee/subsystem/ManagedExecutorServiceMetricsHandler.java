@@ -0,0 +1,113 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ee.subsystem;
+
+import org.jboss.as.controller.AbstractRuntimeOnlyHandler;
+import org.jboss.as.controller.OperationContext;
+import org.jboss.as.controller.OperationFailedException;
+import org.jboss.as.controller.PathAddress;
+import org.jboss.as.controller.SimpleAttributeDefinition;
+import org.jboss.as.controller.SimpleAttributeDefinitionBuilder;
+import org.jboss.as.controller.client.helpers.MeasurementUnit;
+import org.jboss.as.controller.descriptions.ModelDescriptionConstants;
+import org.jboss.as.controller.registry.ManagementResourceRegistration;
+import org.jboss.as.ee.concurrent.ManagedExecutorMetrics;
+import org.jboss.as.ee.concurrent.service.ConcurrentServiceNames;
+import org.jboss.as.ee.concurrent.service.ManagedExecutorServiceService;
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
+import org.jboss.msc.service.ServiceController;
+
+/**
+ * Handler for the task metrics of a managed executor service.
+ */
+public class ManagedExecutorServiceMetricsHandler extends AbstractRuntimeOnlyHandler {
+
+    public static final String ACTIVE_TASK_COUNT = "active-task-count";
+    public static final String QUEUED_TASK_COUNT = "queued-task-count";
+    public static final String COMPLETED_TASK_COUNT = "completed-task-count";
+    public static final String AVERAGE_TASK_LATENCY = "average-task-latency";
+    public static final String HUNG_TASK_COUNT = "hung-task-count";
+
+    static final SimpleAttributeDefinition ACTIVE_TASK_COUNT_AD = new SimpleAttributeDefinitionBuilder(ACTIVE_TASK_COUNT, ModelType.INT, true)
+            .setStorageRuntime()
+            .build();
+
+    static final SimpleAttributeDefinition QUEUED_TASK_COUNT_AD = new SimpleAttributeDefinitionBuilder(QUEUED_TASK_COUNT, ModelType.INT, true)
+            .setStorageRuntime()
+            .build();
+
+    static final SimpleAttributeDefinition COMPLETED_TASK_COUNT_AD = new SimpleAttributeDefinitionBuilder(COMPLETED_TASK_COUNT, ModelType.LONG, true)
+            .setStorageRuntime()
+            .build();
+
+    static final SimpleAttributeDefinition AVERAGE_TASK_LATENCY_AD = new SimpleAttributeDefinitionBuilder(AVERAGE_TASK_LATENCY, ModelType.LONG, true)
+            .setMeasurementUnit(MeasurementUnit.MILLISECONDS)
+            .setStorageRuntime()
+            .build();
+
+    static final SimpleAttributeDefinition HUNG_TASK_COUNT_AD = new SimpleAttributeDefinitionBuilder(HUNG_TASK_COUNT, ModelType.INT, true)
+            .setStorageRuntime()
+            .build();
+
+    static final SimpleAttributeDefinition[] METRICS = {ACTIVE_TASK_COUNT_AD, QUEUED_TASK_COUNT_AD, COMPLETED_TASK_COUNT_AD, AVERAGE_TASK_LATENCY_AD, HUNG_TASK_COUNT_AD};
+
+    public static final ManagedExecutorServiceMetricsHandler INSTANCE = new ManagedExecutorServiceMetricsHandler();
+
+    private ManagedExecutorServiceMetricsHandler() {
+    }
+
+    @Override
+    protected void executeRuntimeStep(OperationContext context, ModelNode operation) throws OperationFailedException {
+        final String name = PathAddress.pathAddress(operation.get(ModelDescriptionConstants.OP_ADDR)).getLastElement().getValue();
+        final ServiceController<?> controller = context.getServiceRegistry(false).getService(ConcurrentServiceNames.getManagedExecutorServiceServiceName(name));
+        if (controller != null && controller.getState() == ServiceController.State.UP) {
+            final ManagedExecutorMetrics metrics = ((ManagedExecutorServiceService) controller.getService()).getMetrics();
+            final String metric = operation.require(ModelDescriptionConstants.NAME).asString();
+            if (ACTIVE_TASK_COUNT.equals(metric)) {
+                context.getResult().set(metrics.getActiveTaskCount());
+            } else if (QUEUED_TASK_COUNT.equals(metric)) {
+                context.getResult().set(metrics.getQueuedTaskCount());
+            } else if (COMPLETED_TASK_COUNT.equals(metric)) {
+                context.getResult().set(metrics.getCompletedTaskCount());
+            } else if (AVERAGE_TASK_LATENCY.equals(metric)) {
+                final long latency = metrics.getAverageTaskLatency();
+                // left undefined if not recorded by the executor type
+                if (latency >= 0) {
+                    context.getResult().set(latency);
+                }
+            } else if (HUNG_TASK_COUNT.equals(metric)) {
+                final int count = metrics.getHungTaskCount();
+                if (count >= 0) {
+                    context.getResult().set(count);
+                }
+            }
+        }
+        context.stepCompleted();
+    }
+
+    void registerMetrics(final ManagementResourceRegistration resourceRegistration) {
+        for (SimpleAttributeDefinition metric : METRICS) {
+            resourceRegistration.registerMetric(metric, this);
+        }
+    }
+}
@@ -22,6 +22,7 @@
 package org.jboss.as.ee.subsystem;
 
 import org.glassfish.enterprise.concurrent.AbstractManagedExecutorService;
+import org.jboss.as.ee.concurrent.ManagedExecutorType;
 import org.jboss.as.controller.AttributeDefinition;
 import org.jboss.as.controller.OperationStepHandler;
 import org.jboss.as.controller.PathElement;
@@ -53,6 +54,12 @@ public class ManagedExecutorServiceResourceDefinition extends SimpleResourceDefi
     public static final String KEEPALIVE_TIME = "keepalive-time";
     public static final String QUEUE_LENGTH = "queue-length";
     public static final String REJECT_POLICY = "reject-policy";
+    public static final String EXECUTOR_TYPE = "executor-type";
+
+    /**
+     * The default of {@link #MAX_THREADS} for the {@link ManagedExecutorType#THREAD_PER_TASK} type, which has no idle threads to bound concurrency.
+     */
+    public static final int THREAD_PER_TASK_DEFAULT_MAX_THREADS = 256;
 
     public static final SimpleAttributeDefinition JNDI_NAME_AD =
             new SimpleAttributeDefinitionBuilder(JNDI_NAME, ModelType.STRING, false)
@@ -128,13 +135,21 @@ public class ManagedExecutorServiceResourceDefinition extends SimpleResourceDefi
                     .setValidator(EnumValidator.create(AbstractManagedExecutorService.RejectPolicy.class, true, true))
                     .build();
 
+    public static final SimpleAttributeDefinition EXECUTOR_TYPE_AD =
+            new SimpleAttributeDefinitionBuilder(EXECUTOR_TYPE, ModelType.STRING, true)
+                    .setAllowExpression(true)
+                    .setFlags(AttributeAccess.Flag.RESTART_RESOURCE_SERVICES)
+                    .setDefaultValue(new ModelNode(ManagedExecutorType.THREAD_POOL.toString()))
+                    .setValidator(EnumValidator.create(ManagedExecutorType.class, true, true))
+                    .build();
 
-    static final SimpleAttributeDefinition[] ATTRIBUTES = {JNDI_NAME_AD, CONTEXT_SERVICE_AD, THREAD_FACTORY_AD, HUNG_TASK_THRESHOLD_AD, LONG_RUNNING_TASKS_AD, CORE_THREADS_AD, MAX_THREADS_AD, KEEPALIVE_TIME_AD, QUEUE_LENGTH_AD, REJECT_POLICY_AD};
+    static final SimpleAttributeDefinition[] ATTRIBUTES = {JNDI_NAME_AD, CONTEXT_SERVICE_AD, THREAD_FACTORY_AD, HUNG_TASK_THRESHOLD_AD, LONG_RUNNING_TASKS_AD, CORE_THREADS_AD, MAX_THREADS_AD, KEEPALIVE_TIME_AD, QUEUE_LENGTH_AD, REJECT_POLICY_AD, EXECUTOR_TYPE_AD};
 
-    public static final ManagedExecutorServiceResourceDefinition INSTANCE = new ManagedExecutorServiceResourceDefinition();
+    private final boolean registerRuntimeOnly;
 
-    private ManagedExecutorServiceResourceDefinition() {
+    ManagedExecutorServiceResourceDefinition(boolean registerRuntimeOnly) {
         super(PathElement.pathElement(EESubsystemModel.MANAGED_EXECUTOR_SERVICE), EeExtension.getResourceDescriptionResolver(EESubsystemModel.MANAGED_EXECUTOR_SERVICE), ManagedExecutorServiceAdd.INSTANCE, ManagedExecutorServiceRemove.INSTANCE);
+        this.registerRuntimeOnly = registerRuntimeOnly;
     }
 
     @Override
@@ -143,5 +158,8 @@ public class ManagedExecutorServiceResourceDefinition extends SimpleResourceDefi
         for (AttributeDefinition attr : ATTRIBUTES) {
             resourceRegistration.registerReadWriteAttribute(attr, null, writeHandler);
         }
+        if (registerRuntimeOnly) {
+            ManagedExecutorServiceMetricsHandler.INSTANCE.registerMetrics(resourceRegistration);
+        }
     }
 }
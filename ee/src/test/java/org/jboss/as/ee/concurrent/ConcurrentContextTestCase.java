@@ -0,0 +1,138 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ee.concurrent;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import javax.enterprise.concurrent.ContextService;
+
+import org.jboss.as.ee.concurrent.handle.ContextHandleFactory;
+import org.jboss.as.ee.concurrent.handle.InvariantContextHandleFactory;
+import org.jboss.as.ee.concurrent.handle.NullContextHandle;
+import org.jboss.as.ee.concurrent.handle.ResetContextHandle;
+import org.jboss.as.ee.concurrent.handle.SetupContextHandle;
+import org.junit.Test;
+
+public class ConcurrentContextTestCase {
+
+    private final List<String> events = new ArrayList<>();
+
+    @Test
+    public void testChain() {
+        final ConcurrentContext context = new ConcurrentContext();
+        final TestContextHandleFactory capturing = new TestContextHandleFactory("capturing", 200, false);
+        final TestContextHandleFactory invariant = new InvariantTestContextHandleFactory("invariant", 100);
+        final TestContextHandleFactory skipped = new TestContextHandleFactory("skipped", 300, true);
+        context.addFactory(capturing);
+        context.addFactory(skipped);
+        context.addFactory(invariant);
+        // the invariant handle is saved once, when the chain is built
+        final int invariantSaves = invariant.saves;
+
+        for (int i = 0; i < 3; i++) {
+            events.clear();
+            final ResetContextHandle reset = context.saveContext(null, null).setup();
+            assertEquals(context, ConcurrentContext.current());
+            reset.reset();
+            assertEquals(Arrays.asList("setup invariant", "setup capturing", "reset capturing", "reset invariant"), events);
+        }
+        assertEquals(invariantSaves, invariant.saves);
+        assertEquals(3, capturing.saves);
+        assertEquals(3, skipped.saves);
+    }
+
+    private class TestContextHandleFactory implements ContextHandleFactory {
+        private final String name;
+        private final int priority;
+        private final boolean skip;
+        int saves;
+
+        TestContextHandleFactory(String name, int priority, boolean skip) {
+            this.name = name;
+            this.priority = priority;
+            this.skip = skip;
+        }
+
+        @Override
+        public SetupContextHandle saveContext(ContextService contextService, Map<String, String> contextObjectProperties) {
+            saves++;
+            if (skip) {
+                return NullContextHandle.INSTANCE;
+            }
+            return new SetupContextHandle() {
+                @Override
+                public ResetContextHandle setup() {
+                    events.add("setup " + name);
+                    return new ResetContextHandle() {
+                        @Override
+                        public void reset() {
+                            events.add("reset " + name);
+                        }
+
+                        @Override
+                        public String getFactoryName() {
+                            return name;
+                        }
+                    };
+                }
+
+                @Override
+                public String getFactoryName() {
+                    return name;
+                }
+            };
+        }
+
+        @Override
+        public int getChainPriority() {
+            return priority;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public void writeSetupContextHandle(SetupContextHandle contextHandle, ObjectOutputStream out) throws IOException {
+        }
+
+        @Override
+        public SetupContextHandle readSetupContextHandle(ObjectInputStream in) throws IOException, ClassNotFoundException {
+            return saveContext(null, null);
+        }
+    }
+
+    private class InvariantTestContextHandleFactory extends TestContextHandleFactory implements InvariantContextHandleFactory {
+        InvariantTestContextHandleFactory(String name, int priority) {
+            super(name, priority, false);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ee.concurrent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class ThreadPerTaskExecutorTestCase {
+
+    @Test
+    public void testConcurrencyLimit() throws Exception {
+        final ThreadPerTaskExecutor executor = new ThreadPerTaskExecutor(Executors.defaultThreadFactory(), 2, 10);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(2);
+        final CountDownLatch done = new CountDownLatch(10);
+        try {
+            for (int i = 0; i < 10; i++) {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        int count = running.incrementAndGet();
+                        int max = maxRunning.get();
+                        while (count > max && !maxRunning.compareAndSet(max, count)) {
+                            max = maxRunning.get();
+                        }
+                        started.countDown();
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        } finally {
+                            running.decrementAndGet();
+                            done.countDown();
+                        }
+                    }
+                });
+            }
+            assertEquals(2, executor.getThreadCount());
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            release.countDown();
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            assertEquals(2, maxRunning.get());
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(0, executor.getThreadCount());
+    }
+
+    @Test
+    public void testRejection() throws Exception {
+        final ThreadPerTaskExecutor executor = new ThreadPerTaskExecutor(Executors.defaultThreadFactory(), 1, 1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        try {
+            executor.execute(task);
+            executor.execute(task);
+            try {
+                executor.execute(task);
+                fail("Task should have been rejected, since the thread limit is reached and the queue is full");
+            } catch (RejectedExecutionException e) {
+                // expected
+            }
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        try {
+            executor.execute(task);
+            fail("Task should have been rejected, since the executor is shut down");
+        } catch (RejectedExecutionException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testShutdownNow() throws Exception {
+        final ThreadPerTaskExecutor executor = new ThreadPerTaskExecutor(Executors.defaultThreadFactory(), 1, Integer.MAX_VALUE);
+        final CountDownLatch started = new CountDownLatch(1);
+        final Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    new CountDownLatch(1).await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        executor.execute(task);
+        executor.execute(task);
+        executor.execute(task);
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        final List<Runnable> pending = executor.shutdownNow();
+        assertEquals(2, pending.size());
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertTrue(executor.isTerminated());
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ee.concurrent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.enterprise.concurrent.ManagedExecutorService;
+import javax.enterprise.concurrent.ManagedTask;
+import javax.enterprise.concurrent.ManagedTaskListener;
+
+import org.junit.Test;
+
+public class TrackingManagedExecutorServiceTestCase {
+
+    @Test
+    public void testStatistics() throws Exception {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        final ManagedExecutorStatistics statistics = new ManagedExecutorStatistics(1L);
+        final TrackingManagedExecutorService service = new TrackingManagedExecutorService(executor, null, statistics);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        try {
+            final Future<String> running = service.submit(new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    started.countDown();
+                    release.await();
+                    return "done";
+                }
+            });
+            final Future<?> queued = service.submit(new Runnable() {
+                @Override
+                public void run() {
+                }
+            });
+            final Future<?> cancelled = service.submit(new Runnable() {
+                @Override
+                public void run() {
+                }
+            });
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            assertEquals(1, statistics.getActiveTaskCount());
+            assertEquals(2, statistics.getQueuedTaskCount());
+
+            assertTrue(cancelled.cancel(false));
+            assertEquals(1, statistics.getQueuedTaskCount());
+
+            Thread.sleep(10);
+            // the running task exceeds the 1ms hung task threshold
+            assertEquals(1, statistics.getHungTaskCount());
+
+            release.countDown();
+            assertEquals("done", running.get(10, TimeUnit.SECONDS));
+            queued.get(10, TimeUnit.SECONDS);
+            assertEquals(0, statistics.getActiveTaskCount());
+            assertEquals(0, statistics.getQueuedTaskCount());
+            assertEquals(2, statistics.getCompletedTaskCount());
+            assertEquals(0, statistics.getHungTaskCount());
+            assertTrue(statistics.getAverageTaskLatency() >= 0);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testManagedTaskListener() throws Exception {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        final TrackingManagedExecutorService service = new TrackingManagedExecutorService(executor, null, new ManagedExecutorStatistics(0L));
+        final CountDownLatch release = new CountDownLatch(1);
+        final RecordingListener listener = new RecordingListener();
+        final Future<String> running;
+        final Future<String> cancelled;
+        final Future<String> failed;
+        try {
+            running = service.submit(new ListenedTask(listener) {
+                @Override
+                public String call() throws Exception {
+                    release.await();
+                    return "done";
+                }
+            });
+            cancelled = service.submit(new ListenedTask(listener) {
+                @Override
+                public String call() {
+                    return "cancelled";
+                }
+            });
+            failed = service.submit(new ListenedTask(listener) {
+                @Override
+                public String call() {
+                    throw new IllegalStateException();
+                }
+            });
+            assertTrue(cancelled.cancel(false));
+            release.countDown();
+            assertEquals("done", running.get(10, TimeUnit.SECONDS));
+            try {
+                failed.get(10, TimeUnit.SECONDS);
+                fail("Task should have failed");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IllegalStateException);
+            }
+            // Wait for the done notifications, which may follow the completion of the futures
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(9, listener.events.size());
+        for (Object[] event : listener.events) {
+            assertSame(service, event[2]);
+        }
+        assertEquals(Arrays.asList("submitted", "starting", "done"), listener.getEvents(running));
+        assertEquals(null, listener.getException(running, "done"));
+        assertEquals(Arrays.asList("submitted", "aborted", "done"), listener.getEvents(cancelled));
+        assertTrue(listener.getException(cancelled, "aborted") instanceof CancellationException);
+        assertEquals(Arrays.asList("submitted", "starting", "done"), listener.getEvents(failed));
+        assertTrue(listener.getException(failed, "done") instanceof IllegalStateException);
+    }
+
+    @Test
+    public void testLifecycleNotAllowed() {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        final TrackingManagedExecutorService service = new TrackingManagedExecutorService(executor, null, new ManagedExecutorStatistics(0L));
+        try {
+            service.shutdown();
+            fail("Lifecycle operations should not be allowed");
+        } catch (IllegalStateException e) {
+            // expected
+            assertFalse(executor.isShutdown());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    abstract static class ListenedTask implements Callable<String>, ManagedTask {
+        private final ManagedTaskListener listener;
+
+        ListenedTask(ManagedTaskListener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public ManagedTaskListener getManagedTaskListener() {
+            return this.listener;
+        }
+
+        @Override
+        public Map<String, String> getExecutionProperties() {
+            return null;
+        }
+    }
+
+    static class RecordingListener implements ManagedTaskListener {
+        final List<Object[]> events = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void taskSubmitted(Future<?> future, ManagedExecutorService executor, Object task) {
+            this.events.add(new Object[] { "submitted", future, executor, null });
+        }
+
+        @Override
+        public void taskAborted(Future<?> future, ManagedExecutorService executor, Object task, Throwable exception) {
+            this.events.add(new Object[] { "aborted", future, executor, exception });
+        }
+
+        @Override
+        public void taskDone(Future<?> future, ManagedExecutorService executor, Object task, Throwable exception) {
+            this.events.add(new Object[] { "done", future, executor, exception });
+        }
+
+        @Override
+        public void taskStarting(Future<?> future, ManagedExecutorService executor, Object task) {
+            this.events.add(new Object[] { "starting", future, executor, null });
+        }
+
+        List<String> getEvents(Future<?> future) {
+            List<String> result = new ArrayList<>();
+            for (Object[] event : this.events) {
+                if (event[1] == future) {
+                    result.add((String) event[0]);
+                }
+            }
+            return result;
+        }
+
+        Object getException(Future<?> future, String name) {
+            for (Object[] event : this.events) {
+                if ((event[1] == future) && event[0].equals(name)) {
+                    return event[3];
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -31,6 +31,8 @@ import static org.jboss.as.model.test.FailedOperationTransformationConfig.REJECT
 import java.io.IOException;
 import java.util.List;
 
+import javax.xml.stream.XMLStreamException;
+
 import org.jboss.as.controller.ModelVersion;
 import org.jboss.as.controller.PathAddress;
 import org.jboss.as.controller.PathElement;
@@ -64,6 +66,13 @@ public class EeSubsystemTestCase extends AbstractSubsystemBaseTest {
         return readResource("subsystem.xml");
     }
 
+    @Test(expected = XMLStreamException.class)
+    public void testScheduledExecutorTypeRejected() throws Exception {
+        parse("<subsystem xmlns=\"urn:jboss:domain:ee:3.0\"><concurrent><managed-scheduled-executor-services>" +
+                "<managed-scheduled-executor-service name=\"name\" jndi-name=\"java:jboss/ee/concurrency/scheduler/name\" core-threads=\"1\" executor-type=\"THREAD_PER_TASK\"/>" +
+                "</managed-scheduled-executor-services></concurrent></subsystem>");
+    }
+
 
     @Test
     public void testTransformers712() throws Exception {
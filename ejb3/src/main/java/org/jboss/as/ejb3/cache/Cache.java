@@ -95,4 +95,10 @@ public interface Cache<K, V extends Identifiable<K>> extends AffinitySupport<K>,
     int getPassivatedCount();
 
     int getTotalSize();
+
+    long getReplicationCount();
+
+    long getReplicatedBytes();
+
+    long getSkippedReplicationCount();
 }
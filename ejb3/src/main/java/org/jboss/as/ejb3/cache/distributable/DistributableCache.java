@@ -189,4 +189,19 @@ public class DistributableCache<K, V extends Identifiable<K> & Contextual<Batch>
     public int getTotalSize() {
         return this.manager.getActiveCount() + this.manager.getPassiveCount();
     }
+
+    @Override
+    public long getReplicationCount() {
+        return this.manager.getReplicationCount();
+    }
+
+    @Override
+    public long getReplicatedBytes() {
+        return this.manager.getReplicatedBytes();
+    }
+
+    @Override
+    public long getSkippedReplicationCount() {
+        return this.manager.getSkippedReplicationCount();
+    }
 }
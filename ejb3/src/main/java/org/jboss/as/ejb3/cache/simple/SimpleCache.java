@@ -188,6 +188,21 @@ public class SimpleCache<K, V extends Identifiable<K>> implements Cache<K, V> {
         return this.getCacheSize();
     }
 
+    @Override
+    public long getReplicationCount() {
+        return 0;
+    }
+
+    @Override
+    public long getReplicatedBytes() {
+        return 0;
+    }
+
+    @Override
+    public long getSkippedReplicationCount() {
+        return 0;
+    }
+
     class RemoveTask implements Runnable {
         private final K key;
 
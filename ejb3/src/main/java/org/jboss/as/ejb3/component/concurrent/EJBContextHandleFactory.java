@@ -23,6 +23,7 @@ package org.jboss.as.ejb3.component.concurrent;
 
 import org.jboss.as.ee.component.interceptors.InvocationType;
 import org.jboss.as.ee.concurrent.handle.ContextHandleFactory;
+import org.jboss.as.ee.concurrent.handle.NullContextHandle;
 import org.jboss.as.ee.concurrent.handle.ResetContextHandle;
 import org.jboss.as.ee.concurrent.handle.SetupContextHandle;
 import org.jboss.as.ejb3.context.CurrentInvocationContext;
@@ -49,7 +50,8 @@ public class EJBContextHandleFactory implements ContextHandleFactory {
 
     @Override
     public SetupContextHandle saveContext(ContextService contextService, Map<String, String> contextObjectProperties) {
-        return new EJBContextHandle();
+        // nothing to capture if not invoked in the scope of an EJB invocation
+        return CurrentInvocationContext.get() != null ? new EJBContextHandle() : NullContextHandle.INSTANCE;
     }
 
     @Override
@@ -22,17 +22,24 @@
 package org.jboss.as.ejb3.component.invocationmetrics;
 
 import java.lang.reflect.Method;
-import java.util.AbstractMap;
-import java.util.AbstractSet;
-import java.util.Iterator;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.jboss.as.ejb3.util.LatencyHistogram;
 
 /**
+ * Collects the invocation statistics of a component.
+ * <p/>
+ * The counters are striped by thread, so recording an invocation neither allocates nor retries on contention.
+ * Reading the counters sums all stripes, which means a snapshot may be off by the invocations finishing while it
+ * is taken.
+ *
  * @author <a href="mailto:cdewolf@redhat.com">Carlo de Wolf</a>
  */
 public class InvocationMetrics {
@@ -60,38 +67,47 @@ public class InvocationMetrics {
         }
     }
 
-    private final AtomicReference<Values> values = new AtomicReference<Values>(new Values(0, 0, 0));
+    private static final int STRIPES;
+
+    static {
+        int stripes = 1;
+        while (stripes < Runtime.getRuntime().availableProcessors() && stripes < 64) {
+            stripes <<= 1;
+        }
+        STRIPES = stripes;
+    }
+
+    private final Counters values = new Counters(STRIPES);
+    private final LatencyHistogram executionTimes = new LatencyHistogram(STRIPES);
     private final AtomicLong concurrent = new AtomicLong(0);
     private final AtomicLong peakConcurrent = new AtomicLong(0);
 
-    private final ConcurrentMap<String, AtomicReference<Values>> methods = new ConcurrentHashMap<String, AtomicReference<Values>>();
+    private final ConcurrentMap<Method, MethodCounters> methods = new ConcurrentHashMap<Method, MethodCounters>();
 
+    /**
+     * Records a finished invocation.
+     *
+     * @param method                  the invoked method
+     * @param invocationWaitTime      the time the invocation waited before being executed, in nanoseconds
+     * @param invocationExecutionTime the execution time of the invocation, in nanoseconds
+     */
     void finishInvocation(final Method method, final long invocationWaitTime, final long invocationExecutionTime) {
         concurrent.decrementAndGet();
-        for(;;) {
-            final Values oldv = values.get();
-            final Values newv = new Values(oldv.invocations + 1, oldv.waitTime + invocationWaitTime, oldv.executionTime + invocationExecutionTime);
-            if (values.compareAndSet(oldv, newv))
-                break;
-        }
-        final AtomicReference<Values> methodValues = ref(methods, method.getName());
-        for (;;) {
-            final Values oldv = methodValues.get();
-            final Values newv = new Values(oldv.invocations + 1, oldv.waitTime + invocationWaitTime, oldv.executionTime + invocationExecutionTime);
-            if (methodValues.compareAndSet(oldv, newv))
-                break;
+        final int stripe = stripe();
+        values.add(stripe, invocationWaitTime, invocationExecutionTime);
+        executionTimes.record(stripe, invocationExecutionTime);
+        MethodCounters methodValues = methods.get(method);
+        if (methodValues == null) {
+            methodValues = new MethodCounters(method);
+            final MethodCounters previous = methods.putIfAbsent(method, methodValues);
+            if (previous != null)
+                methodValues = previous;
         }
+        methodValues.add(stripe, invocationWaitTime, invocationExecutionTime);
     }
 
-    private static AtomicReference<Values> ref(final ConcurrentMap<String, AtomicReference<Values>> map, final String key) {
-        AtomicReference<Values> ref = map.get(key);
-        if (ref == null) {
-            ref = new AtomicReference<Values>(new Values(0, 0, 0));
-            final AtomicReference<Values> prevRef = map.putIfAbsent(key, ref);
-            if (prevRef != null)
-                ref = prevRef;
-        }
-        return ref;
+    private static int stripe() {
+        return (int) Thread.currentThread().getId() & (STRIPES - 1);
     }
 
     public long getConcurrent() {
@@ -99,62 +115,33 @@ public class InvocationMetrics {
     }
 
     public long getExecutionTime() {
-        return values.get().executionTime;
+        return values.getValues().executionTime;
+    }
+
+    /**
+     * Returns the distribution of the execution times, see {@link LatencyHistogram#getBucketBounds(TimeUnit)} for
+     * the buckets.
+     */
+    public long[] getExecutionTimeHistogram() {
+        return executionTimes.getCounts();
     }
 
     public long getInvocations() {
-        return values.get().invocations;
+        return values.getValues().invocations;
     }
 
+    /**
+     * Returns a snapshot of the statistics of each invoked method, keyed by the method signature.
+     * The statistics of distinct methods sharing a signature, e.g. declared by different views, are summed.
+     */
     public Map<String, Values> getMethods() {
-        return new AbstractMap<String, Values>() {
-            @Override
-            public Set<Entry<String, Values>> entrySet() {
-                return new AbstractSet<Entry<String, Values>>() {
-                    @Override
-                    public Iterator<Entry<String, Values>> iterator() {
-                        final Iterator<Entry<String, AtomicReference<Values>>> delegate = methods.entrySet().iterator();
-                        return new Iterator<Entry<String, Values>>() {
-                            @Override
-                            public boolean hasNext() {
-                                return delegate.hasNext();
-                            }
-
-                            @Override
-                            public Entry<String, Values> next() {
-                                final Entry<String, AtomicReference<Values>> next = delegate.next();
-                                return new Entry<String, Values>() {
-                                    @Override
-                                    public String getKey() {
-                                        return next.getKey();
-                                    }
-
-                                    @Override
-                                    public Values getValue() {
-                                        return next.getValue().get();
-                                    }
-
-                                    @Override
-                                    public Values setValue(final Values value) {
-                                        throw new UnsupportedOperationException("NYI");
-                                    }
-                                };
-                            }
-
-                            @Override
-                            public void remove() {
-                                throw new UnsupportedOperationException("NYI");
-                            }
-                        };
-                    }
-
-                    @Override
-                    public int size() {
-                        return methods.size();
-                    }
-                };
-            }
-        };
+        final Map<String, Values> result = new LinkedHashMap<String, Values>();
+        for (MethodCounters counters : methods.values()) {
+            final Values values = counters.getValues();
+            final Values previous = result.get(counters.signature);
+            result.put(counters.signature, (previous != null) ? new Values(previous.invocations + values.invocations, previous.waitTime + values.waitTime, previous.executionTime + values.executionTime) : values);
+        }
+        return Collections.unmodifiableMap(result);
     }
 
     public long getPeakConcurrent() {
@@ -162,7 +149,7 @@ public class InvocationMetrics {
     }
 
     public long getWaitTime() {
-        return values.get().waitTime;
+        return values.getValues().waitTime;
     }
 
     void startInvocation() {
@@ -171,4 +158,76 @@ public class InvocationMetrics {
         if (peakConcurrent.get() < v)
             peakConcurrent.incrementAndGet();
     }
+
+    /**
+     * Invocation count and accumulated times in nanoseconds, kept per stripe.
+     */
+    private static class Counters {
+        private static final int INVOCATIONS = 0;
+        private static final int WAIT_TIME = 1;
+        private static final int EXECUTION_TIME = 2;
+        // 8 longs fill a 64 byte cache line, which keeps the counters of neighbouring stripes apart
+        private static final int STRIDE = 8;
+
+        private final AtomicLongArray cells;
+        private final int mask;
+
+        /**
+         * @param stripes the number of stripes, a power of two
+         */
+        Counters(final int stripes) {
+            this.cells = new AtomicLongArray(stripes * STRIDE);
+            this.mask = stripes - 1;
+        }
+
+        void add(final int stripe, final long waitTime, final long executionTime) {
+            final int base = (stripe & mask) * STRIDE;
+            cells.incrementAndGet(base + INVOCATIONS);
+            cells.addAndGet(base + WAIT_TIME, waitTime);
+            cells.addAndGet(base + EXECUTION_TIME, executionTime);
+        }
+
+        Values getValues() {
+            long invocations = 0;
+            long waitTime = 0;
+            long executionTime = 0;
+            for (int base = 0; base < cells.length(); base += STRIDE) {
+                invocations += cells.get(base + INVOCATIONS);
+                waitTime += cells.get(base + WAIT_TIME);
+                executionTime += cells.get(base + EXECUTION_TIME);
+            }
+            return new Values(invocations, TimeUnit.NANOSECONDS.toMillis(waitTime), TimeUnit.NANOSECONDS.toMillis(executionTime));
+        }
+    }
+
+    private static class MethodCounters extends Counters {
+        final String signature;
+
+        MethodCounters(final Method method) {
+            // methods are invoked by fewer threads than the component as a whole, so use fewer stripes
+            super(Math.max(STRIPES >> 2, 1));
+            this.signature = signature(method);
+        }
+
+        private static String signature(final Method method) {
+            final StringBuilder builder = new StringBuilder(method.getName()).append('(');
+            final Class<?>[] parameterTypes = method.getParameterTypes();
+            for (int i = 0; i < parameterTypes.length; ++i) {
+                if (i > 0) {
+                    builder.append(',');
+                }
+                Class<?> type = parameterTypes[i];
+                int dimensions = 0;
+                while (type.isArray()) {
+                    type = type.getComponentType();
+                    ++dimensions;
+                }
+                builder.append(type.getName());
+                for (int d = 0; d < dimensions; ++d) {
+                    builder.append("[]");
+                }
+            }
+            return builder.append(')').toString();
+        }
+    }
 }
@@ -25,7 +25,13 @@ package org.jboss.as.ejb3.component.pool;
 import org.jboss.as.ejb3.pool.Pool;
 import org.jboss.as.ejb3.pool.StatelessObjectFactory;
 import org.jboss.as.ejb3.pool.strictmax.StrictMaxPool;
+import org.jboss.as.ejb3.pool.striped.StripedPool;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -46,15 +52,35 @@ public class StrictMaxPoolConfig extends PoolConfig {
 
     private volatile long timeout;
 
+    /**
+     * The number of stripes of the pools created from this config, or 0 to create {@link StrictMaxPool}s
+     */
+    private volatile int stripes;
+
+    /**
+     * The resizable pools created from this config, which follow changes of the max pool size
+     */
+    private final Set<StripedPool<?>> stripedPools = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<StripedPool<?>, Boolean>()));
+
     public StrictMaxPoolConfig(final String poolName, int maxSize, long timeout, TimeUnit timeUnit) {
+        this(poolName, maxSize, 0, timeout, timeUnit);
+    }
+
+    public StrictMaxPoolConfig(final String poolName, int maxSize, int stripes, long timeout, TimeUnit timeUnit) {
         super(poolName);
         this.maxPoolSize = maxSize;
+        this.stripes = stripes;
         this.timeout = timeout;
         this.timeoutUnit = timeUnit;
     }
 
     @Override
     public <T> Pool<T> createPool(final StatelessObjectFactory<T> statelessObjectFactory) {
+        if (this.stripes > 0) {
+            final StripedPool<T> pool = new StripedPool<T>(statelessObjectFactory, this.maxPoolSize, this.stripes, this.timeout, this.timeoutUnit);
+            stripedPools.add(pool);
+            return pool;
+        }
         return new StrictMaxPool<T>(statelessObjectFactory, this.maxPoolSize, this.timeout, this.timeoutUnit);
     }
 
@@ -64,6 +90,21 @@ public class StrictMaxPoolConfig extends PoolConfig {
 
     public void setMaxPoolSize(int maxPoolSize) {
         this.maxPoolSize = maxPoolSize;
+        final List<StripedPool<?>> pools;
+        synchronized (stripedPools) {
+            pools = new ArrayList<StripedPool<?>>(stripedPools);
+        }
+        for (StripedPool<?> pool : pools) {
+            pool.setMaxSize(maxPoolSize);
+        }
+    }
+
+    public int getStripes() {
+        return stripes;
+    }
+
+    public void setStripes(int stripes) {
+        this.stripes = stripes;
     }
 
     public TimeUnit getTimeoutUnit() {
@@ -87,6 +128,7 @@ public class StrictMaxPoolConfig extends PoolConfig {
         return "StrictMaxPoolConfig{" +
                 "name=" + this.poolName +
                 ", maxPoolSize=" + maxPoolSize +
+                ", stripes=" + stripes +
                 ", timeoutUnit=" + timeoutUnit +
                 ", timeout=" + timeout +
                 '}';
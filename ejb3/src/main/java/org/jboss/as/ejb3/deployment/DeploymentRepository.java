@@ -50,17 +50,25 @@ public class DeploymentRepository implements Service<DeploymentRepository> {
      */
     private volatile Map<DeploymentModuleIdentifier, DeploymentHolder> modules;
 
+    /**
+     * All started modules. This is a copy on write snapshot, rebuilt whenever a module is started or removed, so that
+     * the invocation path can look up a started module without copying or locking.
+     */
+    private volatile Map<DeploymentModuleIdentifier, ModuleDeployment> startedModules;
+
     private final List<DeploymentRepositoryListener> listeners = new ArrayList<DeploymentRepositoryListener>();
 
 
     @Override
     public void start(StartContext context) throws StartException {
         modules = Collections.emptyMap();
+        startedModules = Collections.emptyMap();
     }
 
     @Override
     public void stop(StopContext context) {
         modules = null;
+        startedModules = null;
     }
 
     @Override
@@ -74,6 +82,12 @@ public class DeploymentRepository implements Service<DeploymentRepository> {
             final Map<DeploymentModuleIdentifier, DeploymentHolder> modules = new HashMap<DeploymentModuleIdentifier, DeploymentHolder>(this.modules);
             modules.put(identifier, new DeploymentHolder(deployment));
             this.modules = Collections.unmodifiableMap(modules);
+            if (this.startedModules.containsKey(identifier)) {
+                // A re-added module is not started until its new deployment is started
+                final Map<DeploymentModuleIdentifier, ModuleDeployment> startedModules = new HashMap<DeploymentModuleIdentifier, ModuleDeployment>(this.startedModules);
+                startedModules.remove(identifier);
+                this.startedModules = Collections.unmodifiableMap(startedModules);
+            }
             listeners = new ArrayList<DeploymentRepositoryListener>(this.listeners);
         }
         for (final DeploymentRepositoryListener listener : listeners) {
@@ -91,6 +105,9 @@ public class DeploymentRepository implements Service<DeploymentRepository> {
         synchronized (this) {
             deployment = modules.get(identifier);
             deployment.started = true;
+            final Map<DeploymentModuleIdentifier, ModuleDeployment> startedModules = new HashMap<DeploymentModuleIdentifier, ModuleDeployment>(this.startedModules);
+            startedModules.put(identifier, deployment.deployment);
+            this.startedModules = Collections.unmodifiableMap(startedModules);
             listeners = new ArrayList<DeploymentRepositoryListener>(this.listeners);
         }
         for (final DeploymentRepositoryListener listener : listeners) {
@@ -120,6 +137,11 @@ public class DeploymentRepository implements Service<DeploymentRepository> {
             final Map<DeploymentModuleIdentifier, DeploymentHolder> modules = new HashMap<DeploymentModuleIdentifier, DeploymentHolder>(this.modules);
             modules.remove(identifier);
             this.modules = Collections.unmodifiableMap(modules);
+            if (this.startedModules.containsKey(identifier)) {
+                final Map<DeploymentModuleIdentifier, ModuleDeployment> startedModules = new HashMap<DeploymentModuleIdentifier, ModuleDeployment>(this.startedModules);
+                startedModules.remove(identifier);
+                this.startedModules = Collections.unmodifiableMap(startedModules);
+            }
             listeners = new ArrayList<DeploymentRepositoryListener>(this.listeners);
         }
         for (final DeploymentRepositoryListener listener : listeners) {
@@ -145,16 +167,21 @@ public class DeploymentRepository implements Service<DeploymentRepository> {
 
     /**
      * Returns all the deployments that are in a started state, i.e. all components are ready to receive invocations.
+     * The returned map is an immutable snapshot, and will not reflect subsequent starts or removals.
      * @return All the started deployments
      */
     public Map<DeploymentModuleIdentifier, ModuleDeployment> getStartedModules() {
-        Map<DeploymentModuleIdentifier, ModuleDeployment> modules = new HashMap<DeploymentModuleIdentifier, ModuleDeployment>();
-        for(Map.Entry<DeploymentModuleIdentifier, DeploymentHolder> entry : this.modules.entrySet()) {
-            if(entry.getValue().started) {
-                modules.put(entry.getKey(), entry.getValue().deployment);
-            }
-        }
-        return modules;
+        return this.startedModules;
+    }
+
+    /**
+     * Returns the started deployment with the given identifier, without copying the set of started deployments.
+     * @param identifier the module identifier
+     * @return the started deployment, or null if no such deployment is started
+     */
+    public ModuleDeployment getStartedModule(DeploymentModuleIdentifier identifier) {
+        final Map<DeploymentModuleIdentifier, ModuleDeployment> startedModules = this.startedModules;
+        return (startedModules != null) ? startedModules.get(identifier) : null;
     }
 
     private class DeploymentHolder {
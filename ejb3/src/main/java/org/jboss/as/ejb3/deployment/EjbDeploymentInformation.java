@@ -32,6 +32,8 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Runtime information about an EJB in a module
@@ -50,6 +52,7 @@ public class EjbDeploymentInformation {
 
     private final InjectedValue<EjbIIOPService> iorFactory;
     private final Set<String> remoteViewClassNames = new HashSet<String>();
+    private final ConcurrentMap<String, ViewMethodIndex> viewMethodIndexes = new ConcurrentHashMap<String, ViewMethodIndex>();
 
     /**
      * @param ejbName               The EJB name
@@ -112,6 +115,25 @@ public class EjbDeploymentInformation {
         return value.getValue();
     }
 
+    /**
+     * Returns the method index of the view with the given name. The index is built on first use and reused by
+     * subsequent invocations on the view.
+     *
+     * @param name The fully qualified classname of the view
+     * @return the method index of the view
+     */
+    public ViewMethodIndex getViewMethodIndex(String name) {
+        ViewMethodIndex index = this.viewMethodIndexes.get(name);
+        if (index == null) {
+            index = new ViewMethodIndex(this.getView(name));
+            final ViewMethodIndex existing = this.viewMethodIndexes.putIfAbsent(name, index);
+            if (existing != null) {
+                index = existing;
+            }
+        }
+        return index;
+    }
+
     public ClassLoader getDeploymentClassLoader() {
         return deploymentClassLoader;
     }
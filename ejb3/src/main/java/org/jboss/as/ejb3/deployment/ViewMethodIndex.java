@@ -0,0 +1,102 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.ejb3.deployment;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jboss.as.ee.component.ComponentView;
+
+/**
+ * Index of the methods of a {@link ComponentView}, keyed by method name and signature, where the signature is the
+ * comma separated list of the fully qualified parameter type names of the method, as sent by remote EJB clients.
+ * <p/>
+ * The index is immutable once built, so lookups require neither locking nor allocation.
+ */
+public final class ViewMethodIndex {
+
+    /**
+     * The character used to separate parameter type names within a signature
+     */
+    public static final char SIGNATURE_SEPARATOR = ',';
+
+    private final Map<String, Map<String, Method>> methods;
+
+    public ViewMethodIndex(final ComponentView view) {
+        final Map<String, Map<String, Method>> methods = new HashMap<String, Map<String, Method>>();
+        for (final Method method : view.getViewMethods()) {
+            Map<String, Method> signatures = methods.get(method.getName());
+            if (signatures == null) {
+                signatures = new HashMap<String, Method>();
+                methods.put(method.getName(), signatures);
+            }
+            signatures.put(signature(method), method);
+        }
+        this.methods = Collections.unmodifiableMap(methods);
+    }
+
+    /**
+     * Returns the view method with the given name and signature.
+     *
+     * @param name      the method name
+     * @param signature the comma separated parameter type names of the method, or an empty string if the method has no parameters
+     * @return the method, or null if the view contains no such method
+     */
+    public Method getMethod(final String name, final String signature) {
+        final Map<String, Method> signatures = this.methods.get(name);
+        return (signatures != null) ? signatures.get(signature) : null;
+    }
+
+    /**
+     * Returns the number of parameters described by the given signature.
+     *
+     * @param signature the comma separated parameter type names of a method
+     * @return the number of parameters
+     */
+    public static int getParameterCount(final String signature) {
+        if (signature.isEmpty()) {
+            return 0;
+        }
+        int count = 1;
+        for (int i = 0; i < signature.length(); ++i) {
+            if (signature.charAt(i) == SIGNATURE_SEPARATOR) {
+                count += 1;
+            }
+        }
+        return count;
+    }
+
+    private static String signature(final Method method) {
+        final Class<?>[] types = method.getParameterTypes();
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < types.length; ++i) {
+            if (i > 0) {
+                builder.append(SIGNATURE_SEPARATOR);
+            }
+            builder.append(types[i].getName());
+        }
+        return builder.toString();
+    }
+}
@@ -3020,4 +3020,25 @@ public interface EjbLogger extends BasicLogger {
     @LogMessage(level = WARN)
     @Message(id = 462, value = "Unable to detect database dialect from connection metadata or JDBC driver name. Please configure this manually using the 'datasource' property in your configuration.  Known database dialect strings are %s")
     void jdbcDatabaseDialectDetectionFailed(String validDialects);
+
+    /**
+     * Logs an error message indicating that batched timer state changes could not be written to the database
+     */
+    @LogMessage(level = ERROR)
+    @Message(id = 463, value = "Failed to write %d batched timer updates to the database, they will be retried")
+    void failedToFlushTimerUpdates(int count, @Cause Throwable cause);
+
+    /**
+     * Logs a warning message indicating that the remainder of a timer journal segment could not be read
+     */
+    @LogMessage(level = WARN)
+    @Message(id = 464, value = "Discarding incomplete or corrupt timer journal record at offset %d of %s")
+    void discardingTimerJournalRecord(long offset, File segment);
+
+    /**
+     * Logs a warning message indicating that a timer journal segment superseded by compaction could not be deleted
+     */
+    @LogMessage(level = WARN)
+    @Message(id = 465, value = "Could not delete timer journal segment %s, it will be ignored as it was superseded by compaction")
+    void failedToDeleteTimerJournalSegment(File segment);
 }
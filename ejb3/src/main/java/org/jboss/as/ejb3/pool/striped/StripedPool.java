@@ -0,0 +1,277 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.ejb3.pool.striped;
+
+import static org.jboss.as.ejb3.logging.EjbLogger.ROOT_LOGGER;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.jboss.as.ejb3.pool.AbstractPool;
+import org.jboss.as.ejb3.pool.StatelessObjectFactory;
+import org.jboss.as.ejb3.util.LatencyHistogram;
+
+/**
+ * A pool with a maximum size, which keeps its free instances in a number of stripes.
+ * <p/>
+ * A thread always returns instances to, and first looks for instances in, the stripe selected by its thread id.
+ * If that stripe is empty the other stripes are searched, and a new instance is created if the maximum size
+ * has not been reached yet. Only if the pool is exhausted does a thread block, waiting for an instance to be
+ * released. So unlike {@link org.jboss.as.ejb3.pool.strictmax.StrictMaxPool} there is no semaphore or single
+ * queue that every invocation has to pass through, and the maximum size can be changed at runtime.
+ *
+ * @param <T> the type of the pooled instances
+ */
+public class StripedPool<T> extends AbstractPool<T> {
+
+    private final Queue<T>[] stripes;
+    /**
+     * The number of instances that currently belong to the pool, either free or in use
+     */
+    private final AtomicInteger size = new AtomicInteger();
+    private volatile int maxSize;
+    private final long timeout;
+    private final TimeUnit timeUnit;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition instanceReleased = lock.newCondition();
+    private final AtomicInteger waiters = new AtomicInteger();
+
+    private final LatencyHistogram acquisitionTimes;
+
+    @SuppressWarnings("unchecked")
+    public StripedPool(StatelessObjectFactory<T> factory, int maxSize, int stripes, long timeout, TimeUnit timeUnit) {
+        super(factory);
+        if (stripes < 1) {
+            throw new IllegalArgumentException(String.valueOf(stripes));
+        }
+        this.stripes = new Queue[stripes];
+        for (int i = 0; i < stripes; ++i) {
+            this.stripes[i] = new ConcurrentLinkedQueue<T>();
+        }
+        this.maxSize = maxSize;
+        this.timeout = timeout;
+        this.timeUnit = timeUnit;
+        this.acquisitionTimes = new LatencyHistogram(stripes);
+    }
+
+    public T get() {
+        final int stripe = stripe();
+        final long start = System.nanoTime();
+        T bean = poll(stripe);
+        if (bean == null && !reserve()) {
+            bean = await(stripe, start);
+        }
+        acquisitionTimes.record(stripe, System.nanoTime() - start);
+        if (bean != null) {
+            return bean;
+        }
+        // we reserved room for a new instance
+        try {
+            bean = create();
+        } finally {
+            if (bean == null) {
+                size.decrementAndGet();
+                signalWaiters();
+            }
+        }
+        return bean;
+    }
+
+    public void release(T obj) {
+        if (ROOT_LOGGER.isTraceEnabled()) {
+            ROOT_LOGGER.tracef("%s/%s Free instance: %s", size, maxSize, this);
+        }
+        // if the pool has been shrunk get rid of the surplus instance
+        for (int current = size.get(); current > maxSize; current = size.get()) {
+            if (size.compareAndSet(current, current - 1)) {
+                signalWaiters();
+                super.doRemove(obj);
+                return;
+            }
+        }
+        stripes[stripe()].add(obj);
+        signalWaiters();
+    }
+
+    public void discard(T ctx) {
+        if (ROOT_LOGGER.isTraceEnabled()) {
+            ROOT_LOGGER.tracef("Discard instance %s#%s", this, ctx);
+        }
+        size.decrementAndGet();
+        signalWaiters();
+        super.doRemove(ctx);
+    }
+
+    @Override
+    @Deprecated
+    public void remove(T ctx) {
+        if (ROOT_LOGGER.isTraceEnabled()) {
+            ROOT_LOGGER.tracef("Removing instance: %s#%s", this, ctx);
+        }
+        size.decrementAndGet();
+        signalWaiters();
+        super.doRemove(ctx);
+    }
+
+    public int getCurrentSize() {
+        return getCreateCount() - getRemoveCount();
+    }
+
+    public int getAvailableCount() {
+        int free = 0;
+        for (Queue<T> stripe : stripes) {
+            free += stripe.size();
+        }
+        return Math.max(maxSize - size.get() + free, 0);
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException(String.valueOf(maxSize));
+        }
+        final int previous = this.maxSize;
+        this.maxSize = maxSize;
+        if (maxSize > previous) {
+            lock.lock();
+            try {
+                instanceReleased.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        } else {
+            // destroy free instances until the pool fits, instances in use are destroyed on release
+            for (int current = size.get(); current > maxSize; current = size.get()) {
+                final T bean = poll(0);
+                if (bean == null) {
+                    break;
+                }
+                size.decrementAndGet();
+                super.doRemove(bean);
+            }
+        }
+    }
+
+    /**
+     * Returns the distribution of the time taken to obtain an instance, see {@link LatencyHistogram#getBucketBounds(TimeUnit)}
+     * for the buckets.
+     */
+    public long[] getAcquisitionTimes() {
+        return acquisitionTimes.getCounts();
+    }
+
+    public void start() {
+    }
+
+    public void stop() {
+        for (Queue<T> stripe : stripes) {
+            for (T obj = stripe.poll(); obj != null; obj = stripe.poll()) {
+                size.decrementAndGet();
+                destroy(obj);
+            }
+        }
+    }
+
+    private int stripe() {
+        return (int) (Thread.currentThread().getId() % stripes.length);
+    }
+
+    /**
+     * Takes a free instance, preferring the given stripe and stealing from the others if it is empty.
+     */
+    private T poll(final int stripe) {
+        for (int i = 0; i < stripes.length; ++i) {
+            final T bean = stripes[(stripe + i) % stripes.length].poll();
+            if (bean != null) {
+                return bean;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reserves room for a new instance, if the pool has not reached its maximum size.
+     */
+    private boolean reserve() {
+        for (int current = size.get(); current < maxSize; current = size.get()) {
+            if (size.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Blocks until an instance is released or room for a new instance becomes available.
+     *
+     * @return the released instance, or {@code null} if room for a new instance was reserved
+     */
+    private T await(final int stripe, final long start) {
+        final long deadline = start + timeUnit.toNanos(timeout);
+        try {
+            lock.lockInterruptibly();
+            try {
+                // signalWaiters() only takes the lock if it sees a waiter, so register before looking again
+                waiters.incrementAndGet();
+                try {
+                    for (;;) {
+                        final T bean = poll(stripe);
+                        if (bean != null || reserve()) {
+                            return bean;
+                        }
+                        final long remaining = deadline - System.nanoTime();
+                        if (remaining <= 0) {
+                            throw ROOT_LOGGER.failedToAcquirePermit(timeout, timeUnit);
+                        }
+                        instanceReleased.awaitNanos(remaining);
+                    }
+                } finally {
+                    waiters.decrementAndGet();
+                }
+            } finally {
+                lock.unlock();
+            }
+        } catch (InterruptedException e) {
+            throw ROOT_LOGGER.acquireSemaphoreInterrupted();
+        }
+    }
+
+    private void signalWaiters() {
+        if (waiters.get() > 0) {
+            lock.lock();
+            try {
+                instanceReleased.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -30,7 +30,6 @@ import java.io.ObjectStreamException;
 import java.lang.reflect.Method;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 
@@ -46,6 +45,7 @@ import org.jboss.as.ejb3.component.stateful.StatefulSessionComponent;
 import org.jboss.as.ejb3.component.stateless.StatelessSessionComponent;
 import org.jboss.as.ejb3.deployment.DeploymentRepository;
 import org.jboss.as.ejb3.deployment.EjbDeploymentInformation;
+import org.jboss.as.ejb3.deployment.ViewMethodIndex;
 import org.jboss.as.ejb3.remote.RemoteAsyncInvocationCancelStatusService;
 import org.jboss.ejb.client.Affinity;
 import org.jboss.ejb.client.EJBClientInvocationContext;
@@ -68,8 +68,6 @@ import org.xnio.IoUtils;
  */
 class MethodInvocationMessageHandler extends EJBIdentifierBasedMessageHandler {
 
-    private static final char METHOD_PARAM_TYPE_SEPARATOR = ',';
-
     private static final byte HEADER_METHOD_INVOCATION_RESPONSE = 0x05;
     private static final byte HEADER_ASYNC_METHOD_NOTIFICATION = 0x0E;
 
@@ -95,13 +93,7 @@ class MethodInvocationMessageHandler extends EJBIdentifierBasedMessageHandler {
         // read the method name
         final String methodName = input.readUTF();
         // method signature
-        String[] methodParamTypes = null;
         final String signature = input.readUTF();
-        if (signature.isEmpty()) {
-            methodParamTypes = new String[0];
-        } else {
-            methodParamTypes = signature.split(String.valueOf(METHOD_PARAM_TYPE_SEPARATOR));
-        }
 
         // read the Locator
         // we use a mutable ClassResolver, so that we can switch to a different (and correct deployment CL)
@@ -148,16 +140,18 @@ class MethodInvocationMessageHandler extends EJBIdentifierBasedMessageHandler {
                 return;
             }
             final ComponentView componentView = ejbDeploymentInformation.getView(viewClassName);
-            final Method invokedMethod = this.findMethod(componentView, methodName, methodParamTypes);
+            final Method invokedMethod = ejbDeploymentInformation.getViewMethodIndex(viewClassName).getMethod(methodName, signature);
             if (invokedMethod == null) {
+                final String[] methodParamTypes = signature.isEmpty() ? new String[0] : signature.split(String.valueOf(ViewMethodIndex.SIGNATURE_SEPARATOR));
                 this.writeNoSuchEJBMethodFailureMessage(channelAssociation, invocationId, appName, moduleName, distinctName, beanName, viewClassName, methodName, methodParamTypes);
                 return;
             }
 
-            final Object[] methodParams = new Object[methodParamTypes.length];
+            final int methodParamCount = ViewMethodIndex.getParameterCount(signature);
+            final Object[] methodParams = new Object[methodParamCount];
             // un-marshall the method arguments
-            if (methodParamTypes.length > 0) {
-                for (int i = 0; i < methodParamTypes.length; i++) {
+            if (methodParamCount > 0) {
+                for (int i = 0; i < methodParamCount; i++) {
                     try {
                         methodParams[i] = unmarshaller.readObject();
                     } catch (Throwable e) {
@@ -330,29 +324,6 @@ class MethodInvocationMessageHandler extends EJBIdentifierBasedMessageHandler {
         }
     }
 
-    private Method findMethod(final ComponentView componentView, final String methodName, final String[] paramTypes) {
-        final Set<Method> viewMethods = componentView.getViewMethods();
-        for (final Method method : viewMethods) {
-            if (method.getName().equals(methodName)) {
-                final Class<?>[] methodParamTypes = method.getParameterTypes();
-                if (methodParamTypes.length != paramTypes.length) {
-                    continue;
-                }
-                boolean found = true;
-                for (int i = 0; i < methodParamTypes.length; i++) {
-                    if (!methodParamTypes[i].getName().equals(paramTypes[i])) {
-                        found = false;
-                        break;
-                    }
-                }
-                if (found) {
-                    return method;
-                }
-            }
-        }
-        return null;
-    }
-
     private void writeMethodInvocationResponse(final ChannelAssociation channelAssociation, final short invocationId, final Object result, final Map<String, Object> attachments) throws IOException {
         final DataOutputStream outputStream;
         final MessageOutputStream messageOutputStream;
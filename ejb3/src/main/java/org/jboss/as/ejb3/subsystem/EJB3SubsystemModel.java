@@ -61,6 +61,7 @@ public interface EJB3SubsystemModel {
 
     String MAX_POOL_SIZE = "max-pool-size";
     String STRICT_MAX_BEAN_INSTANCE_POOL = "strict-max-bean-instance-pool";
+    String STRIPES = "stripes";
 
     String MAX_THREADS = "max-threads";
     String KEEPALIVE_TIME = "keepalive-time";
@@ -78,6 +79,11 @@ public interface EJB3SubsystemModel {
     String TIMER_SERVICE = "timer-service";
     String THREAD_POOL = "thread-pool";
     String THREAD_POOL_NAME = "thread-pool-name";
+    String WHEEL_TICK_DURATION = "wheel-tick-duration";
+    String WHEEL_WORKER_COUNT = "wheel-worker-count";
+    String DISPATCH_COUNT = "dispatch-count";
+    String AVERAGE_DISPATCH_LAG = "average-dispatch-lag";
+    String MAX_DISPATCH_LAG = "max-dispatch-lag";
     String DEFAULT = "default";
 
     String USE_QUALIFIED_NAME = "use-qualified-name";
@@ -109,6 +115,8 @@ public interface EJB3SubsystemModel {
     String PARTITION  = "partition";
     String REFRESH_INTERVAL = "refresh-interval";
     String ALLOW_EXECUTION = "allow-execution";
+    String FLUSH_INTERVAL = "flush-interval";
+    String JOURNAL = "journal";
 
     PathElement REMOTE_SERVICE_PATH = PathElement.pathElement(SERVICE, REMOTE);
     PathElement ASYNC_SERVICE_PATH = PathElement.pathElement(SERVICE, ASYNC);
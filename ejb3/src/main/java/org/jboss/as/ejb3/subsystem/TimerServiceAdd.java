@@ -22,8 +22,10 @@
 
 package org.jboss.as.ejb3.subsystem;
 
+import java.security.AccessController;
 import java.util.List;
 import java.util.Timer;
+import java.util.concurrent.ThreadFactory;
 
 import org.jboss.as.controller.AbstractBoottimeAddStepHandler;
 import org.jboss.as.controller.AttributeDefinition;
@@ -34,6 +36,9 @@ import org.jboss.as.ejb3.deployment.processors.AroundTimeoutAnnotationParsingPro
 import org.jboss.as.ejb3.deployment.processors.TimerServiceDeploymentProcessor;
 import org.jboss.as.ejb3.deployment.processors.annotation.TimerServiceAnnotationProcessor;
 import org.jboss.as.ejb3.deployment.processors.merging.TimerMethodMergingProcessor;
+import org.jboss.as.ejb3.timerservice.scheduler.JavaUtilTimerScheduler;
+import org.jboss.as.ejb3.timerservice.scheduler.TimingWheelScheduler;
+import org.jboss.as.ejb3.timerservice.spi.TimerScheduler;
 import org.jboss.as.server.AbstractDeploymentChainStep;
 import org.jboss.as.server.DeploymentProcessorTarget;
 import org.jboss.as.server.deployment.Phase;
@@ -44,6 +49,9 @@ import org.jboss.msc.service.ServiceName;
 import org.jboss.msc.service.StartContext;
 import org.jboss.msc.service.StartException;
 import org.jboss.msc.service.StopContext;
+import org.jboss.msc.value.InjectedValue;
+import org.jboss.threads.JBossThreadFactory;
+import org.wildfly.security.manager.action.GetAccessControlContextAction;
 
 import static org.jboss.as.ejb3.logging.EjbLogger.ROOT_LOGGER;
 
@@ -56,6 +64,10 @@ public class TimerServiceAdd extends AbstractBoottimeAddStepHandler {
 
     public static final TimerServiceAdd INSTANCE = new TimerServiceAdd();
 
+    private static final long DEFAULT_WHEEL_TICK_DURATION = 10;
+    private static final int DEFAULT_WHEEL_SIZE = 512;
+    private static final ThreadFactory THREAD_FACTORY = new JBossThreadFactory(new ThreadGroup("EJB timer scheduler"), Boolean.TRUE, null, "%G - %t", null, null, AccessController.doPrivileged(GetAccessControlContextAction.getInstance()));
+
     private TimerServiceAdd() {
 
     }
@@ -96,6 +108,22 @@ public class TimerServiceAdd extends AbstractBoottimeAddStepHandler {
         newControllers.add(context.getServiceTarget().addService(TimerServiceDeploymentProcessor.TIMER_SERVICE_NAME, new TimerValueService())
                 .install());
 
+        final ModelNode tickDuration = TimerServiceResourceDefinition.WHEEL_TICK_DURATION.resolveModelAttribute(context, model);
+        final ModelNode workerCount = TimerServiceResourceDefinition.WHEEL_WORKER_COUNT.resolveModelAttribute(context, model);
+        if (tickDuration.isDefined() || workerCount.isDefined()) {
+            // timeouts are scheduled on a timing wheel
+            final TimingWheelSchedulerService service = new TimingWheelSchedulerService(tickDuration.isDefined() ? tickDuration.asLong() : DEFAULT_WHEEL_TICK_DURATION,
+                    workerCount.isDefined() ? workerCount.asInt() : Runtime.getRuntime().availableProcessors());
+            newControllers.add(context.getServiceTarget().addService(TimerServiceDeploymentProcessor.TIMER_SCHEDULER_SERVICE_NAME, service)
+                    .install());
+        } else {
+            // timeouts are scheduled on the shared timer
+            final JavaUtilTimerSchedulerService service = new JavaUtilTimerSchedulerService();
+            newControllers.add(context.getServiceTarget().addService(TimerServiceDeploymentProcessor.TIMER_SCHEDULER_SERVICE_NAME, service)
+                    .addDependency(TimerServiceDeploymentProcessor.TIMER_SERVICE_NAME, Timer.class, service.timer)
+                    .install());
+        }
+
     }
 
     private static final class TimerValueService implements Service<Timer> {
@@ -118,4 +146,54 @@ public class TimerServiceAdd extends AbstractBoottimeAddStepHandler {
             return timer;
         }
     }
+
+    private static final class JavaUtilTimerSchedulerService implements Service<TimerScheduler> {
+
+        final InjectedValue<Timer> timer = new InjectedValue<Timer>();
+        private TimerScheduler scheduler;
+
+        @Override
+        public synchronized void start(final StartContext context) throws StartException {
+            scheduler = new JavaUtilTimerScheduler(timer.getValue());
+        }
+
+        @Override
+        public synchronized void stop(final StopContext context) {
+            scheduler = null;
+        }
+
+        @Override
+        public synchronized TimerScheduler getValue() throws IllegalStateException, IllegalArgumentException {
+            return scheduler;
+        }
+    }
+
+    private static final class TimingWheelSchedulerService implements Service<TimerScheduler> {
+
+        private final long tickDuration;
+        private final int workerCount;
+        private TimingWheelScheduler scheduler;
+
+        TimingWheelSchedulerService(final long tickDuration, final int workerCount) {
+            this.tickDuration = tickDuration;
+            this.workerCount = workerCount;
+        }
+
+        @Override
+        public synchronized void start(final StartContext context) throws StartException {
+            scheduler = new TimingWheelScheduler(THREAD_FACTORY, tickDuration, DEFAULT_WHEEL_SIZE, workerCount);
+            scheduler.start();
+        }
+
+        @Override
+        public synchronized void stop(final StopContext context) {
+            scheduler.stop();
+            scheduler = null;
+        }
+
+        @Override
+        public synchronized TimerScheduler getValue() throws IllegalStateException, IllegalArgumentException {
+            return scheduler;
+        }
+    }
 }
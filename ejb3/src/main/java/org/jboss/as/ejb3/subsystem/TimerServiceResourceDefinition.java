@@ -28,7 +28,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.regex.Pattern;
 
+import org.jboss.as.controller.AbstractRuntimeOnlyHandler;
 import org.jboss.as.controller.AttributeDefinition;
+import org.jboss.as.controller.OperationContext;
 import org.jboss.as.controller.OperationFailedException;
 import org.jboss.as.controller.PathAddress;
 import org.jboss.as.controller.PathElement;
@@ -37,7 +39,10 @@ import org.jboss.as.controller.ReloadRequiredWriteAttributeHandler;
 import org.jboss.as.controller.SimpleAttributeDefinition;
 import org.jboss.as.controller.SimpleAttributeDefinitionBuilder;
 import org.jboss.as.controller.SimpleResourceDefinition;
+import org.jboss.as.controller.client.helpers.MeasurementUnit;
 import org.jboss.as.controller.descriptions.ModelDescriptionConstants;
+import org.jboss.as.controller.operations.validation.IntRangeValidator;
+import org.jboss.as.controller.operations.validation.LongRangeValidator;
 import org.jboss.as.controller.logging.ControllerLogger;
 import org.jboss.as.controller.registry.AttributeAccess;
 import org.jboss.as.controller.registry.ManagementResourceRegistration;
@@ -54,7 +59,9 @@ import org.jboss.as.controller.transform.TransformationTarget;
 import org.jboss.as.controller.transform.description.DiscardAttributeChecker;
 import org.jboss.as.controller.transform.description.RejectAttributeChecker;
 import org.jboss.as.controller.transform.description.ResourceTransformationDescriptionBuilder;
+import org.jboss.as.ejb3.deployment.processors.TimerServiceDeploymentProcessor;
 import org.jboss.as.ejb3.logging.EjbLogger;
+import org.jboss.as.ejb3.timerservice.spi.TimerScheduler;
 import org.jboss.dmr.ModelNode;
 import org.jboss.dmr.ModelType;
 
@@ -77,24 +84,63 @@ public class TimerServiceResourceDefinition extends SimpleResourceDefinition {
                     //.setDefaultValue(new ModelNode("default-file-store")) //for backward compatibility!
                     .build();
 
+    static final SimpleAttributeDefinition WHEEL_TICK_DURATION =
+            new SimpleAttributeDefinitionBuilder(EJB3SubsystemModel.WHEEL_TICK_DURATION, ModelType.LONG, true)
+                    .setAllowExpression(true)
+                    .setMeasurementUnit(MeasurementUnit.MILLISECONDS)
+                    .setValidator(new LongRangeValidator(1, true, true))
+                    .setFlags(AttributeAccess.Flag.RESTART_ALL_SERVICES)
+                    .build();
+
+    static final SimpleAttributeDefinition WHEEL_WORKER_COUNT =
+            new SimpleAttributeDefinitionBuilder(EJB3SubsystemModel.WHEEL_WORKER_COUNT, ModelType.INT, true)
+                    .setAllowExpression(true)
+                    .setValidator(new IntRangeValidator(1, true, true))
+                    .setFlags(AttributeAccess.Flag.RESTART_ALL_SERVICES)
+                    .build();
+
+    static final SimpleAttributeDefinition DISPATCH_COUNT =
+            new SimpleAttributeDefinitionBuilder(EJB3SubsystemModel.DISPATCH_COUNT, ModelType.LONG)
+                    .setAllowNull(false)
+                    .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+                    .build();
+
+    static final SimpleAttributeDefinition AVERAGE_DISPATCH_LAG =
+            new SimpleAttributeDefinitionBuilder(EJB3SubsystemModel.AVERAGE_DISPATCH_LAG, ModelType.LONG)
+                    .setAllowNull(false)
+                    .setMeasurementUnit(MeasurementUnit.MILLISECONDS)
+                    .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+                    .build();
+
+    static final SimpleAttributeDefinition MAX_DISPATCH_LAG =
+            new SimpleAttributeDefinitionBuilder(EJB3SubsystemModel.MAX_DISPATCH_LAG, ModelType.LONG)
+                    .setAllowNull(false)
+                    .setMeasurementUnit(MeasurementUnit.MILLISECONDS)
+                    .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+                    .build();
+
     public static final Map<String, AttributeDefinition> ATTRIBUTES ;
 
     private final PathManager pathManager;
+    private final boolean registerRuntimeOnly;
 
     static {
         Map<String, AttributeDefinition> map = new LinkedHashMap<String, AttributeDefinition>();
         map.put(THREAD_POOL_NAME.getName(), THREAD_POOL_NAME);
         map.put(DEFAULT_DATA_STORE.getName(), DEFAULT_DATA_STORE);
+        map.put(WHEEL_TICK_DURATION.getName(), WHEEL_TICK_DURATION);
+        map.put(WHEEL_WORKER_COUNT.getName(), WHEEL_WORKER_COUNT);
 
         ATTRIBUTES = Collections.unmodifiableMap(map);
     }
 
-    public TimerServiceResourceDefinition(final PathManager pathManager) {
+    public TimerServiceResourceDefinition(final PathManager pathManager, final boolean registerRuntimeOnly) {
         super(EJB3SubsystemModel.TIMER_SERVICE_PATH,
                 EJB3Extension.getResourceDescriptionResolver(EJB3SubsystemModel.TIMER_SERVICE),
                 TimerServiceAdd.INSTANCE, ReloadRequiredRemoveStepHandler.INSTANCE,
                 OperationEntry.Flag.RESTART_ALL_SERVICES, OperationEntry.Flag.RESTART_ALL_SERVICES);
         this.pathManager = pathManager;
+        this.registerRuntimeOnly = registerRuntimeOnly;
     }
 
 
@@ -103,6 +149,26 @@ public class TimerServiceResourceDefinition extends SimpleResourceDefinition {
         for (AttributeDefinition attr : ATTRIBUTES.values()) {
             resourceRegistration.registerReadWriteAttribute(attr, null, new ReloadRequiredWriteAttributeHandler(attr));
         }
+        if (registerRuntimeOnly) {
+            resourceRegistration.registerMetric(DISPATCH_COUNT, new TimerSchedulerMetricsHandler() {
+                @Override
+                long getMetric(TimerScheduler.Statistics statistics) {
+                    return statistics.getDispatchCount();
+                }
+            });
+            resourceRegistration.registerMetric(AVERAGE_DISPATCH_LAG, new TimerSchedulerMetricsHandler() {
+                @Override
+                long getMetric(TimerScheduler.Statistics statistics) {
+                    return statistics.getAverageDispatchLag();
+                }
+            });
+            resourceRegistration.registerMetric(MAX_DISPATCH_LAG, new TimerSchedulerMetricsHandler() {
+                @Override
+                long getMetric(TimerScheduler.Statistics statistics) {
+                    return statistics.getMaxDispatchLag();
+                }
+            });
+        }
     }
 
     @Override
@@ -127,6 +193,8 @@ public class TimerServiceResourceDefinition extends SimpleResourceDefinition {
         DataStoreTransformer dataStoreTransformer = new DataStoreTransformer(rejectPathExpressions);
         timerService.getAttributeBuilder()
                 .setDiscard(DiscardAttributeChecker.ALWAYS, EJB3SubsystemModel.DEFAULT_DATA_STORE)//this is ok, as default-data-store only has any sense with new model, but it is always set!
+                .setDiscard(DiscardAttributeChecker.UNDEFINED, WHEEL_TICK_DURATION, WHEEL_WORKER_COUNT)
+                .addRejectCheck(RejectAttributeChecker.DEFINED, WHEEL_TICK_DURATION, WHEEL_WORKER_COUNT)
                 .end();
         timerService.discardOperations(ModelDescriptionConstants.ADD);
         timerService.setCustomResourceTransformer(dataStoreTransformer);
@@ -138,6 +206,10 @@ public class TimerServiceResourceDefinition extends SimpleResourceDefinition {
             }
         });
 
+        fileDataStore = fileDataStore.getAttributeBuilder()
+                .setDiscard(new DiscardAttributeChecker.DiscardAttributeValueChecker(false, true, new ModelNode(false)), FileDataStoreResourceDefinition.JOURNAL)
+                .addRejectCheck(RejectAttributeChecker.DEFINED, FileDataStoreResourceDefinition.JOURNAL)
+                .end();
         if (rejectPathExpressions) {
             fileDataStore = fileDataStore.getAttributeBuilder()
                 .addRejectCheck(RejectAttributeChecker.SIMPLE_EXPRESSIONS, FileDataStoreResourceDefinition.PATH)
@@ -244,4 +316,16 @@ public class TimerServiceResourceDefinition extends SimpleResourceDefinition {
         }
     }
 
+    private abstract static class TimerSchedulerMetricsHandler extends AbstractRuntimeOnlyHandler {
+
+        abstract long getMetric(TimerScheduler.Statistics statistics);
+
+        @Override
+        protected void executeRuntimeStep(OperationContext context, ModelNode operation) throws OperationFailedException {
+            final TimerScheduler scheduler = (TimerScheduler) context.getServiceRegistry(false).getRequiredService(TimerServiceDeploymentProcessor.TIMER_SCHEDULER_SERVICE_NAME).getValue();
+            context.getResult().set(this.getMetric(scheduler.getStatistics()));
+            context.stepCompleted();
+        }
+    }
+
 }
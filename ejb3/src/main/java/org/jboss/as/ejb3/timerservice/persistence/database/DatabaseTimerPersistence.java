@@ -47,7 +47,11 @@ import java.util.Properties;
 import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import javax.sql.DataSource;
 import javax.transaction.HeuristicMixedException;
@@ -110,28 +114,43 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
     private final int refreshInterval;
     /** Flag whether this instance should execute persistent timers*/
     private final boolean allowExecution;
+    /** Interval in millis to write batched timer state changes to the persistence store, or <= 0 to write changes immediately*/
+    private final int flushInterval;
+    /** Timer state changes waiting to be written by the flush task, keyed by timer id. Only the latest change to a timer is kept. */
+    private final ConcurrentMap<String, PendingUpdate> pendingUpdates = new ConcurrentHashMap<String, PendingUpdate>();
+    /** Held exclusively by the flush task, so that a flushed change cannot overwrite a later change that was written immediately */
+    private final ReadWriteLock flushLock = new ReentrantReadWriteLock();
+    /** Ids of the timers claimed for execution by this node, whose claim has not yet been released */
+    private final Set<String> claimedTimers = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
     private volatile ManagedReference managedReference;
     private volatile DataSource dataSource;
     private volatile Properties sql;
     private MarshallerFactory factory;
     private MarshallingConfiguration configuration;
     private RefreshTask refreshTask;
+    private FlushTask flushTask;
 
     /** Names for the different SQL commands stored in the properties*/
     private static final String CREATE_TABLE = "create-table";
     private static final String CREATE_TIMER = "create-timer";
     private static final String UPDATE_TIMER = "update-timer";
     private static final String LOAD_ALL_TIMERS = "load-all-timers";
+    private static final String LOAD_ALL_TIMER_IDS = "load-all-timer-ids";
     private static final String LOAD_TIMER = "load-timer";
     private static final String DELETE_TIMER = "delete-timer";
     private static final String UPDATE_RUNNING = "update-running";
 
     public DatabaseTimerPersistence(final String name, final String database, String partition, int refreshInterval, boolean allowExecution) {
+        this(name, database, partition, refreshInterval, allowExecution, -1);
+    }
+
+    public DatabaseTimerPersistence(final String name, final String database, String partition, int refreshInterval, boolean allowExecution, int flushInterval) {
         this.name = name;
         this.database = database;
         this.partition = partition;
         this.refreshInterval = refreshInterval;
         this.allowExecution = allowExecution;
+        this.flushInterval = flushInterval;
     }
 
     @Override
@@ -159,6 +178,10 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
             refreshTask = new RefreshTask();
             timerInjectedValue.getValue().schedule(refreshTask, refreshInterval, refreshInterval);
         }
+        if (flushInterval > 0) {
+            flushTask = new FlushTask();
+            timerInjectedValue.getValue().schedule(flushTask, flushInterval, flushInterval);
+        }
     }
 
     @Override
@@ -166,7 +189,14 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
         if (refreshTask != null) {
             refreshTask.cancel();
         }
+        if (flushTask != null) {
+            flushTask.cancel();
+            // write out any remaining changes
+            flushTask.run();
+            flushTask = null;
+        }
         knownTimerIds.clear();
+        claimedTimers.clear();
         managedReference.release();
         managedReference = null;
         dataSource = null;
@@ -330,11 +360,24 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
 
     @Override
     public void persistTimer(final TimerImpl timerEntity) {
+        if ((flushInterval > 0) && isBatchable(timerEntity)) {
+            final PendingUpdate update = new PendingUpdate(timerEntity);
+            synchronized (this) {
+                knownTimerIds.get(timerEntity.getTimedObjectId()).add(timerEntity.getId());
+            }
+            // supersedes any change to this timer that has not yet been flushed
+            pendingUpdates.put(update.id, update);
+            return;
+        }
+        flushLock.readLock().lock();
         Connection connection = null;
         PreparedStatement statement = null;
         ResultSet resultSet = null;
         try {
             connection = dataSource.getConnection();
+            // supersedes any change to this timer that has not yet been flushed
+            pendingUpdates.remove(timerEntity.getId());
+            claimedTimers.remove(timerEntity.getId());
             if (timerEntity.getState() == TimerState.CANCELED ||
                     timerEntity.getState() == TimerState.EXPIRED) {
                 String deleteTimer = sql(DELETE_TIMER);
@@ -366,6 +409,30 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
             safeClose(resultSet);
             safeClose(statement);
             safeClose(connection);
+            flushLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Indicates whether a change to the specified timer can be batched. The update-running query, which claims a timer
+     * for execution, only succeeds if the row is not in timeout and matches the next expiration of the claiming node.
+     * While this node holds the claim of a timer, its row stays in timeout until the claim is released, so no other node
+     * can claim it regardless of a late write. Hence changes made while in timeout or retrying the timeout are batched,
+     * as is the return to the active state which releases the claim of this node; this node writes any pending change
+     * before claiming the timer again. If this node fails before the flush, the row stays in timeout, as if it had failed
+     * during the timeout.
+     * Other changes, i.e. activating a timer that this node did not claim, cancelling and expiring it, are written
+     * immediately, since other nodes would otherwise claim it based on a stale next expiration, or after its removal.
+     */
+    private boolean isBatchable(final TimerImpl timer) {
+        switch (timer.getState()) {
+            case IN_TIMEOUT:
+            case RETRY_TIMEOUT:
+                return true;
+            case ACTIVE:
+                return claimedTimers.remove(timer.getId());
+            default:
+                return false;
         }
     }
 
@@ -375,6 +442,8 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
             //timers never execute on this node
             return false;
         }
+        // the claim must see the latest change to this timer
+        flushPendingUpdate(timer.getId());
         String loadTimer = sql(UPDATE_RUNNING);
         Connection connection = null;
         PreparedStatement statement = null;
@@ -397,6 +466,9 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
             tm.begin();
             int affected = statement.executeUpdate();
             tm.commit();
+            if ((affected == 1) && (flushInterval > 0)) {
+                claimedTimers.add(timer.getId());
+            }
             return affected == 1;
         } catch (SQLException e) {
             // failed to update the DB
@@ -423,6 +495,55 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
         }
     }
 
+    /**
+     * Writes the change to the specified timer that is waiting to be flushed, if any.
+     */
+    private void flushPendingUpdate(final String id) {
+        if (!pendingUpdates.containsKey(id)) {
+            return;
+        }
+        flushLock.readLock().lock();
+        try {
+            final PendingUpdate update = pendingUpdates.remove(id);
+            if (update != null) {
+                try {
+                    writeUpdates(Collections.singletonList(update));
+                } catch (SQLException e) {
+                    // retry on the next flush, unless superseded in the meantime
+                    pendingUpdates.putIfAbsent(update.id, update);
+                    throw new RuntimeException(e);
+                }
+            }
+        } finally {
+            flushLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the specified timer state changes using a single JDBC batch.
+     */
+    private void writeUpdates(final List<PendingUpdate> updates) throws SQLException {
+        Connection connection = null;
+        PreparedStatement statement = null;
+        try {
+            connection = dataSource.getConnection();
+            statement = connection.prepareStatement(sql(UPDATE_TIMER));
+            for (PendingUpdate update : updates) {
+                statement.setTimestamp(1, update.nextDate);
+                statement.setTimestamp(2, update.previousRun);
+                statement.setString(3, update.state.name());
+                statement.setString(4, update.timedObjectId);
+                statement.setString(5, update.id);
+                statement.setString(6, partition);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        } finally {
+            safeClose(statement);
+            safeClose(connection);
+        }
+    }
+
     @Override
     public synchronized void timerUndeployed(final String timedObjectId) {
         knownTimerIds.remove(timedObjectId);
@@ -693,6 +814,11 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
         }
     }
 
+    /**
+     * Refreshes the timers of each timed object with a listener against the database. Only the ids of the timers
+     * of the partition are read, in a single query, and only timers that are not yet known are loaded in full,
+     * in a single query per timed object.
+     */
     private class RefreshTask extends TimerTask {
 
         private volatile AtomicBoolean running = new AtomicBoolean();
@@ -701,64 +827,174 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
         public void run() {
             if (running.compareAndSet(false, true)) {
                 try {
-                    Set<String> timedObjects;
+                    final Map<String, Set<String>> existing = new HashMap<>();
                     synchronized (DatabaseTimerPersistence.this) {
-                        timedObjects = new HashSet<>(knownTimerIds.keySet());
+                        for (Map.Entry<String, Set<String>> entry : knownTimerIds.entrySet()) {
+                            if (changeListeners.containsKey(entry.getKey())) {
+                                existing.put(entry.getKey(), new HashSet<>(entry.getValue()));
+                            }
+                        }
+                    }
+                    if (existing.isEmpty()) {
+                        return;
+                    }
+                    final Map<String, List<String>> added = new HashMap<>();
+                    String loadTimerIds = sql(LOAD_ALL_TIMER_IDS);
+                    Connection connection = null;
+                    PreparedStatement statement = null;
+                    ResultSet resultSet = null;
+                    try {
+                        connection = dataSource.getConnection();
+                        statement = connection.prepareStatement(loadTimerIds);
+                        statement.setString(1, partition);
+                        resultSet = statement.executeQuery();
+                        while (resultSet.next()) {
+                            final String id = resultSet.getString(1);
+                            final String timedObjectId = resultSet.getString(2);
+                            final Set<String> ids = existing.get(timedObjectId);
+                            if (ids != null && !ids.remove(id)) {
+                                List<String> timers = added.get(timedObjectId);
+                                if (timers == null) {
+                                    timers = new ArrayList<>();
+                                    added.put(timedObjectId, timers);
+                                }
+                                timers.add(id);
+                            }
+                        }
+                    } catch (SQLException e) {
+                        for (String timedObjectId : existing.keySet()) {
+                            EjbLogger.ROOT_LOGGER.failedToRefreshTimers(timedObjectId);
+                        }
+                        return;
+                    } finally {
+                        safeClose(resultSet);
+                        safeClose(statement);
+                        safeClose(connection);
+                    }
+
+                    for (Map.Entry<String, List<String>> entry : added.entrySet()) {
+                        loadAddedTimers(entry.getKey(), entry.getValue());
                     }
-                    for (String timedObjectId : timedObjects) {
-                        TimerChangeListener listener = changeListeners.get(timedObjectId);
+
+                    for (Map.Entry<String, Set<String>> entry : existing.entrySet()) {
+                        TimerChangeListener listener = changeListeners.get(entry.getKey());
                         if (listener == null) {
                             continue;
                         }
-                        final Set<String> existing;
                         synchronized (DatabaseTimerPersistence.this) {
-                            existing = new HashSet<>(knownTimerIds.get(timedObjectId));
-                        }
-                        String loadTimer = sql(LOAD_ALL_TIMERS);
-                        Connection connection = null;
-                        PreparedStatement statement = null;
-                        ResultSet resultSet = null;
-                        try {
-                            connection = dataSource.getConnection();
-                            statement = connection.prepareStatement(loadTimer);
-                            statement.setString(1, timedObjectId);
-                            statement.setString(2, partition);
-                            resultSet = statement.executeQuery();
-                            while (resultSet.next()) {
-                                try {
-                                    String id = resultSet.getString(1);
-                                    if (!existing.remove(id)) {
-                                        synchronized (DatabaseTimerPersistence.this) {
-                                            knownTimerIds.get(timedObjectId).add(id);
-                                        }
-                                        final TimerImpl timerImpl = timerFromResult(resultSet, listener.getTimerService());
-                                        listener.timerAdded(timerImpl);
-                                    }
-                                } catch (Exception e) {
-                                    EjbLogger.ROOT_LOGGER.timerReinstatementFailed(resultSet.getString(2), resultSet.getString(1), e);
-                                }
+                            Set<String> timers = knownTimerIds.get(entry.getKey());
+                            if (timers == null) {
+                                continue;
                             }
-
-                            synchronized (DatabaseTimerPersistence.this) {
-                                Set<String> timers = knownTimerIds.get(timedObjectId);
-                                for (String timer : existing) {
-                                    timers.remove(timer);
+                            for (String timer : entry.getValue()) {
+                                if (timers.remove(timer)) {
                                     listener.timerRemoved(timer);
                                 }
                             }
-                        } catch (SQLException e) {
-                            EjbLogger.ROOT_LOGGER.failedToRefreshTimers(timedObjectId);
-                        } finally {
-                            safeClose(resultSet);
-                            safeClose(statement);
-                            safeClose(connection);
                         }
                     }
                 } finally {
                     running.set(false);
                 }
             }
+        }
+
+        private void loadAddedTimers(final String timedObjectId, final List<String> ids) {
+            TimerChangeListener listener = changeListeners.get(timedObjectId);
+            if (listener == null) {
+                return;
+            }
+            final Set<String> addedIds = new HashSet<>(ids);
+            String loadTimers = sql(LOAD_ALL_TIMERS);
+            Connection connection = null;
+            PreparedStatement statement = null;
+            ResultSet resultSet = null;
+            try {
+                connection = dataSource.getConnection();
+                statement = connection.prepareStatement(loadTimers);
+                statement.setString(1, timedObjectId);
+                statement.setString(2, partition);
+                resultSet = statement.executeQuery();
+                while (!addedIds.isEmpty() && resultSet.next()) {
+                    final String id = resultSet.getString(1);
+                    // only timers that are not yet known are restored
+                    if (!addedIds.remove(id)) {
+                        continue;
+                    }
+                    try {
+                        final TimerImpl timerImpl = timerFromResult(resultSet, listener.getTimerService());
+                        final boolean added;
+                        synchronized (DatabaseTimerPersistence.this) {
+                            final Set<String> timers = knownTimerIds.get(timedObjectId);
+                            added = (timerImpl != null) && (timers != null) && timers.add(id);
+                        }
+                        if (added) {
+                            listener.timerAdded(timerImpl);
+                        }
+                    } catch (Exception e) {
+                        EjbLogger.ROOT_LOGGER.timerReinstatementFailed(timedObjectId, id, e);
+                    }
+                }
+            } catch (SQLException e) {
+                EjbLogger.ROOT_LOGGER.failedToRefreshTimers(timedObjectId);
+            } finally {
+                safeClose(resultSet);
+                safeClose(statement);
+                safeClose(connection);
+            }
+        }
+    }
+
+    /**
+     * Writes the pending timer state changes to the database, using one JDBC batch.
+     */
+    private class FlushTask extends TimerTask {
+
+        @Override
+        public void run() {
+            flushLock.writeLock().lock();
+            try {
+                final List<PendingUpdate> updates = new ArrayList<>();
+                for (PendingUpdate update : pendingUpdates.values()) {
+                    // a change that is superseded concurrently stays pending until the next flush
+                    if (pendingUpdates.remove(update.id, update)) {
+                        updates.add(update);
+                    }
+                }
+                if (updates.isEmpty()) {
+                    return;
+                }
+                try {
+                    writeUpdates(updates);
+                } catch (SQLException e) {
+                    EjbLogger.ROOT_LOGGER.failedToFlushTimerUpdates(updates.size(), e);
+                    for (PendingUpdate update : updates) {
+                        // retry on the next flush, unless superseded in the meantime
+                        pendingUpdates.putIfAbsent(update.id, update);
+                    }
+                }
+            } finally {
+                flushLock.writeLock().unlock();
+            }
+        }
+    }
 
+    /**
+     * Snapshot of the persistent state of a timer, taken when the change was requested.
+     */
+    private static class PendingUpdate {
+        final String id;
+        final String timedObjectId;
+        final Timestamp nextDate;
+        final Timestamp previousRun;
+        final TimerState state;
+
+        PendingUpdate(final TimerImpl timer) {
+            this.id = timer.getId();
+            this.timedObjectId = timer.getTimedObjectId();
+            this.state = timer.getState();
+            this.nextDate = (timer.getNextExpiration() != null) ? new Timestamp(timer.getNextExpiration().getTime()) : null;
+            this.previousRun = (timer.getPreviousRun() != null) ? new Timestamp(timer.getPreviousRun().getTime()) : null;
         }
     }
 }
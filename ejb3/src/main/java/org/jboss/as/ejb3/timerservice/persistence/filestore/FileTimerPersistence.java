@@ -81,7 +81,13 @@ public class FileTimerPersistence implements TimerPersistence, Service<FileTimer
 
     private static final XMLInputFactory INPUT_FACTORY = XMLInputFactory.newInstance();
 
+    /**
+     * The size after which a new journal segment is started
+     */
+    private static final long JOURNAL_SEGMENT_SIZE = 4 * 1024 * 1024;
+
     private final boolean createIfNotExists;
+    private final boolean journal;
     private MarshallerFactory factory;
     private MarshallingConfiguration configuration;
     private final InjectedValue<TransactionManager> transactionManager = new InjectedValue<TransactionManager>();
@@ -95,11 +101,20 @@ public class FileTimerPersistence implements TimerPersistence, Service<FileTimer
 
     private final ConcurrentMap<String, Lock> locks = new ConcurrentHashMap<String, Lock>();
     private final ConcurrentMap<String, String> directories = new ConcurrentHashMap<String, String>();
+    private final ConcurrentMap<String, TimerJournal> journals = new ConcurrentHashMap<String, TimerJournal>();
 
     public FileTimerPersistence(final boolean createIfNotExists, final String path, final String pathRelativeTo) {
+        this(createIfNotExists, path, pathRelativeTo, false);
+    }
+
+    /**
+     * @param journal {@code true} if timers should be stored in an append-only journal per timed object, rather than in one XML file per timer
+     */
+    public FileTimerPersistence(final boolean createIfNotExists, final String path, final String pathRelativeTo, final boolean journal) {
         this.createIfNotExists = createIfNotExists;
         this.path = path;
         this.pathRelativeTo = pathRelativeTo;
+        this.journal = journal;
     }
 
     @Override
@@ -132,6 +147,10 @@ public class FileTimerPersistence implements TimerPersistence, Service<FileTimer
 
     @Override
     public void stop(final StopContext context) {
+        for (TimerJournal timerJournal : journals.values()) {
+            safeClose(timerJournal);
+        }
+        journals.clear();
         locks.clear();
         directories.clear();
         if (callbackHandle != null) {
@@ -195,6 +214,10 @@ public class FileTimerPersistence implements TimerPersistence, Service<FileTimer
             if (status == Status.STATUS_NO_TRANSACTION ||
                     status == Status.STATUS_UNKNOWN || isBeforeCompletion()
                     || status == Status.STATUS_COMMITTED) {
+                if (journal) {
+                    writeJournal(timer, newTimer);
+                    return;
+                }
                 Map<String, TimerImpl> map = getTimers(timer.getTimedObjectId(), timer.getTimerService());
                 if (timer.getState() == TimerState.CANCELED ||
                         timer.getState() == TimerState.EXPIRED) {
@@ -235,6 +258,7 @@ public class FileTimerPersistence implements TimerPersistence, Service<FileTimer
             lock.lock();
             locks.remove(timedObjectId);
             directories.remove(timedObjectId);
+            safeClose(journals.remove(timedObjectId));
         } finally {
             lock.unlock();
         }
@@ -313,9 +337,65 @@ public class FileTimerPersistence implements TimerPersistence, Service<FileTimer
      * @return The timers for the object
      */
     private Map<String, TimerImpl> getTimers(final String timedObjectId, final TimerServiceImpl timerService) {
+        if (journal) {
+            try {
+                return getJournal(timedObjectId, timerService).load(timerService, timerService.getTimedObjectInvoker().getValue().getClassLoader());
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
         return loadTimersFromFile(timedObjectId, timerService);
     }
 
+    /**
+     * Gets the journal of a timed object, opening it if necessary. Timers found in the XML store are moved into the
+     * journal, and their files are only deleted once the journal holding them is durable. Timers that cannot be
+     * written to the journal keep their files, and are moved again the next time the journal is opened.
+     * Should be called under lock
+     *
+     * @param timedObjectId The timed object id
+     * @return The journal for the object
+     */
+    private TimerJournal getJournal(final String timedObjectId, final TimerServiceImpl timerService) throws IOException {
+        TimerJournal timerJournal = journals.get(timedObjectId);
+        if (timerJournal == null) {
+            timerJournal = new TimerJournal(timedObjectId, new File(getDirectory(timedObjectId)), JOURNAL_SEGMENT_SIZE, factory, configuration);
+            timerJournal.open();
+            final Map<String, TimerImpl> timers = loadTimersFromFile(timedObjectId, timerService);
+            final List<String> moved = new ArrayList<>(timers.size());
+            for (TimerImpl timer : timers.values()) {
+                // a journalled timer is more recent than a file whose deletion did not complete
+                if (timerJournal.contains(timer.getId()) || timerJournal.write(timer)) {
+                    moved.add(timer.getId());
+                }
+            }
+            if (!moved.isEmpty()) {
+                timerJournal.force();
+                for (String id : moved) {
+                    fileName(timedObjectId, id).delete();
+                }
+            }
+            journals.put(timedObjectId, timerJournal);
+        }
+        return timerJournal;
+    }
+
+    private void writeJournal(final TimerImpl timer, final boolean newTimer) {
+        try {
+            final TimerJournal timerJournal = getJournal(timer.getTimedObjectId(), timer.getTimerService());
+            if (timer.getState() == TimerState.CANCELED ||
+                    timer.getState() == TimerState.EXPIRED) {
+                timerJournal.remove(timer.getId());
+            } else if (newTimer || timerJournal.contains(timer.getId())) {
+                //if it is not a new timer and is not in the journal then it has
+                //been removed by another thread.
+                timerJournal.write(timer);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     private Map<String, TimerImpl> loadTimersFromFile(String timedObjectId, TimerServiceImpl timerService) {
         Map<String, TimerImpl> timers = new HashMap<>();
         String directory = getDirectory(timedObjectId);
@@ -436,6 +516,10 @@ public class FileTimerPersistence implements TimerPersistence, Service<FileTimer
             try {
                 lock.lock();
                 if (status == Status.STATUS_COMMITTED) {
+                    if (journal) {
+                        writeJournal(timer, newTimer);
+                        return;
+                    }
                     final Map<String, TimerImpl> map = getTimers(timer.getTimedObjectId(), timer.getTimerService());
                     if (timer.getState() == TimerState.CANCELED ||
                             timer.getState() == TimerState.EXPIRED) {
@@ -0,0 +1,572 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.ejb3.timerservice.persistence.filestore;
+
+import static org.jboss.as.ejb3.logging.EjbLogger.ROOT_LOGGER;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import javax.ejb.ScheduleExpression;
+
+import org.jboss.as.ejb3.timerservice.CalendarTimer;
+import org.jboss.as.ejb3.timerservice.TimerImpl;
+import org.jboss.as.ejb3.timerservice.TimerServiceImpl;
+import org.jboss.as.ejb3.timerservice.TimerState;
+import org.jboss.as.ejb3.timerservice.persistence.TimeoutMethod;
+import org.jboss.marshalling.ByteBufferInput;
+import org.jboss.marshalling.Marshaller;
+import org.jboss.marshalling.MarshallerFactory;
+import org.jboss.marshalling.MarshallingConfiguration;
+import org.jboss.marshalling.OutputStreamByteOutput;
+import org.jboss.marshalling.Unmarshaller;
+
+/**
+ * Append-only binary journal holding the persistent timers of a single timed object.
+ * <p/>
+ * Every change to a timer is appended to the active segment as a length prefixed, checksummed record. The latest
+ * record of every live timer is also kept in memory, so the journal can be compacted into a fresh segment without
+ * reading it back. Segments are replayed in order on start, and an incomplete record left behind by a crash ends the
+ * replay of its segment. A compacted segment ends its live records with a marker, once durable, so that any older
+ * segment that could not be deleted is ignored by the replay.
+ * <p/>
+ * Instances are not thread safe, all access must be guarded by the lock of the timed object.
+ */
+final class TimerJournal implements Closeable {
+
+    static final String SEGMENT_PREFIX = "timers-";
+    static final String SEGMENT_SUFFIX = ".journal";
+
+    private static final int MAGIC = 0x454a544a;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+    private static final byte COMPACTED = 3;
+
+    private static final byte TIMER = 1;
+    private static final byte CALENDAR_TIMER = 2;
+
+    private static final FileFilter SEGMENT_FILTER = new FileFilter() {
+        @Override
+        public boolean accept(final File file) {
+            return file.isFile() && file.getName().startsWith(SEGMENT_PREFIX) && file.getName().endsWith(SEGMENT_SUFFIX) && sequence(file) >= 0;
+        }
+    };
+
+    private static final Comparator<File> SEGMENT_ORDER = new Comparator<File>() {
+        @Override
+        public int compare(final File o1, final File o2) {
+            final long s1 = sequence(o1);
+            final long s2 = sequence(o2);
+            return s1 < s2 ? -1 : (s1 == s2 ? 0 : 1);
+        }
+    };
+
+    private final String timedObjectId;
+    private final File directory;
+    private final long segmentSize;
+    private final MarshallerFactory factory;
+    private final MarshallingConfiguration configuration;
+
+    /**
+     * The latest record of every live timer, keyed by timer id
+     */
+    private final Map<String, byte[]> timers = new LinkedHashMap<>();
+    private final List<File> segments = new ArrayList<>();
+    private FileChannel channel;
+    private long sequence;
+    /**
+     * The number of records held by all segments, live or not
+     */
+    private int records;
+    /**
+     * Whether the last replayed segment was found to be compacted
+     */
+    private boolean compacted;
+
+    TimerJournal(final String timedObjectId, final File directory, final long segmentSize, final MarshallerFactory factory, final MarshallingConfiguration configuration) {
+        this.timedObjectId = timedObjectId;
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.factory = factory;
+        this.configuration = configuration;
+    }
+
+    /**
+     * Replays the existing segments and opens the journal for writing. If the segments hold superseded records
+     * they are compacted first.
+     */
+    void open() throws IOException {
+        final File[] files = directory.listFiles(SEGMENT_FILTER);
+        boolean clean = true;
+        if (files != null) {
+            Arrays.sort(files, SEGMENT_ORDER);
+            for (File file : files) {
+                final boolean complete = replay(file);
+                if (compacted) {
+                    // all previous segments are superseded by this one
+                    compacted = false;
+                    deleteSegments(new ArrayList<>(segments));
+                    clean = true;
+                }
+                clean &= complete;
+                segments.add(file);
+                sequence = sequence(file);
+            }
+        }
+        if (segments.isEmpty()) {
+            startSegment();
+        } else if (clean && segments.size() == 1 && records == timers.size()) {
+            channel = new FileOutputStream(segments.get(0), true).getChannel();
+        } else {
+            compact();
+        }
+    }
+
+    boolean contains(final String id) {
+        return timers.containsKey(id);
+    }
+
+    /**
+     * Appends the current state of the given timer.
+     *
+     * @return {@code false} if the timer could not be encoded, and was therefore not written
+     */
+    boolean write(final TimerImpl timer) throws IOException {
+        final byte[] record = encode(timer);
+        if (record == null) {
+            return false;
+        }
+        append(record);
+        timers.put(timer.getId(), record);
+        return true;
+    }
+
+    /**
+     * Forces the records written so far to the storage device.
+     */
+    void force() throws IOException {
+        channel.force(false);
+    }
+
+    /**
+     * Appends the removal of the given timer, if it is held by this journal.
+     */
+    void remove(final String id) throws IOException {
+        if (timers.remove(id) == null) {
+            return;
+        }
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(REMOVE);
+        out.writeUTF(id);
+        out.flush();
+        append(bytes.toByteArray());
+    }
+
+    /**
+     * Decodes the live timers of the journal.
+     */
+    Map<String, TimerImpl> load(final TimerServiceImpl timerService, final ClassLoader classLoader) {
+        final Map<String, TimerImpl> result = new HashMap<>();
+        for (Map.Entry<String, byte[]> entry : timers.entrySet()) {
+            try {
+                result.put(entry.getKey(), decode(entry.getValue(), timerService, classLoader));
+            } catch (Exception e) {
+                ROOT_LOGGER.timerReinstatementFailed(timedObjectId, entry.getKey(), e);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            try {
+                channel.force(false);
+            } finally {
+                channel.close();
+                channel = null;
+            }
+        }
+    }
+
+    private void append(final byte[] record) throws IOException {
+        if (channel.position() >= segmentSize) {
+            // more than half of the records are superseded, so rewriting the live ones is cheaper than keeping them
+            if (records - timers.size() > timers.size()) {
+                compact();
+            } else {
+                channel.close();
+                startSegment();
+            }
+        }
+        writeRecord(channel, record);
+        ++records;
+    }
+
+    /**
+     * Writes the live records to a new segment and deletes all older segments.
+     */
+    private void compact() throws IOException {
+        final List<File> obsolete = new ArrayList<>(segments);
+        if (channel != null) {
+            channel.close();
+        }
+        startSegment();
+        for (byte[] record : timers.values()) {
+            writeRecord(channel, record);
+        }
+        // the new segment must be durable before the records it replaces are ignored
+        channel.force(false);
+        writeRecord(channel, new byte[] { COMPACTED });
+        channel.force(false);
+        records = timers.size();
+        deleteSegments(obsolete);
+    }
+
+    /**
+     * Deletes the given segments, which are superseded by a compacted segment.
+     */
+    private void deleteSegments(final List<File> obsolete) {
+        for (File file : obsolete) {
+            if (file.delete() || !file.exists()) {
+                segments.remove(file);
+            } else {
+                // replay ignores the segment, as long as the compacted segment exists
+                ROOT_LOGGER.failedToDeleteTimerJournalSegment(file);
+            }
+        }
+    }
+
+    private void startSegment() throws IOException {
+        final File segment = new File(directory, SEGMENT_PREFIX + (++sequence) + SEGMENT_SUFFIX);
+        channel = new FileOutputStream(segment).getChannel();
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        segments.add(segment);
+    }
+
+    /**
+     * Applies the records of the given segment.
+     *
+     * @return {@code true} if every record of the segment could be read
+     */
+    private boolean replay(final File segment) throws IOException {
+        // the records of this segment, which are all that remain live if it turns out to be compacted
+        final List<byte[]> segmentRecords = new ArrayList<>();
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(segment)));
+        try {
+            long offset = 0;
+            try {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    ROOT_LOGGER.discardingTimerJournalRecord(offset, segment);
+                    return false;
+                }
+            } catch (EOFException e) {
+                ROOT_LOGGER.discardingTimerJournalRecord(offset, segment);
+                return false;
+            }
+            offset = HEADER_SIZE;
+            final CRC32 crc = new CRC32();
+            for (;;) {
+                final int first = in.read();
+                if (first < 0) {
+                    return true;
+                }
+                final byte[] record;
+                final int checksum;
+                try {
+                    final int length = (first << 24) | (in.readUnsignedByte() << 16) | in.readUnsignedShort();
+                    checksum = in.readInt();
+                    if (length <= 0 || length > segment.length() - offset - RECORD_HEADER_SIZE) {
+                        ROOT_LOGGER.discardingTimerJournalRecord(offset, segment);
+                        return false;
+                    }
+                    record = new byte[length];
+                    in.readFully(record);
+                } catch (EOFException e) {
+                    ROOT_LOGGER.discardingTimerJournalRecord(offset, segment);
+                    return false;
+                }
+                crc.reset();
+                crc.update(record);
+                if ((int) crc.getValue() != checksum) {
+                    ROOT_LOGGER.discardingTimerJournalRecord(offset, segment);
+                    return false;
+                }
+                if (record[0] == COMPACTED) {
+                    timers.clear();
+                    records = 0;
+                    for (byte[] live : segmentRecords) {
+                        apply(live);
+                        ++records;
+                    }
+                    compacted = true;
+                } else {
+                    apply(record);
+                    ++records;
+                    segmentRecords.add(record);
+                }
+                offset += RECORD_HEADER_SIZE + record.length;
+            }
+        } finally {
+            safeClose(in);
+        }
+    }
+
+    private void apply(final byte[] record) throws IOException {
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(record, 1, record.length - 1));
+        final String id = in.readUTF();
+        if (record[0] == PUT) {
+            timers.put(id, record);
+        } else {
+            timers.remove(id);
+        }
+    }
+
+    private byte[] encode(final TimerImpl timer) throws IOException {
+        final byte[] info;
+        final byte[] primaryKey;
+        try {
+            info = marshal(timer.getTimerInfo());
+            primaryKey = marshal(timer.getPrimaryKey());
+        } catch (Exception e) {
+            ROOT_LOGGER.failedToPersistTimer(timer.getId(), timer.getTimedObjectId(), e);
+            return null;
+        }
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(PUT);
+        out.writeUTF(timer.getId());
+        writeDate(out, timer.getInitialExpiration());
+        writeDate(out, timer.getNextExpiration());
+        writeDate(out, timer.getPreviousRun());
+        out.writeUTF(timer.getState().name());
+        writeBytes(out, info);
+        writeBytes(out, primaryKey);
+        if (timer instanceof CalendarTimer) {
+            final CalendarTimer calendarTimer = (CalendarTimer) timer;
+            final ScheduleExpression schedule = calendarTimer.getScheduleExpression();
+            out.writeByte(CALENDAR_TIMER);
+            writeString(out, schedule.getSecond());
+            writeString(out, schedule.getMinute());
+            writeString(out, schedule.getHour());
+            writeString(out, schedule.getDayOfWeek());
+            writeString(out, schedule.getDayOfMonth());
+            writeString(out, schedule.getMonth());
+            writeString(out, schedule.getYear());
+            writeDate(out, schedule.getStart());
+            writeDate(out, schedule.getEnd());
+            writeString(out, schedule.getTimezone());
+            out.writeBoolean(calendarTimer.isAutoTimer());
+            if (calendarTimer.isAutoTimer()) {
+                final Method method = calendarTimer.getTimeoutMethod();
+                out.writeUTF(method.getDeclaringClass().getName());
+                out.writeUTF(method.getName());
+                final Class<?>[] parameterTypes = method.getParameterTypes();
+                out.writeInt(parameterTypes.length);
+                for (Class<?> parameterType : parameterTypes) {
+                    out.writeUTF(parameterType.getName());
+                }
+            }
+        } else {
+            out.writeByte(TIMER);
+            out.writeLong(timer.getInterval());
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private TimerImpl decode(final byte[] record, final TimerServiceImpl timerService, final ClassLoader classLoader) throws IOException, ClassNotFoundException {
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(record, 1, record.length - 1));
+        final String id = in.readUTF();
+        final Date initialDate = readDate(in);
+        final Date nextDate = readDate(in);
+        final Date previousRun = readDate(in);
+        final TimerState state = TimerState.valueOf(in.readUTF());
+        final byte[] info = readBytes(in);
+        final byte[] primaryKey = readBytes(in);
+        final TimerImpl.Builder builder;
+        if (in.readByte() == CALENDAR_TIMER) {
+            final CalendarTimer.Builder calendarBuilder = CalendarTimer.builder();
+            calendarBuilder.setScheduleExprSecond(readString(in));
+            calendarBuilder.setScheduleExprMinute(readString(in));
+            calendarBuilder.setScheduleExprHour(readString(in));
+            calendarBuilder.setScheduleExprDayOfWeek(readString(in));
+            calendarBuilder.setScheduleExprDayOfMonth(readString(in));
+            calendarBuilder.setScheduleExprMonth(readString(in));
+            calendarBuilder.setScheduleExprYear(readString(in));
+            calendarBuilder.setScheduleExprStartDate(readDate(in));
+            calendarBuilder.setScheduleExprEndDate(readDate(in));
+            calendarBuilder.setScheduleExprTimezone(readString(in));
+            final boolean autoTimer = in.readBoolean();
+            calendarBuilder.setAutoTimer(autoTimer);
+            if (autoTimer) {
+                final String className = in.readUTF();
+                final String methodName = in.readUTF();
+                final String[] params = new String[in.readInt()];
+                for (int i = 0; i < params.length; ++i) {
+                    params[i] = in.readUTF();
+                }
+                calendarBuilder.setTimeoutMethod(CalendarTimer.getTimeoutMethod(new TimeoutMethod(className, methodName, params), classLoader));
+            }
+            builder = calendarBuilder;
+        } else {
+            builder = TimerImpl.builder();
+            builder.setRepeatInterval(in.readLong());
+        }
+        builder.setId(id);
+        builder.setTimedObjectId(timedObjectId);
+        builder.setInitialDate(initialDate);
+        builder.setNextDate(nextDate);
+        builder.setPreviousRun(previousRun);
+        builder.setTimerState(state);
+        if (info != null) {
+            builder.setInfo((Serializable) unmarshal(info));
+        }
+        if (primaryKey != null) {
+            builder.setPrimaryKey(unmarshal(primaryKey));
+        }
+        return builder.build(timerService);
+    }
+
+    private byte[] marshal(final Object object) throws IOException {
+        if (object == null) {
+            return null;
+        }
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final Marshaller marshaller = factory.createMarshaller(configuration);
+        marshaller.start(new OutputStreamByteOutput(out));
+        marshaller.writeObject(object);
+        marshaller.finish();
+        return out.toByteArray();
+    }
+
+    private Object unmarshal(final byte[] data) throws IOException, ClassNotFoundException {
+        final Unmarshaller unmarshaller = factory.createUnmarshaller(configuration);
+        unmarshaller.start(new ByteBufferInput(ByteBuffer.wrap(data)));
+        try {
+            return unmarshaller.readObject();
+        } finally {
+            unmarshaller.close();
+        }
+    }
+
+    private static void writeRecord(final FileChannel channel, final byte[] record) throws IOException {
+        final CRC32 crc = new CRC32();
+        crc.update(record);
+        final ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER_SIZE + record.length);
+        buffer.putInt(record.length).putInt((int) crc.getValue()).put(record).flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void writeDate(final DataOutputStream out, final Date date) throws IOException {
+        out.writeBoolean(date != null);
+        if (date != null) {
+            out.writeLong(date.getTime());
+        }
+    }
+
+    private static Date readDate(final DataInputStream in) throws IOException {
+        return in.readBoolean() ? new Date(in.readLong()) : null;
+    }
+
+    private static void writeString(final DataOutputStream out, final String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(final DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeBytes(final DataOutputStream out, final byte[] bytes) throws IOException {
+        out.writeInt(bytes == null ? -1 : bytes.length);
+        if (bytes != null) {
+            out.write(bytes);
+        }
+    }
+
+    private static byte[] readBytes(final DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private static long sequence(final File segment) {
+        final String name = segment.getName();
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            return -1;
+        }
+    }
+
+    private static void safeClose(final Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice.scheduler;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jboss.as.ejb3.timerservice.spi.TimerScheduler;
+
+/**
+ * Thread safe dispatch lag statistics shared by the {@link TimerScheduler} implementations.
+ */
+class DispatchStatistics implements TimerScheduler.Statistics {
+
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalLag = new AtomicLong();
+    private final AtomicLong maxLag = new AtomicLong();
+
+    /**
+     * Records the dispatch of a task.
+     *
+     * @param lag the dispatch lag of the task, in milliseconds
+     */
+    void record(final long lag) {
+        final long value = Math.max(lag, 0L);
+        this.count.incrementAndGet();
+        this.totalLag.addAndGet(value);
+        long max = this.maxLag.get();
+        while (value > max) {
+            if (this.maxLag.compareAndSet(max, value)) {
+                break;
+            }
+            max = this.maxLag.get();
+        }
+    }
+
+    @Override
+    public long getDispatchCount() {
+        return this.count.get();
+    }
+
+    @Override
+    public long getAverageDispatchLag() {
+        final long count = this.count.get();
+        return (count > 0) ? this.totalLag.get() / count : 0L;
+    }
+
+    @Override
+    public long getMaxDispatchLag() {
+        return this.maxLag.get();
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice.scheduler;
+
+import java.util.Timer;
+import java.util.TimerTask;
+
+import org.jboss.as.ejb3.timerservice.spi.TimerScheduler;
+
+/**
+ * {@link TimerScheduler} backed by a single shared {@link Timer}. Every task is executed by the single thread of the
+ * timer.
+ */
+public class JavaUtilTimerScheduler implements TimerScheduler {
+
+    private final Timer timer;
+    private final DispatchStatistics statistics = new DispatchStatistics();
+
+    public JavaUtilTimerScheduler(final Timer timer) {
+        this.timer = timer;
+    }
+
+    @Override
+    public ScheduledTask schedule(final Runnable task, final long delay) {
+        final Task timerTask = new Task(task);
+        this.timer.schedule(timerTask, delay);
+        return timerTask;
+    }
+
+    @Override
+    public ScheduledTask scheduleAtFixedRate(final Runnable task, final long delay, final long period) {
+        final Task timerTask = new Task(task);
+        this.timer.scheduleAtFixedRate(timerTask, delay, period);
+        return timerTask;
+    }
+
+    @Override
+    public void purge() {
+        this.timer.purge();
+    }
+
+    @Override
+    public Statistics getStatistics() {
+        return this.statistics;
+    }
+
+    private class Task extends TimerTask implements ScheduledTask {
+        private final Runnable task;
+
+        Task(final Runnable task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            JavaUtilTimerScheduler.this.statistics.record(System.currentTimeMillis() - this.scheduledExecutionTime());
+            this.task.run();
+        }
+    }
+}
@@ -0,0 +1,334 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice.scheduler;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.as.ejb3.timerservice.spi.TimerScheduler;
+
+/**
+ * {@link TimerScheduler} based on a hashed timing wheel.
+ * <p/>
+ * Scheduling and cancelling a task are O(1) and lock free: new and cancelled tasks are queued, and are moved into (or
+ * unlinked from) the buckets of the wheel by a single ticker thread, which advances the wheel once per tick. Tasks
+ * whose deadline is further away than one revolution of the wheel are kept in their bucket for the remaining number of
+ * rounds. Expired tasks are dispatched to a pool of worker threads, so a slow task never delays the expiration of
+ * other tasks.
+ * <p/>
+ * Tasks are executed no earlier than their deadline, and at most one tick later, provided the workers keep up.
+ */
+public class TimingWheelScheduler implements TimerScheduler {
+
+    private static final int INIT = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    // Upper bound on the number of queued tasks moved into the wheel per tick, so that a burst of new tasks cannot starve expiration
+    private static final int MAX_TRANSFERS_PER_TICK = 100000;
+
+    private final long tickDuration;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Queue<Timeout> pendingTimeouts = new ConcurrentLinkedQueue<Timeout>();
+    private final Queue<Timeout> cancelledTimeouts = new ConcurrentLinkedQueue<Timeout>();
+    private final DispatchStatistics statistics = new DispatchStatistics();
+    private final ExecutorService workers;
+    private final Thread ticker;
+
+    private volatile long startTime;
+    private volatile boolean running;
+    // Only accessed by the ticker thread
+    private long tick;
+
+    /**
+     * Creates a new timing wheel scheduler.
+     *
+     * @param threadFactory the factory for the ticker and worker threads
+     * @param tickDuration  the duration of a tick, in milliseconds
+     * @param wheelSize     the number of buckets of the wheel, rounded up to the next power of 2
+     * @param workerCount   the number of threads which execute expired tasks
+     */
+    public TimingWheelScheduler(final ThreadFactory threadFactory, final long tickDuration, final int wheelSize, final int workerCount) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException(String.valueOf(tickDuration));
+        }
+        if (workerCount <= 0) {
+            throw new IllegalArgumentException(String.valueOf(workerCount));
+        }
+        this.tickDuration = TimeUnit.MILLISECONDS.toNanos(tickDuration);
+        int size = 1;
+        while (size < wheelSize) {
+            size <<= 1;
+        }
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; ++i) {
+            this.wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.workers = Executors.newFixedThreadPool(workerCount, threadFactory);
+        this.ticker = threadFactory.newThread(new Ticker());
+    }
+
+    public void start() {
+        this.startTime = System.nanoTime();
+        this.running = true;
+        this.ticker.start();
+    }
+
+    public void stop() {
+        this.running = false;
+        this.ticker.interrupt();
+        try {
+            this.ticker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        this.workers.shutdownNow();
+    }
+
+    @Override
+    public ScheduledTask schedule(final Runnable task, final long delay) {
+        return this.schedule(task, delay, 0L);
+    }
+
+    @Override
+    public ScheduledTask scheduleAtFixedRate(final Runnable task, final long delay, final long period) {
+        if (period <= 0) {
+            throw new IllegalArgumentException(String.valueOf(period));
+        }
+        return this.schedule(task, delay, period);
+    }
+
+    private ScheduledTask schedule(final Runnable task, final long delay, final long period) {
+        final long deadline = saturatedAdd(System.nanoTime() - this.startTime, TimeUnit.MILLISECONDS.toNanos(Math.max(delay, 0L)));
+        final Timeout timeout = new Timeout(task, deadline, TimeUnit.MILLISECONDS.toNanos(period));
+        this.pendingTimeouts.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Adds two non-negative values, clamping the result to {@link Long#MAX_VALUE}, so that far-future deadlines do not overflow into the past.
+     */
+    private static long saturatedAdd(final long value, final long increment) {
+        return (increment > Long.MAX_VALUE - value) ? Long.MAX_VALUE : value + increment;
+    }
+
+    @Override
+    public void purge() {
+        // Cancelled tasks are unlinked from the wheel on the next tick
+    }
+
+    @Override
+    public Statistics getStatistics() {
+        return this.statistics;
+    }
+
+    /**
+     * @return the number of tasks waiting to be moved into the wheel
+     */
+    public int getPendingCount() {
+        return this.pendingTimeouts.size();
+    }
+
+    void transferCancelledTimeouts() {
+        Timeout timeout = this.cancelledTimeouts.poll();
+        while (timeout != null) {
+            final Bucket bucket = timeout.bucket;
+            if (bucket != null) {
+                bucket.remove(timeout);
+            }
+            timeout = this.cancelledTimeouts.poll();
+        }
+    }
+
+    void transferPendingTimeouts() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; ++i) {
+            final Timeout timeout = this.pendingTimeouts.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.state.get() == CANCELLED) {
+                continue;
+            }
+            final long calculated = timeout.deadline / this.tickDuration;
+            timeout.remainingRounds = (calculated - this.tick) / this.wheel.length;
+            // Deadlines that have already passed are expired on the current tick
+            final long ticks = Math.max(calculated, this.tick);
+            this.wheel[(int) (ticks & this.mask)].add(timeout);
+        }
+    }
+
+    void expire(final Timeout timeout) {
+        if (timeout.period > 0) {
+            if (timeout.state.get() != INIT) {
+                return;
+            }
+            // Reschedule relative to the previous deadline, to preserve the fixed rate
+            final long deadline = timeout.deadline;
+            timeout.deadline = saturatedAdd(timeout.deadline, timeout.period);
+            this.pendingTimeouts.add(timeout);
+            this.dispatch(timeout, deadline);
+        } else if (timeout.state.compareAndSet(INIT, EXPIRED)) {
+            this.dispatch(timeout, timeout.deadline);
+        }
+    }
+
+    private void dispatch(final Timeout timeout, final long deadline) {
+        final long lag = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - this.startTime - deadline);
+        this.workers.execute(new Runnable() {
+            @Override
+            public void run() {
+                TimingWheelScheduler.this.statistics.record(lag);
+                timeout.task.run();
+            }
+        });
+    }
+
+    private class Ticker implements Runnable {
+        @Override
+        public void run() {
+            while (TimingWheelScheduler.this.running) {
+                final long deadline = this.waitForNextTick();
+                if (deadline < 0) {
+                    continue;
+                }
+                TimingWheelScheduler.this.transferCancelledTimeouts();
+                TimingWheelScheduler.this.transferPendingTimeouts();
+                TimingWheelScheduler.this.wheel[(int) (TimingWheelScheduler.this.tick & TimingWheelScheduler.this.mask)].expire(deadline);
+                TimingWheelScheduler.this.tick += 1;
+            }
+        }
+
+        /**
+         * Waits until the end of the current tick.
+         * @return the deadline of the current tick, relative to the start time, or -1 if interrupted
+         */
+        private long waitForNextTick() {
+            final long deadline = TimingWheelScheduler.this.tickDuration * (TimingWheelScheduler.this.tick + 1);
+            long remaining = deadline - (System.nanoTime() - TimingWheelScheduler.this.startTime);
+            while (remaining > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(remaining);
+                } catch (InterruptedException e) {
+                    return -1;
+                }
+                remaining = deadline - (System.nanoTime() - TimingWheelScheduler.this.startTime);
+            }
+            return deadline;
+        }
+    }
+
+    /**
+     * Doubly linked list of the timeouts that hash to a given slot of the wheel. Only accessed by the ticker thread.
+     */
+    private class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(final Timeout timeout) {
+            timeout.bucket = this;
+            if (this.head == null) {
+                this.head = this.tail = timeout;
+            } else {
+                this.tail.next = timeout;
+                timeout.prev = this.tail;
+                this.tail = timeout;
+            }
+        }
+
+        void expire(final long deadline) {
+            Timeout timeout = this.head;
+            while (timeout != null) {
+                final Timeout next = timeout.next;
+                if (timeout.state.get() == CANCELLED) {
+                    this.remove(timeout);
+                } else if (timeout.remainingRounds <= 0) {
+                    this.remove(timeout);
+                    if (timeout.deadline <= deadline) {
+                        TimingWheelScheduler.this.expire(timeout);
+                    } else {
+                        // Cannot happen, as the timeout was placed into this bucket according to its deadline
+                        TimingWheelScheduler.this.pendingTimeouts.add(timeout);
+                    }
+                } else {
+                    timeout.remainingRounds -= 1;
+                }
+                timeout = next;
+            }
+        }
+
+        void remove(final Timeout timeout) {
+            if (timeout.bucket != this) {
+                return;
+            }
+            final Timeout next = timeout.next;
+            if (timeout.prev != null) {
+                timeout.prev.next = next;
+            }
+            if (next != null) {
+                next.prev = timeout.prev;
+            }
+            if (timeout == this.head) {
+                this.head = next;
+            }
+            if (timeout == this.tail) {
+                this.tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+
+    private class Timeout implements ScheduledTask {
+        final Runnable task;
+        final long period;
+        final AtomicInteger state = new AtomicInteger(INIT);
+        // The following fields are only accessed by the ticker thread
+        long deadline;
+        long remainingRounds;
+        Bucket bucket;
+        Timeout prev;
+        Timeout next;
+
+        Timeout(final Runnable task, final long deadline, final long period) {
+            this.task = task;
+            this.deadline = deadline;
+            this.period = period;
+        }
+
+        @Override
+        public boolean cancel() {
+            if (!this.state.compareAndSet(INIT, CANCELLED)) {
+                return false;
+            }
+            TimingWheelScheduler.this.cancelledTimeouts.add(this);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice.spi;
+
+/**
+ * Schedules the timeouts of the timers of the EJB timer service.
+ * <p/>
+ * Implementations must be thread safe, as timeouts are scheduled and cancelled concurrently by all timer services.
+ */
+public interface TimerScheduler {
+
+    /**
+     * Schedules the passed task for a single execution.
+     *
+     * @param task  the task to execute
+     * @param delay the delay, in milliseconds, after which the task should be executed
+     * @return a handle that can be used to cancel the task
+     */
+    ScheduledTask schedule(Runnable task, long delay);
+
+    /**
+     * Schedules the passed task for repeated fixed rate execution, until it is cancelled.
+     *
+     * @param task   the task to execute
+     * @param delay  the delay, in milliseconds, after which the task should first be executed
+     * @param period the interval, in milliseconds, between successive executions
+     * @return a handle that can be used to cancel the task
+     */
+    ScheduledTask scheduleAtFixedRate(Runnable task, long delay, long period);
+
+    /**
+     * Releases any resources retained by cancelled tasks.
+     */
+    void purge();
+
+    /**
+     * @return statistics about the timeliness of executed tasks
+     */
+    Statistics getStatistics();
+
+    /**
+     * A task scheduled by a {@link TimerScheduler}.
+     */
+    interface ScheduledTask {
+        /**
+         * Cancels any future executions of this task.
+         *
+         * @return true, if this call prevented an execution of this task, false otherwise
+         */
+        boolean cancel();
+    }
+
+    /**
+     * Statistics about the dispatch lag of a {@link TimerScheduler}, i.e. the delay between the time at which a task
+     * was scheduled to execute and the time at which it was dispatched.
+     */
+    interface Statistics {
+        /**
+         * @return the number of task executions dispatched by the scheduler
+         */
+        long getDispatchCount();
+
+        /**
+         * @return the average dispatch lag, in milliseconds
+         */
+        long getAverageDispatchLag();
+
+        /**
+         * @return the maximum dispatch lag, in milliseconds
+         */
+        long getMaxDispatchLag();
+    }
+}
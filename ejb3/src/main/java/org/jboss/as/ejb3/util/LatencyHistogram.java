@@ -0,0 +1,106 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.ejb3.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of durations, counted in fixed power-of-ten buckets from one microsecond up to one second.
+ * <p/>
+ * The counts are kept per stripe, with each stripe on its own cache lines, so that threads which record into
+ * different stripes do not contend with each other. The counts of all stripes are summed when read.
+ */
+public final class LatencyHistogram {
+
+    private static final long[] BOUNDS = {
+            TimeUnit.MICROSECONDS.toNanos(1),
+            TimeUnit.MICROSECONDS.toNanos(10),
+            TimeUnit.MICROSECONDS.toNanos(100),
+            TimeUnit.MILLISECONDS.toNanos(1),
+            TimeUnit.MILLISECONDS.toNanos(10),
+            TimeUnit.MILLISECONDS.toNanos(100),
+            TimeUnit.SECONDS.toNanos(1)
+    };
+
+    /**
+     * The number of buckets, the last bucket counts all durations above the largest bound.
+     */
+    public static final int BUCKETS = BOUNDS.length + 1;
+
+    // 16 longs span two 64 byte cache lines, which keeps the buckets of neighbouring stripes apart
+    private static final int STRIDE = 16;
+
+    private final int stripes;
+    private final AtomicLongArray counts;
+
+    public LatencyHistogram(final int stripes) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException(String.valueOf(stripes));
+        }
+        this.stripes = stripes;
+        this.counts = new AtomicLongArray(stripes * STRIDE);
+    }
+
+    /**
+     * Records a duration.
+     *
+     * @param stripe the stripe to record into, callers should use a value that is stable for the current thread
+     * @param nanos  the duration in nanoseconds
+     */
+    public void record(final int stripe, final long nanos) {
+        int bucket = 0;
+        while (bucket < BOUNDS.length && nanos > BOUNDS[bucket]) {
+            ++bucket;
+        }
+        counts.incrementAndGet((stripe % stripes) * STRIDE + bucket);
+    }
+
+    /**
+     * Returns the number of recorded durations per bucket.
+     *
+     * @return an array of {@link #BUCKETS} counts, in order of increasing duration
+     */
+    public long[] getCounts() {
+        final long[] result = new long[BUCKETS];
+        for (int stripe = 0; stripe < stripes; ++stripe) {
+            for (int bucket = 0; bucket < BUCKETS; ++bucket) {
+                result[bucket] += counts.get(stripe * STRIDE + bucket);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the inclusive upper bounds of all but the last bucket.
+     *
+     * @param unit the unit of the returned bounds
+     */
+    public static long[] getBucketBounds(final TimeUnit unit) {
+        final long[] result = new long[BOUNDS.length];
+        for (int i = 0; i < BOUNDS.length; ++i) {
+            result[i] = unit.convert(BOUNDS[i], TimeUnit.NANOSECONDS);
+        }
+        return result;
+    }
+}
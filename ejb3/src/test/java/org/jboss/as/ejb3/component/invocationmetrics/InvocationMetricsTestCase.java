@@ -0,0 +1,127 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.ejb3.component.invocationmetrics;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link InvocationMetrics}.
+ */
+public class InvocationMetricsTestCase {
+
+    @Test
+    public void testOverloadedMethods() throws Exception {
+        final InvocationMetrics metrics = new InvocationMetrics();
+        final Method byString = Bean.class.getMethod("invoke", String.class);
+        final Method byArray = Bean.class.getMethod("invoke", int[][].class);
+
+        for (int i = 0; i < 3; ++i) {
+            metrics.startInvocation();
+            metrics.finishInvocation(byString, TimeUnit.MILLISECONDS.toNanos(2), TimeUnit.MILLISECONDS.toNanos(5));
+        }
+        metrics.startInvocation();
+        metrics.finishInvocation(byArray, 0, 500);
+
+        assertEquals(4, metrics.getInvocations());
+        assertEquals(15, metrics.getExecutionTime());
+        assertEquals(6, metrics.getWaitTime());
+        assertEquals(0, metrics.getConcurrent());
+
+        final Map<String, InvocationMetrics.Values> methods = metrics.getMethods();
+        assertEquals(2, methods.size());
+        assertEquals(3, methods.get("invoke(java.lang.String)").getInvocations());
+        assertEquals(15, methods.get("invoke(java.lang.String)").getExecutionTime());
+        assertEquals(1, methods.get("invoke(int[][])").getInvocations());
+
+        final long[] histogram = metrics.getExecutionTimeHistogram();
+        // 500ns is within the first bucket, 5ms within the one up to 10ms
+        assertEquals(1, histogram[0]);
+        assertEquals(3, histogram[4]);
+    }
+
+    @Test
+    public void testConcurrentInvocations() throws Exception {
+        final InvocationMetrics metrics = new InvocationMetrics();
+        final Method method = Bean.class.getMethod("invoke", String.class);
+        final Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; ++i) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 10000; ++j) {
+                        metrics.startInvocation();
+                        metrics.finishInvocation(method, 0, 1);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(80000, metrics.getInvocations());
+        assertEquals(80000, metrics.getMethods().get("invoke(java.lang.String)").getInvocations());
+        assertEquals(0, metrics.getConcurrent());
+    }
+
+    @Test
+    public void testSameSignatureOnDifferentViews() throws Exception {
+        final InvocationMetrics metrics = new InvocationMetrics();
+        final Method local = LocalView.class.getMethod("invoke", String.class);
+        final Method remote = RemoteView.class.getMethod("invoke", String.class);
+
+        metrics.startInvocation();
+        metrics.finishInvocation(local, 0, TimeUnit.MILLISECONDS.toNanos(3));
+        metrics.startInvocation();
+        metrics.finishInvocation(remote, 0, TimeUnit.MILLISECONDS.toNanos(4));
+        metrics.startInvocation();
+        metrics.finishInvocation(remote, 0, TimeUnit.MILLISECONDS.toNanos(4));
+
+        final Map<String, InvocationMetrics.Values> methods = metrics.getMethods();
+        assertEquals(1, methods.size());
+        assertEquals(3, methods.get("invoke(java.lang.String)").getInvocations());
+        assertEquals(11, methods.get("invoke(java.lang.String)").getExecutionTime());
+    }
+
+    public interface LocalView {
+        void invoke(String value);
+    }
+
+    public interface RemoteView {
+        void invoke(String value);
+    }
+
+    public static class Bean {
+        public void invoke(String value) {
+        }
+
+        public void invoke(int[][] values) {
+        }
+    }
+}
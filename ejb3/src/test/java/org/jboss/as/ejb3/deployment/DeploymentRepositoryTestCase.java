@@ -0,0 +1,85 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.ejb3.deployment;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Tests the started module snapshot maintained by {@link DeploymentRepository}.
+ */
+public class DeploymentRepositoryTestCase {
+
+    @Test
+    public void testStartedModules() throws Exception {
+        DeploymentRepository repository = new DeploymentRepository();
+        repository.start(null);
+
+        DeploymentModuleIdentifier identifier = new DeploymentModuleIdentifier("app", "module", "");
+        ModuleDeployment deployment = new ModuleDeployment(identifier, Collections.<String, EjbDeploymentInformation>emptyMap());
+
+        repository.add(identifier, deployment);
+        assertTrue(repository.getModules().containsKey(identifier));
+        assertFalse(repository.getStartedModules().containsKey(identifier));
+        assertNull(repository.getStartedModule(identifier));
+
+        Map<DeploymentModuleIdentifier, ModuleDeployment> snapshot = repository.getStartedModules();
+
+        repository.startDeployment(identifier);
+        assertSame(deployment, repository.getStartedModule(identifier));
+        assertSame(deployment, repository.getStartedModules().get(identifier));
+        // Previously obtained snapshots are unaffected
+        assertFalse(snapshot.containsKey(identifier));
+
+        repository.remove(identifier);
+        assertFalse(repository.getModules().containsKey(identifier));
+        assertNull(repository.getStartedModule(identifier));
+        assertTrue(repository.getStartedModules().isEmpty());
+    }
+
+    @Test
+    public void testReAddedModuleIsNotStarted() throws Exception {
+        DeploymentRepository repository = new DeploymentRepository();
+        repository.start(null);
+
+        DeploymentModuleIdentifier identifier = new DeploymentModuleIdentifier("app", "module", "");
+        ModuleDeployment deployment = new ModuleDeployment(identifier, Collections.<String, EjbDeploymentInformation>emptyMap());
+        repository.add(identifier, deployment);
+        repository.startDeployment(identifier);
+
+        ModuleDeployment redeployment = new ModuleDeployment(identifier, Collections.<String, EjbDeploymentInformation>emptyMap());
+        repository.add(identifier, redeployment);
+        assertNull(repository.getStartedModule(identifier));
+        assertFalse(repository.getStartedModules().containsKey(identifier));
+
+        repository.startDeployment(identifier);
+        assertSame(redeployment, repository.getStartedModule(identifier));
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.ejb3.deployment;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Method;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.jboss.as.ee.component.ComponentView;
+import org.junit.Test;
+
+/**
+ * Tests {@link ViewMethodIndex} lookups by wire-level method name and signature.
+ */
+public class ViewMethodIndexTestCase {
+
+    public interface Remote {
+        void noArgs();
+        String echo(String value);
+        String echo(String value, int count);
+        long[] sum(long[] values, Object[] objects);
+    }
+
+    @Test
+    public void testLookup() throws Exception {
+        Set<Method> methods = new HashSet<Method>();
+        for (Method method : Remote.class.getMethods()) {
+            methods.add(method);
+        }
+        ComponentView view = mock(ComponentView.class);
+        when(view.getViewMethods()).thenReturn(methods);
+
+        ViewMethodIndex index = new ViewMethodIndex(view);
+
+        assertEquals(Remote.class.getMethod("noArgs"), index.getMethod("noArgs", ""));
+        assertEquals(Remote.class.getMethod("echo", String.class), index.getMethod("echo", "java.lang.String"));
+        assertEquals(Remote.class.getMethod("echo", String.class, int.class), index.getMethod("echo", "java.lang.String,int"));
+        assertEquals(Remote.class.getMethod("sum", long[].class, Object[].class), index.getMethod("sum", "[J,[Ljava.lang.Object;"));
+
+        assertNull(index.getMethod("echo", "java.lang.Object"));
+        assertNull(index.getMethod("missing", ""));
+    }
+
+    @Test
+    public void testParameterCount() {
+        assertEquals(0, ViewMethodIndex.getParameterCount(""));
+        assertEquals(1, ViewMethodIndex.getParameterCount("java.lang.String"));
+        assertEquals(3, ViewMethodIndex.getParameterCount("java.lang.String,int,[J"));
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.ejb3.pool.striped;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.ejb.EJBException;
+
+import org.jboss.as.ejb3.pool.common.MockBean;
+import org.jboss.as.ejb3.pool.common.MockFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the {@link StripedPool}. Stands in for a micro benchmark: the contended case exercises the lock free
+ * fast path together with the waiting slow path.
+ */
+public class StripedPoolTestCase {
+
+    @Before
+    public void setUp() {
+        MockBean.reset();
+    }
+
+    @Test
+    public void testGetAndRelease() {
+        StripedPool<MockBean> pool = new StripedPool<MockBean>(new MockFactory(), 10, 4, 1, TimeUnit.SECONDS);
+        pool.start();
+
+        MockBean[] beans = new MockBean[10];
+        for (int i = 0; i < beans.length; i++) {
+            beans[i] = pool.get();
+        }
+        assertEquals(0, pool.getAvailableCount());
+        for (MockBean bean : beans) {
+            pool.release(bean);
+        }
+        assertEquals(10, pool.getAvailableCount());
+        // released instances are reused
+        for (int i = 0; i < beans.length; i++) {
+            pool.release(pool.get());
+        }
+        pool.stop();
+
+        assertEquals(10, MockBean.getPostConstructs());
+        assertEquals(10, MockBean.getPreDestroys());
+
+        long acquisitions = 0;
+        for (long count : pool.getAcquisitionTimes()) {
+            acquisitions += count;
+        }
+        assertEquals(20, acquisitions);
+    }
+
+    @Test
+    public void testTooMany() {
+        StripedPool<MockBean> pool = new StripedPool<MockBean>(new MockFactory(), 2, 2, 100, TimeUnit.MILLISECONDS);
+        pool.start();
+        MockBean first = pool.get();
+        MockBean second = pool.get();
+        try {
+            pool.get();
+            fail("should have thrown an exception");
+        } catch (EJBException expected) {
+        }
+        pool.release(first);
+        pool.release(second);
+        pool.stop();
+        assertEquals(2, MockBean.getPreDestroys());
+    }
+
+    @Test
+    public void testContended() throws Exception {
+        final int maxSize = 4;
+        final StripedPool<MockBean> pool = new StripedPool<MockBean>(new MockFactory(), maxSize, 8, 60, TimeUnit.SECONDS);
+        pool.start();
+        final AtomicInteger inUse = new AtomicInteger();
+        final AtomicInteger maxInUse = new AtomicInteger();
+        Callable<Void> task = new Callable<Void>() {
+            @Override
+            public Void call() {
+                for (int i = 0; i < 1000; i++) {
+                    MockBean bean = pool.get();
+                    int current = inUse.incrementAndGet();
+                    int max = maxInUse.get();
+                    while (current > max && !maxInUse.compareAndSet(max, current)) {
+                        max = maxInUse.get();
+                    }
+                    inUse.decrementAndGet();
+                    pool.release(bean);
+                }
+                return null;
+            }
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        try {
+            List<Future<Void>> results = new ArrayList<Future<Void>>();
+            for (int i = 0; i < 32; i++) {
+                results.add(executor.submit(task));
+            }
+            for (Future<Void> result : results) {
+                result.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        pool.stop();
+
+        assertTrue(maxInUse.get() <= maxSize);
+        assertTrue(MockBean.getPostConstructs() <= maxSize);
+        assertEquals(MockBean.getPostConstructs(), MockBean.getPreDestroys());
+    }
+
+    @Test
+    public void testResize() {
+        StripedPool<MockBean> pool = new StripedPool<MockBean>(new MockFactory(), 4, 2, 100, TimeUnit.MILLISECONDS);
+        pool.start();
+        List<MockBean> beans = new ArrayList<MockBean>();
+        for (int i = 0; i < 4; i++) {
+            beans.add(pool.get());
+        }
+
+        pool.setMaxSize(6);
+        assertEquals(6, pool.getMaxSize());
+        beans.add(pool.get());
+        beans.add(pool.get());
+
+        // shrinking destroys the surplus instances as they are released
+        pool.setMaxSize(2);
+        for (MockBean bean : beans) {
+            pool.release(bean);
+        }
+        assertEquals(4, MockBean.getPreDestroys());
+        assertEquals(2, pool.getCurrentSize());
+        assertEquals(2, pool.getAvailableCount());
+
+        pool.stop();
+        assertEquals(6, MockBean.getPreDestroys());
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timer.scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.as.ejb3.timerservice.scheduler.TimingWheelScheduler;
+import org.jboss.as.ejb3.timerservice.spi.TimerScheduler;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests {@link TimingWheelScheduler}
+ */
+public class TimingWheelSchedulerTestCase {
+
+    private TimingWheelScheduler scheduler;
+
+    @Before
+    public void start() {
+        // Use a small wheel, so that tasks wrap around the wheel
+        this.scheduler = new TimingWheelScheduler(Executors.defaultThreadFactory(), 5, 8, 2);
+        this.scheduler.start();
+    }
+
+    @After
+    public void stop() {
+        this.scheduler.stop();
+    }
+
+    @Test
+    public void testSchedule() throws InterruptedException {
+        final int count = 100;
+        final CountDownLatch latch = new CountDownLatch(count);
+        final long start = System.currentTimeMillis();
+        for (int i = 0; i < count; ++i) {
+            this.scheduler.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    latch.countDown();
+                }
+            }, i);
+        }
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(System.currentTimeMillis() - start >= count - 1);
+        assertEquals(count, this.scheduler.getStatistics().getDispatchCount());
+    }
+
+    @Test
+    public void testFarFutureSchedule() throws InterruptedException {
+        final AtomicInteger executions = new AtomicInteger();
+        final Runnable farFutureTask = new Runnable() {
+            @Override
+            public void run() {
+                executions.incrementAndGet();
+            }
+        };
+        // Delays whose deadline would overflow into the past, if not clamped
+        TimerScheduler.ScheduledTask task = this.scheduler.schedule(farFutureTask, Long.MAX_VALUE);
+        TimerScheduler.ScheduledTask nanosTask = this.scheduler.schedule(farFutureTask, TimeUnit.NANOSECONDS.toMillis(Long.MAX_VALUE));
+        TimerScheduler.ScheduledTask periodicTask = this.scheduler.scheduleAtFixedRate(farFutureTask, Long.MAX_VALUE, Long.MAX_VALUE);
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        this.scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        }, 50);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+
+        assertEquals(0, executions.get());
+        assertTrue(task.cancel());
+        assertTrue(nanosTask.cancel());
+        assertTrue(periodicTask.cancel());
+    }
+
+    @Test
+    public void testCancel() throws InterruptedException {
+        final AtomicInteger executions = new AtomicInteger();
+        TimerScheduler.ScheduledTask task = this.scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                executions.incrementAndGet();
+            }
+        }, 50);
+        assertTrue(task.cancel());
+        assertFalse(task.cancel());
+        Thread.sleep(150);
+        assertEquals(0, executions.get());
+    }
+
+    @Test
+    public void testFixedRate() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(5);
+        TimerScheduler.ScheduledTask task = this.scheduler.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        }, 0, 20);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(task.cancel());
+        final long dispatched = this.scheduler.getStatistics().getDispatchCount();
+        Thread.sleep(100);
+        // At most one execution may have been dispatched concurrently with the cancellation
+        assertTrue(this.scheduler.getStatistics().getDispatchCount() <= dispatched + 1);
+    }
+}
@@ -0,0 +1,344 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.ejb3.timerservice.persistence.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+
+import javax.sql.DataSource;
+import javax.transaction.TransactionManager;
+
+import org.jboss.as.ejb3.timerservice.TimerImpl;
+import org.jboss.as.ejb3.timerservice.TimerServiceImpl;
+import org.jboss.as.ejb3.timerservice.TimerState;
+import org.jboss.as.naming.ManagedReference;
+import org.jboss.as.naming.ManagedReferenceFactory;
+import org.jboss.modules.ModuleLoader;
+import org.jboss.msc.service.StartContext;
+import org.jboss.msc.service.StopContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+/**
+ * Tests the batching of timer state changes by the {@link DatabaseTimerPersistence}, against an in-memory fake of the JDBC API.
+ */
+public class DatabaseTimerPersistenceTestCase {
+
+    private static final String TIMED_OBJECT_ID = "timed-object";
+    private static final String TIMER_ID = "timer";
+    private static final int FLUSH_INTERVAL = 10000;
+    private static final long TIMER_INTERVAL = 1000;
+
+    // the rows of the timer table, keyed by timer id
+    private final Map<String, Row> rows = new HashMap<>();
+    private final Timer scheduler = mock(Timer.class);
+    private final TransactionManager tm = mock(TransactionManager.class);
+    private DatabaseTimerPersistence persistence;
+    private TimerTask flushTask;
+
+    @Before
+    public void init() throws Exception {
+        ManagedReference reference = mock(ManagedReference.class);
+        when(reference.getInstance()).thenReturn(this.createDataSource());
+        ManagedReferenceFactory factory = mock(ManagedReferenceFactory.class);
+        when(factory.getReference()).thenReturn(reference);
+
+        this.persistence = new DatabaseTimerPersistence("test", "test", "partition", 0, true, FLUSH_INTERVAL);
+        this.persistence.getDataSourceInjectedValue().inject(factory);
+        this.persistence.getModuleLoader().inject(mock(ModuleLoader.class));
+        this.persistence.getTimerInjectedValue().inject(this.scheduler);
+        this.persistence.start(mock(StartContext.class));
+
+        ArgumentCaptor<TimerTask> task = ArgumentCaptor.forClass(TimerTask.class);
+        verify(this.scheduler).schedule(task.capture(), anyLong(), anyLong());
+        this.flushTask = task.getValue();
+
+        this.persistence.loadActiveTimers(TIMED_OBJECT_ID, mock(TimerServiceImpl.class));
+    }
+
+    @After
+    public void destroy() {
+        this.persistence.stop(mock(StopContext.class));
+    }
+
+    /**
+     * Simulates the timeouts of a timer whose interval is shorter than the flush interval, i.e. without any flush in between.
+     * Each timeout must be claimed successfully.
+     */
+    @Test
+    public void intervalShorterThanFlushInterval() throws Exception {
+        Date next = new Date(TIMER_INTERVAL);
+        TimerImpl timer = mockTimer(TimerState.ACTIVE, next);
+        this.persistence.addTimer(timer);
+
+        for (int i = 0; i < 5; ++i) {
+            assertTrue(this.persistence.shouldRun(timer, this.tm));
+            assertEquals(TimerState.IN_TIMEOUT.name(), this.rows.get(TIMER_ID).state);
+
+            next = new Date(next.getTime() + TIMER_INTERVAL);
+            when(timer.getNextExpiration()).thenReturn(next);
+            when(timer.getState()).thenReturn(TimerState.IN_TIMEOUT);
+            this.persistence.persistTimer(timer);
+
+            when(timer.getState()).thenReturn(TimerState.ACTIVE);
+            this.persistence.persistTimer(timer);
+
+            // releasing the claim is batched, so no other node can claim the timer until it is written
+            assertEquals(TimerState.IN_TIMEOUT.name(), this.rows.get(TIMER_ID).state);
+        }
+
+        this.flushTask.run();
+        assertEquals(TimerState.ACTIVE.name(), this.rows.get(TIMER_ID).state);
+        assertEquals(next, this.rows.get(TIMER_ID).nextDate);
+
+        // a late flush must not overwrite a later claim
+        assertTrue(this.persistence.shouldRun(timer, this.tm));
+        this.flushTask.run();
+        assertEquals(TimerState.IN_TIMEOUT.name(), this.rows.get(TIMER_ID).state);
+    }
+
+    @Test
+    public void retry() throws Exception {
+        Date next = new Date(TIMER_INTERVAL);
+        TimerImpl timer = mockTimer(TimerState.ACTIVE, next);
+        this.persistence.addTimer(timer);
+        assertTrue(this.persistence.shouldRun(timer, this.tm));
+
+        when(timer.getState()).thenReturn(TimerState.RETRY_TIMEOUT);
+        this.persistence.persistTimer(timer);
+
+        // batched, the timer remains claimed by this node
+        assertEquals(TimerState.IN_TIMEOUT.name(), this.rows.get(TIMER_ID).state);
+
+        this.flushTask.run();
+        assertEquals(TimerState.RETRY_TIMEOUT.name(), this.rows.get(TIMER_ID).state);
+    }
+
+    @Test
+    public void activateUnclaimedTimer() throws Exception {
+        Date next = new Date(TIMER_INTERVAL);
+        TimerImpl timer = mockTimer(TimerState.ACTIVE, next);
+        this.persistence.addTimer(timer);
+
+        Date later = new Date(next.getTime() + TIMER_INTERVAL);
+        when(timer.getNextExpiration()).thenReturn(later);
+        this.persistence.persistTimer(timer);
+
+        // written immediately, since other nodes could otherwise claim the timer based on its previous expiration
+        assertEquals(later, this.rows.get(TIMER_ID).nextDate);
+    }
+
+    @Test
+    public void pendingUpdateFlushedBeforeClaim() throws Exception {
+        Date next = new Date(TIMER_INTERVAL);
+        TimerImpl timer = mockTimer(TimerState.ACTIVE, next);
+        this.persistence.addTimer(timer);
+        assertTrue(this.persistence.shouldRun(timer, this.tm));
+
+        Date later = new Date(next.getTime() + TIMER_INTERVAL);
+        when(timer.getNextExpiration()).thenReturn(later);
+        when(timer.getState()).thenReturn(TimerState.IN_TIMEOUT);
+        this.persistence.persistTimer(timer);
+
+        // batched
+        assertEquals(next, this.rows.get(TIMER_ID).nextDate);
+
+        // the claim sees the pending change, so the timer cannot be run while in timeout
+        assertFalse(this.persistence.shouldRun(timer, this.tm));
+        assertEquals(later, this.rows.get(TIMER_ID).nextDate);
+    }
+
+    @Test
+    public void flush() throws Exception {
+        Date next = new Date(TIMER_INTERVAL);
+        TimerImpl timer = mockTimer(TimerState.ACTIVE, next);
+        this.persistence.addTimer(timer);
+        assertTrue(this.persistence.shouldRun(timer, this.tm));
+
+        Date later = new Date(next.getTime() + TIMER_INTERVAL);
+        when(timer.getNextExpiration()).thenReturn(later);
+        when(timer.getState()).thenReturn(TimerState.IN_TIMEOUT);
+        this.persistence.persistTimer(timer);
+        assertEquals(next, this.rows.get(TIMER_ID).nextDate);
+
+        this.flushTask.run();
+        assertEquals(later, this.rows.get(TIMER_ID).nextDate);
+    }
+
+    @Test
+    public void cancel() throws Exception {
+        TimerImpl timer = mockTimer(TimerState.ACTIVE, new Date(TIMER_INTERVAL));
+        this.persistence.addTimer(timer);
+
+        when(timer.getState()).thenReturn(TimerState.CANCELED);
+        this.persistence.persistTimer(timer);
+
+        // deleted immediately, so that no other node can claim the timer
+        assertNull(this.rows.get(TIMER_ID));
+    }
+
+    private static TimerImpl mockTimer(TimerState state, Date next) {
+        TimerImpl timer = mock(TimerImpl.class);
+        when(timer.getId()).thenReturn(TIMER_ID);
+        when(timer.getTimedObjectId()).thenReturn(TIMED_OBJECT_ID);
+        when(timer.getInterval()).thenReturn(TIMER_INTERVAL);
+        when(timer.getInitialExpiration()).thenReturn(next);
+        when(timer.getNextExpiration()).thenReturn(next);
+        when(timer.getState()).thenReturn(state);
+        return timer;
+    }
+
+    private DataSource createDataSource() throws Exception {
+        final Connection connection = proxy(Connection.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                switch (method.getName()) {
+                    case "prepareStatement": {
+                        return createStatement((String) args[0]);
+                    }
+                    case "getTransactionIsolation": {
+                        return Connection.TRANSACTION_READ_COMMITTED;
+                    }
+                    default: {
+                        return null;
+                    }
+                }
+            }
+        });
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        return dataSource;
+    }
+
+    PreparedStatement createStatement(final String sql) {
+        final Map<Integer, Object> parameters = new HashMap<>();
+        final List<Map<Integer, Object>> batch = new ArrayList<>();
+        return proxy(PreparedStatement.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                String name = method.getName();
+                if (name.startsWith("set")) {
+                    parameters.put((Integer) args[0], args[1]);
+                    return null;
+                }
+                switch (name) {
+                    case "addBatch": {
+                        batch.add(new HashMap<>(parameters));
+                        return null;
+                    }
+                    case "executeBatch": {
+                        int[] result = new int[batch.size()];
+                        for (int i = 0; i < result.length; ++i) {
+                            result[i] = execute(sql, batch.get(i));
+                        }
+                        batch.clear();
+                        return result;
+                    }
+                    case "execute": {
+                        execute(sql, parameters);
+                        return false;
+                    }
+                    case "executeUpdate": {
+                        return execute(sql, parameters);
+                    }
+                    case "executeQuery": {
+                        // no timers are loaded
+                        return proxy(ResultSet.class, new InvocationHandler() {
+                            @Override
+                            public Object invoke(Object proxy, Method method, Object[] args) {
+                                return method.getName().equals("next") ? Boolean.FALSE : null;
+                            }
+                        });
+                    }
+                    default: {
+                        return null;
+                    }
+                }
+            }
+        });
+    }
+
+    int execute(String sql, Map<Integer, Object> parameters) {
+        if (sql.startsWith("INSERT")) {
+            this.rows.put((String) parameters.get(1), new Row((String) parameters.get(9), (Date) parameters.get(5)));
+            return 1;
+        }
+        if (sql.startsWith("DELETE")) {
+            return (this.rows.remove(parameters.get(2)) != null) ? 1 : 0;
+        }
+        if (sql.startsWith("UPDATE JBOSS_EJB_TIMER SET NEXT_DATE")) {
+            Row row = this.rows.get(parameters.get(5));
+            if (row == null) {
+                return 0;
+            }
+            row.nextDate = (Date) parameters.get(1);
+            row.state = (String) parameters.get(3);
+            return 1;
+        }
+        if (sql.startsWith("UPDATE JBOSS_EJB_TIMER SET TIMER_STATE")) {
+            Row row = this.rows.get(parameters.get(2));
+            if ((row == null) || row.state.equals(parameters.get(3)) || (row.nextDate.getTime() != ((Date) parameters.get(4)).getTime())) {
+                return 0;
+            }
+            row.state = (String) parameters.get(1);
+            return 1;
+        }
+        throw new IllegalArgumentException(sql);
+    }
+
+    private static <T> T proxy(Class<T> targetClass, InvocationHandler handler) {
+        return targetClass.cast(Proxy.newProxyInstance(targetClass.getClassLoader(), new Class<?>[] { targetClass }, handler));
+    }
+
+    static class Row {
+        volatile String state;
+        volatile Date nextDate;
+
+        Row(String state, Date nextDate) {
+            this.state = state;
+            this.nextDate = nextDate;
+        }
+    }
+}
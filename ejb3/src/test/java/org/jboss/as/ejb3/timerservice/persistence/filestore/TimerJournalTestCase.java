@@ -0,0 +1,213 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.ejb3.timerservice.persistence.filestore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.util.Date;
+import java.util.Map;
+
+import org.jboss.as.ejb3.timerservice.TimerImpl;
+import org.jboss.as.ejb3.timerservice.TimerServiceImpl;
+import org.jboss.as.ejb3.timerservice.TimerState;
+import org.jboss.as.ejb3.timerservice.spi.TimedObjectInvoker;
+import org.jboss.marshalling.MarshallerFactory;
+import org.jboss.marshalling.MarshallingConfiguration;
+import org.jboss.marshalling.river.RiverMarshallerFactory;
+import org.jboss.msc.service.ServiceName;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests replay and compaction of the {@link TimerJournal}.
+ */
+public class TimerJournalTestCase {
+
+    private static final String TIMED_OBJECT_ID = "timed-object";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final MarshallerFactory factory = new RiverMarshallerFactory();
+    private final MarshallingConfiguration configuration = new MarshallingConfiguration();
+    private TimerServiceImpl timerService;
+
+    @Before
+    public void setup() {
+        TimedObjectInvoker invoker = mock(TimedObjectInvoker.class);
+        when(invoker.getTimedObjectId()).thenReturn(TIMED_OBJECT_ID);
+        timerService = mock(TimerServiceImpl.class);
+        when(timerService.getInvoker()).thenReturn(invoker);
+        when(timerService.getServiceName()).thenReturn(ServiceName.of("timer-service"));
+    }
+
+    @Test
+    public void testReplay() throws IOException {
+        File directory = folder.newFolder();
+        TimerJournal journal = open(directory, 1024 * 1024);
+        journal.write(timer("a", "first"));
+        journal.write(timer("b", "second"));
+        journal.write(timer("a", "updated"));
+        journal.remove("b");
+        journal.close();
+
+        journal = open(directory, 1024 * 1024);
+        assertTrue(journal.contains("a"));
+        assertFalse(journal.contains("b"));
+        Map<String, TimerImpl> timers = journal.load(timerService, getClass().getClassLoader());
+        assertEquals(1, timers.size());
+        assertEquals("updated", timers.get("a").getTimerInfo());
+        assertEquals(1000L, timers.get("a").getInterval());
+        journal.close();
+        // the superseded records were compacted away when the journal was opened
+        assertEquals(1, segments(directory).length);
+    }
+
+    @Test
+    public void testIncompleteRecordIsDiscarded() throws IOException {
+        File directory = folder.newFolder();
+        TimerJournal journal = open(directory, 1024 * 1024);
+        journal.write(timer("a", "first"));
+        journal.close();
+
+        FileOutputStream out = new FileOutputStream(segments(directory)[0], true);
+        try {
+            // a record header announcing more data than was written
+            out.write(new byte[] {0, 0, 1, 0, 1, 2, 3, 4, 5});
+        } finally {
+            out.close();
+        }
+
+        journal = open(directory, 1024 * 1024);
+        journal.write(timer("b", "second"));
+        journal.close();
+
+        journal = open(directory, 1024 * 1024);
+        Map<String, TimerImpl> timers = journal.load(timerService, getClass().getClassLoader());
+        assertEquals(2, timers.size());
+        assertEquals("first", timers.get("a").getTimerInfo());
+        assertEquals("second", timers.get("b").getTimerInfo());
+        journal.close();
+    }
+
+    @Test
+    public void testCompaction() throws IOException {
+        File directory = folder.newFolder();
+        TimerJournal journal = open(directory, 512);
+        for (int i = 0; i < 100; ++i) {
+            journal.write(timer("a", "value" + i));
+        }
+        journal.write(timer("b", "other"));
+        // only the live records of the two timers should be left, at most split over a few segments
+        assertTrue(segments(directory).length <= 2);
+        journal.close();
+
+        journal = open(directory, 512);
+        Map<String, TimerImpl> timers = journal.load(timerService, getClass().getClassLoader());
+        assertEquals(2, timers.size());
+        assertEquals("value99", timers.get("a").getTimerInfo());
+        journal.close();
+    }
+
+    @Test
+    public void testSupersededSegmentIsIgnored() throws IOException {
+        File directory = folder.newFolder();
+        TimerJournal journal = open(directory, 1024 * 1024);
+        journal.write(timer("a", "first"));
+        journal.write(timer("b", "second"));
+        journal.close();
+        File segment = segments(directory)[0];
+        byte[] superseded = Files.readAllBytes(segment.toPath());
+
+        journal = open(directory, 1024 * 1024);
+        journal.remove("b");
+        journal.close();
+        // compacts the removal of b into a new segment
+        journal = open(directory, 1024 * 1024);
+        journal.close();
+        assertFalse(segment.exists());
+
+        // an old segment whose deletion failed
+        Files.write(segment.toPath(), superseded);
+
+        journal = open(directory, 1024 * 1024);
+        assertTrue(journal.contains("a"));
+        assertFalse(journal.contains("b"));
+        journal.close();
+        assertFalse(segment.exists());
+    }
+
+    @Test
+    public void testUnencodableTimerIsNotWritten() throws IOException {
+        File directory = folder.newFolder();
+        TimerJournal journal = open(directory, 1024 * 1024);
+        assertFalse(journal.write(timer("a", new Unserializable())));
+        assertFalse(journal.contains("a"));
+        assertTrue(journal.write(timer("b", "second")));
+        journal.close();
+    }
+
+    private TimerJournal open(File directory, long segmentSize) throws IOException {
+        TimerJournal journal = new TimerJournal(TIMED_OBJECT_ID, directory, segmentSize, factory, configuration);
+        journal.open();
+        return journal;
+    }
+
+    private TimerImpl timer(String id, Serializable info) {
+        return TimerImpl.builder()
+                .setId(id)
+                .setTimedObjectId(TIMED_OBJECT_ID)
+                .setInitialDate(new Date())
+                .setRepeatInterval(1000L)
+                .setInfo(info)
+                .setTimerState(TimerState.ACTIVE)
+                .setPersistent(true)
+                .build(timerService);
+    }
+
+    private static File[] segments(File directory) {
+        return directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.endsWith(TimerJournal.SEGMENT_SUFFIX);
+            }
+        });
+    }
+
+    static class Unserializable implements Serializable {
+        private static final long serialVersionUID = 1L;
+        final Object value = new Object();
+    }
+}
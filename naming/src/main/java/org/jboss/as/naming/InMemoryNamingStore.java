@@ -35,7 +35,6 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Hashtable;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -52,7 +51,9 @@ import javax.naming.event.EventContext;
 import javax.naming.event.NamingEvent;
 import javax.naming.event.NamingListener;
 import javax.naming.spi.ResolveResult;
+
 import org.jboss.as.naming.logging.NamingLogger;
+import org.jboss.as.naming.util.HashTrie;
 
 /**
  * In-memory implementation of the NamingStore.  The backing for the entries is a basic tree structure with either context
@@ -186,7 +187,24 @@ public class InMemoryNamingStore implements WritableNamingStore {
             final Name emptyName = new CompositeName("");
             return new NamingContext(emptyName, this, new Hashtable<String, Object>());
         }
-        return root.accept(new LookupVisitor(name));
+        // Walk the tree directly, rather than via a visitor, since this is by far the most frequent operation
+        TreeNode node = root;
+        int index = 0;
+        while (!isEmpty(name, index)) {
+            if (node instanceof BindingNode) {
+                final Name remainingName = name.getSuffix(node.fullName.size());
+                final Object boundObject = node.binding.getObject();
+                checkReferenceForContinuation(remainingName, boundObject);
+                return new ResolveResult(boundObject, remainingName);
+            }
+            final ContextNode contextNode = (ContextNode) node;
+            final String childName = name.get(index++);
+            node = contextNode.children.get(childName);
+            if (node == null) {
+                throw nameNotFoundException(childName, contextNode.fullName);
+            }
+        }
+        return node.binding.getObject();
     }
 
     @Override
@@ -203,8 +221,7 @@ public class InMemoryNamingStore implements WritableNamingStore {
      * @throws NamingException
      */
     public List<NameClassPair> list(final Name name) throws NamingException {
-        final Name nodeName = name.isEmpty() ? new CompositeName("") : name;
-        return root.accept(new ListVisitor(nodeName));
+        return findContextNode(name).getListing().nameClassPairs;
     }
 
     /**
@@ -215,8 +232,7 @@ public class InMemoryNamingStore implements WritableNamingStore {
      * @throws NamingException
      */
     public List<Binding> listBindings(final Name name) throws NamingException {
-        final Name nodeName = name.isEmpty() ? new CompositeName("") : name;
-        return root.accept(new ListBindingsVisitor(nodeName));
+        return findContextNode(name).getListing().bindings;
     }
 
     public Context createSubcontext(final Name name) throws NamingException {
@@ -276,6 +292,43 @@ public class InMemoryNamingStore implements WritableNamingStore {
         }
     }
 
+    /**
+     * Find the context node bound to the given name.
+     *
+     * @param name The context name
+     * @return The context node
+     * @throws NamingException if the name is not bound, or is not bound to a context
+     */
+    private ContextNode findContextNode(final Name name) throws NamingException {
+        TreeNode node = root;
+        int index = 0;
+        while (!isEmpty(name, index)) {
+            if (node instanceof BindingNode) {
+                checkReferenceForContinuation(name.getSuffix(index), node.binding.getObject());
+                throw notAContextException(node.fullName);
+            }
+            final ContextNode contextNode = (ContextNode) node;
+            final String childName = name.get(index++);
+            node = contextNode.children.get(childName);
+            if (node == null) {
+                throw nameNotFoundException(childName, contextNode.fullName);
+            }
+        }
+        if (node instanceof BindingNode) {
+            checkReferenceForContinuation(new CompositeName(), node.binding.getObject());
+            throw notAContextException(name.isEmpty() ? new CompositeName("") : name);
+        }
+        return (ContextNode) node;
+    }
+
+    /**
+     * Equivalent to {@code isEmpty(name.getSuffix(index))}, without creating the suffix.
+     */
+    private static boolean isEmpty(final Name name, final int index) {
+        final int remaining = name.size() - index;
+        return remaining <= 0 || (remaining == 1 && "".equals(name.get(index)));
+    }
+
     private void checkReferenceForContinuation(final Name name, final Object object) throws CannotProceedException {
         if (object instanceof Reference) {
             if (((Reference) object).get("nns") != null) {
@@ -296,10 +349,35 @@ public class InMemoryNamingStore implements WritableNamingStore {
         protected abstract <T> T accept(NodeVisitor<T> visitor) throws NamingException;
     }
 
-    private static final AtomicMapFieldUpdater<ContextNode, String, TreeNode> childrenUpdater = AtomicMapFieldUpdater.newMapUpdater(AtomicReferenceFieldUpdater.newUpdater(ContextNode.class, Map.class, "children"));
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<ContextNode, HashTrie> childrenUpdater = AtomicReferenceFieldUpdater.newUpdater(ContextNode.class, HashTrie.class, "children");
+
+    /* The list results of a context, computed from a given version of its children */
+    private static final class Listing {
+        final HashTrie<String, TreeNode> children;
+        final List<NameClassPair> nameClassPairs;
+        final List<Binding> bindings;
+
+        Listing(final HashTrie<String, TreeNode> children) {
+            this.children = children;
+            final List<TreeNode> childNodes = children.values();
+            final List<NameClassPair> nameClassPairs = new ArrayList<NameClassPair>(childNodes.size());
+            final List<Binding> bindings = new ArrayList<Binding>(childNodes.size());
+            for (TreeNode childNode : childNodes) {
+                final Binding binding = childNode.binding;
+                nameClassPairs.add(new NameClassPair(binding.getName(), binding.getClassName(), true));
+                bindings.add(binding);
+            }
+            this.nameClassPairs = Collections.unmodifiableList(nameClassPairs);
+            this.bindings = Collections.unmodifiableList(bindings);
+        }
+    }
 
     private class ContextNode extends TreeNode {
-        volatile Map<String, TreeNode> children = Collections.emptyMap();
+        // Children are kept in a persistent trie, so that adding or removing a child only copies the path to it
+        volatile HashTrie<String, TreeNode> children = HashTrie.empty();
+        // Cached list results, valid for as long as the children are unchanged
+        private volatile Listing listing;
         protected final String name;
         protected final ContextNode parentNode;
 
@@ -310,28 +388,67 @@ public class InMemoryNamingStore implements WritableNamingStore {
         }
 
         private void addChild(final String childName, final TreeNode childNode) throws NamingException {
-            if (childrenUpdater.putIfAbsent(this, childName, childNode) != null) {
+            if (putChildIfAbsent(childName, childNode) != null) {
                 throw nameAlreadyBoundException(fullName.add(childName));
             }
         }
 
+        private TreeNode putChildIfAbsent(final String childName, final TreeNode childNode) {
+            HashTrie<String, TreeNode> current;
+            do {
+                current = children;
+                final TreeNode existing = current.get(childName);
+                if (existing != null) {
+                    return existing;
+                }
+            } while (!childrenUpdater.compareAndSet(this, current, current.put(childName, childNode)));
+            return null;
+        }
+
         private TreeNode replaceChild(final String childName, final TreeNode childNode) throws NamingException {
-            return childrenUpdater.put(this, childName, childNode);
+            HashTrie<String, TreeNode> current;
+            do {
+                current = children;
+            } while (!childrenUpdater.compareAndSet(this, current, current.put(childName, childNode)));
+            return current.get(childName);
         }
 
         private TreeNode removeChild(final String childName) throws NameNotFoundException {
-            TreeNode old = childrenUpdater.remove(this, childName);
+            TreeNode old = removeChild(this, childName);
             if (old == null) {
                 throw nameNotFoundException(childName, fullName);
             }
             if(parentNode != null && children.isEmpty()) {
-                childrenUpdater.remove(parentNode, name);
+                removeChild(parentNode, name);
             }
             return old;
         }
 
+        private TreeNode removeChild(final ContextNode node, final String childName) {
+            HashTrie<String, TreeNode> current;
+            TreeNode old;
+            do {
+                current = node.children;
+                old = current.get(childName);
+                if (old == null) {
+                    return null;
+                }
+            } while (!childrenUpdater.compareAndSet(node, current, current.remove(childName)));
+            return old;
+        }
+
         private void clear() {
-            childrenUpdater.clear(this);
+            children = HashTrie.empty();
+        }
+
+        Listing getListing() {
+            final HashTrie<String, TreeNode> children = this.children;
+            Listing listing = this.listing;
+            if (listing == null || listing.children != children) {
+                listing = new Listing(children);
+                this.listing = listing;
+            }
+            return listing;
         }
 
         protected final <T> T accept(NodeVisitor<T> visitor) throws NamingException {
@@ -339,7 +456,7 @@ public class InMemoryNamingStore implements WritableNamingStore {
         }
 
         public TreeNode addOrGetChild(final String childName, final TreeNode childNode) {
-            TreeNode appearing = childrenUpdater.putIfAbsent(this, childName, childNode);
+            TreeNode appearing = putChildIfAbsent(childName, childNode);
             return appearing == null ? childNode : appearing;
         }
     }
@@ -492,66 +609,6 @@ public class InMemoryNamingStore implements WritableNamingStore {
         }
     }
 
-    private final class LookupVisitor extends NodeTraversingVisitor<Object> {
-        private LookupVisitor(final Name targetName) {
-            super(targetName);
-        }
-
-        protected Object found(final ContextNode contextNode) throws NamingException {
-            return contextNode.binding.getObject();
-        }
-
-        protected Object found(final BindingNode bindingNode) throws NamingException {
-            return bindingNode.binding.getObject();
-        }
-
-        protected Object foundReferenceInsteadOfContext(final BindingNode bindingNode) throws NamingException {
-            final Name remainingName = targetName.getSuffix(bindingNode.fullName.size());
-            final Object boundObject = bindingNode.binding.getObject();
-            checkReferenceForContinuation(remainingName, boundObject);
-            return new ResolveResult(boundObject, remainingName);
-        }
-    }
-
-    private final class ListVisitor extends NodeTraversingVisitor<List<NameClassPair>> {
-        private ListVisitor(final Name targetName) {
-            super(targetName);
-        }
-
-        protected List<NameClassPair> found(final ContextNode contextNode) throws NamingException {
-            final List<NameClassPair> nameClassPairs = new ArrayList<NameClassPair>();
-            for (TreeNode childNode : contextNode.children.values()) {
-                final Binding binding = childNode.binding;
-                nameClassPairs.add(new NameClassPair(binding.getName(), binding.getClassName(), true));
-            }
-            return nameClassPairs;
-        }
-
-        protected List<NameClassPair> found(final BindingNode bindingNode) throws NamingException {
-            checkReferenceForContinuation(new CompositeName(), bindingNode.binding.getObject());
-            throw notAContextException(targetName);
-        }
-    }
-
-    private final class ListBindingsVisitor extends NodeTraversingVisitor<List<Binding>> {
-        private ListBindingsVisitor(final Name targetName) {
-            super(targetName);
-        }
-
-        protected List<Binding> found(final ContextNode contextNode) throws NamingException {
-            final List<Binding> bindings = new ArrayList<Binding>();
-            for (TreeNode childNode : contextNode.children.values()) {
-                bindings.add(childNode.binding);
-            }
-            return bindings;
-        }
-
-        protected List<Binding> found(final BindingNode bindingNode) throws NamingException {
-            checkReferenceForContinuation(new CompositeName(), bindingNode.binding.getObject());
-            throw notAContextException(targetName);
-        }
-    }
-
     private final class CreateSubContextVisitor extends BindingContextVisitor<Context> {
         private CreateSubContextVisitor(final Name targetName) throws NamingException {
             super(targetName);
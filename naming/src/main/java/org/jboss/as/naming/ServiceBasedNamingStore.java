@@ -30,7 +30,10 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.NavigableSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import javax.naming.Binding;
 import javax.naming.CannotProceedException;
@@ -65,6 +68,27 @@ public class ServiceBasedNamingStore implements NamingStore {
 
     private ConcurrentSkipListSet<ServiceName> boundServices = new ConcurrentSkipListSet<ServiceName>();
 
+    // Caches the binder service resolved for a given name, bypassing name conversion and the service registry on subsequent lookups.
+    // Only names that resolve directly to a bound service are cached; the cache is cleared whenever a binding is added or removed.
+    private final ConcurrentMap<String, ServiceController<?>> resolvedBindings = new ConcurrentHashMap<String, ServiceController<?>>();
+
+    // The lookup cache counters are striped by thread, so that concurrent lookups do not contend on the same counter.
+    // Each stripe holds a hit and a miss counter, padded to its own 64 byte cache line.
+    private static final int LOOKUP_CACHE_HIT = 0;
+    private static final int LOOKUP_CACHE_MISS = 1;
+    private static final int LOOKUP_CACHE_STRIDE = 8;
+    private static final int LOOKUP_CACHE_STRIPES;
+
+    static {
+        int stripes = 1;
+        while (stripes < Runtime.getRuntime().availableProcessors() && stripes < 64) {
+            stripes <<= 1;
+        }
+        LOOKUP_CACHE_STRIPES = stripes;
+    }
+
+    private static final AtomicLongArray LOOKUP_CACHE_COUNTS = new AtomicLongArray(LOOKUP_CACHE_STRIPES * LOOKUP_CACHE_STRIDE);
+
     public ServiceBasedNamingStore(final ServiceRegistry serviceRegistry, final ServiceName serviceNameBase) {
         this.serviceRegistry = serviceRegistry;
         this.serviceNameBase = serviceNameBase;
@@ -79,9 +103,22 @@ public class ServiceBasedNamingStore implements NamingStore {
         if (name.isEmpty()) {
             return new NamingContext(EMPTY_NAME, this, null);
         }
+        final String nameString = name.toString();
+        final ServiceController<?> resolved = resolvedBindings.get(nameString);
+        if (resolved != null) {
+            final Object obj = lookup(nameString, resolved, dereference);
+            if (obj != null) {
+                countLookup(LOOKUP_CACHE_HIT);
+                return obj;
+            }
+        }
+        countLookup(LOOKUP_CACHE_MISS);
         final ServiceName lookupName = buildServiceName(name);
-        Object obj = lookup(name.toString(), lookupName, dereference);
-        if (obj == null) {
+        final ServiceController<?> controller = serviceRegistry.getService(lookupName);
+        Object obj = lookup(nameString, controller, dereference);
+        if (obj != null) {
+            cacheResolvedBinding(nameString, lookupName, controller);
+        } else {
             final ServiceName lower = boundServices.lower(lookupName);
             if (lower != null && lower.isParentOf(lookupName)) {
                 // Parent might be a reference or a link
@@ -124,9 +161,22 @@ public class ServiceBasedNamingStore implements NamingStore {
         return cpe;
     }
 
+    private void cacheResolvedBinding(final String name, final ServiceName lookupName, final ServiceController<?> controller) {
+        if (boundServices.contains(lookupName)) {
+            resolvedBindings.put(name, controller);
+            // Guard against a concurrent removal of this binding, which may have cleared the cache before our put
+            if (!boundServices.contains(lookupName)) {
+                resolvedBindings.remove(name, controller);
+            }
+        }
+    }
+
     private Object lookup(final String name, final ServiceName lookupName, boolean dereference) throws NamingException {
+        return lookup(name, serviceRegistry.getService(lookupName), dereference);
+    }
+
+    private Object lookup(final String name, final ServiceController<?> controller, boolean dereference) throws NamingException {
         try {
-            final ServiceController<?> controller = serviceRegistry.getService(lookupName);
             if (controller != null) {
                 final Object object = controller.getValue();
                 if (dereference && object instanceof ManagedReferenceFactory) {
@@ -257,6 +307,7 @@ public class ServiceBasedNamingStore implements NamingStore {
 
     public void close() throws NamingException {
         boundServices.clear();
+        resolvedBindings.clear();
     }
 
     public void addNamingListener(Name target, int scope, NamingListener listener) {
@@ -271,10 +322,40 @@ public class ServiceBasedNamingStore implements NamingStore {
             throw NamingLogger.ROOT_LOGGER.serviceAlreadyBound(serviceName);
         }
         boundServices.add(serviceName);
+        // A new binding may shadow, or be shadowed by, a previously resolved name
+        resolvedBindings.clear();
     }
 
     public void remove(final ServiceName serviceName) {
         boundServices.remove(serviceName);
+        resolvedBindings.clear();
+    }
+
+    /**
+     * @return the number of lookups, across all service based naming stores, that were resolved via the lookup cache
+     */
+    public static long getLookupCacheHitCount() {
+        return getLookupCount(LOOKUP_CACHE_HIT);
+    }
+
+    /**
+     * @return the number of lookups, across all service based naming stores, that could not be resolved via the lookup cache
+     */
+    public static long getLookupCacheMissCount() {
+        return getLookupCount(LOOKUP_CACHE_MISS);
+    }
+
+    private static void countLookup(final int counter) {
+        final int stripe = (int) Thread.currentThread().getId() & (LOOKUP_CACHE_STRIPES - 1);
+        LOOKUP_CACHE_COUNTS.incrementAndGet(stripe * LOOKUP_CACHE_STRIDE + counter);
+    }
+
+    private static long getLookupCount(final int counter) {
+        long count = 0;
+        for (int stripe = 0; stripe < LOOKUP_CACHE_STRIPES; ++stripe) {
+            count += LOOKUP_CACHE_COUNTS.get(stripe * LOOKUP_CACHE_STRIDE + counter);
+        }
+        return count;
     }
 
     protected ServiceName buildServiceName(final Name name) {
@@ -38,6 +38,8 @@ public interface NamingSubsystemModel {
     String EXTERNAL_CONTEXT = "external-context";
 
     String LOOKUP = "lookup";
+    String LOOKUP_CACHE_HITS = "lookup-cache-hits";
+    String LOOKUP_CACHE_MISSES = "lookup-cache-misses";
 
     String OBJECT_FACTORY = "object-factory";
     String ENVIRONMENT = "environment";
@@ -0,0 +1,307 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.naming.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An immutable hash array mapped trie.  Updates return a new trie that shares all unmodified nodes with the original, so
+ * an update copies at most one small node per level, rather than the whole map.  Lookups do not allocate.
+ * Null keys and values are not supported.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public final class HashTrie<K, V> {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    private static final HashTrie<Object, Object> EMPTY = new HashTrie<Object, Object>(new BitmapNode(0, new Object[0]), 0);
+
+    private final BitmapNode root;
+    private final int size;
+
+    private HashTrie(final BitmapNode root, final int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> HashTrie<K, V> empty() {
+        return (HashTrie<K, V>) EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Get the value mapped to the given key.
+     *
+     * @param key the key
+     * @return the value, or {@code null} if the key is not mapped
+     */
+    @SuppressWarnings("unchecked")
+    public V get(final Object key) {
+        final int hash = hash(key);
+        Object node = root;
+        int shift = 0;
+        while (true) {
+            if (node instanceof BitmapNode) {
+                final BitmapNode bitmapNode = (BitmapNode) node;
+                final int bit = bit(hash, shift);
+                if ((bitmapNode.bitmap & bit) == 0) {
+                    return null;
+                }
+                node = bitmapNode.children[bitmapNode.index(bit)];
+                shift += BITS;
+            } else if (node instanceof Leaf) {
+                final Leaf leaf = (Leaf) node;
+                return (leaf.hash == hash && leaf.key.equals(key)) ? (V) leaf.value : null;
+            } else {
+                final CollisionNode collisionNode = (CollisionNode) node;
+                if (collisionNode.hash == hash) {
+                    for (Leaf leaf : collisionNode.leaves) {
+                        if (leaf.key.equals(key)) {
+                            return (V) leaf.value;
+                        }
+                    }
+                }
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Return a trie in which the given key is mapped to the given value.
+     *
+     * @param key the key
+     * @param value the value
+     * @return the updated trie, or this trie if the key is already mapped to the given value
+     */
+    public HashTrie<K, V> put(final K key, final V value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException();
+        }
+        final Object existing = get(key);
+        if (existing == value) {
+            return this;
+        }
+        final BitmapNode newRoot = (BitmapNode) put(root, new Leaf(hash(key), key, value), 0);
+        return new HashTrie<K, V>(newRoot, existing == null ? size + 1 : size);
+    }
+
+    /**
+     * Return a trie in which the given key is not mapped.
+     *
+     * @param key the key
+     * @return the updated trie, or this trie if the key was not mapped
+     */
+    public HashTrie<K, V> remove(final Object key) {
+        if (get(key) == null) {
+            return this;
+        }
+        // The root node is never collapsed
+        return new HashTrie<K, V>((BitmapNode) remove(root, hash(key), key, 0), size - 1);
+    }
+
+    /**
+     * @return the values of this trie, in no particular order
+     */
+    @SuppressWarnings("unchecked")
+    public List<V> values() {
+        final List<V> values = new ArrayList<V>(size);
+        collectValues(root, (List<Object>) values);
+        return values;
+    }
+
+    private static void collectValues(final Object node, final List<Object> values) {
+        if (node instanceof BitmapNode) {
+            for (Object child : ((BitmapNode) node).children) {
+                collectValues(child, values);
+            }
+        } else if (node instanceof Leaf) {
+            values.add(((Leaf) node).value);
+        } else {
+            for (Leaf leaf : ((CollisionNode) node).leaves) {
+                values.add(leaf.value);
+            }
+        }
+    }
+
+    private static Object put(final Object node, final Leaf leaf, final int shift) {
+        if (node instanceof BitmapNode) {
+            final BitmapNode bitmapNode = (BitmapNode) node;
+            final int bit = bit(leaf.hash, shift);
+            final int index = bitmapNode.index(bit);
+            if ((bitmapNode.bitmap & bit) == 0) {
+                return bitmapNode.insert(bit, index, leaf);
+            }
+            return bitmapNode.replace(index, put(bitmapNode.children[index], leaf, shift + BITS));
+        }
+        if (node instanceof Leaf) {
+            final Leaf existing = (Leaf) node;
+            if (existing.hash == leaf.hash && existing.key.equals(leaf.key)) {
+                return leaf;
+            }
+            return merge(existing, existing.hash, leaf, shift);
+        }
+        final CollisionNode collisionNode = (CollisionNode) node;
+        if (collisionNode.hash != leaf.hash) {
+            return merge(collisionNode, collisionNode.hash, leaf, shift);
+        }
+        final Leaf[] leaves = collisionNode.leaves;
+        for (int i = 0; i < leaves.length; i++) {
+            if (leaves[i].key.equals(leaf.key)) {
+                final Leaf[] newLeaves = leaves.clone();
+                newLeaves[i] = leaf;
+                return new CollisionNode(leaf.hash, newLeaves);
+            }
+        }
+        final Leaf[] newLeaves = new Leaf[leaves.length + 1];
+        System.arraycopy(leaves, 0, newLeaves, 0, leaves.length);
+        newLeaves[leaves.length] = leaf;
+        return new CollisionNode(leaf.hash, newLeaves);
+    }
+
+    // Combines a node that is not a bitmap node with a new leaf, at the given level
+    private static Object merge(final Object node, final int nodeHash, final Leaf leaf, final int shift) {
+        if (nodeHash == leaf.hash) {
+            return put(new CollisionNode(nodeHash, new Leaf[] { (Leaf) node }), leaf, shift);
+        }
+        final int nodeBit = bit(nodeHash, shift);
+        final int leafBit = bit(leaf.hash, shift);
+        if (nodeBit == leafBit) {
+            return new BitmapNode(nodeBit, new Object[] { merge(node, nodeHash, leaf, shift + BITS) });
+        }
+        // Children are ordered by bit position
+        return new BitmapNode(nodeBit | leafBit, (((nodeHash >>> shift) & MASK) < ((leaf.hash >>> shift) & MASK)) ? new Object[] { node, leaf } : new Object[] { leaf, node });
+    }
+
+    private static Object remove(final Object node, final int hash, final Object key, final int shift) {
+        if (node instanceof BitmapNode) {
+            final BitmapNode bitmapNode = (BitmapNode) node;
+            final int bit = bit(hash, shift);
+            final int index = bitmapNode.index(bit);
+            final Object child = remove(bitmapNode.children[index], hash, key, shift + BITS);
+            final BitmapNode result = (child != null) ? bitmapNode.replace(index, child) : bitmapNode.delete(bit, index);
+            if (shift > 0) {
+                if (result.children.length == 0) {
+                    return null;
+                }
+                // Collapse a branch that only contains a single leaf or collision node
+                if (result.children.length == 1 && !(result.children[0] instanceof BitmapNode)) {
+                    return result.children[0];
+                }
+            }
+            return result;
+        }
+        if (node instanceof Leaf) {
+            return null;
+        }
+        final Leaf[] leaves = ((CollisionNode) node).leaves;
+        if (leaves.length == 2) {
+            return leaves[0].key.equals(key) ? leaves[1] : leaves[0];
+        }
+        final Leaf[] newLeaves = new Leaf[leaves.length - 1];
+        int j = 0;
+        for (Leaf leaf : leaves) {
+            if (!leaf.key.equals(key)) {
+                newLeaves[j++] = leaf;
+            }
+        }
+        return new CollisionNode(hash, newLeaves);
+    }
+
+    private static int hash(final Object key) {
+        final int hash = key.hashCode();
+        // Spread the higher bits, since the lower bits are consumed first
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int bit(final int hash, final int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    private static final class BitmapNode {
+        final int bitmap;
+        final Object[] children;
+
+        BitmapNode(final int bitmap, final Object[] children) {
+            this.bitmap = bitmap;
+            this.children = children;
+        }
+
+        int index(final int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        BitmapNode insert(final int bit, final int index, final Object child) {
+            final Object[] newChildren = new Object[children.length + 1];
+            System.arraycopy(children, 0, newChildren, 0, index);
+            newChildren[index] = child;
+            System.arraycopy(children, index, newChildren, index + 1, children.length - index);
+            return new BitmapNode(bitmap | bit, newChildren);
+        }
+
+        BitmapNode replace(final int index, final Object child) {
+            final Object[] newChildren = children.clone();
+            newChildren[index] = child;
+            return new BitmapNode(bitmap, newChildren);
+        }
+
+        BitmapNode delete(final int bit, final int index) {
+            final Object[] newChildren = new Object[children.length - 1];
+            System.arraycopy(children, 0, newChildren, 0, index);
+            System.arraycopy(children, index + 1, newChildren, index, children.length - index - 1);
+            return new BitmapNode(bitmap & ~bit, newChildren);
+        }
+    }
+
+    private static final class Leaf {
+        final int hash;
+        final Object key;
+        final Object value;
+
+        Leaf(final int hash, final Object key, final Object value) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    private static final class CollisionNode {
+        final int hash;
+        final Leaf[] leaves;
+
+        CollisionNode(final int hash, final Leaf[] leaves) {
+            this.hash = hash;
+            this.leaves = leaves;
+        }
+    }
+}
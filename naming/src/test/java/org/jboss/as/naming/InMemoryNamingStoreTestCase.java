@@ -41,6 +41,7 @@ import java.util.List;
 import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -251,6 +252,29 @@ public class InMemoryNamingStoreTestCase {
         assertTrue("Not all expected results were returned", expected.isEmpty());
     }
 
+    @Test
+    public void testListLargeContext() throws Exception {
+        final int count = 10000;
+        for (int i = 0; i < count; i++) {
+            nameStore.bind(new CompositeName("large/entry" + i), Integer.valueOf(i));
+        }
+        final Name contextName = new CompositeName("large");
+        final List<NameClassPair> results = nameStore.list(contextName);
+        assertEquals(count, results.size());
+        // Unchanged contexts return the same list
+        assertSame(results, nameStore.list(contextName));
+        assertEquals(count, nameStore.listBindings(contextName).size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(Integer.valueOf(i), nameStore.lookup(new CompositeName("large/entry" + i)));
+        }
+
+        nameStore.unbind(new CompositeName("large/entry0"));
+        assertEquals(count - 1, nameStore.list(contextName).size());
+        assertEquals(count - 1, nameStore.listBindings(contextName).size());
+        // The previous list is unaffected
+        assertEquals(count, results.size());
+    }
+
     @Test
     public void testAutoRemove() throws Exception {
         nameStore.bind(new CompositeName("test/item"), new Object());
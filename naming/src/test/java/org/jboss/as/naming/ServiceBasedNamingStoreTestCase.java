@@ -98,6 +98,26 @@ public class ServiceBasedNamingStoreTestCase {
         assertEquals(value, obj);
     }
 
+    @Test
+    public void testLookupCache() throws Exception {
+        final ServiceName bindingName = ServiceName.JBOSS.append("foo", "cached");
+        final Object value = new Object();
+        bindObject(bindingName, value);
+
+        final long hits = ServiceBasedNamingStore.getLookupCacheHitCount();
+        final long misses = ServiceBasedNamingStore.getLookupCacheMissCount();
+        assertEquals(value, store.lookup(new CompositeName("foo/cached")));
+        assertEquals(misses + 1, ServiceBasedNamingStore.getLookupCacheMissCount());
+        assertEquals(value, store.lookup(new CompositeName("foo/cached")));
+        assertEquals(hits + 1, ServiceBasedNamingStore.getLookupCacheHitCount());
+
+        // Removing a binding invalidates the cache
+        store.remove(bindingName);
+        assertEquals(value, store.lookup(new CompositeName("foo/cached")));
+        assertEquals(misses + 2, ServiceBasedNamingStore.getLookupCacheMissCount());
+        assertEquals(hits + 1, ServiceBasedNamingStore.getLookupCacheHitCount());
+    }
+
     @Test
     public void testLookupParentContext() throws Exception {
         final ServiceName bindingName = ServiceName.JBOSS.append("foo", "bar");
@@ -0,0 +1,114 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.naming.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class HashTrieTestCase {
+
+    @Test
+    public void testPutGetRemove() {
+        final HashTrie<String, Integer> empty = HashTrie.empty();
+        assertTrue(empty.isEmpty());
+
+        HashTrie<String, Integer> trie = empty;
+        for (int i = 0; i < 10000; i++) {
+            trie = trie.put("key" + i, i);
+        }
+        assertEquals(10000, trie.size());
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(Integer.valueOf(i), trie.get("key" + i));
+        }
+        assertNull(trie.get("missing"));
+        assertEquals(10000, new HashSet<Integer>(trie.values()).size());
+
+        final HashTrie<String, Integer> full = trie;
+        for (int i = 0; i < 10000; i += 2) {
+            trie = trie.remove("key" + i);
+        }
+        assertEquals(5000, trie.size());
+        for (int i = 0; i < 10000; i++) {
+            assertEquals((i % 2 == 0) ? null : Integer.valueOf(i), trie.get("key" + i));
+            // Previous versions are unaffected by updates
+            assertEquals(Integer.valueOf(i), full.get("key" + i));
+        }
+        assertSame(trie, trie.remove("missing"));
+        assertTrue(empty.isEmpty());
+    }
+
+    @Test
+    public void testCollisions() {
+        HashTrie<Key, Integer> trie = HashTrie.empty();
+        final Map<Key, Integer> expected = new HashMap<Key, Integer>();
+        final Random random = new Random(0);
+        for (int i = 0; i < 10000; i++) {
+            // Only a handful of distinct hash codes
+            final Key key = new Key(random.nextInt(1000), random.nextInt(8));
+            if (random.nextInt(4) == 0) {
+                trie = trie.remove(key);
+                expected.remove(key);
+            } else {
+                trie = trie.put(key, i);
+                expected.put(key, i);
+            }
+            assertEquals(expected.size(), trie.size());
+        }
+        for (Map.Entry<Key, Integer> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), trie.get(entry.getKey()));
+        }
+        for (Key key : expected.keySet()) {
+            trie = trie.remove(key);
+        }
+        assertTrue(trie.isEmpty());
+        assertTrue(trie.values().isEmpty());
+    }
+
+    private static final class Key {
+        private final int id;
+        private final int hash;
+
+        Key(final int id, final int hash) {
+            this.id = id;
+            this.hash = hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(final Object object) {
+            return (object instanceof Key) && ((Key) object).id == id && ((Key) object).hash == hash;
+        }
+    }
+}
@@ -21,7 +21,7 @@
  */
 package org.jboss.as.txn.ee.concurrency;
 
-import org.jboss.as.ee.concurrent.handle.ContextHandleFactory;
+import org.jboss.as.ee.concurrent.handle.InvariantContextHandleFactory;
 import org.jboss.as.ee.concurrent.handle.ResetContextHandle;
 import org.jboss.as.ee.concurrent.handle.SetupContextHandle;
 import org.jboss.as.txn.logging.TransactionLogger;
@@ -43,15 +43,15 @@ import java.util.Map;
  *
  * @author Eduardo Martins
  */
-public class TransactionLeakContextHandleFactory implements ContextHandleFactory, Injector<TransactionManager> {
+public class TransactionLeakContextHandleFactory implements InvariantContextHandleFactory, Injector<TransactionManager> {
 
     public static final String NAME = "TRANSACTION_LEAK";
 
-    private TransactionManager transactionManager;
+    private volatile TransactionManager transactionManager;
 
     @Override
     public SetupContextHandle saveContext(ContextService contextService, Map<String, String> contextObjectProperties) {
-        return new TransactionLeakSetupContextHandle(transactionManager);
+        return new TransactionLeakSetupContextHandle(this);
     }
 
     @Override
@@ -71,7 +71,7 @@ public class TransactionLeakContextHandleFactory implements ContextHandleFactory
 
     @Override
     public SetupContextHandle readSetupContextHandle(ObjectInputStream in) throws IOException, ClassNotFoundException {
-        return new TransactionLeakSetupContextHandle(transactionManager);
+        return new TransactionLeakSetupContextHandle(this);
     }
 
     @Override
@@ -86,14 +86,16 @@ public class TransactionLeakContextHandleFactory implements ContextHandleFactory
 
     private static class TransactionLeakSetupContextHandle implements SetupContextHandle {
 
-        private final TransactionManager transactionManager;
+        private final TransactionLeakContextHandleFactory factory;
 
-        private TransactionLeakSetupContextHandle(TransactionManager transactionManager) {
-            this.transactionManager = transactionManager;
+        private TransactionLeakSetupContextHandle(TransactionLeakContextHandleFactory factory) {
+            this.factory = factory;
         }
 
         @Override
         public ResetContextHandle setup() throws IllegalStateException {
+            // the handle is shared by all saved contexts, thus the transaction manager is resolved on setup
+            final TransactionManager transactionManager = factory.transactionManager;
             Transaction transactionOnSetup = null;
             if(transactionManager != null) {
                 try {
@@ -46,6 +46,7 @@ import org.jboss.dmr.ModelType;
 import org.jboss.msc.service.ServiceController;
 import org.wildfly.extension.undertow.deployment.UndertowDeploymentService;
 import org.wildfly.extension.undertow.logging.UndertowLogger;
+import org.wildfly.extension.undertow.session.DistributableSessionManagerStatistics;
 
 /**
  * @author Tomaz Cerar
@@ -131,7 +132,34 @@ public class DeploymentDefinition extends SimpleResourceDefinition {
                     case REJECTED_SESSIONS:
                         result.set(sm.getRejectedSessions());
                         break;
-                    */default:
+                    */case NEAR_CACHE_HITS:
+                        result.set((sessionManager instanceof DistributableSessionManagerStatistics) ? ((DistributableSessionManagerStatistics) sessionManager).getNearCacheHitCount() : 0L);
+                        break;
+                    case NEAR_CACHE_MISSES:
+                        result.set((sessionManager instanceof DistributableSessionManagerStatistics) ? ((DistributableSessionManagerStatistics) sessionManager).getNearCacheMissCount() : 0L);
+                        break;
+                    case PENDING_SCHEDULER_COMMANDS:
+                        result.set((sessionManager instanceof DistributableSessionManagerStatistics) ? ((DistributableSessionManagerStatistics) sessionManager).getPendingSchedulerCommands() : 0);
+                        break;
+                    case DISPATCHED_SCHEDULER_COMMANDS:
+                        result.set((sessionManager instanceof DistributableSessionManagerStatistics) ? ((DistributableSessionManagerStatistics) sessionManager).getDispatchedSchedulerCommands() : 0L);
+                        break;
+                    case SCHEDULER_COMMAND_BATCHES:
+                        result.set((sessionManager instanceof DistributableSessionManagerStatistics) ? ((DistributableSessionManagerStatistics) sessionManager).getSchedulerCommandBatches() : 0L);
+                        break;
+                    case SCHEDULER_COMMAND_OVERFLOWS:
+                        result.set((sessionManager instanceof DistributableSessionManagerStatistics) ? ((DistributableSessionManagerStatistics) sessionManager).getSchedulerCommandOverflows() : 0L);
+                        break;
+                    case WARMUP_SESSIONS:
+                        result.set((sessionManager instanceof DistributableSessionManagerStatistics) ? ((DistributableSessionManagerStatistics) sessionManager).getWarmupSessionCount() : 0L);
+                        break;
+                    case WARMED_UP_SESSIONS:
+                        result.set((sessionManager instanceof DistributableSessionManagerStatistics) ? ((DistributableSessionManagerStatistics) sessionManager).getWarmedUpSessionCount() : 0L);
+                        break;
+                    case WARMUP_COMPLETE:
+                        result.set(!(sessionManager instanceof DistributableSessionManagerStatistics) || ((DistributableSessionManagerStatistics) sessionManager).isWarmupComplete());
+                        break;
+                    default:
                         throw new IllegalStateException(UndertowLogger.ROOT_LOGGER.unknownMetric(stat));
                 }
                 context.getResult().set(result);
@@ -145,7 +173,16 @@ public class DeploymentDefinition extends SimpleResourceDefinition {
     public enum SessionStat {
         ACTIVE_SESSIONS(new SimpleAttributeDefinitionBuilder("active-sessions", ModelType.INT, false).setStorageRuntime().build()),
         //EXPIRED_SESSIONS(new SimpleAttributeDefinition("expired-sessions", ModelType.INT, false)),
-        SESSIONS_CREATED(new SimpleAttributeDefinitionBuilder("sessions-created", ModelType.INT, false).setStorageRuntime().build());
+        SESSIONS_CREATED(new SimpleAttributeDefinitionBuilder("sessions-created", ModelType.INT, false).setStorageRuntime().build()),
+        NEAR_CACHE_HITS(new SimpleAttributeDefinitionBuilder("near-cache-hits", ModelType.LONG, false).setStorageRuntime().build()),
+        NEAR_CACHE_MISSES(new SimpleAttributeDefinitionBuilder("near-cache-misses", ModelType.LONG, false).setStorageRuntime().build()),
+        PENDING_SCHEDULER_COMMANDS(new SimpleAttributeDefinitionBuilder("pending-scheduler-commands", ModelType.INT, false).setStorageRuntime().build()),
+        DISPATCHED_SCHEDULER_COMMANDS(new SimpleAttributeDefinitionBuilder("dispatched-scheduler-commands", ModelType.LONG, false).setStorageRuntime().build()),
+        SCHEDULER_COMMAND_BATCHES(new SimpleAttributeDefinitionBuilder("scheduler-command-batches", ModelType.LONG, false).setStorageRuntime().build()),
+        SCHEDULER_COMMAND_OVERFLOWS(new SimpleAttributeDefinitionBuilder("scheduler-command-overflows", ModelType.LONG, false).setStorageRuntime().build()),
+        WARMUP_SESSIONS(new SimpleAttributeDefinitionBuilder("warmup-sessions", ModelType.LONG, false).setStorageRuntime().build()),
+        WARMED_UP_SESSIONS(new SimpleAttributeDefinitionBuilder("warmed-up-sessions", ModelType.LONG, false).setStorageRuntime().build()),
+        WARMUP_COMPLETE(new SimpleAttributeDefinitionBuilder("warmup-complete", ModelType.BOOLEAN, false).setStorageRuntime().build());
         /*DUPLICATED_SESSION_IDS(new SimpleAttributeDefinition("duplicated-session-ids", ModelType.INT, false)),
         SESSION_AVG_ALIVE_TIME(new SimpleAttributeDefinition("session-avg-alive-time", ModelType.INT, false)),
         SESSION_MAX_ALIVE_TIME(new SimpleAttributeDefinition("session-max-alive-time", ModelType.INT, false)),
@@ -21,7 +21,9 @@
  */
 package org.wildfly.extension.undertow;
 
+import io.undertow.servlet.UndertowServletLogger;
 import org.jboss.as.controller.services.path.PathManager;
+import org.jboss.marshalling.ByteBufferInput;
 import org.jboss.marshalling.InputStreamByteInput;
 import org.jboss.marshalling.Marshaller;
 import org.jboss.marshalling.OutputStreamByteOutput;
@@ -30,31 +32,73 @@ import org.jboss.msc.service.StartContext;
 import org.jboss.msc.service.StartException;
 import org.jboss.msc.service.StopContext;
 import org.jboss.msc.value.InjectedValue;
+import org.jboss.threads.JBossThreadFactory;
 import org.wildfly.extension.undertow.logging.UndertowLogger;
+import org.wildfly.security.manager.action.GetAccessControlContextAction;
 import org.xnio.IoUtils;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.security.AccessController;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 /**
- * Persistent session manager that stores persistent session information to disk
+ * Persistent session manager that stores persistent session information to disk.
+ * <p>
+ * Sessions are streamed to disk one attribute at a time, as a sequence of records, rather than as a single object graph.
+ * On load, the file is first scanned to collect the attributes of each unexpired session, optionally reading the file
+ * through its channel into a bounded direct buffer, after which the attributes are unmarshalled in parallel.
+ * Files written in the previous format, i.e. a single marshalled map, are still readable.
  *
  * @author Stuart Douglas
  */
 public class DiskBasedModularPersistentSessionManager extends AbstractPersistentSessionManager {
+
+    // "WFPS"
+    private static final int MAGIC = 0x57465053;
+    private static final int VERSION = 1;
+    // Minimum number of sessions restored per thread
+    private static final int SESSIONS_PER_THREAD = 1000;
+    // Size of the direct buffer through which the file is read
+    private static final int CHUNK_SIZE = 64 * 1024;
+
     private final String path;
     private final String pathRelativeTo;
+    private final boolean directBuffer;
     private File baseDir;
     private PathManager.Callback.Handle callbackHandle;
 
     private final InjectedValue<PathManager> pathManager = new InjectedValue<PathManager>();
 
     public DiskBasedModularPersistentSessionManager(String path, String pathRelativeTo) {
+        this(path, pathRelativeTo, false);
+    }
+
+    public DiskBasedModularPersistentSessionManager(String path, String pathRelativeTo, boolean directBuffer) {
         this.path = path;
         this.pathRelativeTo = pathRelativeTo;
+        this.directBuffer = directBuffer;
     }
 
     @Override
@@ -82,25 +126,163 @@ public class DiskBasedModularPersistentSessionManager extends AbstractPersistent
         }
     }
 
-
     @Override
-    protected void persistSerializedSessions(String deploymentName, Map<String, SessionEntry> serializedData) throws IOException {
-        File file = new File(baseDir, deploymentName);
-        FileOutputStream out = new FileOutputStream(file, false);
+    public void persistSessions(String deploymentName, Map<String, PersistentSession> sessionData) {
         try {
+            File file = new File(baseDir, deploymentName);
             Marshaller marshaller = createMarshaller();
             try {
-                marshaller.start(new OutputStreamByteOutput(out));
-                marshaller.writeObject(serializedData);
-                marshaller.finish();
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, false)));
+                try {
+                    out.writeInt(MAGIC);
+                    out.writeInt(VERSION);
+                    // Reused for each attribute
+                    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+                    for (Map.Entry<String, PersistentSession> sessionEntry : sessionData.entrySet()) {
+                        out.writeBoolean(true);
+                        out.writeUTF(sessionEntry.getKey());
+                        out.writeLong(sessionEntry.getValue().getExpiration().getTime());
+                        for (Map.Entry<String, Object> sessionAttribute : sessionEntry.getValue().getSessionData().entrySet()) {
+                            buffer.reset();
+                            try {
+                                marshaller.start(new OutputStreamByteOutput(buffer));
+                                marshaller.writeObject(sessionAttribute.getValue());
+                                marshaller.finish();
+                            } catch (Exception e) {
+                                UndertowLogger.ROOT_LOGGER.failedToPersistSessionAttribute(sessionAttribute.getKey(), sessionAttribute.getValue(), sessionEntry.getKey(), e);
+                                continue;
+                            }
+                            out.writeBoolean(true);
+                            out.writeUTF(sessionAttribute.getKey());
+                            out.writeInt(buffer.size());
+                            buffer.writeTo(out);
+                        }
+                        out.writeBoolean(false);
+                    }
+                    out.writeBoolean(false);
+                } finally {
+                    IoUtils.safeClose(out);
+                }
             } finally {
                 marshaller.close();
             }
+        } catch (Exception e) {
+            UndertowServletLogger.ROOT_LOGGER.failedToPersistSessions(e);
+        }
+    }
+
+    @Override
+    protected void persistSerializedSessions(String deploymentName, Map<String, SessionEntry> serializedData) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(new File(baseDir, deploymentName), false)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            for (Map.Entry<String, SessionEntry> sessionEntry : serializedData.entrySet()) {
+                out.writeBoolean(true);
+                out.writeUTF(sessionEntry.getKey());
+                out.writeLong(sessionEntry.getValue().getExpiry().getTime());
+                for (Map.Entry<String, byte[]> sessionAttribute : sessionEntry.getValue().getData().entrySet()) {
+                    out.writeBoolean(true);
+                    out.writeUTF(sessionAttribute.getKey());
+                    out.writeInt(sessionAttribute.getValue().length);
+                    out.write(sessionAttribute.getValue());
+                }
+                out.writeBoolean(false);
+            }
+            out.writeBoolean(false);
         } finally {
             IoUtils.safeClose(out);
         }
     }
 
+    @Override
+    public Map<String, PersistentSession> loadSessionAttributes(String deploymentName, ClassLoader classLoader) {
+        File file = new File(baseDir, deploymentName);
+        if (!file.exists()) {
+            return null;
+        }
+        try {
+            List<SessionRecord> records;
+            FileInputStream in = new FileInputStream(file);
+            try {
+                // Read rather than mapped, since a mapping would keep the file locked on some platforms, preventing it from being overwritten
+                DataInputStream input = new DataInputStream(this.directBuffer ? new ChannelInputStream(in.getChannel(), ByteBuffer.allocateDirect(CHUNK_SIZE)) : new BufferedInputStream(in));
+                if (input.readInt() != MAGIC) {
+                    return super.loadSessionAttributes(deploymentName, classLoader);
+                }
+                records = readRecords(input);
+            } finally {
+                IoUtils.safeClose(in);
+            }
+            return restoreSessions(records);
+        } catch (Exception e) {
+            UndertowServletLogger.ROOT_LOGGER.failedtoLoadPersistentSessions(e);
+        }
+        return null;
+    }
+
+    /**
+     * Reads the records of all unexpired sessions, following the magic number, without unmarshalling their attributes.
+     */
+    private static List<SessionRecord> readRecords(DataInputStream input) throws IOException {
+        int version = input.readInt();
+        if (version != VERSION) {
+            throw new IOException(String.valueOf(version));
+        }
+        long now = System.currentTimeMillis();
+        List<SessionRecord> records = new ArrayList<>();
+        while (input.readBoolean()) {
+            String id = input.readUTF();
+            long expiry = input.readLong();
+            Map<String, ByteBuffer> attributes = new LinkedHashMap<>();
+            while (input.readBoolean()) {
+                String name = input.readUTF();
+                byte[] bytes = new byte[input.readInt()];
+                input.readFully(bytes);
+                attributes.put(name, ByteBuffer.wrap(bytes));
+            }
+            if (expiry > now) {
+                records.add(new SessionRecord(id, new Date(expiry), attributes));
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Unmarshals the attributes of the specified sessions, using multiple threads if there are enough sessions.
+     */
+    private Map<String, PersistentSession> restoreSessions(List<SessionRecord> records) throws Exception {
+        int threads = Math.min(Runtime.getRuntime().availableProcessors(), records.size() / SESSIONS_PER_THREAD);
+        Map<String, PersistentSession> result = new HashMap<>();
+        if (threads <= 1) {
+            result.putAll(new RestoreTask(records).call());
+            return result;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads, createThreadFactory());
+        try {
+            List<Future<Map<String, PersistentSession>>> futures = new ArrayList<>(threads);
+            int size = records.size();
+            for (int i = 0; i < threads; ++i) {
+                futures.add(executor.submit(new RestoreTask(records.subList(i * size / threads, (i + 1) * size / threads))));
+            }
+            for (Future<Map<String, PersistentSession>> future : futures) {
+                try {
+                    result.putAll(future.get());
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    throw (cause instanceof Exception) ? (Exception) cause : e;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return result;
+    }
+
+    private static ThreadFactory createThreadFactory() {
+        return new JBossThreadFactory(new ThreadGroup(DiskBasedModularPersistentSessionManager.class.getSimpleName()), Boolean.FALSE, null, "%G - %t", null, null, AccessController.doPrivileged(GetAccessControlContextAction.getInstance()));
+    }
+
     @Override
     protected Map<String, SessionEntry> loadSerializedSessions(String deploymentName) throws IOException {
         File file = new File(baseDir, deploymentName);
@@ -131,4 +313,92 @@ public class DiskBasedModularPersistentSessionManager extends AbstractPersistent
     public InjectedValue<PathManager> getPathManager() {
         return pathManager;
     }
+
+    private static class SessionRecord {
+        final String id;
+        final Date expiry;
+        final Map<String, ByteBuffer> attributes;
+
+        SessionRecord(String id, Date expiry, Map<String, ByteBuffer> attributes) {
+            this.id = id;
+            this.expiry = expiry;
+            this.attributes = attributes;
+        }
+    }
+
+    private class RestoreTask implements Callable<Map<String, PersistentSession>> {
+        private final List<SessionRecord> records;
+
+        RestoreTask(List<SessionRecord> records) {
+            this.records = records;
+        }
+
+        @Override
+        public Map<String, PersistentSession> call() throws Exception {
+            Map<String, PersistentSession> result = new HashMap<>();
+            // Unmarshallers are not thread-safe, so each task uses its own
+            Unmarshaller unmarshaller = createUnmarshaller();
+            try {
+                for (SessionRecord record : this.records) {
+                    Map<String, Object> session = new HashMap<>();
+                    for (Map.Entry<String, ByteBuffer> attribute : record.attributes.entrySet()) {
+                        unmarshaller.start(new ByteBufferInput(attribute.getValue()));
+                        session.put(attribute.getKey(), unmarshaller.readObject());
+                        unmarshaller.finish();
+                    }
+                    result.put(record.id, new PersistentSession(record.expiry, session));
+                }
+            } finally {
+                unmarshaller.close();
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Input stream that reads from a channel, one chunk at a time, through a buffer.
+     */
+    private static class ChannelInputStream extends InputStream {
+        private final ReadableByteChannel channel;
+        private final ByteBuffer buffer;
+
+        ChannelInputStream(ReadableByteChannel channel, ByteBuffer buffer) {
+            this.channel = channel;
+            this.buffer = buffer;
+            this.buffer.limit(0);
+        }
+
+        private boolean fill() throws IOException {
+            if (this.buffer.hasRemaining()) {
+                return true;
+            }
+            this.buffer.clear();
+            int count = this.channel.read(this.buffer);
+            this.buffer.flip();
+            return count > 0;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return this.fill() ? (this.buffer.get() & 0xff) : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (!this.fill()) {
+                return -1;
+            }
+            int count = Math.min(length, this.buffer.remaining());
+            this.buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return this.buffer.remaining();
+        }
+    }
 }
@@ -170,7 +170,8 @@ public class UndertowSubsystemParser_2_0 implements XMLStreamConstants, XMLEleme
                                         builder(PersistentSessionsDefinition.INSTANCE)
                                                 .addAttributes(
                                                         PersistentSessionsDefinition.PATH,
-                                                        PersistentSessionsDefinition.RELATIVE_TO
+                                                        PersistentSessionsDefinition.RELATIVE_TO,
+                                                        PersistentSessionsDefinition.DIRECT_BUFFER
                                                 )
                                 )
                 )
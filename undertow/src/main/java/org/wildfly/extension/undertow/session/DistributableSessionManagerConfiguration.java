@@ -27,6 +27,12 @@ import org.jboss.modules.Module;
 public interface DistributableSessionManagerConfiguration {
     int getMaxActiveSessions();
 
+    long getAccessTimeGranularity();
+
+    long getWarmupTimeout();
+
+    int getNearCacheSize();
+
     ReplicationGranularity getGranularity();
 
     String getDeploymentName();
@@ -0,0 +1,73 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.extension.undertow.session;
+
+/**
+ * Statistics exposed by a distributable session manager.
+ */
+public interface DistributableSessionManagerStatistics {
+
+    /**
+     * @return the number of reads of session attributes owned by other nodes that were served by the near cache
+     */
+    long getNearCacheHitCount();
+
+    /**
+     * @return the number of reads of session attributes owned by other nodes that were not served by the near cache
+     */
+    long getNearCacheMissCount();
+
+    /**
+     * @return the number of expiration/passivation commands waiting to be sent to other nodes
+     */
+    int getPendingSchedulerCommands();
+
+    /**
+     * @return the number of expiration/passivation commands sent to other nodes
+     */
+    long getDispatchedSchedulerCommands();
+
+    /**
+     * @return the number of messages used to send expiration/passivation commands to other nodes
+     */
+    long getSchedulerCommandBatches();
+
+    /**
+     * @return the number of expiration/passivation commands that had to wait to be queued, because too many commands were pending
+     */
+    long getSchedulerCommandOverflows();
+
+    /**
+     * @return the number of existing sessions submitted for rescheduling, since this node last became the owner of existing sessions
+     */
+    long getWarmupSessionCount();
+
+    /**
+     * @return the number of existing sessions rescheduled, since this node last became the owner of existing sessions
+     */
+    long getWarmedUpSessionCount();
+
+    /**
+     * @return true, if all existing sessions owned by this node were rescheduled
+     */
+    boolean isWarmupComplete();
+}
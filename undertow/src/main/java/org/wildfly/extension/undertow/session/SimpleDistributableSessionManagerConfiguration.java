@@ -21,6 +21,9 @@
  */
 package org.wildfly.extension.undertow.session;
 
+import java.util.List;
+
+import org.jboss.metadata.javaee.spec.ParamValueMetaData;
 import org.jboss.metadata.web.jboss.JBossWebMetaData;
 import org.jboss.metadata.web.jboss.ReplicationConfig;
 import org.jboss.metadata.web.jboss.ReplicationGranularity;
@@ -32,21 +35,44 @@ import org.jboss.modules.Module;
  */
 public class SimpleDistributableSessionManagerConfiguration implements DistributableSessionManagerConfiguration {
 
+    /**
+     * Context parameter specifying the granularity, in milliseconds, with which the last accessed time of a session is replicated.
+     */
+    public static final String ACCESS_TIME_GRANULARITY = "org.wildfly.clustering.web.access-time-granularity";
+
+    /**
+     * Context parameter specifying the maximum time, in milliseconds, to delay the availability of a deployment
+     * while the expiration/passivation of existing sessions is rescheduled.
+     */
+    public static final String WARMUP_TIMEOUT = "org.wildfly.clustering.web.warmup-timeout";
+
+    /**
+     * Context parameter specifying the maximum number of immutable session attributes, owned by other nodes, to cache locally.
+     * If enabled, every session attribute write or removal is followed by an invalidation message to all other nodes.
+     */
+    public static final String NEAR_CACHE_SIZE = "org.wildfly.clustering.web.near-cache-size";
+
     private final Integer maxActiveSessions;
+    private final long accessTimeGranularity;
+    private final long warmupTimeout;
+    private final int nearCacheSize;
     private final ReplicationConfig replicationConfig;
     private final String deploymentName;
     private final Module module;
 
     public SimpleDistributableSessionManagerConfiguration(JBossWebMetaData metaData, String deploymentName, Module module) {
-        this(metaData.getMaxActiveSessions(), metaData.getReplicationConfig(), deploymentName, module);
+        this(metaData.getMaxActiveSessions(), findLongParam(metaData.getContextParams(), ACCESS_TIME_GRANULARITY), findLongParam(metaData.getContextParams(), WARMUP_TIMEOUT), (int) findLongParam(metaData.getContextParams(), NEAR_CACHE_SIZE), metaData.getReplicationConfig(), deploymentName, module);
     }
 
     public SimpleDistributableSessionManagerConfiguration(SharedSessionManagerConfig config, String deploymentName, Module module) {
-        this(config.getMaxActiveSessions(), config.getReplicationConfig(), deploymentName, module);
+        this(config.getMaxActiveSessions(), 0L, 0L, 0, config.getReplicationConfig(), deploymentName, module);
     }
 
-    private SimpleDistributableSessionManagerConfiguration(Integer maxActiveSessions, ReplicationConfig replicationConfig, String deploymentName, Module module) {
+    private SimpleDistributableSessionManagerConfiguration(Integer maxActiveSessions, long accessTimeGranularity, long warmupTimeout, int nearCacheSize, ReplicationConfig replicationConfig, String deploymentName, Module module) {
         this.maxActiveSessions = maxActiveSessions;
+        this.accessTimeGranularity = accessTimeGranularity;
+        this.warmupTimeout = warmupTimeout;
+        this.nearCacheSize = nearCacheSize;
         this.replicationConfig = replicationConfig;
         this.deploymentName = deploymentName;
         this.module = module;
@@ -57,6 +83,21 @@ public class SimpleDistributableSessionManagerConfiguration implements Distribut
         return (this.maxActiveSessions != null) ? this.maxActiveSessions.intValue() : -1;
     }
 
+    @Override
+    public long getAccessTimeGranularity() {
+        return this.accessTimeGranularity;
+    }
+
+    @Override
+    public long getWarmupTimeout() {
+        return this.warmupTimeout;
+    }
+
+    @Override
+    public int getNearCacheSize() {
+        return this.nearCacheSize;
+    }
+
     @Override
     public ReplicationGranularity getGranularity() {
         return ((this.replicationConfig != null) && (this.replicationConfig.getReplicationGranularity() != null)) ? this.replicationConfig.getReplicationGranularity() : ReplicationGranularity.SESSION;
@@ -76,4 +117,15 @@ public class SimpleDistributableSessionManagerConfiguration implements Distribut
     public String getCacheName() {
         return (this.replicationConfig != null) ? this.replicationConfig.getCacheName() : null;
     }
+
+    private static long findLongParam(List<ParamValueMetaData> params, String name) {
+        if (params != null) {
+            for (ParamValueMetaData param: params) {
+                if (name.equals(param.getParamName())) {
+                    return Long.parseLong(param.getParamValue().trim());
+                }
+            }
+        }
+        return 0L;
+    }
 }
@@ -0,0 +1,267 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.extension.undertow;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.undertow.servlet.api.SessionPersistenceManager.PersistentSession;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jboss.as.controller.services.path.PathManager;
+import org.jboss.marshalling.Marshaller;
+import org.jboss.marshalling.MarshallerFactory;
+import org.jboss.marshalling.MarshallingConfiguration;
+import org.jboss.marshalling.OutputStreamByteOutput;
+import org.jboss.marshalling.Unmarshaller;
+import org.jboss.marshalling.river.RiverMarshallerFactory;
+import org.jboss.modules.ModuleLoader;
+import org.jboss.msc.service.StartContext;
+import org.jboss.msc.service.StartException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.xnio.IoUtils;
+
+/**
+ * Tests the file format of the {@link DiskBasedModularPersistentSessionManager}.
+ */
+public class DiskBasedModularPersistentSessionManagerTestCase {
+
+    private static final String DEPLOYMENT = "deployment.war";
+    private static final MarshallerFactory FACTORY = new RiverMarshallerFactory();
+    private static final MarshallingConfiguration CONFIGURATION = new MarshallingConfiguration();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void persistAndLoad() throws Exception {
+        persistAndLoad(false);
+    }
+
+    @Test
+    public void persistAndLoadDirectBuffer() throws Exception {
+        persistAndLoad(true);
+    }
+
+    private void persistAndLoad(boolean directBuffer) throws Exception {
+        File directory = folder.newFolder();
+        DiskBasedModularPersistentSessionManager manager = start(directory, directBuffer);
+        Map<String, PersistentSession> sessions = new HashMap<>();
+        sessions.put("a", session(60000L, "name", "value", "count", 1));
+        sessions.put("b", session(60000L));
+        sessions.put("expired", session(-60000L, "name", "value"));
+        manager.persistSessions(DEPLOYMENT, sessions);
+
+        Map<String, PersistentSession> result = start(directory, directBuffer).loadSessionAttributes(DEPLOYMENT, getClass().getClassLoader());
+        assertNotNull(result);
+        assertEquals(2, result.size());
+        assertFalse(result.containsKey("expired"));
+        assertEquals(sessions.get("a").getExpiration(), result.get("a").getExpiration());
+        assertEquals(sessions.get("a").getSessionData(), result.get("a").getSessionData());
+        assertTrue(result.get("b").getSessionData().isEmpty());
+    }
+
+    @Test
+    public void loadMissing() throws Exception {
+        assertNull(start(folder.newFolder(), false).loadSessionAttributes(DEPLOYMENT, getClass().getClassLoader()));
+    }
+
+    @Test
+    public void persistUnmarshallableAttribute() throws Exception {
+        File directory = folder.newFolder();
+        start(directory, false).persistSessions(DEPLOYMENT, Collections.singletonMap("a", session(60000L, "name", "value", "invalid", new Object())));
+
+        Map<String, PersistentSession> result = start(directory, false).loadSessionAttributes(DEPLOYMENT, getClass().getClassLoader());
+        // The attribute that could not be marshalled is skipped, but the rest of the session is kept
+        assertEquals(Collections.<String, Object>singletonMap("name", "value"), result.get("a").getSessionData());
+    }
+
+    @Test
+    public void loadMany() throws Exception {
+        // Enough sessions to be restored in parallel on multiple processors
+        File directory = folder.newFolder();
+        Map<String, PersistentSession> sessions = new HashMap<>();
+        for (int i = 0; i < 10000; ++i) {
+            sessions.put(String.valueOf(i), session(60000L, "index", i));
+        }
+        start(directory, true).persistSessions(DEPLOYMENT, sessions);
+
+        Map<String, PersistentSession> result = start(directory, true).loadSessionAttributes(DEPLOYMENT, getClass().getClassLoader());
+        assertEquals(sessions.size(), result.size());
+        for (int i = 0; i < 10000; ++i) {
+            assertEquals(i, result.get(String.valueOf(i)).getSessionData().get("index"));
+        }
+    }
+
+    @Test
+    public void loadLargeAttributeDirectBuffer() throws Exception {
+        // An attribute larger than the buffer through which the file is read
+        File directory = folder.newFolder();
+        byte[] value = new byte[1024 * 1024];
+        for (int i = 0; i < value.length; ++i) {
+            value[i] = (byte) i;
+        }
+        start(directory, true).persistSessions(DEPLOYMENT, Collections.singletonMap("a", session(60000L, "value", value, "name", "value")));
+
+        Map<String, PersistentSession> result = start(directory, true).loadSessionAttributes(DEPLOYMENT, getClass().getClassLoader());
+        assertArrayEquals(value, (byte[]) result.get("a").getSessionData().get("value"));
+        assertEquals("value", result.get("a").getSessionData().get("name"));
+    }
+
+    @Test
+    public void persistSerializedSessions() throws Exception {
+        File directory = folder.newFolder();
+        final DiskBasedModularPersistentSessionManager manager = start(directory, false);
+        Map<String, PersistentSession> sessions = new HashMap<>();
+        sessions.put("a", session(60000L, "name", "value", "count", 1));
+        sessions.put("expired", session(-60000L, "name", "value"));
+        // Serializes the sessions using the base implementation, then stores them using the subclass
+        AbstractPersistentSessionManager serializer = new AbstractPersistentSessionManager() {
+            @Override
+            protected void persistSerializedSessions(String deploymentName, Map<String, SessionEntry> serializedData) throws IOException {
+                manager.persistSerializedSessions(deploymentName, serializedData);
+            }
+
+            @Override
+            protected Map<String, SessionEntry> loadSerializedSessions(String deploymentName) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            protected Marshaller createMarshaller() throws IOException {
+                return FACTORY.createMarshaller(CONFIGURATION);
+            }
+        };
+        serializer.persistSessions(DEPLOYMENT, sessions);
+
+        Map<String, PersistentSession> result = start(directory, true).loadSessionAttributes(DEPLOYMENT, getClass().getClassLoader());
+        assertEquals(Collections.singleton("a"), result.keySet());
+        assertEquals(sessions.get("a").getSessionData(), result.get("a").getSessionData());
+    }
+
+    @Test
+    public void overwriteAfterLoad() throws Exception {
+        File directory = folder.newFolder();
+        DiskBasedModularPersistentSessionManager manager = start(directory, true);
+        manager.persistSessions(DEPLOYMENT, Collections.singletonMap("a", session(60000L, "name", "first")));
+        assertEquals("first", manager.loadSessionAttributes(DEPLOYMENT, getClass().getClassLoader()).get("a").getSessionData().get("name"));
+
+        // The file must not be held open by the previous load
+        manager.persistSessions(DEPLOYMENT, Collections.singletonMap("a", session(60000L, "name", "second")));
+        assertEquals("second", manager.loadSessionAttributes(DEPLOYMENT, getClass().getClassLoader()).get("a").getSessionData().get("name"));
+    }
+
+    @Test
+    public void loadLegacyFormat() throws Exception {
+        loadLegacyFormat(false);
+    }
+
+    @Test
+    public void loadLegacyFormatDirectBuffer() throws Exception {
+        loadLegacyFormat(true);
+    }
+
+    private void loadLegacyFormat(boolean directBuffer) throws Exception {
+        final File directory = folder.newFolder();
+        Map<String, PersistentSession> sessions = new HashMap<>();
+        sessions.put("a", session(60000L, "name", "value"));
+        sessions.put("expired", session(-60000L, "name", "value"));
+        // Writes a single marshalled map, as previous releases did
+        AbstractPersistentSessionManager legacy = new AbstractPersistentSessionManager() {
+            @Override
+            protected void persistSerializedSessions(String deploymentName, Map<String, SessionEntry> serializedData) throws IOException {
+                FileOutputStream out = new FileOutputStream(new File(directory, deploymentName));
+                try {
+                    Marshaller marshaller = this.createMarshaller();
+                    try {
+                        marshaller.start(new OutputStreamByteOutput(out));
+                        marshaller.writeObject(serializedData);
+                        marshaller.finish();
+                    } finally {
+                        marshaller.close();
+                    }
+                } finally {
+                    IoUtils.safeClose(out);
+                }
+            }
+
+            @Override
+            protected Map<String, SessionEntry> loadSerializedSessions(String deploymentName) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            protected Marshaller createMarshaller() throws IOException {
+                return FACTORY.createMarshaller(CONFIGURATION);
+            }
+        };
+        legacy.persistSessions(DEPLOYMENT, sessions);
+
+        Map<String, PersistentSession> result = start(directory, directBuffer).loadSessionAttributes(DEPLOYMENT, getClass().getClassLoader());
+        assertNotNull(result);
+        assertEquals(Collections.singleton("a"), result.keySet());
+        assertEquals(sessions.get("a").getSessionData(), result.get("a").getSessionData());
+    }
+
+    private static PersistentSession session(long timeout, Object... attributes) {
+        Map<String, Object> data = new HashMap<>();
+        for (int i = 0; i < attributes.length; i += 2) {
+            data.put((String) attributes[i], attributes[i + 1]);
+        }
+        return new PersistentSession(new Date(System.currentTimeMillis() + timeout), data);
+    }
+
+    private static DiskBasedModularPersistentSessionManager start(File directory, boolean directBuffer) throws StartException {
+        DiskBasedModularPersistentSessionManager manager = new DiskBasedModularPersistentSessionManager(directory.getName(), null, directBuffer) {
+            @Override
+            protected Marshaller createMarshaller() throws IOException {
+                return FACTORY.createMarshaller(CONFIGURATION);
+            }
+
+            @Override
+            protected Unmarshaller createUnmarshaller() throws IOException {
+                return FACTORY.createUnmarshaller(CONFIGURATION);
+            }
+        };
+        PathManager pathManager = mock(PathManager.class);
+        when(pathManager.resolveRelativePathEntry(directory.getName(), null)).thenReturn(directory.getAbsolutePath());
+        manager.getPathManager().inject(pathManager);
+        manager.getModuleLoaderInjectedValue().inject(mock(ModuleLoader.class));
+        manager.start(mock(StartContext.class));
+        return manager;
+    }
+}